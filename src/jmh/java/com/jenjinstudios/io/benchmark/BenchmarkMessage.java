@@ -0,0 +1,33 @@
+package com.jenjinstudios.io.benchmark;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+
+import java.util.Arrays;
+
+/**
+ * A message with a payload of a fixed size, used by the benchmarks.  When executed it returns itself, so that it is
+ * echoed back when sent as a request; it should not be sent otherwise, or it would be echoed back and forth forever.
+ *
+ * @author Caleb Brinkman
+ */
+public class BenchmarkMessage implements Message
+{
+    private String payload;
+
+    /**
+     * Construct a new BenchmarkMessage with a payload of the given number of characters.
+     *
+     * @param payloadSize The number of characters in the payload.
+     */
+    public BenchmarkMessage(int payloadSize) {
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        payload = new String(chars);
+    }
+
+    public String getPayload() { return payload; }
+
+    @Override
+    public Message execute(ExecutionContext context) { return this; }
+}
@@ -0,0 +1,81 @@
+package com.jenjinstudios.io.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.serialization.GsonMessageDeserializer;
+import com.jenjinstudios.io.serialization.GsonMessageReader;
+import com.jenjinstudios.io.serialization.GsonMessageSerializer;
+import com.jenjinstudios.io.serialization.GsonMessageWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding messages of several sizes, both through the Gson MessageReader and
+ * MessageWriter and through the Gson serializer and deserializer alone.
+ *
+ * @author Caleb Brinkman
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark
+{
+    @Param({"16", "512", "8192"})
+    private int payloadSize;
+    private Message message;
+    private Gson gson;
+    private JsonElement json;
+    private ByteArrayOutputStream output;
+    private MessageWriter writer;
+    private ByteArrayInputStream input;
+    private MessageReader reader;
+
+    @Setup
+    public void setup() throws IOException {
+        message = new BenchmarkMessage(payloadSize);
+        gson = new GsonBuilder()
+              .registerTypeAdapter(Message.class, new GsonMessageSerializer())
+              .registerTypeAdapter(Message.class, new GsonMessageDeserializer())
+              .create();
+        json = gson.toJsonTree(message, Message.class);
+        output = new ByteArrayOutputStream(payloadSize * 2);
+        writer = new GsonMessageWriter(output);
+        writer.write(message);
+        input = new ByteArrayInputStream(output.toByteArray());
+        reader = new GsonMessageReader(input);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() throws IOException {
+        output.reset();
+        writer.write(message);
+        return output;
+    }
+
+    @Benchmark
+    public Message read() throws IOException {
+        input.reset();
+        return reader.read();
+    }
+
+    @Benchmark
+    public JsonElement serialize() { return gson.toJsonTree(message, Message.class); }
+
+    @Benchmark
+    public Message deserialize() { return gson.fromJson(json, Message.class); }
+}
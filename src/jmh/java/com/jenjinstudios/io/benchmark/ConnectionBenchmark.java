@@ -0,0 +1,87 @@
+package com.jenjinstudios.io.benchmark;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.connection.Connection;
+import com.jenjinstudios.io.connection.ConnectionBuilder;
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory;
+import com.jenjinstudios.io.server.Server;
+import com.jenjinstudios.io.server.ServerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end path through a Server and a client Connection over loopback: the latency of a single
+ * request and its echoed response, and the throughput of many requests in flight at once.
+ *
+ * @author Caleb Brinkman
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConnectionBenchmark
+{
+    private static final int PIPELINED_REQUESTS = 100;
+    private static final long TIMEOUT = 10;
+    @Param({"16", "1024"})
+    private int payloadSize;
+    private Server<ExecutionContext> server;
+    private Connection<ExecutionContext> client;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        ConnectionBuilder<ExecutionContext> serverConnections = new ConnectionBuilder<ExecutionContext>()
+              .withMessageIOFactory(new GsonMessageIOFactory())
+              .withExecutionContextFactory(() -> new ExecutionContext() { });
+        server = new ServerBuilder<ExecutionContext>()
+              .withServerSocket(serverSocket)
+              .withMultiConnectionBuilder(serverConnections)
+              .build();
+        server.start();
+        client = new ConnectionBuilder<ExecutionContext>()
+              .withMessageIOFactory(new GsonMessageIOFactory())
+              .withExecutionContextFactory(() -> new ExecutionContext() { })
+              .build(new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort()));
+        client.start();
+        message = new BenchmarkMessage(payloadSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.stop();
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Message roundTrip() throws Exception {
+        return client.request(message, TIMEOUT, TimeUnit.SECONDS).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(PIPELINED_REQUESTS)
+    public void pipelined() throws Exception {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[PIPELINED_REQUESTS];
+        for (int i = 0; i < PIPELINED_REQUESTS; i++) {
+            responses[i] = client.request(message, TIMEOUT, TimeUnit.SECONDS);
+        }
+        CompletableFuture.allOf(responses).get();
+    }
+}
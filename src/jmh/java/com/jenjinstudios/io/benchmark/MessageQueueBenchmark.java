@@ -0,0 +1,76 @@
+package com.jenjinstudios.io.benchmark;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the incoming and outgoing sides of a MessageQueue, with one producer and with several
+ * producers contending for the queue while a single consumer drains it, as the read, write and execution threads of a
+ * Connection do.
+ *
+ * @author Caleb Brinkman
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageQueueBenchmark
+{
+    private final Message message = new BenchmarkMessage(16);
+    private MessageQueue<ExecutionContext> queue;
+
+    @Setup
+    public void setup() { queue = new MessageQueue<>(); }
+
+    @Benchmark
+    @Group("incomingSingleProducer")
+    @GroupThreads(1)
+    public void receiveSingle() { queue.messageReceived(message); }
+
+    @Benchmark
+    @Group("incomingSingleProducer")
+    @GroupThreads(1)
+    public List<Message> drainIncomingSingle() { return queue.getIncomingAndClear(); }
+
+    @Benchmark
+    @Group("incomingMultiProducer")
+    @GroupThreads(4)
+    public void receiveMulti() { queue.messageReceived(message); }
+
+    @Benchmark
+    @Group("incomingMultiProducer")
+    @GroupThreads(1)
+    public List<Message> drainIncomingMulti() { return queue.getIncomingAndClear(); }
+
+    @Benchmark
+    @Group("outgoingSingleProducer")
+    @GroupThreads(1)
+    public void sendSingle() { queue.queueOutgoing(message); }
+
+    @Benchmark
+    @Group("outgoingSingleProducer")
+    @GroupThreads(1)
+    public List<Message> drainOutgoingSingle() { return queue.getOutgoingAndClear(); }
+
+    @Benchmark
+    @Group("outgoingMultiProducer")
+    @GroupThreads(4)
+    public void sendMulti() { queue.queueOutgoing(message); }
+
+    @Benchmark
+    @Group("outgoingMultiProducer")
+    @GroupThreads(1)
+    public List<Message> drainOutgoingMulti() { return queue.getOutgoingAndClear(); }
+}
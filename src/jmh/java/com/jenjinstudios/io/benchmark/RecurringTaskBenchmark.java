@@ -0,0 +1,57 @@
+package com.jenjinstudios.io.benchmark;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.concurrency.ExecutionTask;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+import com.jenjinstudios.io.concurrency.RecurringTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a turn of an ExecutionTask with no messages to execute, which is dominated by scanning its
+ * recurring tasks for any which are due.  None of the tasks is ever due, so only the scan is measured.
+ *
+ * @author Caleb Brinkman
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecurringTaskBenchmark
+{
+    @Param({"1", "100", "10000"})
+    private int taskCount;
+    private ExecutionTask<ExecutionContext> executionTask;
+
+    @Setup
+    public void setup() {
+        Collection<RecurringTask<ExecutionContext>> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(new RecurringTask<ExecutionContext>(TimeUnit.DAYS)
+            {
+                @Override
+                public void execute(ExecutionContext context) { }
+            });
+        }
+        ExecutionContext context = new ExecutionContext() { };
+        executionTask = new ExecutionTask<>(new MessageQueue<>(tasks), context, Collections.emptyList());
+        // The first turn executes every task, after which none is due for a day
+        executionTask.run();
+    }
+
+    @Benchmark
+    public ExecutionTask<ExecutionContext> scan() {
+        executionTask.run();
+        return executionTask;
+    }
+}
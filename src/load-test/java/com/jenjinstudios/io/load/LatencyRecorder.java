@@ -0,0 +1,72 @@
+package com.jenjinstudios.io.load;
+
+import com.jenjinstudios.io.metrics.HistogramSnapshot;
+import com.jenjinstudios.io.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the outcome of every request sent by the simulated clients, both in total and for the current reporting
+ * interval.
+ * <p>
+ * Latency is measured from when each request was <i>scheduled</i> to be sent rather than from when it was actually
+ * sent, so that a stall which delays sending is counted against every request it delays; otherwise a stalled server
+ * would appear to be slow for only the few requests in flight when it stalled, which is known as coordinated omission.
+ *
+ * @author Caleb Brinkman
+ */
+class LatencyRecorder
+{
+    private final AtomicReference<LatencyHistogram> total = new AtomicReference<>(new LatencyHistogram());
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    void sent() { sent.increment(); }
+
+    /**
+     * Record the completion of a request.
+     *
+     * @param intendedNanos The time at which the request was scheduled to be sent.
+     * @param failure The reason the request failed, such as a timeout; null if it was answered.
+     * @param clientStopped Whether the client which sent the request has since been stopped, in which case a failure
+     * is expected and not counted as one.
+     */
+    void completed(long intendedNanos, Throwable failure, boolean clientStopped) {
+        if (failure == null) {
+            long latency = System.nanoTime() - intendedNanos;
+            total.get().record(latency);
+            interval.get().record(latency);
+            completed.increment();
+        } else if (clientStopped) {
+            abandoned.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Begin a new reporting interval.
+     *
+     * @return The latencies recorded during the interval which has ended.
+     */
+    HistogramSnapshot nextInterval() { return interval.getAndSet(new LatencyHistogram()).snapshot(); }
+
+    /**
+     * Discard the latencies recorded so far, such as those recorded during ramp-up; counts are not reset.
+     */
+    void resetTotal() { total.set(new LatencyHistogram()); }
+
+    HistogramSnapshot getTotal() { return total.get().snapshot(); }
+
+    long getSent() { return sent.sum(); }
+
+    long getCompleted() { return completed.sum(); }
+
+    long getFailed() { return failed.sum(); }
+
+    long getAbandoned() { return abandoned.sum(); }
+}
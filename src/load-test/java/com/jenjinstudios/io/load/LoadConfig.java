@@ -0,0 +1,217 @@
+package com.jenjinstudios.io.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shape of the load generated by a LoadTest.
+ *
+ * @author Caleb Brinkman
+ */
+public class LoadConfig
+{
+    private int clients = 1000;
+    private double ratePerClient = 10;
+    private long rampUpNanos = TimeUnit.SECONDS.toNanos(10);
+    private long durationNanos = TimeUnit.SECONDS.toNanos(60);
+    private double churnPerSecond;
+    private int executionThreads = Runtime.getRuntime().availableProcessors();
+    private long timeoutNanos = TimeUnit.SECONDS.toNanos(10);
+    private MessageMix mix = MessageMix.parse("90:32,10:1024");
+
+    /**
+     * Parse a LoadConfig from command line arguments of the form {@code --name value}; any setting which is not given
+     * keeps its default.  The names are {@code clients}, {@code rate} (requests per second per client), {@code
+     * ramp-up}, {@code duration} and {@code timeout} (in seconds), {@code churn} (clients replaced per second), {@code
+     * threads} (execution threads on each side) and {@code mix} (see {@link MessageMix#parse(String)}).
+     *
+     * @param args The arguments.
+     *
+     * @return The parsed LoadConfig.
+     *
+     * @throws IllegalArgumentException If an argument is unknown or malformed.
+     */
+    public static LoadConfig parse(String... args) {
+        LoadConfig config = new LoadConfig();
+        if ((args.length % 2) != 0) {
+            throw new IllegalArgumentException("Expected --name value pairs");
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            try {
+                switch (args[i]) {
+                    case "--clients":
+                        config.withClients(Integer.parseInt(value));
+                        break;
+                    case "--rate":
+                        config.withRatePerClient(Double.parseDouble(value));
+                        break;
+                    case "--ramp-up":
+                        config.withRampUp(Long.parseLong(value), TimeUnit.SECONDS);
+                        break;
+                    case "--duration":
+                        config.withDuration(Long.parseLong(value), TimeUnit.SECONDS);
+                        break;
+                    case "--timeout":
+                        config.withTimeout(Long.parseLong(value), TimeUnit.SECONDS);
+                        break;
+                    case "--churn":
+                        config.withChurn(Double.parseDouble(value));
+                        break;
+                    case "--threads":
+                        config.withExecutionThreads(Integer.parseInt(value));
+                        break;
+                    case "--mix":
+                        config.withMix(MessageMix.parse(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed value for " + args[i] + ": " + value, e);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Set the number of simulated clients.
+     *
+     * @param count The number of clients.
+     *
+     * @return This LoadConfig.
+     *
+     * @throws IllegalArgumentException If the count is not positive.
+     */
+    public LoadConfig withClients(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Client count must be positive");
+        }
+        clients = count;
+        return this;
+    }
+
+    /**
+     * Set the rate at which each client sends requests.  Requests are sent on a fixed schedule, regardless of how
+     * long earlier requests take to be answered.
+     *
+     * @param perSecond The number of requests per second.
+     *
+     * @return This LoadConfig.
+     *
+     * @throws IllegalArgumentException If the rate is not positive.
+     */
+    public LoadConfig withRatePerClient(double perSecond) {
+        if (perSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        ratePerClient = perSecond;
+        return this;
+    }
+
+    /**
+     * Set the time over which clients are connected, at an even pace, before the test begins.
+     *
+     * @param time The ramp-up time.
+     * @param timeUnit The unit of {@code time}.
+     *
+     * @return This LoadConfig.
+     */
+    public LoadConfig withRampUp(long time, TimeUnit timeUnit) {
+        rampUpNanos = timeUnit.toNanos(Math.max(time, 0));
+        return this;
+    }
+
+    /**
+     * Set the time for which load is generated once every client is connected.
+     *
+     * @param time The duration.
+     * @param timeUnit The unit of {@code time}.
+     *
+     * @return This LoadConfig.
+     *
+     * @throws IllegalArgumentException If the duration is not positive.
+     */
+    public LoadConfig withDuration(long time, TimeUnit timeUnit) {
+        if (time <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        durationNanos = timeUnit.toNanos(time);
+        return this;
+    }
+
+    /**
+     * Set the time after which an unanswered request is counted as timed out.
+     *
+     * @param time The timeout.
+     * @param timeUnit The unit of {@code time}.
+     *
+     * @return This LoadConfig.
+     *
+     * @throws IllegalArgumentException If the timeout is not positive.
+     */
+    public LoadConfig withTimeout(long time, TimeUnit timeUnit) {
+        if (time <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        timeoutNanos = timeUnit.toNanos(time);
+        return this;
+    }
+
+    /**
+     * Set the number of clients which are disconnected and replaced by new clients each second once every client is
+     * connected.
+     *
+     * @param perSecond The number of clients replaced per second; zero for none.
+     *
+     * @return This LoadConfig.
+     */
+    public LoadConfig withChurn(double perSecond) {
+        churnPerSecond = Math.max(perSecond, 0);
+        return this;
+    }
+
+    /**
+     * Set the number of threads on which the server, and separately the clients, execute messages.
+     *
+     * @param threads The number of threads.
+     *
+     * @return This LoadConfig.
+     *
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     */
+    public LoadConfig withExecutionThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        executionThreads = threads;
+        return this;
+    }
+
+    /**
+     * Set the messages sent by each client.
+     *
+     * @param messageMix The message mix.
+     *
+     * @return This LoadConfig.
+     */
+    public LoadConfig withMix(MessageMix messageMix) {
+        mix = messageMix;
+        return this;
+    }
+
+    public int getClients() { return clients; }
+
+    public double getRatePerClient() { return ratePerClient; }
+
+    public long getRampUpNanos() { return rampUpNanos; }
+
+    public long getDurationNanos() { return durationNanos; }
+
+    public long getTimeoutNanos() { return timeoutNanos; }
+
+    public double getChurnPerSecond() { return churnPerSecond; }
+
+    public int getExecutionThreads() { return executionThreads; }
+
+    public MessageMix getMix() { return mix; }
+}
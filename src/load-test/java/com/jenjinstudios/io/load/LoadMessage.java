@@ -0,0 +1,33 @@
+package com.jenjinstudios.io.load;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+
+import java.util.Arrays;
+
+/**
+ * A message with a payload of a fixed size, sent by simulated clients.  When executed it returns itself, so that it is
+ * echoed back as the response to the request in which it was sent.
+ *
+ * @author Caleb Brinkman
+ */
+public class LoadMessage implements Message
+{
+    private String payload;
+
+    /**
+     * Construct a new LoadMessage with a payload of the given number of characters.
+     *
+     * @param payloadSize The number of characters in the payload.
+     */
+    public LoadMessage(int payloadSize) {
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        payload = new String(chars);
+    }
+
+    public int getPayloadSize() { return payload.length(); }
+
+    @Override
+    public Message execute(ExecutionContext context) { return this; }
+}
@@ -0,0 +1,223 @@
+package com.jenjinstudios.io.load;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.concurrency.ExecutionScheduler;
+import com.jenjinstudios.io.connection.Connection;
+import com.jenjinstudios.io.connection.ConnectionBuilder;
+import com.jenjinstudios.io.metrics.HistogramSnapshot;
+import com.jenjinstudios.io.metrics.MetricsRegistry;
+import com.jenjinstudios.io.metrics.MetricsSnapshot;
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory;
+import com.jenjinstudios.io.server.Server;
+import com.jenjinstudios.io.server.ServerBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives many simulated clients against a local Server over loopback, and reports throughput, connection counts and
+ * latency percentiles; used for capacity planning.
+ * <p>
+ * Clients are connected at an even pace over the ramp-up time, after which load is generated for the configured
+ * duration, optionally replacing some clients with new ones every second.  Each client sends requests from the
+ * message mix at a fixed rate and the server echoes them back; latency is corrected for coordinated omission, and the
+ * summary covers only the time after ramp-up.  Run it with, for example:
+ * <pre>
+ * ./gradlew loadTest -PloadArgs="--clients 2000 --rate 5 --ramp-up 20 --duration 60 --churn 10 --mix 90:32,10:4096"
+ * </pre>
+ *
+ * @author Caleb Brinkman
+ */
+public final class LoadTest
+{
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long REPORT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int QUANTUM = 16;
+    private static final int BACKLOG = 1024;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private final LoadConfig config;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<SimulatedClient> clients = new ArrayList<>();
+    private ConnectionBuilder<ExecutionContext> clientBuilder;
+    private ServerSocket serverSocket;
+    private long connected;
+    private long connectFailures;
+
+    /**
+     * Construct a new LoadTest.
+     *
+     * @param config The shape of the load to generate.
+     */
+    public LoadTest(LoadConfig config) { this.config = config; }
+
+    /**
+     * Run a load test configured by the given arguments, as described by {@link LoadConfig#parse(String...)}.
+     *
+     * @param args The arguments.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    public static void main(String... args) throws IOException {
+        new LoadTest(LoadConfig.parse(args)).run(System.out);
+    }
+
+    /**
+     * Run the load test, reporting progress once a second and a summary at the end.
+     *
+     * @param out The destination of the reports.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    public void run(PrintStream out) throws IOException {
+        ExecutionScheduler serverScheduler = createScheduler();
+        ExecutionScheduler clientScheduler = createScheduler();
+        MetricsRegistry serverMetrics = new MetricsRegistry();
+        serverSocket = new ServerSocket(0, BACKLOG, InetAddress.getLoopbackAddress());
+        Server<ExecutionContext> server = new ServerBuilder<ExecutionContext>()
+              .withServerSocket(serverSocket)
+              .withMultiConnectionBuilder(createConnectionBuilder(serverScheduler))
+              .withMetrics(serverMetrics)
+              .build();
+        clientBuilder = createConnectionBuilder(clientScheduler);
+        server.start();
+        try {
+            generate(server, out);
+        } finally {
+            clients.forEach(SimulatedClient::stop);
+            server.stop();
+            clientScheduler.stop();
+            serverScheduler.stop();
+        }
+        summarize(server.getMetrics(), out);
+    }
+
+    private void generate(Server<ExecutionContext> server, PrintStream out) {
+        out.println("   time  clients  server   sent/s   done/s  failed  p50(ms)  p90(ms)  p99(ms) p99.9(ms)  max(ms)");
+        long start = System.nanoTime();
+        long end = start + config.getRampUpNanos() + config.getDurationNanos();
+        long nextReport = start + REPORT_NANOS;
+        long lastSent = 0;
+        long lastCompleted = 0;
+        boolean rampedUp = false;
+        double churnDebt = 0;
+        long now = start;
+        long previous = start;
+        while (now < end) {
+            long elapsed = now - start;
+            if (!rampedUp && (elapsed >= config.getRampUpNanos())) {
+                rampedUp = true;
+                recorder.resetTotal();
+            }
+            connectUpTo(rampedUp ? config.getClients() : (int) ((config.getClients() * elapsed)
+                  / config.getRampUpNanos()), now);
+            if (rampedUp && (config.getChurnPerSecond() > 0)) {
+                churnDebt += (config.getChurnPerSecond() * (now - previous)) / TimeUnit.SECONDS.toNanos(1);
+                for (; churnDebt >= 1; churnDebt--) {
+                    replaceRandomClient(now);
+                }
+            }
+            for (SimulatedClient client : clients) {
+                client.sendDue(now, config.getMix(), config.getTimeoutNanos(), recorder);
+            }
+            if (now >= nextReport) {
+                long sent = recorder.getSent();
+                long completed = recorder.getCompleted();
+                out.printf("%6ds %8d %7d %8d %8d %7d %s%n", TimeUnit.NANOSECONDS.toSeconds(elapsed), clients.size(),
+                      server.getConnectionCount(), sent - lastSent, completed - lastCompleted, recorder.getFailed(),
+                      formatPercentiles(recorder.nextInterval()));
+                lastSent = sent;
+                lastCompleted = completed;
+                nextReport += REPORT_NANOS;
+            }
+            LockSupport.parkNanos(TICK_NANOS);
+            previous = now;
+            now = System.nanoTime();
+        }
+    }
+
+    private void summarize(MetricsSnapshot serverMetrics, PrintStream out) {
+        HistogramSnapshot total = recorder.getTotal();
+        double seconds = config.getDurationNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        out.println();
+        out.printf("Clients: %d, connected %d times (%d failed to connect)%n", config.getClients(), connected,
+              connectFailures);
+        out.printf("Requests: %d sent, %d answered, %d failed, %d abandoned by stopped clients%n", recorder.getSent(),
+              recorder.getCompleted(), recorder.getFailed(), recorder.getAbandoned());
+        out.printf("Throughput after ramp-up: %.1f responses/s%n", total.getCount() / seconds);
+        out.println("Latency after ramp-up (ms):  p50      p90      p99    p99.9      max");
+        out.println("                          " + formatPercentiles(total));
+        out.println("Server decode:     " + serverMetrics.getDecode());
+        out.println("Server queue wait: " + serverMetrics.getQueueWait());
+        out.println("Server execution:  " + serverMetrics.getExecution());
+        out.println("Server write:      " + serverMetrics.getWrite());
+    }
+
+    private void connectUpTo(int target, long now) {
+        while (clients.size() < target) {
+            SimulatedClient client = connect(now);
+            if (client == null) {
+                return;
+            }
+            clients.add(client);
+        }
+    }
+
+    private void replaceRandomClient(long now) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        int index = ThreadLocalRandom.current().nextInt(clients.size());
+        clients.get(index).stop();
+        SimulatedClient replacement = connect(now);
+        if (replacement != null) {
+            clients.set(index, replacement);
+        } else {
+            clients.remove(index);
+        }
+    }
+
+    private SimulatedClient connect(long now) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRatePerClient());
+        try {
+            Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+            Connection<ExecutionContext> connection = clientBuilder.build(socket);
+            connection.start();
+            connected++;
+            // Spread the first request of each client over one interval, so clients do not send in lockstep
+            return new SimulatedClient(connection, now + ThreadLocalRandom.current().nextLong(interval), interval);
+        } catch (IOException e) {
+            connectFailures++;
+            return null;
+        }
+    }
+
+    private ExecutionScheduler createScheduler() {
+        ExecutionScheduler scheduler = new ExecutionScheduler(config.getExecutionThreads(), QUANTUM, 5,
+              TimeUnit.MILLISECONDS);
+        scheduler.start();
+        return scheduler;
+    }
+
+    private static ConnectionBuilder<ExecutionContext> createConnectionBuilder(ExecutionScheduler scheduler) {
+        return new ConnectionBuilder<>()
+              .withMessageIOFactory(new GsonMessageIOFactory())
+              .withExecutionContextFactory(() -> new ExecutionContext() { })
+              .withExecutionScheduler(scheduler);
+    }
+
+    private static String formatPercentiles(HistogramSnapshot snapshot) {
+        StringBuilder builder = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            builder.append(String.format(" %8.2f", snapshot.getPercentileNanos(percentile) / 1e6));
+        }
+        return builder.append(String.format(" %8.2f", snapshot.getMaxNanos() / 1e6)).toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.jenjinstudios.io.load;
+
+import com.jenjinstudios.io.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The messages sent by simulated clients, each chosen at random in proportion to its weight.
+ *
+ * @author Caleb Brinkman
+ */
+public class MessageMix
+{
+    private final List<Message> messages = new ArrayList<>(10);
+    private final List<Integer> cumulativeWeights = new ArrayList<>(10);
+    private int totalWeight;
+
+    /**
+     * Parse a message mix from a comma-separated list of {@code weight:payloadSize} pairs, such as {@code
+     * 90:32,10:4096} for nine small messages to every large one.
+     *
+     * @param spec The mix.
+     *
+     * @return The parsed MessageMix.
+     *
+     * @throws IllegalArgumentException If the mix is malformed.
+     */
+    public static MessageMix parse(String spec) {
+        MessageMix mix = new MessageMix();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected weight:payloadSize, found " + entry);
+            }
+            try {
+                mix.withMessage(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected weight:payloadSize, found " + entry, e);
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Add a message with a payload of the given size to this mix.
+     *
+     * @param weight The relative frequency with which the message is sent.
+     * @param payloadSize The number of characters in the payload of the message.
+     *
+     * @return This MessageMix.
+     *
+     * @throws IllegalArgumentException If the weight is not positive, or the payload size is negative.
+     */
+    public MessageMix withMessage(int weight, int payloadSize) {
+        if ((weight <= 0) || (payloadSize < 0)) {
+            throw new IllegalArgumentException("Weight must be positive and payload size must not be negative");
+        }
+        totalWeight += weight;
+        messages.add(new LoadMessage(payloadSize));
+        cumulativeWeights.add(totalWeight);
+        return this;
+    }
+
+    /**
+     * Choose the next message to send.
+     *
+     * @return The message.
+     */
+    public Message next() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        int i = 0;
+        while (cumulativeWeights.get(i) <= roll) {
+            i++;
+        }
+        return messages.get(i);
+    }
+}
@@ -0,0 +1,49 @@
+package com.jenjinstudios.io.load;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.connection.Connection;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client which sends requests on a fixed schedule, regardless of how long earlier requests take to be answered.
+ *
+ * @author Caleb Brinkman
+ */
+class SimulatedClient
+{
+    private final Connection<ExecutionContext> connection;
+    private final long intervalNanos;
+    private volatile boolean stopped;
+    // Only accessed from the load generator thread
+    private long nextIntended;
+
+    SimulatedClient(Connection<ExecutionContext> connection, long firstIntended, long intervalNanos) {
+        this.connection = connection;
+        this.nextIntended = firstIntended;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Send every request scheduled at or before the given time which has not yet been sent.
+     *
+     * @param now The current time, in nanoseconds.
+     * @param mix The messages from which each request is chosen.
+     * @param timeoutNanos The time after which an unanswered request fails.
+     * @param recorder Records the outcome of each request.
+     */
+    void sendDue(long now, MessageMix mix, long timeoutNanos, LatencyRecorder recorder) {
+        while (nextIntended <= now) {
+            long intended = nextIntended;
+            nextIntended += intervalNanos;
+            recorder.sent();
+            connection.request(mix.next(), timeoutNanos, TimeUnit.NANOSECONDS)
+                  .whenComplete((response, failure) -> recorder.completed(intended, failure, stopped));
+        }
+    }
+
+    void stop() {
+        stopped = true;
+        connection.stop();
+    }
+}
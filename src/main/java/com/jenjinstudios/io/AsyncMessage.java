@@ -0,0 +1,29 @@
+package com.jenjinstudios.io;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A Message whose execution may complete asynchronously, such as one which performs a database lookup or calls an
+ * Authenticator; the thread executing messages for the connection is released as soon as {@code executeAsync} returns,
+ * rather than being blocked until the work is done.
+ * <p>
+ * {@code executeAsync} is invoked on the execution thread, so it may safely read and modify the ExecutionContext; the
+ * returned stage, however, may complete on any thread, and any work chained onto it should not modify the
+ * ExecutionContext without synchronization.
+ *
+ * @author Caleb Brinkman
+ */
+public interface AsyncMessage<C extends ExecutionContext> extends Message<C>
+{
+    /**
+     * Begin executing any actions required by the message.
+     *
+     * @param context The context in which this message should execute.
+     *
+     * @return A stage which completes with the response to the message, or with null for no response.
+     */
+    CompletionStage<Message> executeAsync(C context);
+
+    @Override
+    default Message execute(C context) { return executeAsync(context).toCompletableFuture().join(); }
+}
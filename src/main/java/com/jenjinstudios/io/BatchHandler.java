@@ -0,0 +1,30 @@
+package com.jenjinstudios.io;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Executes a run of incoming messages of a single type in one pass, instead of invoking {@code Message#execute} on each;
+ * useful when applying many small updates (such as position updates) is far cheaper done all at once.
+ * <p>
+ * A BatchHandler registered for a message class receives every run of consecutive messages of exactly that class
+ * drained by a connection in one turn, so the order in which a connection's messages are executed is unchanged.  The
+ * same handler instance is used by every connection built with it, and may be invoked from several threads at once,
+ * each with a different context.
+ *
+ * @author Caleb Brinkman
+ */
+@FunctionalInterface
+public interface BatchHandler<C extends ExecutionContext, M extends Message>
+{
+    /**
+     * Execute any actions required by the given messages.
+     *
+     * @param context The context in which the messages should execute.
+     * @param messages The messages, in the order in which they were received.
+     *
+     * @return The responses to the messages, which are sent in order; return null or an empty collection for no
+     * responses.
+     */
+    Collection<Message> execute(C context, List<M> messages);
+}
@@ -0,0 +1,32 @@
+package com.jenjinstudios.io;
+
+/**
+ * A Message which carries another message on its behalf, such as a request or response wrapper, or the header of a
+ * streamed transfer.
+ * <p>
+ * Envelopes are transparent to MessageInterceptors: an interceptor registered for a message type sees that message
+ * whether it arrives on its own or inside an envelope, and the envelope is rewrapped around whatever the interceptors
+ * return.
+ *
+ * @author Caleb Brinkman
+ */
+public interface EnvelopeMessage<C extends ExecutionContext> extends Message<C>
+{
+    /**
+     * Get the message carried by this envelope.
+     *
+     * @return The carried message; may be null if the envelope carries nothing, such as an empty response.
+     */
+    Message getMessage();
+
+    /**
+     * Get an envelope carrying the given message in place of the current one.
+     *
+     * @param message The message which should be carried.
+     *
+     * @return This envelope if {@code message} is the one it already carries, otherwise a new envelope; null if the
+     * envelope should be discarded along with its message, which an envelope may choose to do when {@code message} is
+     * null.
+     */
+    Message withMessage(Message message);
+}
@@ -0,0 +1,23 @@
+package com.jenjinstudios.io;
+
+/**
+ * Intercepts messages of a given type as they are executed or sent, for cross-cutting concerns such as authorization
+ * checks, validation, metrics and filtering.
+ *
+ * @author Caleb Brinkman
+ */
+@FunctionalInterface
+public interface MessageInterceptor<C extends ExecutionContext, M extends Message>
+{
+    /**
+     * Intercept the given message.
+     *
+     * @param context The context of the connection; inbound interceptors are invoked on the execution thread, and may
+     * safely modify it, but outbound interceptors are invoked on the writing thread, and should not.
+     * @param message The message.
+     *
+     * @return The message which should continue through the chain, usually {@code message} itself; return null to
+     * discard the message.
+     */
+    Message intercept(C context, M message);
+}
@@ -0,0 +1,26 @@
+package com.jenjinstudios.io.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to specify that outgoing Messages of the annotated class are conflated: if a Message of the class is queued
+ * while an earlier Message of the class with the same key is still waiting to be sent, the newer Message replaces the
+ * older one in the outgoing queue, so that only the latest value is sent.
+ *
+ * @author Caleb Brinkman
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Conflate
+{
+    /**
+     * Specify the name of the field whose value is the conflation key; Messages are only conflated with Messages whose
+     * key is equal.  If empty, every Message of the annotated class shares the same key.
+     *
+     * @return The name of the key field.
+     */
+    String key() default "";
+}
@@ -0,0 +1,20 @@
+package com.jenjinstudios.io.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to specify that Messages of the annotated class are control messages, such as heartbeats and acknowledgements,
+ * which keep a connection working rather than carrying application data.  Outgoing control messages are written ahead
+ * of every priority lane, and are neither counted against nor held back by the credit of a flow controlled connection,
+ * so that a peer which is withholding credit still receives them.
+ *
+ * @author Caleb Brinkman
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Control
+{
+}
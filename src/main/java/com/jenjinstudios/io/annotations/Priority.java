@@ -0,0 +1,26 @@
+package com.jenjinstudios.io.annotations;
+
+import com.jenjinstudios.io.concurrency.MessagePriority;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to specify the outgoing priority lane of Messages of the annotated class.  Messages of classes without this
+ * annotation are sent with {@code NORMAL} priority, unless a priority is given when they are sent.
+ *
+ * @author Caleb Brinkman
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Priority
+{
+    /**
+     * Specify the priority of Messages of the annotated class.
+     *
+     * @return The priority.
+     */
+    MessagePriority value();
+}
@@ -0,0 +1,24 @@
+package com.jenjinstudios.io.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to specify how many tokens an incoming Message of the annotated class consumes from the inbound message rate
+ * limit of a Connection.  Messages of classes without this annotation consume a single token.
+ *
+ * @author Caleb Brinkman
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RateLimitWeight
+{
+    /**
+     * Specify the number of tokens consumed by each Message of the annotated class.
+     *
+     * @return The number of tokens consumed.
+     */
+    int value() default 1;
+}
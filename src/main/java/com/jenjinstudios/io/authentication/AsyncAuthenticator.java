@@ -0,0 +1,141 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking companion of {@link Authenticator}, for use from an {@link com.jenjinstudios.io.AsyncMessage}, so
+ * that the thread executing messages is not blocked on the backing data store.  Each method returns immediately; the
+ * returned future completes with the result, or completes exceptionally with an AuthenticationException.
+ * <p>
+ * Methods which populate or read an ExecutionContext may do so on another thread; the context should not be used by
+ * the caller until the returned future has completed.
+ *
+ * @author Caleb Brinkman
+ */
+public interface AsyncAuthenticator<T extends ExecutionContext>
+{
+    /**
+     * Determine whether the user specified by the given unique identifier is authenticated.
+     *
+     * @param id The unique user identifier.
+     *
+     * @return A future which completes with whether the user is authenticated.
+     *
+     * @see Authenticator#isAuthenticated(String)
+     */
+    CompletableFuture<Boolean> isAuthenticated(String id);
+
+    /**
+     * Determine whether the user specified by the given unique identifier exists.
+     *
+     * @param id The unique identifier of the user.
+     *
+     * @return A future which completes with whether the user exists.
+     *
+     * @see Authenticator#userExists(String)
+     */
+    CompletableFuture<Boolean> userExists(String id);
+
+    /**
+     * Determine whether the given credentials are valid for the user with the specified unique identifier.
+     *
+     * @param id The unique user identifier.
+     * @param credentials A map of credentials containing key-value pairs, where the key is the <b>name</b> of
+     * credential and the value is the <b>plaintext</b> credential.
+     *
+     * @return A future which completes with whether the credentials are valid.
+     *
+     * @see Authenticator#credentialsValid(String, Map)
+     */
+    CompletableFuture<Boolean> credentialsValid(String id, Map<String, String> credentials);
+
+    /**
+     * Determine whether the given password is valid.  By default, this method assumes that the {@link
+     * Authenticator#PASSWORD} constant is the key used for storing passwords in the credentials Map.
+     *
+     * @param id The unique user identifier.
+     * @param password The plaintext password.
+     *
+     * @return A future which completes with whether the password is valid.
+     */
+    default CompletableFuture<Boolean> passwordValid(String id, String password) {
+        return credentialsValid(id, Collections.singletonMap(Authenticator.PASSWORD, password));
+    }
+
+    /**
+     * Authenticate the user with the given unique id and valid credentials and, if successful, populate the given
+     * ExecutionContext with the user data from the backing data store.
+     *
+     * @param context The context to be populated with user data if authentication is successful.
+     * @param id The unique user identifier.
+     * @param credentials A map of credentials containing key-value pairs, where the key is the <b>name</b> of
+     * credential and the value is the <b>plaintext</b> credential.
+     *
+     * @return A future which completes with whether the user was successfully authenticated.
+     *
+     * @see Authenticator#authenticate(ExecutionContext, String, Map)
+     */
+    CompletableFuture<Boolean> authenticate(T context, String id, Map<String, String> credentials);
+
+    /**
+     * Authenticate the user with the given unique id and valid password and, if successful, populate the given
+     * ExecutionContext with the user data from the backing data store.  By default, this method assumes that the
+     * {@link Authenticator#PASSWORD} constant is the key used for storing passwords in the credentials Map.
+     *
+     * @param context The context to be populated with user data if authentication is successful.
+     * @param id The unique user identifier.
+     * @param password The plaintext password.
+     *
+     * @return A future which completes with whether the user was successfully authenticated.
+     */
+    default CompletableFuture<Boolean> authenticate(T context, String id, String password) {
+        return authenticate(context, id, Collections.singletonMap(Authenticator.PASSWORD, password));
+    }
+
+    /**
+     * Unauthenticate the user with the given unique id, restoring the given context to an unauthenticated state.
+     *
+     * @param context The context for the user to be unauthenticated.
+     * @param id The unique user identifier.
+     *
+     * @return A future which completes with whether the user was successfully unauthenticated.
+     *
+     * @see Authenticator#unauthenticate(ExecutionContext, String)
+     */
+    CompletableFuture<Boolean> unauthenticate(T context, String id);
+
+    /**
+     * Populate the given ExecutionContext with data for the user with the given unique identifier.
+     *
+     * @param context The context to populate with user data.
+     * @param id The unique user identifier.
+     *
+     * @return A future which completes once the context has been populated.
+     *
+     * @see Authenticator#populate(ExecutionContext, String)
+     */
+    CompletableFuture<Void> populate(T context, String id);
+
+    /**
+     * Update the backing data store, for the user with the given id, with data from the given context.
+     *
+     * @param context The context containing data to be placed in the backing data store.
+     * @param id The unique user id.
+     *
+     * @return A future which completes with whether the backing data store was modified.
+     *
+     * @see Authenticator#update(ExecutionContext, String)
+     */
+    CompletableFuture<Boolean> update(T context, String id);
+
+    /**
+     * Close the backing database connection.
+     *
+     * @throws AuthenticationException If there is an exception when closing the backing database connection.
+     */
+    void close() throws AuthenticationException;
+}
@@ -0,0 +1,164 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts a synchronous Authenticator to the AsyncAuthenticator interface by running each call on a bounded pool of
+ * threads, so that backend I/O never blocks the threads executing messages.
+ * <p>
+ * Concurrent {@code userExists} and {@code credentialsValid} calls are coalesced into calls to the bulk {@link
+ * Authenticator#usersExist(List)} and {@link Authenticator#credentialsValid(List, List)} methods, so that a burst of
+ * logins results in a few large queries instead of many small ones.  When the pool and its queue are full, or too many
+ * lookups are waiting to be coalesced, calls fail immediately with an AuthenticationException rather than queueing
+ * without bound.
+ *
+ * @author Caleb Brinkman
+ */
+public class AsyncAuthenticatorAdapter<T extends ExecutionContext> implements AsyncAuthenticator<T>
+{
+    /** The default number of threads on which the Authenticator is called. */
+    public static final int DEFAULT_THREADS = 4;
+    /** The default number of calls which may wait for a thread. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /** The default maximum number of lookups coalesced into a single bulk lookup. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private final Authenticator<T> authenticator;
+    private final ThreadPoolExecutor executor;
+    private final AuthenticationBatcher<String> existsBatcher;
+    private final AuthenticationBatcher<Map.Entry<String, Map<String, String>>> credentialsBatcher;
+
+    /**
+     * Construct a new AsyncAuthenticatorAdapter with the default pool and batch sizes.
+     *
+     * @param authenticator The synchronous Authenticator.
+     */
+    public AsyncAuthenticatorAdapter(Authenticator<T> authenticator) {
+        this(authenticator, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Construct a new AsyncAuthenticatorAdapter.
+     *
+     * @param authenticator The synchronous Authenticator.
+     * @param threads The number of threads on which the Authenticator is called.
+     * @param queueCapacity The number of calls which may wait for a thread, and the number of each kind of lookup which
+     * may wait to be coalesced, before further calls are rejected.
+     * @param maxBatchSize The maximum number of lookups coalesced into a single bulk lookup.
+     *
+     * @throws IllegalArgumentException If any of the sizes is not positive.
+     */
+    public AsyncAuthenticatorAdapter(Authenticator<T> authenticator, int threads, int queueCapacity, int maxBatchSize) {
+        if ((threads <= 0) || (queueCapacity <= 0) || (maxBatchSize <= 0)) {
+            throw new IllegalArgumentException("Pool, queue and batch sizes must be positive");
+        }
+        this.authenticator = authenticator;
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(queueCapacity));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.existsBatcher = new AuthenticationBatcher<>(executor, authenticator::usersExist, maxBatchSize,
+              queueCapacity);
+        this.credentialsBatcher = new AuthenticationBatcher<>(executor, this::credentialsValid, maxBatchSize,
+              queueCapacity);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isAuthenticated(String id) {
+        return supply(() -> authenticator.isAuthenticated(id));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> userExists(String id) { return existsBatcher.submit(id); }
+
+    @Override
+    public CompletableFuture<Boolean> credentialsValid(String id, Map<String, String> credentials) {
+        return credentialsBatcher.submit(new SimpleImmutableEntry<>(id, credentials));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> authenticate(T context, String id, Map<String, String> credentials) {
+        return supply(() -> authenticator.authenticate(context, id, credentials));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> unauthenticate(T context, String id) {
+        return supply(() -> authenticator.unauthenticate(context, id));
+    }
+
+    @Override
+    public CompletableFuture<Void> populate(T context, String id) {
+        return supply(() -> {
+            authenticator.populate(context, id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(T context, String id) {
+        return supply(() -> authenticator.update(context, id));
+    }
+
+    /**
+     * Stop accepting calls, wait for those already accepted to complete, and close the synchronous Authenticator.
+     *
+     * @throws AuthenticationException If there is an exception when closing the Authenticator, or the calls already
+     * accepted do not complete within a minute.
+     */
+    @Override
+    public void close() throws AuthenticationException {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS)) {
+                throw new AuthenticationException("Timed out waiting for authentication calls to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while closing", e);
+        } finally {
+            authenticator.close();
+        }
+    }
+
+    private List<Boolean> credentialsValid(List<Map.Entry<String, Map<String, String>>> checks)
+          throws AuthenticationException
+    {
+        List<String> ids = new ArrayList<>(checks.size());
+        List<Map<String, String>> credentials = new ArrayList<>(checks.size());
+        for (Map.Entry<String, Map<String, String>> check : checks) {
+            ids.add(check.getKey());
+            credentials.add(check.getValue());
+        }
+        return authenticator.credentialsValid(ids, credentials);
+    }
+
+    private <R> CompletableFuture<R> supply(Call<R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (AuthenticationException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new AuthenticationException("Authentication call rejected", e));
+        }
+        return future;
+    }
+
+    private interface Call<R>
+    {
+        R call() throws AuthenticationException;
+    }
+}
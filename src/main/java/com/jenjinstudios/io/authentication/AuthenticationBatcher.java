@@ -0,0 +1,135 @@
+package com.jenjinstudios.io.authentication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent lookups of the same kind into bulk lookups.  At most one bulk lookup is in flight at a time;
+ * lookups submitted while it runs wait for it to finish, and are then performed together in the next bulk lookup.
+ * Under light load, each lookup is therefore performed on its own without delay, and under heavy load the number of
+ * queries made to the backing data store stays constant while the size of each grows.  The number of waiting lookups
+ * is bounded; lookups submitted while it is reached fail immediately.
+ *
+ * @author Caleb Brinkman
+ */
+class AuthenticationBatcher<K>
+{
+    private final Queue<Pending<K>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Executor executor;
+    private final BulkLookup<K> lookup;
+    private final int maxBatchSize;
+    private final int capacity;
+
+    /**
+     * Construct a new AuthenticationBatcher.
+     *
+     * @param executor The executor on which bulk lookups are performed.
+     * @param lookup Performs a bulk lookup.
+     * @param maxBatchSize The maximum number of lookups in a single bulk lookup.
+     * @param capacity The maximum number of lookups which may wait for the next bulk lookup.
+     */
+    AuthenticationBatcher(Executor executor, BulkLookup<K> lookup, int maxBatchSize, int capacity) {
+        this.executor = executor;
+        this.lookup = lookup;
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Submit a lookup, to be performed in the next bulk lookup.
+     *
+     * @param key The key to look up.
+     *
+     * @return A future which completes with the result of the lookup, or completes exceptionally with an
+     * AuthenticationException if too many lookups are already waiting.
+     */
+    CompletableFuture<Boolean> submit(K key) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (waiting.incrementAndGet() > capacity) {
+            waiting.decrementAndGet();
+            future.completeExceptionally(new AuthenticationException("Too many authentication lookups waiting"));
+            return future;
+        }
+        pending.add(new Pending<>(key, future));
+        schedule();
+        return future;
+    }
+
+    private void schedule() {
+        if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                Pending<K> rejected;
+                while ((rejected = pending.poll()) != null) {
+                    waiting.decrementAndGet();
+                    rejected.future.completeExceptionally(
+                          new AuthenticationException("Authentication lookup rejected", e));
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        List<Pending<K>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            Pending<K> next;
+            while ((batch.size() < maxBatchSize) && ((next = pending.poll()) != null)) {
+                waiting.decrementAndGet();
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<K> keys = new ArrayList<>(batch.size());
+            batch.forEach(queued -> keys.add(queued.key));
+            List<Boolean> results = lookup.get(keys);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results.get(i));
+            }
+        } catch (AuthenticationException | RuntimeException e) {
+            batch.forEach(failed -> failed.future.completeExceptionally(e));
+        } finally {
+            draining.set(false);
+            schedule();
+        }
+    }
+
+    /**
+     * Performs a bulk lookup.
+     */
+    interface BulkLookup<K>
+    {
+        /**
+         * Look up the given keys.
+         *
+         * @param keys The keys.
+         *
+         * @return The result for each key, in the same order as {@code keys}.
+         *
+         * @throws AuthenticationException If there is an exception during the lookup.
+         */
+        List<Boolean> get(List<K> keys) throws AuthenticationException;
+    }
+
+    private static class Pending<K>
+    {
+        private final K key;
+        private final CompletableFuture<Boolean> future;
+
+        Pending(K key, CompletableFuture<Boolean> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.jenjinstudios.io.authentication;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-striped LRU cache of expiring authentication results, grouped by user so that every result for a
+ * user can be invalidated at once.  Users are spread across stripes by the hash of their id, and each stripe evicts
+ * its least recently used user once it is full.
+ *
+ * @author Caleb Brinkman
+ */
+class AuthenticationCache
+{
+    private static final int STRIPES = 16;
+    private static final int MAX_RESULTS_PER_USER = 8;
+    private final Stripe[] stripes;
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /**
+     * Construct a new AuthenticationCache.
+     *
+     * @param maxUsers The maximum number of users for which results are kept.
+     */
+    AuthenticationCache(int maxUsers) {
+        int stripeCount = Math.min(STRIPES, maxUsers);
+        int capacity = (maxUsers + stripeCount - 1) / stripeCount;
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+    }
+
+    /**
+     * Determine whether an unexpired result is cached for the given user and query.
+     *
+     * @param id The unique user identifier.
+     * @param query The query.
+     * @param now The current time, in nanoseconds.
+     *
+     * @return Whether the result is cached.
+     */
+    boolean contains(String id, String query, long now) {
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            Map<String, Long> results = stripe.get(id);
+            Long expiry = (results != null) ? results.get(query) : null;
+            if (expiry == null) {
+                return false;
+            }
+            if ((expiry - now) <= 0) {
+                results.remove(query);
+                if (results.isEmpty()) {
+                    stripe.remove(id);
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Cache a result for the given user and query.
+     *
+     * @param id The unique user identifier.
+     * @param query The query.
+     * @param expiry The time at which the result expires, in nanoseconds.
+     */
+    void put(String id, String query, long expiry) {
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            Map<String, Long> results = stripe.get(id);
+            if (results == null) {
+                results = new Results();
+                stripe.put(id, results);
+            }
+            results.put(query, expiry);
+        }
+    }
+
+    /**
+     * Remove a single result for the given user.
+     *
+     * @param id The unique user identifier.
+     * @param query The query.
+     */
+    void remove(String id, String query) {
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            Map<String, Long> results = stripe.get(id);
+            if ((results != null) && (results.remove(query) != null) && results.isEmpty()) {
+                stripe.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Remove every result for the given user.
+     *
+     * @param id The unique user identifier.
+     */
+    void invalidate(String id) {
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            stripe.remove(id);
+        }
+    }
+
+    /**
+     * Remove every result.
+     */
+    void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    long getEvictionCount() { return evictions.get(); }
+
+    private Stripe stripeFor(String id) {
+        int hash = id.hashCode();
+        return stripes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    private class Stripe extends LinkedHashMap<String, Map<String, Long>>
+    {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(capacity + 1, 1.0f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, Long>> eldest) {
+            boolean full = size() > capacity;
+            if (full) {
+                evictions.incrementAndGet();
+            }
+            return full;
+        }
+    }
+
+    private static class Results extends LinkedHashMap<String, Long>
+    {
+        private static final long serialVersionUID = 1L;
+
+        Results() { super(MAX_RESULTS_PER_USER + 1, 1.0f, true); }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) { return size() > MAX_RESULTS_PER_USER; }
+    }
+}
@@ -2,7 +2,9 @@ package com.jenjinstudios.io.authentication;
 
 import com.jenjinstudios.io.ExecutionContext;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -55,6 +57,47 @@ public interface Authenticator<T extends ExecutionContext>
      */
     boolean credentialsValid(String id, Map<String, String> credentials) throws AuthenticationException;
 
+    /**
+     * Determine whether each of the users specified by the given unique identifiers exists.  By default, this method
+     * invokes {@link #userExists(String)} for each user; implementations backed by a data store should override it to
+     * look up every user in a single query.
+     *
+     * @param ids The unique identifiers of the users.
+     *
+     * @return Whether each user exists, in the same order as {@code ids}.
+     *
+     * @throws AuthenticationException If there is an exception when determining if the users exist.
+     */
+    default List<Boolean> usersExist(List<String> ids) throws AuthenticationException {
+        List<Boolean> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            results.add(userExists(id));
+        }
+        return results;
+    }
+
+    /**
+     * Determine whether each of the given sets of credentials is valid for the user with the corresponding unique
+     * identifier.  By default, this method invokes {@link #credentialsValid(String, Map)} for each user;
+     * implementations backed by a data store should override it to check every set of credentials in a single query.
+     *
+     * @param ids The unique user identifiers.
+     * @param credentials The credentials of each user, in the same order as {@code ids}.
+     *
+     * @return Whether each set of credentials is valid, in the same order as {@code ids}.
+     *
+     * @throws AuthenticationException If there is an exception when determining the validity of the credentials.
+     */
+    default List<Boolean> credentialsValid(List<String> ids, List<Map<String, String>> credentials)
+          throws AuthenticationException
+    {
+        List<Boolean> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(credentialsValid(ids.get(i), credentials.get(i)));
+        }
+        return results;
+    }
+
     /**
      * Determine whether the given password is valid.  By default, this method assumes that the {@link #PASSWORD}
      * constant is the key used for storing passwords in the credentials Map.
@@ -157,6 +200,27 @@ public interface Authenticator<T extends ExecutionContext>
      */
     boolean update(T context, String id) throws AuthenticationException;
 
+    /**
+     * Update the backing data store, for each of the users with the given ids, with data from the corresponding
+     * context.  By default, this method invokes {@link #update(ExecutionContext, String)} for each user;
+     * implementations backed by a data store should override it to write every user in a single batch.
+     *
+     * @param contexts The contexts containing data to be placed in the backing data store, keyed by unique user id.
+     *
+     * @return The number of users for which the backing data store was modified.
+     *
+     * @throws AuthenticationException If there is an exception during the update.
+     */
+    default int updateAll(Map<String, T> contexts) throws AuthenticationException {
+        int updated = 0;
+        for (Map.Entry<String, T> entry : contexts.entrySet()) {
+            if (update(entry.getValue(), entry.getKey())) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
     /**
      * Close the backing database connection.
      *
@@ -0,0 +1,326 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorates an Authenticator, caching the results of {@code isAuthenticated}, {@code userExists} and {@code
+ * credentialsValid} so that repeated lookups do not go to the backing data store.
+ * <p>
+ * Positive and negative results are kept in separate caches, each with its own time-to-live and bounded to the same
+ * number of users, so that a flood of lookups for users which do not exist cannot evict the results for users which
+ * do.  Every result for a user is invalidated when that user is authenticated, unauthenticated or updated through this
+ * Authenticator; changes made to the backing data store by other means are only seen once the cached results expire.
+ * Credentials are never stored; results are keyed by a salted digest of them.  Bulk lookups are answered from the
+ * cache where possible, and the remaining users are passed on to the decorated Authenticator in a single bulk lookup.
+ *
+ * @author Caleb Brinkman
+ */
+public class CachingAuthenticator<T extends ExecutionContext> implements Authenticator<T>
+{
+    /** The default maximum number of users for which positive, and negative, results are cached. */
+    public static final int DEFAULT_MAX_USERS = 10000;
+    /** The default time-to-live of positive results, in seconds. */
+    public static final long DEFAULT_POSITIVE_TTL = 30;
+    /** The default time-to-live of negative results, in seconds. */
+    public static final long DEFAULT_NEGATIVE_TTL = 5;
+    private static final String AUTHENTICATED = "authenticated";
+    private static final String EXISTS = "exists";
+    private static final String CREDENTIALS = "credentials:";
+    private static final int SALT_BYTES = 16;
+    private final Authenticator<T> authenticator;
+    private final AuthenticationCache positive;
+    private final AuthenticationCache negative;
+    private final long positiveTtl;
+    private final long negativeTtl;
+    private final LongSupplier clock;
+    private final byte[] salt = new byte[SALT_BYTES];
+    private final AtomicLong invalidations = new AtomicLong(0);
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Construct a new CachingAuthenticator with the default size and times-to-live.
+     *
+     * @param authenticator The Authenticator whose results are cached.
+     */
+    public CachingAuthenticator(Authenticator<T> authenticator) {
+        this(authenticator, DEFAULT_MAX_USERS, DEFAULT_POSITIVE_TTL, DEFAULT_NEGATIVE_TTL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Construct a new CachingAuthenticator.
+     *
+     * @param authenticator The Authenticator whose results are cached.
+     * @param maxUsers The maximum number of users for which positive, and negative, results are cached; the least
+     * recently used users are evicted first.
+     * @param positiveTtl The amount of time for which positive results are cached.
+     * @param negativeTtl The amount of time for which negative results are cached.
+     * @param timeUnit The unit of {@code positiveTtl} and {@code negativeTtl}.
+     *
+     * @throws IllegalArgumentException If any of the limits is not positive.
+     */
+    public CachingAuthenticator(
+          Authenticator<T> authenticator,
+          int maxUsers,
+          long positiveTtl,
+          long negativeTtl,
+          TimeUnit timeUnit)
+    {
+        this(authenticator, maxUsers, positiveTtl, negativeTtl, timeUnit, System::nanoTime);
+    }
+
+    CachingAuthenticator(
+          Authenticator<T> authenticator,
+          int maxUsers,
+          long positiveTtl,
+          long negativeTtl,
+          TimeUnit timeUnit,
+          LongSupplier clock)
+    {
+        if ((maxUsers <= 0) || (positiveTtl <= 0) || (negativeTtl <= 0)) {
+            throw new IllegalArgumentException("Cache size and times-to-live must be positive");
+        }
+        this.authenticator = authenticator;
+        this.positive = new AuthenticationCache(maxUsers);
+        this.negative = new AuthenticationCache(maxUsers);
+        this.positiveTtl = timeUnit.toNanos(positiveTtl);
+        this.negativeTtl = timeUnit.toNanos(negativeTtl);
+        this.clock = clock;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public boolean isAuthenticated(String id) throws AuthenticationException {
+        return lookup(id, AUTHENTICATED, () -> authenticator.isAuthenticated(id));
+    }
+
+    @Override
+    public boolean userExists(String id) throws AuthenticationException {
+        return lookup(id, EXISTS, () -> authenticator.userExists(id));
+    }
+
+    @Override
+    public boolean credentialsValid(String id, Map<String, String> credentials) throws AuthenticationException {
+        return lookup(id, CREDENTIALS + digest(credentials), () -> authenticator.credentialsValid(id, credentials));
+    }
+
+    @Override
+    public List<Boolean> usersExist(List<String> ids) throws AuthenticationException {
+        List<String> queries = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            queries.add(EXISTS);
+        }
+        return lookupAll(ids, queries, missed -> authenticator.usersExist(select(ids, missed)));
+    }
+
+    @Override
+    public List<Boolean> credentialsValid(List<String> ids, List<Map<String, String>> credentials)
+          throws AuthenticationException
+    {
+        if (ids.size() != credentials.size()) {
+            throw new IllegalArgumentException("Each user must have exactly one set of credentials");
+        }
+        List<String> queries = new ArrayList<>(ids.size());
+        for (Map<String, String> userCredentials : credentials) {
+            queries.add(CREDENTIALS + digest(userCredentials));
+        }
+        return lookupAll(ids, queries,
+              missed -> authenticator.credentialsValid(select(ids, missed), select(credentials, missed)));
+    }
+
+    @Override
+    public boolean authenticate(T context, String id, Map<String, String> credentials)
+          throws AuthenticationException
+    {
+        try {
+            return authenticator.authenticate(context, id, credentials);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean unauthenticate(T context, String id) throws AuthenticationException {
+        try {
+            return authenticator.unauthenticate(context, id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void populate(T context, String id) throws AuthenticationException { authenticator.populate(context, id); }
+
+    @Override
+    public boolean update(T context, String id) throws AuthenticationException {
+        try {
+            return authenticator.update(context, id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void close() throws AuthenticationException {
+        invalidateAll();
+        authenticator.close();
+    }
+
+    /**
+     * Discard every cached result for the given user; should be invoked when the user is modified in the backing data
+     * store by some means other than this Authenticator.
+     *
+     * @param id The unique user identifier.
+     */
+    public void invalidate(String id) {
+        invalidations.incrementAndGet();
+        positive.invalidate(id);
+        negative.invalidate(id);
+    }
+
+    /**
+     * Discard every cached result.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        positive.clear();
+        negative.clear();
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() { return hits.get(); }
+
+    /**
+     * Get the number of lookups passed on to the decorated Authenticator.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() { return misses.get(); }
+
+    /**
+     * Get the number of users whose results have been evicted to make room for others.
+     *
+     * @return The number of evictions from the positive and negative caches.
+     */
+    public long getEvictionCount() { return positive.getEvictionCount() + negative.getEvictionCount(); }
+
+    private boolean lookup(String id, String query, Lookup lookup) throws AuthenticationException {
+        Boolean cached = cached(id, query, clock.getAsLong());
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+        long generation = invalidations.get();
+        boolean result = lookup.get();
+        store(id, query, result, generation);
+        return result;
+    }
+
+    private List<Boolean> lookupAll(List<String> ids, List<String> queries, BulkLookup lookup)
+          throws AuthenticationException
+    {
+        long now = clock.getAsLong();
+        Boolean[] results = new Boolean[ids.size()];
+        List<Integer> missed = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            results[i] = cached(ids.get(i), queries.get(i), now);
+            if (results[i] == null) {
+                missed.add(i);
+            }
+        }
+        if (!missed.isEmpty()) {
+            misses.addAndGet(missed.size());
+            long generation = invalidations.get();
+            List<Boolean> found = lookup.get(missed);
+            if (found.size() != missed.size()) {
+                throw new AuthenticationException("Bulk lookup returned " + found.size() + " results for "
+                      + missed.size() + " users");
+            }
+            for (int i = 0; i < missed.size(); i++) {
+                int index = missed.get(i);
+                results[index] = found.get(i);
+                store(ids.get(index), queries.get(index), results[index], generation);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Boolean cached(String id, String query, long now) {
+        if (positive.contains(id, query, now)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        if (negative.contains(id, query, now)) {
+            hits.incrementAndGet();
+            return false;
+        }
+        return null;
+    }
+
+    private void store(String id, String query, boolean result, long generation) {
+        AuthenticationCache cache = result ? positive : negative;
+        cache.put(id, query, clock.getAsLong() + (result ? positiveTtl : negativeTtl));
+        // A result looked up while the user was being invalidated may already be stale
+        if (invalidations.get() != generation) {
+            cache.remove(id, query);
+        }
+    }
+
+    private static <E> List<E> select(List<E> values, List<Integer> indices) {
+        List<E> selected = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            selected.add(values.get(index));
+        }
+        return selected;
+    }
+
+    private String digest(Map<String, String> credentials) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        digest.update(salt);
+        for (Map.Entry<String, String> entry : new TreeMap<>(credentials).entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt((value != null) ? bytes.length : -1).array());
+        digest.update(bytes);
+    }
+
+    private interface Lookup
+    {
+        boolean get() throws AuthenticationException;
+    }
+
+    private interface BulkLookup
+    {
+        List<Boolean> get(List<Integer> missed) throws AuthenticationException;
+    }
+}
@@ -0,0 +1,582 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.authentication.PasswordHasher.SaltedHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * An Authenticator backed by a local, append-only file, for applications which do not need an external data store.
+ * <p>
+ * Every user is kept in an in-memory index, so lookups never touch the disk; each change is appended to the file, and
+ * forced to disk, before it becomes visible.  Passwords are hashed with salted PBKDF2 on a dedicated pool of threads,
+ * with a configurable number of iterations; the hash of a user whose password was hashed with a different number of
+ * iterations is upgraded when they next log in.  The {@link #async()} view verifies passwords without blocking the
+ * caller at all.  Once the file holds more superseded records than live ones, it is compacted by rewriting only the
+ * live records.
+ * <p>
+ * User data is stored as string key-value pairs, which a {@link UserDataMapper} moves into and out of the
+ * ExecutionContext.  Which users are authenticated is kept only in memory.  The blocking {@code authenticate} populates
+ * the ExecutionContext on the calling thread; the {@link #async()} view populates it on a password-hashing thread, just
+ * before the returned future completes, so the context must not be used until then.
+ *
+ * @author Caleb Brinkman
+ */
+public class FileAuthenticator<T extends ExecutionContext> implements Authenticator<T>
+{
+    /** The default number of PBKDF2 iterations used to hash passwords. */
+    public static final int DEFAULT_ITERATIONS = 10000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileAuthenticator.class);
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final int UNKNOWN_USER_BYTES = 16;
+    private final Map<String, UserRecord> users = new ConcurrentHashMap<>(10);
+    private final Set<String> authenticated = ConcurrentHashMap.newKeySet();
+    private final Object log = new Object();
+    private final Path file;
+    private final UserDataMapper<T> mapper;
+    private final PasswordHasher hasher;
+    private final SaltedHash unknownUser;
+    private FileChannel channel;
+    private long deadRecords;
+
+    /**
+     * Construct a new FileAuthenticator with the default number of iterations and one hashing thread per processor.
+     *
+     * @param file The file in which users are stored; created if it does not exist.
+     * @param mapper Moves user data into and out of ExecutionContexts.
+     *
+     * @throws AuthenticationException If the file cannot be opened or read.
+     */
+    public FileAuthenticator(Path file, UserDataMapper<T> mapper) throws AuthenticationException {
+        this(file, mapper, DEFAULT_ITERATIONS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new FileAuthenticator, loading every user from the given file.  An incomplete record at the end of
+     * the file, left by a crash during a write, is discarded.
+     *
+     * @param file The file in which users are stored; created if it does not exist.
+     * @param mapper Moves user data into and out of ExecutionContexts.
+     * @param iterations The number of PBKDF2 iterations used to hash passwords.
+     * @param hashingThreads The number of threads on which passwords are hashed.
+     *
+     * @throws AuthenticationException If the file cannot be opened or read.
+     * @throws IllegalArgumentException If the number of iterations or threads is not positive.
+     */
+    public FileAuthenticator(Path file, UserDataMapper<T> mapper, int iterations, int hashingThreads)
+          throws AuthenticationException
+    {
+        if ((iterations <= 0) || (hashingThreads <= 0)) {
+            throw new IllegalArgumentException("Iterations and hashing threads must be positive");
+        }
+        this.file = file;
+        this.mapper = mapper;
+        this.hasher = new PasswordHasher(iterations, hashingThreads);
+        this.unknownUser = new SaltedHash(new byte[UNKNOWN_USER_BYTES], iterations, new byte[UNKNOWN_USER_BYTES]);
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                  StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            hasher.shutdown();
+            throw new AuthenticationException("Unable to load users from " + file, e);
+        }
+    }
+
+    @Override
+    public boolean isAuthenticated(String id) { return authenticated.contains(id); }
+
+    @Override
+    public boolean userExists(String id) { return users.containsKey(id); }
+
+    @Override
+    public boolean credentialsValid(String id, Map<String, String> credentials) throws AuthenticationException {
+        return PasswordHasher.await(verify(id, credentials));
+    }
+
+    @Override
+    public boolean authenticate(T context, String id, Map<String, String> credentials)
+          throws AuthenticationException
+    {
+        UserRecord user = PasswordHasher.await(login(id, credentials));
+        if (user == null) {
+            return false;
+        }
+        mapper.populate(context, id, user.data);
+        return true;
+    }
+
+    @Override
+    public boolean unauthenticate(T context, String id) {
+        boolean unauthenticated = authenticated.remove(id);
+        if (unauthenticated) {
+            mapper.clear(context);
+        }
+        return unauthenticated;
+    }
+
+    @Override
+    public void populate(T context, String id) throws AuthenticationException {
+        UserRecord user = users.get(id);
+        if (user == null) {
+            throw new AuthenticationException("No such user: " + id);
+        }
+        mapper.populate(context, id, user.data);
+    }
+
+    @Override
+    public boolean update(T context, String id) throws AuthenticationException {
+        return updateAll(Collections.singletonMap(id, context)) > 0;
+    }
+
+    /**
+     * Update the stored data of each of the given users which exists and whose data has changed, forcing every change
+     * to disk at once.
+     *
+     * @param contexts The contexts containing data to be stored, keyed by unique user id.
+     *
+     * @return The number of users whose stored data was modified.
+     *
+     * @throws AuthenticationException If the changes cannot be written.
+     */
+    @Override
+    public int updateAll(Map<String, T> contexts) throws AuthenticationException {
+        synchronized (log) {
+            Map<String, UserRecord> changes = new LinkedHashMap<>(contexts.size());
+            for (Map.Entry<String, T> entry : contexts.entrySet()) {
+                UserRecord user = users.get(entry.getKey());
+                Map<String, String> data = mapper.extract(entry.getValue());
+                if ((user != null) && !user.data.equals(data)) {
+                    changes.put(entry.getKey(), new UserRecord(user.hash, data));
+                }
+            }
+            write(changes);
+            return changes.size();
+        }
+    }
+
+    /**
+     * Stop hashing passwords and close the file.
+     *
+     * @throws AuthenticationException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws AuthenticationException {
+        hasher.shutdown();
+        synchronized (log) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new AuthenticationException("Unable to close " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Create a new user.
+     *
+     * @param id The unique user identifier.
+     * @param password The plaintext password.
+     * @param data The initial user data.
+     *
+     * @return Whether the user was created; false if a user with the given id already exists.
+     *
+     * @throws AuthenticationException If the password cannot be hashed or the user cannot be written.
+     */
+    public boolean createUser(String id, String password, Map<String, String> data) throws AuthenticationException {
+        if (users.containsKey(id)) {
+            return false;
+        }
+        SaltedHash hash = PasswordHasher.await(hasher.hash(password));
+        synchronized (log) {
+            if (users.containsKey(id)) {
+                return false;
+            }
+            write(Collections.singletonMap(id, new UserRecord(hash, data)));
+            return true;
+        }
+    }
+
+    /**
+     * Change the password of a user.
+     *
+     * @param id The unique user identifier.
+     * @param password The new plaintext password.
+     *
+     * @return Whether the password was changed; false if the user does not exist.
+     *
+     * @throws AuthenticationException If the password cannot be hashed or the change cannot be written.
+     */
+    public boolean setPassword(String id, String password) throws AuthenticationException {
+        if (!users.containsKey(id)) {
+            return false;
+        }
+        SaltedHash hash = PasswordHasher.await(hasher.hash(password));
+        synchronized (log) {
+            UserRecord user = users.get(id);
+            if (user == null) {
+                return false;
+            }
+            write(Collections.singletonMap(id, new UserRecord(hash, user.data)));
+            return true;
+        }
+    }
+
+    /**
+     * Delete a user.
+     *
+     * @param id The unique user identifier.
+     *
+     * @return Whether the user was deleted; false if the user does not exist.
+     *
+     * @throws AuthenticationException If the deletion cannot be written.
+     */
+    public boolean deleteUser(String id) throws AuthenticationException {
+        synchronized (log) {
+            if (!users.containsKey(id)) {
+                return false;
+            }
+            write(Collections.singletonMap(id, null));
+        }
+        authenticated.remove(id);
+        return true;
+    }
+
+    /**
+     * Rewrite the file so that it contains only the current record of each user.  Invoked automatically once the file
+     * holds more superseded records than live ones.
+     *
+     * @throws AuthenticationException If the file cannot be rewritten; the existing file is left in place.
+     */
+    public void compact() throws AuthenticationException {
+        synchronized (log) {
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            try {
+                try (FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                      StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+                {
+                    for (Map.Entry<String, UserRecord> user : users.entrySet()) {
+                        writeFully(output, encode(user.getKey(), user.getValue()));
+                    }
+                    output.force(true);
+                }
+                channel.close();
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                LOGGER.debug("Compacted {}, discarding {} superseded records", file, deadRecords);
+                deadRecords = 0;
+            } catch (IOException e) {
+                throw new AuthenticationException("Unable to compact " + file, e);
+            } finally {
+                reopen();
+            }
+        }
+    }
+
+    /**
+     * Get a view of this FileAuthenticator whose password checks complete on the hashing threads, without blocking
+     * the caller; every other call completes immediately.  The view's {@code authenticate} populates the
+     * ExecutionContext on a hashing thread, so neither the caller nor any other thread may use the context until the
+     * returned future has completed.
+     *
+     * @return The asynchronous view.
+     */
+    public AsyncAuthenticator<T> async() { return new AsyncView(); }
+
+    public int getUserCount() { return users.size(); }
+
+    /**
+     * Get the number of records in the file which have been superseded by later ones.
+     *
+     * @return The number of superseded records.
+     */
+    public long getDeadRecordCount() {
+        synchronized (log) {
+            return deadRecords;
+        }
+    }
+
+    private CompletableFuture<Boolean> verify(String id, Map<String, String> credentials) {
+        String password = credentials.get(PASSWORD);
+        UserRecord user = users.get(id);
+        if (password == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        // Hash the password even if the user does not exist, so that the time taken does not reveal whether they do
+        return hasher.verify(password, (user != null) ? user.hash : unknownUser).thenApply(valid -> {
+            boolean matches = valid && (user != null);
+            if (matches && (user.hash.getIterations() != hasher.getIterations())) {
+                rehash(id, password, user.hash);
+            }
+            return matches;
+        });
+    }
+
+    // Completes with the record of the user if they were authenticated, otherwise with null
+    private CompletableFuture<UserRecord> login(String id, Map<String, String> credentials) {
+        return verify(id, credentials).thenApply(valid -> {
+            UserRecord user = users.get(id);
+            return (valid && (user != null) && authenticated.add(id)) ? user : null;
+        });
+    }
+
+    private CompletableFuture<Boolean> authenticateAsync(T context, String id, Map<String, String> credentials) {
+        return login(id, credentials).thenApply(user -> {
+            if (user == null) {
+                return false;
+            }
+            mapper.populate(context, id, user.data);
+            return true;
+        });
+    }
+
+    private CompletableFuture<Void> rehash(String id, String password, SaltedHash verified) {
+        return hasher.hash(password).thenAccept(hash -> {
+            try {
+                synchronized (log) {
+                    // The password may have been changed since it was verified
+                    UserRecord user = users.get(id);
+                    if ((user != null) && (user.hash == verified)) {
+                        write(Collections.singletonMap(id, new UserRecord(hash, user.data)));
+                    }
+                }
+            } catch (AuthenticationException e) {
+                LOGGER.warn("Unable to upgrade password hash for {}", id, e);
+            }
+        });
+    }
+
+    // Must be invoked while holding the log lock; a null record deletes the user
+    private void write(Map<String, UserRecord> changes) throws AuthenticationException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        long start = -1;
+        try {
+            start = channel.position();
+            for (Map.Entry<String, UserRecord> change : changes.entrySet()) {
+                writeFully(channel, encode(change.getKey(), change.getValue()));
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            if (start >= 0) {
+                discard(start, e);
+            }
+            throw new AuthenticationException("Unable to write to " + file, e);
+        }
+        for (Map.Entry<String, UserRecord> change : changes.entrySet()) {
+            UserRecord previous = (change.getValue() != null) ? users.put(change.getKey(), change.getValue())
+                  : users.remove(change.getKey());
+            // A deletion supersedes the previous record, and is itself superseded
+            deadRecords += ((previous != null) ? 1 : 0) + ((change.getValue() == null) ? 1 : 0);
+        }
+        if ((deadRecords > MIN_COMPACTION_RECORDS) && (deadRecords > users.size())) {
+            try {
+                compact();
+            } catch (AuthenticationException e) {
+                LOGGER.warn("Unable to compact {}; will retry after the next write", file, e);
+            }
+        }
+    }
+
+    // A partial record would otherwise be followed by later records, which would be discarded with it when loaded
+    private void discard(long start, IOException cause) {
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void load() throws IOException {
+        long valid = 0;
+        long records = 0;
+        long size = channel.size();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload;
+            while ((payload = readRecord(input, size - valid)) != null) {
+                apply(payload);
+                valid += RECORD_OVERHEAD + payload.length;
+                records++;
+            }
+        }
+        if (valid < size) {
+            LOGGER.warn("Discarding {} bytes of incomplete records from {}", size - valid, file);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        deadRecords = records - users.size();
+    }
+
+    private void reopen() throws AuthenticationException {
+        if (!channel.isOpen()) {
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            } catch (IOException e) {
+                throw new AuthenticationException("Unable to reopen " + file, e);
+            }
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        byte operation = input.readByte();
+        String id = input.readUTF();
+        if (operation == DELETE) {
+            users.remove(id);
+        } else {
+            byte[] salt = new byte[input.readUnsignedShort()];
+            input.readFully(salt);
+            int iterations = input.readInt();
+            byte[] hash = new byte[input.readUnsignedShort()];
+            input.readFully(hash);
+            int fields = input.readUnsignedShort();
+            Map<String, String> data = new HashMap<>(fields * 2);
+            for (int i = 0; i < fields; i++) {
+                data.put(input.readUTF(), input.readUTF());
+            }
+            users.put(id, new UserRecord(new SaltedHash(salt, iterations, hash), data));
+        }
+    }
+
+    private static byte[] readRecord(DataInputStream input, long remaining) throws IOException {
+        try {
+            int length = input.readInt();
+            if ((length < 0) || ((length + (long) RECORD_OVERHEAD) > remaining)) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (input.readLong() == crc.getValue()) ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(String id, UserRecord user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte((user != null) ? PUT : DELETE);
+        output.writeUTF(id);
+        if (user != null) {
+            output.writeShort(user.hash.getSalt().length);
+            output.write(user.hash.getSalt());
+            output.writeInt(user.hash.getIterations());
+            output.writeShort(user.hash.getHash().length);
+            output.write(user.hash.getHash());
+            output.writeShort(user.data.size());
+            for (Map.Entry<String, String> field : user.data.entrySet()) {
+                output.writeUTF(field.getKey());
+                output.writeUTF(field.getValue());
+            }
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_OVERHEAD + payload.length)
+              .putInt(payload.length)
+              .put(payload)
+              .putLong(crc.getValue())
+              .array();
+    }
+
+    private static void writeFully(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class UserRecord
+    {
+        private final SaltedHash hash;
+        private final Map<String, String> data;
+
+        UserRecord(SaltedHash hash, Map<String, String> data) {
+            this.hash = hash;
+            this.data = Collections.unmodifiableMap(new HashMap<>(data));
+        }
+    }
+
+    private class AsyncView implements AsyncAuthenticator<T>
+    {
+        @Override
+        public CompletableFuture<Boolean> isAuthenticated(String id) {
+            return CompletableFuture.completedFuture(FileAuthenticator.this.isAuthenticated(id));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> userExists(String id) {
+            return CompletableFuture.completedFuture(FileAuthenticator.this.userExists(id));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> credentialsValid(String id, Map<String, String> credentials) {
+            return verify(id, credentials);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> authenticate(T context, String id, Map<String, String> credentials) {
+            return authenticateAsync(context, id, credentials);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> unauthenticate(T context, String id) {
+            return CompletableFuture.completedFuture(FileAuthenticator.this.unauthenticate(context, id));
+        }
+
+        @Override
+        public CompletableFuture<Void> populate(T context, String id) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                FileAuthenticator.this.populate(context, id);
+                future.complete(null);
+            } catch (AuthenticationException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> update(T context, String id) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            try {
+                future.complete(FileAuthenticator.this.update(context, id));
+            } catch (AuthenticationException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public void close() throws AuthenticationException { FileAuthenticator.this.close(); }
+    }
+}
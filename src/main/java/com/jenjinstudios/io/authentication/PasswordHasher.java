@@ -0,0 +1,139 @@
+package com.jenjinstudios.io.authentication;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes and verifies passwords with salted PBKDF2 on a dedicated pool of threads, so that the number of CPU-bound
+ * hashes performed at once is bounded, and no other thread ever spends time hashing.
+ *
+ * @author Caleb Brinkman
+ */
+class PasswordHasher
+{
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int QUEUE_CAPACITY = 4096;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor pool;
+    private final int iterations;
+
+    /**
+     * Construct a new PasswordHasher.
+     *
+     * @param iterations The number of PBKDF2 iterations used for new hashes.
+     * @param threads The number of threads on which passwords are hashed.
+     */
+    PasswordHasher(int iterations, int threads) {
+        this.iterations = iterations;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hash the given password with a new salt.
+     *
+     * @param password The password.
+     *
+     * @return A future which completes with the salted hash.
+     */
+    CompletableFuture<SaltedHash> hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return submit(() -> new SaltedHash(salt, iterations, pbkdf2(password, salt, iterations)));
+    }
+
+    /**
+     * Determine whether the given password matches the given hash.
+     *
+     * @param password The password.
+     * @param hash The salted hash.
+     *
+     * @return A future which completes with whether the password matches.
+     */
+    CompletableFuture<Boolean> verify(String password, SaltedHash hash) {
+        return submit(() -> MessageDigest.isEqual(hash.getHash(),
+              pbkdf2(password, hash.getSalt(), hash.getIterations())));
+    }
+
+    int getIterations() { return iterations; }
+
+    void shutdown() { pool.shutdown(); }
+
+    static <R> R await(CompletableFuture<R> future) throws AuthenticationException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            throw new AuthenticationException("Unable to hash password", e.getCause());
+        }
+    }
+
+    private <R> CompletableFuture<R> submit(Hash<R> hash) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    future.complete(hash.compute());
+                } catch (GeneralSecurityException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new AuthenticationException("Password hashing rejected", e));
+        }
+        return future;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private interface Hash<R>
+    {
+        R compute() throws GeneralSecurityException;
+    }
+
+    /**
+     * A password hash, along with the salt and iteration count with which it was computed.
+     */
+    static class SaltedHash
+    {
+        private final byte[] salt;
+        private final int iterations;
+        private final byte[] hash;
+
+        SaltedHash(byte[] salt, int iterations, byte[] hash) {
+            this.salt = salt;
+            this.iterations = iterations;
+            this.hash = hash;
+        }
+
+        byte[] getSalt() { return salt; }
+
+        int getIterations() { return iterations; }
+
+        byte[] getHash() { return hash; }
+    }
+}
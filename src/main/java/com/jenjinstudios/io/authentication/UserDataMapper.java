@@ -0,0 +1,39 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+
+import java.util.Map;
+
+/**
+ * Used by a FileAuthenticator to move user data between an ExecutionContext and the store, in which it is kept as
+ * string key-value pairs.
+ *
+ * @author Caleb Brinkman
+ */
+public interface UserDataMapper<T extends ExecutionContext>
+{
+    /**
+     * Populate the given context with the given user data.
+     *
+     * @param context The context.
+     * @param id The unique user identifier.
+     * @param data The user data.
+     */
+    void populate(T context, String id, Map<String, String> data);
+
+    /**
+     * Extract the user data to be stored from the given context.
+     *
+     * @param context The context.
+     *
+     * @return The user data.
+     */
+    Map<String, String> extract(T context);
+
+    /**
+     * Restore the given context to an unauthenticated state.
+     *
+     * @param context The context.
+     */
+    void clear(T context);
+}
@@ -0,0 +1,293 @@
+package com.jenjinstudios.io.authentication;
+
+import com.jenjinstudios.io.ExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorates an Authenticator, deferring calls to {@code update} so that they are written to the backing data store in
+ * batches, through {@link Authenticator#updateAll(Map)}, rather than one at a time.
+ * <p>
+ * Repeated updates for the same user before a flush are coalesced into one.  A batch is flushed once the number of
+ * users waiting to be written reaches the maximum batch size, and at least once every flush interval.  Because only
+ * the context is recorded, it is read when the batch is flushed, rather than when {@code update} is called, and must
+ * be safe to read from the flushing thread.  Any write waiting for a user is flushed before that user is populated,
+ * authenticated or unauthenticated, so that reads always see the latest data.  If a flush fails, its writes are kept
+ * and retried with the next flush.
+ * <p>
+ * Every waiting write is flushed when this Authenticator is closed, or when the JVM shuts down without it having been
+ * closed.
+ *
+ * @author Caleb Brinkman
+ */
+public class WriteBehindAuthenticator<T extends ExecutionContext> implements Authenticator<T>
+{
+    /** The default maximum number of users written in a single batch. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    /** The default maximum time, in milliseconds, for which a write may wait to be flushed. */
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindAuthenticator.class);
+    private final Authenticator<T> authenticator;
+    private final int maxBatchSize;
+    private final Map<String, T> dirty = new LinkedHashMap<>(10);
+    private final Object flushLock = new Object();
+    private final ScheduledThreadPoolExecutor flusher;
+    private final Thread shutdownHook;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong failedFlushCount = new AtomicLong(0);
+    private volatile boolean closed;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    /**
+     * Construct a new WriteBehindAuthenticator with the default batch size and flush interval.
+     *
+     * @param authenticator The Authenticator to which updates are written.
+     */
+    public WriteBehindAuthenticator(Authenticator<T> authenticator) {
+        this(authenticator, DEFAULT_MAX_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Construct a new WriteBehindAuthenticator, which begins flushing immediately.
+     *
+     * @param authenticator The Authenticator to which updates are written.
+     * @param maxBatchSize The maximum number of users written in a single batch.
+     * @param flushInterval The maximum time for which a write may wait to be flushed.
+     * @param timeUnit The unit of {@code flushInterval}.
+     *
+     * @throws IllegalArgumentException If the batch size or flush interval is not positive.
+     */
+    public WriteBehindAuthenticator(
+          Authenticator<T> authenticator,
+          int maxBatchSize,
+          long flushInterval,
+          TimeUnit timeUnit)
+    {
+        if ((maxBatchSize <= 0) || (flushInterval <= 0)) {
+            throw new IllegalArgumentException("Batch size and flush interval must be positive");
+        }
+        this.authenticator = authenticator;
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::scheduledFlush, flushInterval, flushInterval, timeUnit);
+        this.shutdownHook = new Thread(this::scheduledFlush, "write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public boolean isAuthenticated(String id) throws AuthenticationException {
+        return authenticator.isAuthenticated(id);
+    }
+
+    @Override
+    public boolean userExists(String id) throws AuthenticationException { return authenticator.userExists(id); }
+
+    @Override
+    public boolean credentialsValid(String id, Map<String, String> credentials) throws AuthenticationException {
+        return authenticator.credentialsValid(id, credentials);
+    }
+
+    @Override
+    public boolean authenticate(T context, String id, Map<String, String> credentials)
+          throws AuthenticationException
+    {
+        flush(id);
+        return authenticator.authenticate(context, id, credentials);
+    }
+
+    @Override
+    public boolean unauthenticate(T context, String id) throws AuthenticationException {
+        flush(id);
+        return authenticator.unauthenticate(context, id);
+    }
+
+    @Override
+    public void populate(T context, String id) throws AuthenticationException {
+        flush(id);
+        authenticator.populate(context, id);
+    }
+
+    /**
+     * Record that the given user must be written to the backing data store with the next batch; once this
+     * Authenticator has been closed, the user is written immediately instead.
+     *
+     * @param context The context containing data to be placed in the backing data store.
+     * @param id The unique user id.
+     *
+     * @return {@code true}; whether the backing data store is modified is not known until the batch is flushed.
+     *
+     * @throws AuthenticationException If this Authenticator has been closed and there is an exception during the
+     * update.
+     */
+    @Override
+    public boolean update(T context, String id) throws AuthenticationException {
+        if (closed) {
+            return authenticator.update(context, id);
+        }
+        int backlog;
+        synchronized (dirty) {
+            dirty.put(id, context);
+            backlog = dirty.size();
+        }
+        if ((backlog >= maxBatchSize) && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::scheduledFlush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flush every waiting write, stop flushing, and close the decorated Authenticator.
+     *
+     * @throws AuthenticationException If there is an exception when flushing, in which case the decorated
+     * Authenticator is not closed, or when closing it.
+     */
+    @Override
+    public void close() throws AuthenticationException {
+        closed = true;
+        flusher.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            LOGGER.debug("Closed during shutdown", e);
+        }
+        flush();
+        authenticator.close();
+    }
+
+    /**
+     * Write every waiting update to the backing data store, in batches of at most the maximum batch size.
+     *
+     * @throws AuthenticationException If there is an exception when writing a batch; the writes in the failed batch,
+     * and those not yet written, are kept for the next flush.
+     */
+    public void flush() throws AuthenticationException {
+        synchronized (flushLock) {
+            Map<String, T> batch = nextBatch();
+            while (!batch.isEmpty()) {
+                long start = System.nanoTime();
+                try {
+                    authenticator.updateAll(batch);
+                } catch (AuthenticationException | RuntimeException e) {
+                    failedFlushCount.incrementAndGet();
+                    requeue(batch);
+                    throw e;
+                } finally {
+                    recordFlush(System.nanoTime() - start);
+                }
+                batch = nextBatch();
+            }
+        }
+    }
+
+    /**
+     * Get the number of users waiting to be written to the backing data store.
+     *
+     * @return The backlog.
+     */
+    public int getBacklog() {
+        synchronized (dirty) {
+            return dirty.size();
+        }
+    }
+
+    /**
+     * Get the number of batches which have been written, successfully or not.
+     *
+     * @return The number of flushed batches.
+     */
+    public long getFlushCount() { return flushCount.get(); }
+
+    /**
+     * Get the number of batches which could not be written.
+     *
+     * @return The number of failed batches.
+     */
+    public long getFailedFlushCount() { return failedFlushCount.get(); }
+
+    /**
+     * Get the time taken to write the most recent batch.
+     *
+     * @return The latency of the last flush, in nanoseconds.
+     */
+    public long getLastFlushNanos() { return lastFlushNanos; }
+
+    /**
+     * Get the longest time taken to write a batch.
+     *
+     * @return The greatest flush latency, in nanoseconds.
+     */
+    public long getMaxFlushNanos() { return maxFlushNanos; }
+
+    private void flush(String id) throws AuthenticationException {
+        synchronized (flushLock) {
+            T context;
+            synchronized (dirty) {
+                context = dirty.remove(id);
+            }
+            if (context != null) {
+                try {
+                    authenticator.update(context, id);
+                } catch (AuthenticationException | RuntimeException e) {
+                    requeue(Collections.singletonMap(id, context));
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (AuthenticationException | RuntimeException e) {
+            LOGGER.error("Unable to flush {} waiting updates; will retry", getBacklog(), e);
+        }
+    }
+
+    private Map<String, T> nextBatch() {
+        Map<String, T> batch = new LinkedHashMap<>(Math.min(maxBatchSize, 10));
+        synchronized (dirty) {
+            Iterator<Map.Entry<String, T>> iterator = dirty.entrySet().iterator();
+            while (iterator.hasNext() && (batch.size() < maxBatchSize)) {
+                Map.Entry<String, T> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        return batch;
+    }
+
+    private void requeue(Map<String, T> batch) {
+        synchronized (dirty) {
+            // A newer update made during the failed flush takes precedence
+            batch.forEach(dirty::putIfAbsent);
+        }
+    }
+
+    // Only invoked while holding the flush lock
+    private void recordFlush(long nanos) {
+        flushCount.incrementAndGet();
+        lastFlushNanos = nanos;
+        maxFlushNanos = Math.max(maxFlushNanos, nanos);
+    }
+}
@@ -0,0 +1,86 @@
+package com.jenjinstudios.io.concurrency;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Conflate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Determines the conflation key of outgoing messages, from key functions registered for a message class or from the
+ * {@link Conflate} annotation.  Two queued messages are conflated if their keys are equal; a message whose key is null
+ * is never conflated.
+ *
+ * @author Caleb Brinkman
+ */
+public class Conflator
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Conflator.class);
+    private static final Function<Message, Object> NO_KEY = message -> null;
+    private static final Object CLASS_KEY = new Object();
+    private final Map<Class, Function<Message, Object>> keyFunctions = new ConcurrentHashMap<>(10);
+
+    /**
+     * Conflate outgoing messages of exactly the given class whose keys, as given by the key function, are equal.
+     * Overrides any {@link Conflate} annotation on the class.
+     *
+     * @param messageClass The class of message.
+     * @param keyFunction Extracts the conflation key from a message; may return null if the message should not be
+     * conflated.
+     * @param <M> The type of message.
+     */
+    public <M extends Message> void add(Class<M> messageClass, Function<? super M, ?> keyFunction) {
+        keyFunctions.put(messageClass, message -> keyFunction.apply(messageClass.cast(message)));
+    }
+
+    /**
+     * Get the conflation key of the given message.
+     *
+     * @param message The message.
+     *
+     * @return The key, which is only equal to the keys of messages of the same class; null if the message should not
+     * be conflated.
+     */
+    public Object getKey(Message message) {
+        Class messageClass = message.getClass();
+        Function<Message, Object> keyFunction = keyFunctions.get(messageClass);
+        if (keyFunction == null) {
+            keyFunction = keyFunctions.computeIfAbsent(messageClass, Conflator::fromAnnotation);
+        }
+        if (keyFunction == NO_KEY) {
+            return null;
+        }
+        Object key = keyFunction.apply(message);
+        return (key != null) ? new SimpleImmutableEntry<>(messageClass, key) : null;
+    }
+
+    private static Function<Message, Object> fromAnnotation(Class messageClass) {
+        Conflate conflate = (Conflate) messageClass.getAnnotation(Conflate.class);
+        if (conflate == null) {
+            return NO_KEY;
+        }
+        if (conflate.key().isEmpty()) {
+            return message -> CLASS_KEY;
+        }
+        try {
+            Field field = messageClass.getDeclaredField(conflate.key());
+            field.setAccessible(true);
+            return message -> {
+                try {
+                    return field.get(message);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read conflation key", e);
+                }
+            };
+        } catch (NoSuchFieldException e) {
+            LOGGER.warn("Conflation key field {} not found in {}; messages will not be conflated", conflate.key(),
+                  messageClass.getName());
+            return NO_KEY;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.jenjinstudios.io.concurrency;
 
 import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.serialization.DecodeLimitExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +35,8 @@ public class ErrorTask<T extends ExecutionContext> implements Runnable
         messageQueue.getErrorsAndClear().forEach(t -> {
             if (t instanceof EOFException) {
                 LOGGER.warn("Encountered EOF from MessageQueue; message: {}", t.getLocalizedMessage());
+            } else if (t instanceof DecodeLimitExceededException) {
+                LOGGER.warn("Incoming data exceeded decode limit; message: {}", t.getLocalizedMessage());
             } else {
                 LOGGER.warn("Encountered error from MessageQueue", t);
             }
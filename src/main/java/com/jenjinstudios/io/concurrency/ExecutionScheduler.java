@@ -0,0 +1,178 @@
+package com.jenjinstudios.io.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Executes the ExecutionTasks of many connections on a shared pool of threads, using deficit round robin so that a
+ * connection with a large backlog of messages cannot monopolize the pool.
+ * <p>
+ * Each turn, a connection may execute up to {@code quantum * weight} messages (plus any credit left over from its
+ * previous turn), and may spend no more than the configured amount of time doing so before it is sent to the back of
+ * the line.  A connection's messages are never executed by more than one thread at a time, so the guarantees made
+ * about modifying an ExecutionContext from {@code Message#execute} still hold.
+ *
+ * @author Caleb Brinkman
+ */
+public class ExecutionScheduler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionScheduler.class);
+    private static final long TICK_INTERVAL = 10;
+    private final Set<ScheduledExecution> registered = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<ScheduledExecution> ready = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService workers;
+    private final int threads;
+    private final int quantum;
+    private final long maxTurnNanos;
+
+    /**
+     * Construct a new ExecutionScheduler.
+     *
+     * @param threads The number of threads on which messages are executed.
+     * @param quantum The number of messages a connection of weight one may execute per turn.
+     * @param maxTurnTime The maximum amount of time a connection may spend executing messages per turn.
+     * @param timeUnit The unit of {@code maxTurnTime}.
+     *
+     * @throws IllegalArgumentException If {@code threads}, {@code quantum} or {@code maxTurnTime} is not positive.
+     */
+    public ExecutionScheduler(int threads, int quantum, long maxTurnTime, TimeUnit timeUnit) {
+        if ((threads < 1) || (quantum < 1) || (maxTurnTime <= 0)) {
+            throw new IllegalArgumentException("Threads, quantum and turn time must be positive");
+        }
+        this.threads = threads;
+        this.quantum = quantum;
+        this.maxTurnNanos = timeUnit.toNanos(maxTurnTime);
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Start executing registered tasks.
+     */
+    public void start() {
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+        ticker.scheduleWithFixedDelay(this::tick, 0, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop executing registered tasks.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Register the given task to be executed by this scheduler.
+     *
+     * @param task The task.
+     * @param weight The weight of the task; a task with weight two may execute twice as many messages per turn as a
+     * task with weight one.
+     * @param errorHandler Invoked with any exception thrown while executing the task; the task is cancelled first.
+     *
+     * @return A handle which can be used to change the weight of, or cancel, the task.
+     */
+    public ScheduledExecution register(ExecutionTask task, int weight, Consumer<Throwable> errorHandler) {
+        ScheduledExecution execution = new ScheduledExecution(task, weight, errorHandler);
+        registered.add(execution);
+        return execution;
+    }
+
+    private void tick() {
+        registered.forEach(execution -> {
+            if (execution.queued.compareAndSet(false, true)) {
+                ready.add(execution);
+            }
+        });
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ScheduledExecution execution;
+            try {
+                execution = ready.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!execution.cancelled) {
+                takeTurn(execution);
+            }
+        }
+    }
+
+    private void takeTurn(ScheduledExecution execution) {
+        int share = quantum * execution.weight;
+        execution.deficit = Math.min(execution.deficit + share, share * 2);
+        try {
+            execution.deficit -= execution.task.run(execution.deficit, maxTurnNanos);
+        } catch (RuntimeException e) {
+            LOGGER.error("Exception when executing messages; cancelling execution", e);
+            execution.cancel();
+            execution.errorHandler.accept(e);
+            return;
+        }
+        if (!execution.cancelled && execution.task.hasPendingMessages()) {
+            ready.add(execution);
+        } else {
+            execution.deficit = 0;
+            execution.queued.set(false);
+        }
+    }
+
+    /**
+     * A handle to an ExecutionTask registered with an ExecutionScheduler.
+     */
+    public final class ScheduledExecution
+    {
+        private final AtomicBoolean queued = new AtomicBoolean(false);
+        private final ExecutionTask task;
+        private final Consumer<Throwable> errorHandler;
+        private volatile int weight;
+        private volatile boolean cancelled;
+        private int deficit;
+
+        private ScheduledExecution(ExecutionTask task, int weight, Consumer<Throwable> errorHandler) {
+            this.task = task;
+            this.errorHandler = errorHandler;
+            setWeight(weight);
+        }
+
+        /**
+         * Change the weight of the task.
+         *
+         * @param weight The new weight; must be at least one.
+         *
+         * @throws IllegalArgumentException If the weight is less than one.
+         */
+        public void setWeight(int weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight must be at least one");
+            }
+            this.weight = weight;
+        }
+
+        public int getWeight() { return weight; }
+
+        /**
+         * Stop executing the task.
+         */
+        public void cancel() {
+            cancelled = true;
+            registered.remove(this);
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package com.jenjinstudios.io.concurrency;
 
+import com.jenjinstudios.io.AsyncMessage;
+import com.jenjinstudios.io.BatchHandler;
 import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.metrics.ConnectionMetrics;
+import com.jenjinstudios.io.tracing.MessageTracer;
+import com.jenjinstudios.io.tracing.TraceStage;
+import com.jenjinstudios.io.watchdog.Watch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -17,9 +31,21 @@ import java.util.function.Consumer;
 public class ExecutionTask<T extends ExecutionContext> implements Runnable
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionTask.class);
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED =
+          THREAD_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled();
     private final MessageQueue<T> messageQueue;
     private final T executionContext;
     private final Collection<Consumer<T>> contextualTasks;
+    private final ResponseOrdering responseOrdering;
+    private final ResponseSequencer responseSequencer;
+    private final Map<Class, BatchHandler> batchHandlers;
+    private final InterceptorChain<T> interceptors;
+    private final ConnectionMetrics metrics;
+    private final MessageTracer tracer;
+    private final Watch watch;
+    private final AtomicLong cpuTime = new AtomicLong(0);
+    private final AtomicLong executedCount = new AtomicLong(0);
 
     /**
      * Construct a new ExecuteTask that will execute messages from the given MessageQueue.
@@ -30,33 +56,359 @@ public class ExecutionTask<T extends ExecutionContext> implements Runnable
      */
     public ExecutionTask(MessageQueue<T> messageQueue, T executionContext, Collection<Consumer<T>> contextualTasks)
     {
+        this(messageQueue, executionContext, contextualTasks, ResponseOrdering.IN_ORDER);
+    }
+
+    /**
+     * Construct a new ExecuteTask that will execute messages from the given MessageQueue.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param executionContext The context in which messages should execute.
+     * @param contextualTasks Tasks which should be invoked in synchronous fashion with the execution context.
+     * @param responseOrdering The order in which responses are queued when messages are executed asynchronously.
+     */
+    public ExecutionTask(
+          MessageQueue<T> messageQueue,
+          T executionContext,
+          Collection<Consumer<T>> contextualTasks,
+          ResponseOrdering responseOrdering)
+    {
+        this(messageQueue, executionContext, contextualTasks, responseOrdering, Collections.emptyMap(),
+              new InterceptorChain<>());
+    }
+
+    /**
+     * Construct a new ExecuteTask that will execute messages from the given MessageQueue.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param executionContext The context in which messages should execute.
+     * @param contextualTasks Tasks which should be invoked in synchronous fashion with the execution context.
+     * @param responseOrdering The order in which responses are queued when messages are executed asynchronously.
+     * @param batchHandlers Handlers which execute runs of consecutive messages of the class with which they are
+     * registered, in place of executing each message individually.
+     * @param interceptors The interceptors through which each message passes before it is executed.
+     */
+    public ExecutionTask(
+          MessageQueue<T> messageQueue,
+          T executionContext,
+          Collection<Consumer<T>> contextualTasks,
+          ResponseOrdering responseOrdering,
+          Map<Class, BatchHandler> batchHandlers,
+          InterceptorChain<T> interceptors)
+    {
+        this(messageQueue, executionContext, contextualTasks, responseOrdering, batchHandlers, interceptors, null);
+    }
+
+    /**
+     * Construct a new ExecuteTask that will execute messages from the given MessageQueue.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param executionContext The context in which messages should execute.
+     * @param contextualTasks Tasks which should be invoked in synchronous fashion with the execution context.
+     * @param responseOrdering The order in which responses are queued when messages are executed asynchronously.
+     * @param batchHandlers Handlers which execute runs of consecutive messages of the class with which they are
+     * registered, in place of executing each message individually.
+     * @param interceptors The interceptors through which each message passes before it is executed.
+     * @param metrics Records the time taken to execute each message or batch; null if it should not be recorded.
+     */
+    public ExecutionTask(
+          MessageQueue<T> messageQueue,
+          T executionContext,
+          Collection<Consumer<T>> contextualTasks,
+          ResponseOrdering responseOrdering,
+          Map<Class, BatchHandler> batchHandlers,
+          InterceptorChain<T> interceptors,
+          ConnectionMetrics metrics)
+    {
+        this(messageQueue, executionContext, contextualTasks, responseOrdering, batchHandlers, interceptors, metrics,
+              null);
+    }
+
+    /**
+     * Construct a new ExecuteTask that will execute messages from the given MessageQueue.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param executionContext The context in which messages should execute.
+     * @param contextualTasks Tasks which should be invoked in synchronous fashion with the execution context.
+     * @param responseOrdering The order in which responses are queued when messages are executed asynchronously.
+     * @param batchHandlers Handlers which execute runs of consecutive messages of the class with which they are
+     * registered, in place of executing each message individually.
+     * @param interceptors The interceptors through which each message passes before it is executed.
+     * @param metrics Records the time taken to execute each message or batch; null if it should not be recorded.
+     * @param watch Times each execution on behalf of a Watchdog; null if executions should not be watched.
+     */
+    public ExecutionTask(
+          MessageQueue<T> messageQueue,
+          T executionContext,
+          Collection<Consumer<T>> contextualTasks,
+          ResponseOrdering responseOrdering,
+          Map<Class, BatchHandler> batchHandlers,
+          InterceptorChain<T> interceptors,
+          ConnectionMetrics metrics,
+          Watch watch)
+    {
+        this.metrics = metrics;
+        this.watch = watch;
+        this.tracer = messageQueue.getTracer();
         this.messageQueue = messageQueue;
         this.executionContext = executionContext;
         this.contextualTasks = contextualTasks;
+        this.responseOrdering = responseOrdering;
+        this.batchHandlers = batchHandlers;
+        this.interceptors = interceptors;
+        this.responseSequencer = new ResponseSequencer(messageQueue);
     }
 
     @Override
     public void run() {
+        long startCpu = currentThreadCpuTime();
         final List<Message> incoming = messageQueue.getIncomingAndClear();
-        incoming.forEach(message -> {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Executing message (Type: {})", message.getClass().getName());
+        final int count = incoming.size();
+        if (batchHandlers.isEmpty() && interceptors.isEmpty()) {
+            incoming.forEach(this::execute);
+        } else {
+            ListIterator<Message> iterator = incoming.listIterator();
+            while (iterator.hasNext()) {
+                executeNext(iterator);
+            }
+        }
+        executedCount.addAndGet(count);
+        executeRecurringTasks();
+        cpuTime.addAndGet(currentThreadCpuTime() - startCpu);
+    }
+
+    /**
+     * Execute at most the given number of queued messages, stopping early once the given amount of time has elapsed;
+     * any messages not executed remain queued, in order, for the next turn.  A run of messages passed to a batch
+     * handler counts as one message per message in the run.  Recurring tasks are executed at the end of each turn.
+     *
+     * @param maxMessages The maximum number of messages to execute.
+     * @param maxNanos The maximum number of nanoseconds to spend executing messages.
+     *
+     * @return The number of messages executed.
+     */
+    public int run(int maxMessages, long maxNanos) {
+        long startCpu = currentThreadCpuTime();
+        long start = System.nanoTime();
+        final List<Message> incoming = messageQueue.getIncoming(maxMessages);
+        int executed = 0;
+        ListIterator<Message> iterator = incoming.listIterator();
+        try {
+            while (iterator.hasNext() && ((System.nanoTime() - start) < maxNanos)) {
+                executed += executeNext(iterator);
             }
-            Message response = message.execute(executionContext);
-            if (response != null) {
-                messageQueue.queueOutgoing(response);
+        } finally {
+            if (!incoming.isEmpty()) {
+                messageQueue.requeueIncoming(incoming);
             }
-            contextualTasks.forEach(consumer -> {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Executing contextual task: {}", consumer);
+        }
+        executedCount.addAndGet(executed);
+        executeRecurringTasks();
+        cpuTime.addAndGet(currentThreadCpuTime() - startCpu);
+        return executed;
+    }
+
+    /**
+     * Determine whether there are messages waiting to be executed.
+     *
+     * @return Whether there are messages waiting to be executed.
+     */
+    public boolean hasPendingMessages() { return messageQueue.hasIncoming(); }
+
+    /**
+     * Get the CPU time consumed executing messages, contextual tasks and recurring tasks in this task's context.  If
+     * the JVM does not support measuring thread CPU time, this is always zero.
+     *
+     * @return The consumed CPU time, in nanoseconds.
+     */
+    public long getCpuTimeNanos() { return cpuTime.get(); }
+
+    /**
+     * Get the number of messages which have been executed.
+     *
+     * @return The number of messages which have been executed.
+     */
+    public long getExecutedCount() { return executedCount.get(); }
+
+    /**
+     * Get the number of responses being held back to preserve ordering; always zero when responses are sent in
+     * completion order.
+     *
+     * @return The number of responses which have not yet been queued for sending.
+     */
+    public int getPendingResponseCount() { return responseSequencer.getPendingCount(); }
+
+    /**
+     * Intercept, execute, and remove from the given iterator, the next message; if a batch handler is registered for
+     * its class, every consecutive message of the same class is executed with it.
+     *
+     * @param iterator The iterator over the drained messages.
+     *
+     * @return The number of messages removed from the iterator.
+     */
+    private int executeNext(ListIterator<Message> iterator) {
+        Message received = iterator.next();
+        iterator.remove();
+        Message message = interceptors.intercept(executionContext, received);
+        BatchHandler handler = ((message == null) || batchHandlers.isEmpty())
+              ? null
+              : batchHandlers.get(message.getClass());
+        if (handler == null) {
+            if (message != null) {
+                execute(message);
+            }
+            return 1;
+        }
+        List<Message> batch = new ArrayList<>();
+        batch.add(message);
+        int count = 1;
+        while (iterator.hasNext()) {
+            Message next = iterator.next();
+            if (next.getClass() != message.getClass()) {
+                iterator.previous();
+                break;
+            }
+            iterator.remove();
+            count++;
+            Message intercepted = interceptors.intercept(executionContext, next);
+            if ((intercepted != null) && (intercepted.getClass() != message.getClass())) {
+                executeBatch(handler, batch);
+                execute(intercepted);
+                return count;
+            } else if (intercepted != null) {
+                batch.add(intercepted);
+            }
+        }
+        executeBatch(handler, batch);
+        return count;
+    }
+
+    private void executeBatch(BatchHandler handler, List<Message> batch) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Executing batch of {} messages (Type: {})", batch.size(), batch.get(0).getClass().getName());
+        }
+        long start = System.nanoTime();
+        if (tracer != null) {
+            batch.forEach(message -> tracer.trace(message, TraceStage.EXECUTION_START, start));
+        }
+        if (watch != null) {
+            watch.executing(batch.get(0));
+        }
+        Collection<Message> responses;
+        try {
+            responses = handler.execute(executionContext, batch);
+        } finally {
+            if (watch != null) {
+                watch.executed();
+            }
+        }
+        recordExecution(start);
+        if (tracer != null) {
+            long end = System.nanoTime();
+            batch.forEach(message -> tracer.trace(message, TraceStage.EXECUTION_END, end));
+        }
+        if (responses != null) {
+            responses.forEach(this::respond);
+        }
+        executeContextualTasks();
+    }
+
+    private void execute(Message message) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Executing message (Type: {})", message.getClass().getName());
+        }
+        long start = System.nanoTime();
+        if (tracer != null) {
+            tracer.trace(message, TraceStage.EXECUTION_START, start);
+        }
+        if (watch != null) {
+            watch.executing(message);
+        }
+        try {
+            if (message instanceof AsyncMessage) {
+                executeAsync((AsyncMessage<T>) message);
+                recordExecution(start);
+            } else {
+                Message response = message.execute(executionContext);
+                recordExecution(start);
+                traceExecuted(message);
+                respond(response);
+            }
+        } finally {
+            if (watch != null) {
+                watch.executed();
+            }
+        }
+        executeContextualTasks();
+    }
+
+    private void recordExecution(long start) {
+        if (metrics != null) {
+            metrics.recordExecution(System.nanoTime() - start);
+        }
+    }
+
+    private void traceExecuted(Message message) {
+        if (tracer != null) {
+            tracer.trace(message, TraceStage.EXECUTION_END, System.nanoTime());
+        }
+    }
+
+    private void executeContextualTasks() {
+        contextualTasks.forEach(consumer -> {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Executing contextual task: {}", consumer);
+            }
+            consumer.accept(executionContext);
+        });
+    }
+
+    private void executeAsync(AsyncMessage<T> message) {
+        CompletableFuture<Message> future = message.executeAsync(executionContext).toCompletableFuture();
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            traceExecuted(message);
+            respond(future.join());
+        } else if (responseOrdering == ResponseOrdering.IN_ORDER) {
+            ResponseSequencer.Slot slot = responseSequencer.reserve();
+            future.whenComplete((response, throwable) -> {
+                responseSequencer.complete(slot, response);
+                asyncCompleted(message, throwable);
+            });
+        } else {
+            future.whenComplete((response, throwable) -> {
+                if (response != null) {
+                    messageQueue.queueOutgoing(response);
                 }
-                consumer.accept(executionContext);
+                asyncCompleted(message, throwable);
             });
-        });
+        }
+    }
+
+    private void asyncCompleted(Message message, Throwable throwable) {
+        traceExecuted(message);
+        if (throwable != null) {
+            LOGGER.warn("Exception when executing message asynchronously (Type: {})", message.getClass().getName());
+            messageQueue.errorEncountered(throwable);
+        }
+    }
+
+    private void respond(Message response) {
+        if (responseOrdering == ResponseOrdering.IN_ORDER) {
+            responseSequencer.respond(response);
+        } else if (response != null) {
+            messageQueue.queueOutgoing(response);
+        }
+    }
+
+    private void executeRecurringTasks() {
         long currentTime = System.currentTimeMillis();
         messageQueue.getRecurringTasks().stream().filter(task -> task.shouldExecute(currentTime)).forEach(task -> {
             task.execute(executionContext);
             task.done();
         });
     }
+
+    private static long currentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+    }
 }
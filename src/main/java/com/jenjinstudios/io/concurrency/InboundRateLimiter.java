@@ -0,0 +1,152 @@
+package com.jenjinstudios.io.concurrency;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.RateLimitWeight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate at which a single Connection accepts incoming messages and bytes, using a token bucket for each.
+ *
+ * @author Caleb Brinkman
+ */
+public class InboundRateLimiter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(InboundRateLimiter.class);
+    private static final Map<Class, Integer> WEIGHTS = new ConcurrentHashMap<>(10);
+    private final TokenBucket messageBucket;
+    private final TokenBucket byteBucket;
+    private final LongSupplier bytesRead;
+    private final RateLimitAction action;
+    private final AtomicLong exceeded = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong delayNanos = new AtomicLong(0);
+    private long lastBytesRead;
+
+    /**
+     * Construct an InboundRateLimiter which permits every message.
+     */
+    public InboundRateLimiter() { this(null, null, null, RateLimitAction.DELAY); }
+
+    /**
+     * Construct a new InboundRateLimiter.
+     *
+     * @param messageBucket The bucket limiting the (weighted) number of messages; null for no limit.
+     * @param byteBucket The bucket limiting the number of bytes; null for no limit.
+     * @param bytesRead Supplies the total number of bytes read by the connection so far; null if unknown, in which
+     * case the byte limit is not enforced.
+     * @param action The action taken when a message exceeds either limit.
+     */
+    public InboundRateLimiter(
+          TokenBucket messageBucket,
+          TokenBucket byteBucket,
+          LongSupplier bytesRead,
+          RateLimitAction action)
+    {
+        this.messageBucket = messageBucket;
+        this.byteBucket = (bytesRead != null) ? byteBucket : null;
+        this.bytesRead = bytesRead;
+        this.action = action;
+    }
+
+    /**
+     * Determine whether the given message, which has just been read, should be passed on for execution.  Depending on
+     * the configured {@link RateLimitAction}, this method may block until the limit permits the message.
+     * <p>
+     * This method should only be called from the thread reading messages for the connection.
+     *
+     * @param message The message which has just been read.
+     *
+     * @return Whether the message should be executed.
+     *
+     * @throws RateLimitExceededException If the limit is exceeded and the configured action is {@code DISCONNECT}.
+     */
+    public boolean permit(Message message) throws RateLimitExceededException {
+        long weight = (messageBucket != null) ? getWeight(message.getClass()) : 0;
+        long bytes = 0;
+        if (byteBucket != null) {
+            long total = bytesRead.getAsLong();
+            bytes = total - lastBytesRead;
+            lastBytesRead = total;
+        }
+        // Neither bucket is charged unless both permit the message, so a rejected message is never charged twice
+        boolean messagesPermitted = (messageBucket == null) || (messageBucket.nanosUntilAvailable(weight) == 0);
+        boolean bytesPermitted = (byteBucket == null) || (byteBucket.nanosUntilAvailable(bytes) == 0);
+        if (messagesPermitted && bytesPermitted) {
+            return charge(weight, bytes);
+        }
+        exceeded.incrementAndGet();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Inbound rate limit exceeded (Type: {}, Action: {})", message.getClass().getName(), action);
+        }
+        switch (action) {
+            case DISCONNECT:
+                throw new RateLimitExceededException("Inbound rate limit exceeded");
+            case DROP:
+                dropped.incrementAndGet();
+                return false;
+            default:
+                return delay(weight, bytes);
+        }
+    }
+
+    /**
+     * Get the number of messages which have exceeded the limit, regardless of the action taken.
+     *
+     * @return The number of messages which have exceeded the limit.
+     */
+    public long getExceededCount() { return exceeded.get(); }
+
+    /**
+     * Get the number of messages which have been dropped for exceeding the limit.
+     *
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() { return dropped.get(); }
+
+    /**
+     * Get the total time spent waiting for the limit to permit delayed messages.
+     *
+     * @return The total delay, in nanoseconds.
+     */
+    public long getDelayNanos() { return delayNanos.get(); }
+
+    private boolean charge(long weight, long bytes) {
+        // Only the reading thread takes tokens, so tokens found available above are still available here
+        if (messageBucket != null) {
+            messageBucket.tryAcquire(weight);
+        }
+        if (byteBucket != null) {
+            byteBucket.tryAcquire(bytes);
+        }
+        return true;
+    }
+
+    private boolean delay(long weight, long bytes) {
+        try {
+            if (weight > 0) {
+                delayNanos.addAndGet(messageBucket.acquire(weight));
+            }
+            if (bytes > 0) {
+                delayNanos.addAndGet(byteBucket.acquire(bytes));
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    private static long getWeight(Class messageClass) {
+        return WEIGHTS.computeIfAbsent(messageClass, c -> {
+            RateLimitWeight weight = (RateLimitWeight) c.getAnnotation(RateLimitWeight.class);
+            return (weight != null) ? Math.max(weight.value(), 0) : 1;
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package com.jenjinstudios.io.concurrency;
+
+import com.jenjinstudios.io.EnvelopeMessage;
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageInterceptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An ordered chain of MessageInterceptors, each registered for a message type.
+ * <p>
+ * The first time a message of a given class passes through the chain, the interceptors registered for that class or
+ * any of its supertypes are resolved, in registration order, into an array which is cached for the class; after that,
+ * intercepting a message costs a single lookup and a loop over exactly the interceptors which apply.  Classes with no
+ * applicable interceptors resolve to an empty array, and a chain with no interceptors at all skips the lookup.
+ * <p>
+ * Envelopes, such as requests and responses, are transparent: the message an {@link EnvelopeMessage} carries is
+ * passed through the chain in its place, and the envelope is rewrapped around the result; if the result is null, the
+ * envelope decides whether it is kept, empty, or discarded with it.
+ * <p>
+ * If an interceptor replaces a message with one of a different class, the chain is resolved again for the new class,
+ * and continues with the interceptors for that class which were registered after the one that replaced it.
+ * Interceptors should be added before any message passes through the chain.
+ *
+ * @author Caleb Brinkman
+ */
+public class InterceptorChain<C extends ExecutionContext>
+{
+    private static final Resolution NONE = new Resolution(new MessageInterceptor[0], new int[0]);
+    private final Collection<Registration> registrations = new LinkedList<>();
+    private final Map<Class, Resolution> resolved = new ConcurrentHashMap<>(10);
+    private volatile boolean empty = true;
+
+    /**
+     * Add an interceptor to the end of this chain.
+     *
+     * @param type The type of message intercepted; the interceptor also applies to subtypes.
+     * @param interceptor The interceptor.
+     * @param <M> The type of message intercepted.
+     */
+    public <M extends Message> void add(Class<M> type, MessageInterceptor<C, ? super M> interceptor) {
+        synchronized (registrations) {
+            registrations.add(new Registration(type, interceptor));
+            resolved.clear();
+            empty = false;
+        }
+    }
+
+    /**
+     * Pass the given message through every interceptor which applies to its class, or to the class of the message it
+     * carries if it is an envelope.
+     *
+     * @param context The context of the connection.
+     * @param message The message.
+     *
+     * @return The message returned by the last interceptor, or null if any interceptor discarded it.
+     */
+    public Message intercept(C context, Message message) {
+        if (empty) {
+            return message;
+        }
+        if (message instanceof EnvelopeMessage) {
+            EnvelopeMessage envelope = (EnvelopeMessage) message;
+            Message carried = envelope.getMessage();
+            return (carried != null) ? envelope.withMessage(intercept(context, carried)) : message;
+        }
+        Resolution resolution = resolution(message.getClass());
+        Message intercepted = message;
+        for (int i = 0; (i < resolution.interceptors.length) && (intercepted != null); i++) {
+            Message previous = intercepted;
+            intercepted = resolution.interceptors[i].intercept(context, intercepted);
+            if ((intercepted != null) && (intercepted.getClass() != previous.getClass())) {
+                int position = resolution.positions[i];
+                resolution = resolution(intercepted.getClass());
+                i = resolution.after(position) - 1;
+            }
+        }
+        return intercepted;
+    }
+
+    public boolean isEmpty() { return empty; }
+
+    private Resolution resolution(Class messageClass) {
+        Resolution resolution = resolved.get(messageClass);
+        return (resolution != null) ? resolution : resolved.computeIfAbsent(messageClass, this::resolve);
+    }
+
+    private Resolution resolve(Class messageClass) {
+        List<MessageInterceptor> interceptors = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        synchronized (registrations) {
+            int position = 0;
+            for (Registration registration : registrations) {
+                if (registration.type.isAssignableFrom(messageClass)) {
+                    interceptors.add(registration.interceptor);
+                    positions.add(position);
+                }
+                position++;
+            }
+        }
+        return interceptors.isEmpty() ? NONE : new Resolution(
+              interceptors.toArray(new MessageInterceptor[interceptors.size()]),
+              positions.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static final class Resolution
+    {
+        private final MessageInterceptor[] interceptors;
+        private final int[] positions;
+
+        private Resolution(MessageInterceptor[] interceptors, int[] positions) {
+            this.interceptors = interceptors;
+            this.positions = positions;
+        }
+
+        private int after(int position) {
+            int index = 0;
+            while ((index < positions.length) && (positions[index] <= position)) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private static final class Registration
+    {
+        private final Class type;
+        private final MessageInterceptor interceptor;
+
+        private Registration(Class type, MessageInterceptor interceptor) {
+            this.type = type;
+            this.interceptor = interceptor;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.jenjinstudios.io.concurrency;
+
+/**
+ * The lane of a Connection's outgoing queue in which a Message waits to be written.
+ *
+ * @author Caleb Brinkman
+ */
+public enum MessagePriority
+{
+    /** For latency-critical messages, which should never wait behind bulk traffic. */
+    HIGH,
+    /** The default lane. */
+    NORMAL,
+    /** For bulk transfers and other messages which can tolerate delay. */
+    LOW
+}
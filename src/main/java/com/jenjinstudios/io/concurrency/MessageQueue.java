@@ -2,11 +2,20 @@ package com.jenjinstudios.io.concurrency;
 
 import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Control;
+import com.jenjinstudios.io.annotations.Priority;
+import com.jenjinstudios.io.metrics.ConnectionMetrics;
+import com.jenjinstudios.io.tracing.MessageTracer;
+import com.jenjinstudios.io.tracing.TraceStage;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Queues incoming and outgoing messages in a thread-safe manner.
@@ -15,10 +24,16 @@ import java.util.List;
  */
 public class MessageQueue<T extends ExecutionContext>
 {
+    private static final Map<Class, MessagePriority> PRIORITIES = new ConcurrentHashMap<>(10);
+    private static final Map<Class, Boolean> CONTROL = new ConcurrentHashMap<>(10);
     private final Collection<RecurringTask<T>> recurringTasks = new LinkedList<>();
-    private final Collection<Message> incoming = new LinkedList<>();
-    private final Collection<Message> outgoing = new LinkedList<>();
+    private final Deque<Message> incoming = new LinkedList<>();
+    private final OutgoingLanes outgoing;
     private final Collection<Throwable> errors = new LinkedList<>();
+    private final Conflator conflator;
+    private final Deque<Long> receivedTimes = new LinkedList<>();
+    private final ConnectionMetrics metrics;
+    private final MessageTracer tracer;
 
     /**
      * Construct a new MessageQueue.
@@ -32,7 +47,76 @@ public class MessageQueue<T extends ExecutionContext>
      * @param recurringTasks The recurring tasks.
      */
     public MessageQueue(Collection<RecurringTask<T>> recurringTasks) {
+        this(recurringTasks, null);
+    }
+
+    /**
+     * Construct a new MessageQueue with the given recurring tasks, which conflates outgoing messages.
+     *
+     * @param recurringTasks The recurring tasks.
+     * @param conflator Determines which outgoing messages are conflated; null if none should be.
+     */
+    public MessageQueue(Collection<RecurringTask<T>> recurringTasks, Conflator conflator) {
+        this(recurringTasks, conflator, PriorityPolicy.DEFAULT);
+    }
+
+    /**
+     * Construct a new MessageQueue with the given recurring tasks, which conflates outgoing messages and drains them
+     * from priority lanes according to the given policy.
+     *
+     * @param recurringTasks The recurring tasks.
+     * @param conflator Determines which outgoing messages are conflated; null if none should be.
+     * @param priorityPolicy Determines the order in which messages are drained from the outgoing priority lanes.
+     */
+    public MessageQueue(
+          Collection<RecurringTask<T>> recurringTasks,
+          Conflator conflator,
+          PriorityPolicy priorityPolicy)
+    {
+        this(recurringTasks, conflator, priorityPolicy, null);
+    }
+
+    /**
+     * Construct a new MessageQueue with the given recurring tasks, which conflates outgoing messages, drains them from
+     * priority lanes according to the given policy, and records how long each incoming message waits to be retrieved.
+     *
+     * @param recurringTasks The recurring tasks.
+     * @param conflator Determines which outgoing messages are conflated; null if none should be.
+     * @param priorityPolicy Determines the order in which messages are drained from the outgoing priority lanes.
+     * @param metrics Records the time incoming messages wait to be retrieved; null if it should not be recorded.
+     */
+    public MessageQueue(
+          Collection<RecurringTask<T>> recurringTasks,
+          Conflator conflator,
+          PriorityPolicy priorityPolicy,
+          ConnectionMetrics metrics)
+    {
+        this(recurringTasks, conflator, priorityPolicy, metrics, null);
+    }
+
+    /**
+     * Construct a new MessageQueue with the given recurring tasks, which conflates outgoing messages, drains them from
+     * priority lanes according to the given policy, records how long each incoming message waits to be retrieved, and
+     * traces incoming messages as they are queued and executed.
+     *
+     * @param recurringTasks The recurring tasks.
+     * @param conflator Determines which outgoing messages are conflated; null if none should be.
+     * @param priorityPolicy Determines the order in which messages are drained from the outgoing priority lanes.
+     * @param metrics Records the time incoming messages wait to be retrieved; null if it should not be recorded.
+     * @param tracer Traces incoming messages as they are queued and executed; null if they should not be traced.
+     */
+    public MessageQueue(
+          Collection<RecurringTask<T>> recurringTasks,
+          Conflator conflator,
+          PriorityPolicy priorityPolicy,
+          ConnectionMetrics metrics,
+          MessageTracer tracer)
+    {
         this.recurringTasks.addAll(recurringTasks);
+        this.conflator = conflator;
+        this.outgoing = new OutgoingLanes(priorityPolicy);
+        this.metrics = metrics;
+        this.tracer = tracer;
     }
 
     /**
@@ -44,6 +128,12 @@ public class MessageQueue<T extends ExecutionContext>
         if (message != null) {
             synchronized (incoming) {
                 incoming.add(message);
+                if (metrics != null) {
+                    receivedTimes.add(System.nanoTime());
+                }
+                if (tracer != null) {
+                    tracer.trace(message, TraceStage.ENQUEUED, System.nanoTime());
+                }
             }
         }
     }
@@ -59,34 +149,185 @@ public class MessageQueue<T extends ExecutionContext>
         synchronized (incoming) {
             temp = new LinkedList<>(incoming);
             incoming.clear();
+            recordQueueWait(temp.size());
         }
         return temp;
     }
 
     /**
-     * Queue an outgoing message.
+     * Get, and remove from the internal list, at most the given number of messages which have been received, in the
+     * order in which they were received.
+     *
+     * @param max The maximum number of messages to return.
+     *
+     * @return A List of at most {@code max} received messages.
+     */
+    public List<Message> getIncoming(int max) {
+        List<Message> temp = new LinkedList<>();
+        synchronized (incoming) {
+            while ((temp.size() < max) && !incoming.isEmpty()) {
+                temp.add(incoming.poll());
+            }
+            recordQueueWait(temp.size());
+        }
+        return temp;
+    }
+
+    /**
+     * Return messages previously retrieved by {@link #getIncoming(int)} to the front of the incoming queue, so that
+     * they are retrieved again before any messages received since.  Their wait in the queue is timed again from when
+     * they are returned.
+     *
+     * @param messages The messages, in the order in which they were received.
+     */
+    public void requeueIncoming(List<Message> messages) {
+        synchronized (incoming) {
+            ListIterator<Message> iterator = messages.listIterator(messages.size());
+            long now = System.nanoTime();
+            while (iterator.hasPrevious()) {
+                incoming.addFirst(iterator.previous());
+                if (metrics != null) {
+                    receivedTimes.addFirst(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine whether any received messages are waiting to be retrieved.
+     *
+     * @return Whether any received messages are waiting to be retrieved.
+     */
+    public boolean hasIncoming() {
+        synchronized (incoming) {
+            return !incoming.isEmpty();
+        }
+    }
+
+    /**
+     * Get the number of received messages waiting to be retrieved.
+     *
+     * @return The number of waiting messages.
+     */
+    public int getIncomingCount() {
+        synchronized (incoming) {
+            return incoming.size();
+        }
+    }
+
+    /**
+     * Queue an outgoing message in the priority lane given by its {@link Priority} annotation, or the {@code NORMAL}
+     * lane if it has none; a {@link Control} message is instead queued ahead of every lane.  If the message is conflated with a message which is already queued, it replaces that
+     * message in place, rather than being added to the end of the lane.
+     *
+     * @param message The message to be queued.
+     */
+    public void queueOutgoing(Message message) { queueOutgoing(message, getPriority(message.getClass())); }
+
+    /**
+     * Queue an outgoing message in the given priority lane, or ahead of every lane if it is a {@link Control} message.
+     * If the message is conflated with a message which is already queued in the lane, it replaces that message in
+     * place, rather than being added to the end of the lane.
      *
      * @param message The message to be queued.
+     * @param priority The priority lane.
      */
-    public void queueOutgoing(Message message) {
+    public void queueOutgoing(Message message, MessagePriority priority) {
+        if (isControl(message)) {
+            synchronized (outgoing) {
+                outgoing.addControl(message);
+            }
+            return;
+        }
+        Object key = (conflator != null) ? conflator.getKey(message) : null;
+        long now = System.nanoTime();
         synchronized (outgoing) {
-            outgoing.add(message);
+            outgoing.add(message, priority, key, now);
         }
     }
 
     /**
-     * Get all messages that have been queued since the last time this method was called, and clear the internal
-     * list.
+     * Remove and return the next outgoing message which should be written, according to the priority policy of this
+     * queue.
+     *
+     * @return The next outgoing message; null if no messages are queued.
+     */
+    public Message pollOutgoing() {
+        long now = System.nanoTime();
+        synchronized (outgoing) {
+            return outgoing.poll(now);
+        }
+    }
+
+    /**
+     * Remove and return the next outgoing {@link Control} message, leaving every other message queued; used to keep
+     * control messages flowing while other messages are held back.
+     *
+     * @return The next outgoing control message; null if none are queued.
+     */
+    public Message pollControl() {
+        synchronized (outgoing) {
+            return outgoing.pollControl();
+        }
+    }
+
+    /**
+     * Determine whether any outgoing messages are waiting to be written.
+     *
+     * @return Whether any outgoing messages are waiting to be written.
+     */
+    public boolean hasOutgoing() {
+        synchronized (outgoing) {
+            return !outgoing.isEmpty();
+        }
+    }
+
+    /**
+     * Get the number of messages waiting in the given outgoing priority lane.
+     *
+     * @param priority The priority lane.
+     *
+     * @return The number of waiting messages.
+     */
+    public int getOutgoingCount(MessagePriority priority) {
+        synchronized (outgoing) {
+            return outgoing.size(priority);
+        }
+    }
+
+    /**
+     * Get the number of outgoing messages which have been replaced by newer messages before being sent.
+     *
+     * @return The number of conflated messages.
+     */
+    public long getConflatedCount() {
+        synchronized (outgoing) {
+            return outgoing.getConflatedCount();
+        }
+    }
+
+    /**
+     * Get the number of outgoing messages which were written ahead of higher priority messages because they had
+     * waited longer than the starvation threshold.
+     *
+     * @return The number of starved messages.
+     */
+    public long getStarvedCount() {
+        synchronized (outgoing) {
+            return outgoing.getStarvedCount();
+        }
+    }
+
+    /**
+     * Get all messages that have been queued since the last time this method was called, highest priority first, and
+     * clear the internal list.
      *
      * @return A List of messages that have been queued since the last time this method was called.
      */
     public List<Message> getOutgoingAndClear() {
-        List<Message> temp;
         synchronized (outgoing) {
-            temp = new LinkedList<>(outgoing);
-            outgoing.clear();
+            return outgoing.pollAll();
         }
-        return temp;
     }
 
     /**
@@ -118,4 +359,34 @@ public class MessageQueue<T extends ExecutionContext>
         recurringTasks.removeIf(RecurringTask::isCancelled);
         return Collections.unmodifiableCollection(recurringTasks);
     }
+
+    MessageTracer getTracer() { return tracer; }
+
+    // Must be invoked while holding the incoming lock
+    private void recordQueueWait(int retrieved) {
+        if (metrics != null) {
+            long now = System.nanoTime();
+            for (int i = 0; i < retrieved; i++) {
+                metrics.recordQueueWait(now - receivedTimes.poll());
+            }
+        }
+    }
+
+    /**
+     * Determine whether the given message is a control message, whose class is annotated with {@link Control}.
+     *
+     * @param message The message.
+     *
+     * @return Whether the message is a control message.
+     */
+    public static boolean isControl(Message message) {
+        return CONTROL.computeIfAbsent(message.getClass(), c -> c.isAnnotationPresent(Control.class));
+    }
+
+    private static MessagePriority getPriority(Class messageClass) {
+        return PRIORITIES.computeIfAbsent(messageClass, c -> {
+            Priority priority = (Priority) c.getAnnotation(Priority.class);
+            return (priority != null) ? priority.value() : MessagePriority.NORMAL;
+        });
+    }
 }
@@ -0,0 +1,203 @@
+package com.jenjinstudios.io.concurrency;
+
+import com.jenjinstudios.io.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outgoing half of a MessageQueue: one FIFO lane per priority, each supporting in-place conflation, drained in the
+ * order determined by a PriorityPolicy, behind a FIFO of control messages which is always drained first.  Not
+ * thread-safe; MessageQueue synchronizes access.
+ *
+ * @author Caleb Brinkman
+ */
+class OutgoingLanes
+{
+    private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+    private final Deque<Message> control = new ArrayDeque<>();
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private final int[] credits = new int[PRIORITIES.length];
+    private final PriorityPolicy policy;
+    private long conflatedCount;
+    private long starvedCount;
+    private boolean relieved;
+
+    OutgoingLanes(PriorityPolicy policy) {
+        this.policy = policy;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    void add(Message message, MessagePriority priority, Object key, long now) {
+        Lane lane = lanes[priority.ordinal()];
+        if (key != null) {
+            Integer index = lane.conflated.putIfAbsent(key, lane.entries.size());
+            if (index != null) {
+                lane.entries.get(index).message = message;
+                conflatedCount++;
+                return;
+            }
+        }
+        lane.entries.add(new Entry(message, key, now));
+    }
+
+    void addControl(Message message) { control.add(message); }
+
+    Message pollControl() { return control.poll(); }
+
+    /**
+     * Remove and return the next message which should be written; control messages are always written first.  A message which has waited past the starvation
+     * threshold is written ahead of the priority policy, but only on every other turn, so that a backlog which ages
+     * while writes are stalled cannot keep higher priority messages waiting behind the whole of it.
+     *
+     * @param now The current time.
+     *
+     * @return The next message; null if every lane is empty.
+     */
+    Message poll(long now) {
+        if (!control.isEmpty()) {
+            return control.poll();
+        }
+        Lane lane = relieved ? null : starvedLane(now);
+        relieved = lane != null;
+        if (relieved) {
+            starvedCount++;
+        } else {
+            lane = policy.isWeighted() ? weightedLane() : strictLane();
+        }
+        return (lane != null) ? lane.poll() : null;
+    }
+
+    List<Message> pollAll() {
+        List<Message> messages = new LinkedList<>(control);
+        control.clear();
+        for (Lane lane : lanes) {
+            while (!lane.isEmpty()) {
+                messages.add(lane.poll());
+            }
+        }
+        return messages;
+    }
+
+    boolean isEmpty() {
+        if (!control.isEmpty()) {
+            return false;
+        }
+        for (Lane lane : lanes) {
+            if (!lane.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size(MessagePriority priority) { return lanes[priority.ordinal()].size(); }
+
+    long getConflatedCount() { return conflatedCount; }
+
+    long getStarvedCount() { return starvedCount; }
+
+    private Lane starvedLane(long now) {
+        long threshold = policy.getStarvationThreshold();
+        if (threshold <= 0) {
+            return null;
+        }
+        Lane oldest = null;
+        for (int i = lanes.length - 1; i > 0; i--) {
+            Lane lane = lanes[i];
+            if (!lane.isEmpty() && ((now - lane.peek().queuedAt) > threshold)
+                  && ((oldest == null) || (lane.peek().queuedAt < oldest.peek().queuedAt)))
+            {
+                oldest = lane;
+            }
+        }
+        return oldest;
+    }
+
+    private Lane strictLane() {
+        for (Lane lane : lanes) {
+            if (!lane.isEmpty()) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private Lane weightedLane() {
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < lanes.length; i++) {
+                if (!lanes[i].isEmpty() && (credits[i] > 0)) {
+                    credits[i]--;
+                    return lanes[i];
+                }
+            }
+            for (int i = 0; i < lanes.length; i++) {
+                credits[i] = policy.getWeight(PRIORITIES[i]);
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry
+    {
+        private final Object key;
+        private final long queuedAt;
+        private Message message;
+
+        private Entry(Message message, Object key, long queuedAt) {
+            this.message = message;
+            this.key = key;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * A FIFO of entries which are never moved while queued, so that conflated messages can be replaced by index.
+     */
+    private static final class Lane
+    {
+        private static final int COMPACTION_THRESHOLD = 1024;
+        private final Map<Object, Integer> conflated = new HashMap<>(10);
+        private List<Entry> entries = new ArrayList<>();
+        private int head;
+
+        private boolean isEmpty() { return head == entries.size(); }
+
+        private int size() { return entries.size() - head; }
+
+        private Entry peek() { return entries.get(head); }
+
+        private Message poll() {
+            Entry entry = entries.get(head);
+            entries.set(head++, null);
+            if (entry.key != null) {
+                conflated.remove(entry.key);
+            }
+            if (isEmpty()) {
+                entries.clear();
+                head = 0;
+            } else if ((head >= COMPACTION_THRESHOLD) && ((head * 2) >= entries.size())) {
+                compact();
+            }
+            return entry.message;
+        }
+
+        private void compact() {
+            entries = new ArrayList<>(entries.subList(head, entries.size()));
+            head = 0;
+            conflated.clear();
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).key != null) {
+                    conflated.put(entries.get(i).key, i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.jenjinstudios.io.concurrency;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines the order in which a Connection writes messages from the priority lanes of its outgoing queue.
+ * <p>
+ * With strict priority, a message is only written from a lane when every higher priority lane is empty.  With weighted
+ * priority, each lane is given a share of writes in proportion to its weight, served highest priority first.  In
+ * either case, a message which has waited longer than the starvation threshold is written next, regardless of its
+ * priority, so that low priority lanes always make progress; such messages alternate with those chosen by priority, so
+ * that higher priority lanes are never held behind a whole aged backlog.
+ *
+ * @author Caleb Brinkman
+ */
+public class PriorityPolicy
+{
+    /** Strict priority, with a starvation threshold of one second. */
+    public static final PriorityPolicy DEFAULT = new PriorityPolicy(1, TimeUnit.SECONDS);
+    private final int[] weights;
+    private final long starvationThreshold;
+
+    /**
+     * Construct a PriorityPolicy which uses strict priority.
+     *
+     * @param starvationThreshold The maximum amount of time a message may wait before it is written regardless of its
+     * priority; zero to disable starvation protection.
+     * @param timeUnit The unit of {@code starvationThreshold}.
+     */
+    public PriorityPolicy(long starvationThreshold, TimeUnit timeUnit) {
+        this.weights = null;
+        this.starvationThreshold = timeUnit.toNanos(starvationThreshold);
+    }
+
+    /**
+     * Construct a PriorityPolicy which uses weighted priority.
+     *
+     * @param highWeight The share of writes given to the {@code HIGH} lane.
+     * @param normalWeight The share of writes given to the {@code NORMAL} lane.
+     * @param lowWeight The share of writes given to the {@code LOW} lane.
+     * @param starvationThreshold The maximum amount of time a message may wait before it is written regardless of its
+     * priority; zero to disable starvation protection.
+     * @param timeUnit The unit of {@code starvationThreshold}.
+     *
+     * @throws IllegalArgumentException If any weight is less than one.
+     */
+    public PriorityPolicy(
+          int highWeight,
+          int normalWeight,
+          int lowWeight,
+          long starvationThreshold,
+          TimeUnit timeUnit)
+    {
+        if ((highWeight < 1) || (normalWeight < 1) || (lowWeight < 1)) {
+            throw new IllegalArgumentException("Weights must be at least one");
+        }
+        this.weights = new int[]{highWeight, normalWeight, lowWeight};
+        this.starvationThreshold = timeUnit.toNanos(starvationThreshold);
+    }
+
+    public boolean isWeighted() { return weights != null; }
+
+    /**
+     * Get the weight of the given priority lane.
+     *
+     * @param priority The priority.
+     *
+     * @return The weight; zero if this policy uses strict priority.
+     */
+    public int getWeight(MessagePriority priority) { return (weights != null) ? weights[priority.ordinal()] : 0; }
+
+    /**
+     * Get the maximum amount of time a message may wait before it is written regardless of its priority.
+     *
+     * @return The starvation threshold, in nanoseconds; zero if starvation protection is disabled.
+     */
+    public long getStarvationThreshold() { return starvationThreshold; }
+}
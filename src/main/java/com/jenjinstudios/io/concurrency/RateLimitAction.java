@@ -0,0 +1,16 @@
+package com.jenjinstudios.io.concurrency;
+
+/**
+ * Determines what a Connection does with an incoming Message that exceeds its inbound rate limit.
+ *
+ * @author Caleb Brinkman
+ */
+public enum RateLimitAction
+{
+    /** Stop reading from the connection until the limit permits the message; the message is still executed. */
+    DELAY,
+    /** Discard the message without executing it. */
+    DROP,
+    /** Report a {@link RateLimitExceededException} through the error callback of the connection. */
+    DISCONNECT
+}
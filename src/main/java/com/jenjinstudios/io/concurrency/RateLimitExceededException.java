@@ -0,0 +1,19 @@
+package com.jenjinstudios.io.concurrency;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a Connection configured to disconnect abusive peers receives messages in excess of its inbound rate
+ * limit.
+ *
+ * @author Caleb Brinkman
+ */
+public class RateLimitExceededException extends IOException
+{
+    /**
+     * Construct a new RateLimitExceededException with the given message.
+     *
+     * @param message The message.
+     */
+    public RateLimitExceededException(String message) { super(message); }
+}
@@ -1,5 +1,6 @@
 package com.jenjinstudios.io.concurrency;
 
+import com.jenjinstudios.io.EnvelopeMessage;
 import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
 import com.jenjinstudios.io.MessageReader;
@@ -9,7 +10,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 
 /**
- * Reads incoming messages and stores them in a MessageQueue.
+ * Reads incoming messages and stores them in a MessageQueue.  An {@link EnvelopeMessage} dropped by the inbound rate
+ * limit has its carried message discarded, so that it releases anything it holds, such as the data of a stream.
  *
  * @author Caleb Brinkman
  */
@@ -18,6 +20,7 @@ public class ReadTask<T extends ExecutionContext> implements Runnable
     private static final Logger LOGGER = LoggerFactory.getLogger(ReadTask.class);
     private final MessageQueue<T> messageQueue;
     private final MessageReader messageReader;
+    private final InboundRateLimiter rateLimiter;
     private volatile boolean noError = true;
 
     /**
@@ -28,8 +31,21 @@ public class ReadTask<T extends ExecutionContext> implements Runnable
      * @param messageReader The MessageReader.
      */
     public ReadTask(MessageQueue<T> messageQueue, MessageReader messageReader) {
+        this(messageQueue, messageReader, new InboundRateLimiter());
+    }
+
+    /**
+     * Construct a new ReadTask that will read from the given message input stream and store the incoming messages in
+     * the given MessageQueue, subject to the given rate limit.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param messageReader The MessageReader.
+     * @param rateLimiter The limiter which determines whether each incoming message is queued.
+     */
+    public ReadTask(MessageQueue<T> messageQueue, MessageReader messageReader, InboundRateLimiter rateLimiter) {
         this.messageQueue = messageQueue;
         this.messageReader = messageReader;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
@@ -40,7 +56,11 @@ public class ReadTask<T extends ExecutionContext> implements Runnable
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Read Message (Type: {})", message.getClass().getName());
                 }
-                messageQueue.messageReceived(message);
+                if (rateLimiter.permit(message)) {
+                    messageQueue.messageReceived(message);
+                } else if (message instanceof EnvelopeMessage) {
+                    ((EnvelopeMessage) message).withMessage(null);
+                }
             }
         } catch (IOException e) {
             noError = false;
@@ -0,0 +1,18 @@
+package com.jenjinstudios.io.concurrency;
+
+/**
+ * Determines the order in which a Connection sends responses when some incoming messages are executed
+ * asynchronously.
+ *
+ * @author Caleb Brinkman
+ */
+public enum ResponseOrdering
+{
+    /**
+     * Send responses in the order the messages they answer were received; a response which is ready is held back until
+     * every earlier response has been sent.
+     */
+    IN_ORDER,
+    /** Send each response as soon as it is ready, regardless of the order in which messages were received. */
+    COMPLETION_ORDER
+}
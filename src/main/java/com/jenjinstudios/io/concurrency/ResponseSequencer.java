@@ -0,0 +1,77 @@
+package com.jenjinstudios.io.concurrency;
+
+import com.jenjinstudios.io.Message;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+/**
+ * Queues responses for sending in the order the messages they answer were received, holding back responses which are
+ * ready until every earlier asynchronous response has completed.
+ *
+ * @author Caleb Brinkman
+ */
+class ResponseSequencer
+{
+    private final MessageQueue messageQueue;
+    private final Deque<Slot> slots = new LinkedList<>();
+
+    ResponseSequencer(MessageQueue messageQueue) { this.messageQueue = messageQueue; }
+
+    /**
+     * Queue the response to a synchronously executed message.
+     *
+     * @param response The response; may be null.
+     */
+    synchronized void respond(Message response) {
+        if (slots.isEmpty()) {
+            if (response != null) {
+                messageQueue.queueOutgoing(response);
+            }
+        } else {
+            Slot slot = new Slot();
+            slot.complete(response);
+            slots.add(slot);
+        }
+    }
+
+    /**
+     * Reserve a place in line for the response to an asynchronously executed message.
+     *
+     * @return The reserved slot, which must be completed once the response is ready.
+     */
+    synchronized Slot reserve() {
+        Slot slot = new Slot();
+        slots.add(slot);
+        return slot;
+    }
+
+    /**
+     * Fill the given slot, sending it and any following responses which are ready.
+     *
+     * @param slot The slot.
+     * @param response The response; may be null.
+     */
+    synchronized void complete(Slot slot, Message response) {
+        slot.complete(response);
+        while (!slots.isEmpty() && slots.peek().done) {
+            Message next = slots.poll().response;
+            if (next != null) {
+                messageQueue.queueOutgoing(next);
+            }
+        }
+    }
+
+    synchronized int getPendingCount() { return slots.size(); }
+
+    static final class Slot
+    {
+        private boolean done;
+        private Message response;
+
+        private void complete(Message response) {
+            this.response = response;
+            done = true;
+        }
+    }
+}
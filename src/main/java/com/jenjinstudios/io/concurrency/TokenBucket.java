@@ -0,0 +1,97 @@
+package com.jenjinstudios.io.concurrency;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe token bucket, used to limit the rate at which some action may be performed.
+ * <p>
+ * The bucket holds at most {@code capacity} tokens and is refilled continuously at {@code tokensPerSecond}.  Requests
+ * for more tokens than the capacity of the bucket are permitted once the bucket is full, and leave the bucket in debt
+ * so that the overall rate is still honored.
+ *
+ * @author Caleb Brinkman
+ */
+public class TokenBucket
+{
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Construct a new TokenBucket which starts full.
+     *
+     * @param tokensPerSecond The number of tokens added to the bucket each second.
+     * @param capacity The maximum number of tokens the bucket can hold; this is the largest permitted burst.
+     *
+     * @throws IllegalArgumentException If either argument is not positive.
+     */
+    public TokenBucket(long tokensPerSecond, long capacity) {
+        if ((tokensPerSecond <= 0) || (capacity <= 0)) {
+            throw new IllegalArgumentException("Token rate and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Attempt to take the given number of tokens from the bucket without waiting.
+     *
+     * @param permits The number of tokens to take.
+     *
+     * @return Whether the tokens were taken; always true if {@code permits} is not positive, even while the bucket is
+     * in debt.
+     */
+    public synchronized boolean tryAcquire(long permits) {
+        if (permits <= 0) {
+            return true;
+        }
+        refill();
+        if (tokens >= Math.min(permits, capacity)) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determine how long a caller would have to wait before the given number of tokens can be taken.
+     *
+     * @param permits The number of tokens.
+     *
+     * @return The number of nanoseconds until the tokens are available; zero if they are available now.
+     */
+    public synchronized long nanosUntilAvailable(long permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        refill();
+        double missing = Math.min(permits, capacity) - tokens;
+        return (missing <= 0) ? 0 : (long) Math.ceil(missing / tokensPerNano);
+    }
+
+    /**
+     * Take the given number of tokens from the bucket, blocking the calling thread until they are available.
+     *
+     * @param permits The number of tokens to take.
+     *
+     * @return The number of nanoseconds spent waiting.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public long acquire(long permits) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!tryAcquire(permits)) {
+            TimeUnit.NANOSECONDS.sleep(Math.max(nanosUntilAvailable(permits), 1));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + ((now - lastRefill) * tokensPerNano));
+        lastRefill = now;
+    }
+}
@@ -3,14 +3,17 @@ package com.jenjinstudios.io.concurrency;
 import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
 import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.flow.FlowControl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
- * Writes messages from the outgoing list in the MessageQueue.
+ * Writes messages from the outgoing list in the MessageQueue.  Messages are taken from the queue one at a time, so a
+ * high priority message queued while a backlog is being written is written next.  If the connection is flow
+ * controlled, messages for which the peer has not granted credit are left in the queue until it does; control
+ * messages, such as heartbeats and acknowledgements, are written regardless.
  *
  * @author Caleb Brinkman
  */
@@ -19,6 +22,7 @@ public class WriteTask<T extends ExecutionContext> implements Runnable
     private static final Logger LOGGER = LoggerFactory.getLogger(WriteTask.class);
     private final MessageQueue<T> messageQueue;
     private final MessageWriter messageWriter;
+    private final FlowControl flowControl;
 
     /**
      * Construct a new WriteTask that will send messages from the given MessageQueue via the given MessageWriter.
@@ -27,17 +31,30 @@ public class WriteTask<T extends ExecutionContext> implements Runnable
      * @param messageWriter The MessageWriter.
      */
     public WriteTask(MessageQueue<T> messageQueue, MessageWriter messageWriter) {
+        this(messageQueue, messageWriter, null);
+    }
+
+    /**
+     * Construct a new WriteTask that will send messages from the given MessageQueue via the given MessageWriter, as
+     * long as the peer has granted credit for them.
+     *
+     * @param messageQueue The MessageQueue.
+     * @param messageWriter The MessageWriter.
+     * @param flowControl The flow control of the connection; null if the connection is not flow controlled.
+     */
+    public WriteTask(MessageQueue<T> messageQueue, MessageWriter messageWriter, FlowControl flowControl) {
         this.messageQueue = messageQueue;
         this.messageWriter = messageWriter;
+        this.flowControl = flowControl;
     }
 
     @Override
     public void run() {
-        final List<Message> outgoing = messageQueue.getOutgoingAndClear();
-        outgoing.forEach(message -> {
+        Message message = nextMessage();
+        while (message != null) {
             try {
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Attempting to write message.  (Type: {})" + message.getClass().getName());
+                    LOGGER.debug("Attempting to write message.  (Type: {})", message.getClass().getName());
                 }
                 messageWriter.write(message);
             } catch (IOException e) {
@@ -47,7 +64,16 @@ public class WriteTask<T extends ExecutionContext> implements Runnable
                 } catch (IOException e1) {
                     LOGGER.warn("Error when closing message writer", e1);
                 }
+                return;
             }
-        });
+            message = nextMessage();
+        }
+    }
+
+    private Message nextMessage() {
+        if ((flowControl != null) && !flowControl.hasCredit(messageQueue.hasOutgoing())) {
+            return messageQueue.pollControl();
+        }
+        return messageQueue.pollOutgoing();
     }
 }
@@ -1,16 +1,29 @@
 package com.jenjinstudios.io.connection;
 
+import com.jenjinstudios.io.BatchHandler;
 import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
 import com.jenjinstudios.io.MessageReader;
 import com.jenjinstudios.io.MessageWriter;
 import com.jenjinstudios.io.concurrency.*;
+import com.jenjinstudios.io.flow.FlowControl;
+import com.jenjinstudios.io.metrics.ConnectionMetrics;
+import com.jenjinstudios.io.negotiation.Protocol;
+import com.jenjinstudios.io.request.PendingRequests;
+import com.jenjinstudios.io.stream.StreamManager;
+import com.jenjinstudios.io.tracing.MessageTracer;
+import com.jenjinstudios.io.watchdog.Watch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -18,6 +31,7 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 
 /**
  * Used for making connections so that Message objects can be read, written, and executed in a non-blocking fashion.
@@ -36,6 +50,16 @@ public class Connection<C extends ExecutionContext>
     private final MessageWriter messageWriter;
     private final Collection<Consumer<C>> contextualTasks;
     private final Collection<Consumer<Connection>> shutdownCallbacks;
+    private final InboundRateLimiter rateLimiter;
+    private final ExecutionScheduler executionScheduler;
+    private final ExecutionTask<C> executionTask;
+    private final PendingRequests pendingRequests;
+    private final StreamManager streamManager;
+    private final FlowControl flowControl;
+    private final Protocol protocol;
+    private final ConnectionMetrics metrics;
+    private volatile ExecutionScheduler.ScheduledExecution scheduledExecution;
+    private volatile int executionWeight = 1;
 
     /**
      * Construct a new connection.
@@ -46,7 +70,9 @@ public class Connection<C extends ExecutionContext>
      */
     Connection(C context, MessageReader messageReader, MessageWriter messageWriter)
     {
-        this(context, messageReader, messageWriter, null, emptyList(), emptyList(), emptyList());
+        this(context, messageReader, messageWriter, null, emptyList(), emptyList(), emptyList(),
+              new InboundRateLimiter(), null, ResponseOrdering.IN_ORDER, emptyMap(), new InterceptorChain<>(),
+              null, PriorityPolicy.DEFAULT, null, null, null, null, null);
     }
 
     /**
@@ -56,6 +82,22 @@ public class Connection<C extends ExecutionContext>
      * @param messageReader The stream from which messages should be read.
      * @param messageWriter The stream to which messages should be written.
      * @param shutdownCallbacks The callbacks to be invoked when the connection is shut down.
+     * @param rateLimiter The limiter applied to incoming messages.
+     * @param executionScheduler The scheduler used to execute incoming messages; if null, the connection executes
+     * messages on its own thread.
+     * @param responseOrdering The order in which responses to asynchronously executed messages are sent.
+     * @param batchHandlers Handlers which execute runs of incoming messages of the class with which they are
+     * registered.
+     * @param interceptors The interceptors through which each incoming message passes before it is executed.
+     * @param conflator Determines which outgoing messages are conflated; null if none should be.
+     * @param priorityPolicy Determines the order in which outgoing messages are written from each priority lane.
+     * @param flowControl The flow control through which the reader and writer were created; null if the connection
+     * is not flow controlled.
+     * @param protocol The protocol negotiated with the peer; null if it was not negotiated.
+     * @param metrics The metrics through which the reader and writer were created; null if the connection is not
+     * metered.
+     * @param tracer Traces incoming messages as they are queued and executed; null if they should not be traced.
+     * @param watch Times each execution on behalf of a Watchdog; null if executions should not be watched.
      */
     Connection(
           C context,
@@ -64,31 +106,62 @@ public class Connection<C extends ExecutionContext>
           BiConsumer<Connection, Throwable> errorCallback,
           Collection<Consumer<C>> contextualTasks,
           Collection<Consumer<Connection>> shutdownCallbacks,
-          Collection<RecurringTask<C>> recurringTasks)
+          Collection<RecurringTask<C>> recurringTasks,
+          InboundRateLimiter rateLimiter,
+          ExecutionScheduler executionScheduler,
+          ResponseOrdering responseOrdering,
+          Map<Class, BatchHandler> batchHandlers,
+          InterceptorChain<C> interceptors,
+          Conflator conflator,
+          PriorityPolicy priorityPolicy,
+          FlowControl flowControl,
+          Protocol protocol,
+          ConnectionMetrics metrics,
+          MessageTracer tracer,
+          Watch watch)
     {
         this.contextualTasks = contextualTasks;
         this.shutdownCallbacks = shutdownCallbacks;
         executor = Executors.newScheduledThreadPool(4);
         this.context = context;
-        this.messageReader = messageReader;
         this.messageWriter = messageWriter;
-        messageQueue = new MessageQueue<>(recurringTasks);
+        messageQueue = new MessageQueue<>(recurringTasks, conflator, priorityPolicy, metrics, tracer);
+        pendingRequests = new PendingRequests(messageQueue::queueOutgoing);
+        streamManager = new StreamManager(messageQueue);
+        this.messageReader = streamManager.createReader(pendingRequests.createReader(messageReader), rateLimiter);
         this.errorCallback = errorCallback;
+        this.rateLimiter = rateLimiter;
+        this.executionScheduler = executionScheduler;
+        this.flowControl = flowControl;
+        this.protocol = protocol;
+        this.metrics = metrics;
+        executionTask = new ExecutionTask<>(messageQueue, context, contextualTasks, responseOrdering,
+              batchHandlers, interceptors, metrics, watch);
+        if (metrics != null) {
+            openMetrics();
+        }
     }
 
     /**
      * Start sending, receiving, and executing messages.
      */
     public void start() {
-        Runnable executionTask = new ExecutionTask(messageQueue, context, contextualTasks);
-        Runnable writeTask = new WriteTask(messageQueue, messageWriter);
-        Runnable readTask = new ReadTask(messageQueue, messageReader);
+        Runnable writeTask = new WriteTask(messageQueue, messageWriter, flowControl);
+        Runnable readTask = new ReadTask(messageQueue, messageReader, rateLimiter);
         Runnable errorTask = new ErrorTask<>(messageQueue, this::errorEncountered);
 
         executor.scheduleWithFixedDelay(errorTask, 0, 10, TimeUnit.MILLISECONDS);
         executor.scheduleWithFixedDelay(readTask, 0, 10, TimeUnit.MILLISECONDS);
         executor.scheduleWithFixedDelay(writeTask, 0, 10, TimeUnit.MILLISECONDS);
-        executor.scheduleWithFixedDelay(executionTask, 0, 10, TimeUnit.MILLISECONDS);
+        if (flowControl != null) {
+            executor.scheduleWithFixedDelay(this::replenishCredit, 0, 10, TimeUnit.MILLISECONDS);
+        }
+        if (executionScheduler != null) {
+            scheduledExecution = executionScheduler.register(executionTask, executionWeight,
+                  messageQueue::errorEncountered);
+        } else {
+            executor.scheduleWithFixedDelay(executionTask, 0, 10, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -97,6 +170,9 @@ public class Connection<C extends ExecutionContext>
     public void stop() {
         LOGGER.debug("Shutting down executor service");
         executor.shutdownNow();
+        if (scheduledExecution != null) {
+            scheduledExecution.cancel();
+        }
         try {
             messageReader.close();
         } catch (IOException e) {
@@ -107,11 +183,89 @@ public class Connection<C extends ExecutionContext>
         } catch (IOException e) {
             LOGGER.warn("Exception when closing output stream", e);
         }
+        pendingRequests.failAll(new IOException("Connection stopped"));
+        streamManager.close();
+        if (metrics != null) {
+            metrics.close();
+        }
         shutdownCallbacks.forEach(consumer -> consumer.accept(this));
     }
 
     public String getId() { return id; }
 
+    /**
+     * Get the limiter applied to messages received by this connection; useful for inspecting how often the limit has
+     * been exceeded.
+     *
+     * @return The inbound rate limiter.
+     */
+    public InboundRateLimiter getInboundRateLimiter() { return rateLimiter; }
+
+    /**
+     * Set the weight of this connection when its messages are executed by a shared {@link ExecutionScheduler}; a
+     * connection with weight two may execute twice as many messages per turn as a connection with weight one.  Has no
+     * effect if this connection executes messages on its own thread.
+     *
+     * @param weight The weight; defaults to one.
+     */
+    public void setExecutionWeight(int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Weight must be at least one");
+        }
+        executionWeight = weight;
+        if (scheduledExecution != null) {
+            scheduledExecution.setWeight(weight);
+        }
+    }
+
+    public int getExecutionWeight() { return executionWeight; }
+
+    /**
+     * Get the flow control of this connection, which records how long outgoing messages have waited for credit from
+     * the peer.
+     *
+     * @return The flow control; null if this connection is not flow controlled.
+     */
+    public FlowControl getFlowControl() { return flowControl; }
+
+    /**
+     * Get the codec, compression and optional features negotiated with the peer of this connection.
+     *
+     * @return The negotiated protocol; null if the protocol was not negotiated.
+     */
+    public Protocol getProtocol() { return protocol; }
+
+    /**
+     * Get the metrics of this connection, which count the messages and bytes it has received and sent and sample its
+     * queue depths.
+     *
+     * @return The metrics; null if this connection is not metered.
+     */
+    public ConnectionMetrics getMetrics() { return metrics; }
+
+    /**
+     * Get the CPU time spent executing messages, contextual tasks and recurring tasks in the ExecutionContext of this
+     * connection; useful for finding connections which consume a disproportionate share of execution time.
+     *
+     * @return The CPU time, in nanoseconds; always zero if the JVM does not support measuring thread CPU time.
+     */
+    public long getExecutionCpuTimeNanos() { return executionTask.getCpuTimeNanos(); }
+
+    /**
+     * Get the number of incoming messages which have been executed by this connection.
+     *
+     * @return The number of executed messages.
+     */
+    public long getExecutedMessageCount() { return executionTask.getExecutedCount(); }
+
+    /**
+     * Get the number of outgoing messages which were replaced by newer messages with the same conflation key before
+     * they could be sent; a steadily increasing count indicates that this connection is falling behind.
+     *
+     * @return The number of conflated messages.
+     */
+    public long getConflatedMessageCount() { return messageQueue.getConflatedCount(); }
+
     /**
      * This method is an "emergency stop" in the event that a fatal error is encountered by the error checking thread.
      * <p>
@@ -125,6 +279,25 @@ public class Connection<C extends ExecutionContext>
         }
     }
 
+    private void openMetrics() {
+        metrics.registerGauge("queue.incoming", messageQueue::getIncomingCount);
+        for (MessagePriority priority : MessagePriority.values()) {
+            metrics.registerGauge("queue.outgoing." + priority.name().toLowerCase(),
+                  () -> messageQueue.getOutgoingCount(priority));
+        }
+        metrics.registerGauge("requests.pending", this::getPendingRequestCount);
+        metrics.registerGauge("responses.pending", executionTask::getPendingResponseCount);
+        metrics.open(id);
+    }
+
+    private void replenishCredit() {
+        try {
+            flowControl.replenish(messageQueue.getIncomingCount());
+        } catch (IOException e) {
+            messageQueue.errorEncountered(e);
+        }
+    }
+
     /**
      * Send the specified Message from this connection.  Note that this operation is not atomic; the message is added
      * to and outgoing queue, and will be sent when the thread responsible for writing outgoing messages is able to
@@ -133,4 +306,68 @@ public class Connection<C extends ExecutionContext>
      * @param message The message to be sent.
      */
     public void sendMessage(Message message) { messageQueue.queueOutgoing(message); }
+
+    /**
+     * Send the specified Message from this connection in the given priority lane, regardless of any priority with which
+     * its class is annotated.
+     *
+     * @param message The message to be sent.
+     * @param priority The priority lane.
+     */
+    public void sendMessage(Message message, MessagePriority priority) {
+        messageQueue.queueOutgoing(message, priority);
+    }
+
+    /**
+     * Send the specified Message as a request, returning a future which is completed with the response produced when
+     * the peer executes it.  Any number of requests may be in flight at once; each carries a correlation ID so that
+     * responses may arrive in any order.
+     *
+     * @param message The message to be sent.
+     * @param timeout The maximum amount of time to wait for a response.
+     * @param timeUnit The unit of {@code timeout}.
+     *
+     * @return A future which is completed with the response (null if executing the message produced no response), or
+     * completed exceptionally with a {@code RequestFailedException} if executing the message failed, a {@code
+     * TimeoutException} if no response arrives in time, or an {@code IOException} if the connection is stopped first.
+     */
+    public CompletableFuture<Message> request(Message message, long timeout, TimeUnit timeUnit) {
+        return pendingRequests.request(message, timeout, timeUnit);
+    }
+
+    /**
+     * Get the number of requests sent by this connection which have not yet been answered or timed out.
+     *
+     * @return The number of pending requests.
+     */
+    public int getPendingRequestCount() { return pendingRequests.getPendingCount(); }
+
+    /**
+     * Stream the data from the given source to the peer in chunks, without reading it all into memory.  Chunks are sent
+     * with {@code LOW} priority, interleaved with other outgoing messages, and no more than a window of chunks is sent
+     * ahead of what the peer has consumed.
+     *
+     * @param header The message describing the data, executed by the peer when the transfer begins; if it is a {@code
+     * StreamMessage}, it is executed with access to the data as it arrives.
+     * @param source The data; closed once the transfer is complete.
+     *
+     * @return A future which is completed once the peer has received all of the data.
+     */
+    public CompletableFuture<Void> sendStream(Message header, InputStream source) {
+        return streamManager.send(header, source);
+    }
+
+    /**
+     * Stream the data from the given source to the peer in chunks, without reading it all into memory.
+     *
+     * @param header The message describing the data, executed by the peer when the transfer begins.
+     * @param source The data; closed once the transfer is complete.
+     *
+     * @return A future which is completed once the peer has received all of the data.
+     *
+     * @see #sendStream(Message, InputStream)
+     */
+    public CompletableFuture<Void> sendStream(Message header, ReadableByteChannel source) {
+        return streamManager.send(header, Channels.newInputStream(source));
+    }
 }
@@ -1,18 +1,37 @@
 package com.jenjinstudios.io.connection;
 
 import com.jenjinstudios.io.*;
-import com.jenjinstudios.io.concurrency.RecurringTask;
-import com.jenjinstudios.io.concurrency.RecurringTaskFactory;
+import com.jenjinstudios.io.concurrency.*;
+import com.jenjinstudios.io.flow.FlowControl;
+import com.jenjinstudios.io.heartbeat.Heartbeat;
+import com.jenjinstudios.io.heartbeat.HeartbeatMonitor;
+import com.jenjinstudios.io.metrics.ConnectionMetrics;
+import com.jenjinstudios.io.metrics.MetricsRegistry;
+import com.jenjinstudios.io.negotiation.Negotiator;
+import com.jenjinstudios.io.negotiation.Protocol;
+import com.jenjinstudios.io.session.ClientSession;
+import com.jenjinstudios.io.session.Session;
+import com.jenjinstudios.io.session.SessionManager;
+import com.jenjinstudios.io.tracing.ConnectionTracing;
+import com.jenjinstudios.io.tracing.MessageTracer;
+import com.jenjinstudios.io.watchdog.Watch;
+import com.jenjinstudios.io.watchdog.Watchdog;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Superclass for connection builders.
@@ -21,26 +40,61 @@ import java.util.function.Consumer;
  */
 public class ConnectionBuilder<T extends ExecutionContext>
 {
+    private static final int HANDSHAKE_TIMEOUT = 10000;
     private final Collection<Consumer<Connection<T>>> shutdownCallbacks = new LinkedList<>();
     private final Collection<Consumer<T>> contextualTasks = new LinkedList<>();
     private final Collection<RecurringTask<T>> recurringTasks = new LinkedList<>();
     private final Collection<RecurringTaskFactory<T>> recurringTaskFactories = new LinkedList<>();
+    private final Map<Class, BatchHandler> batchHandlers = new HashMap<>(10);
+    private final InterceptorChain<T> inboundInterceptors = new InterceptorChain<>();
+    private final InterceptorChain<T> outboundInterceptors = new InterceptorChain<>();
+    private final Conflator conflator = new Conflator();
     private ExecutionContextFactory<T> executionContextFactory;
     private BiConsumer<Connection<T>, Throwable> errorCallback;
     private MessageReaderFactory readerFactory;
     private MessageWriterFactory writerFactory;
+    private ExecutionScheduler executionScheduler;
+    private SessionManager<T> sessionManager;
+    private ClientSession clientSession;
+    private HeartbeatMonitor heartbeatMonitor;
+    private Watchdog watchdog;
+    private Negotiator negotiator;
+    private MetricsRegistry metricsRegistry;
+    private MessageTracer tracer;
+    private boolean acceptNegotiation;
+    private RateLimitAction rateLimitAction = RateLimitAction.DELAY;
+    private ResponseOrdering responseOrdering = ResponseOrdering.IN_ORDER;
+    private PriorityPolicy priorityPolicy = PriorityPolicy.DEFAULT;
+    private long messagesPerSecond;
+    private long messageBurst;
+    private long bytesPerSecond;
+    private long byteBurst;
+    private int flowMessageWindow;
+    private long flowByteWindow;
 
     /**
-     * Build a Connection using the given Socket.
+     * Build a Connection using the given Socket.  If protocol negotiation or resumable sessions are enabled, the
+     * handshake is performed before this method returns, and will time out if the peer does not respond within the
+     * handshake timeout.
      *
      * @param socket The Socket that will back the given Connection.
      *
      * @return The built Connection.
      *
-     * @throws IOException If there is an error retrieving input and output streams from the Socket.
+     * @throws IOException If there is an error retrieving input and output streams from the Socket, or an error
+     * during the handshake.
      */
     public Connection<T> build(Socket socket) throws IOException {
-        return build(socket.getInputStream(), socket.getOutputStream());
+        if ((sessionManager == null) && (clientSession == null) && (negotiator == null)) {
+            return open(socket.getInputStream(), socket.getOutputStream());
+        }
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+        try {
+            return open(socket.getInputStream(), socket.getOutputStream());
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
     }
 
     /**
@@ -50,31 +104,186 @@ public class ConnectionBuilder<T extends ExecutionContext>
      * @param outputStream The {@code OutputStream} used to write messages.
      *
      * @return The built connection.
+     *
+     * @throws UncheckedIOException If protocol negotiation or resumable sessions are enabled and there is an error
+     * during the handshake.
      */
     public Connection<T> build(InputStream inputStream, OutputStream outputStream) {
-        return build(readerFactory.createReader(inputStream), writerFactory.createWriter(outputStream));
+        try {
+            return open(inputStream, outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error during handshake", e);
+        }
     }
 
     /**
-     * Build a Connection using the given {@code MessageReader} and {@code MessageWriter}.
+     * Build a Connection using the given {@code MessageReader} and {@code MessageWriter}.  Because the bytes read by
+     * the {@code MessageReader} cannot be counted, any inbound byte rate limit or flow control byte window is not
+     * enforced.
      *
      * @param reader The {@code MessageReader} used to read messages.
      * @param writer The {@code MessageWriter} used to write messages.
      *
      * @return The built connection.
+     *
+     * @throws UncheckedIOException If resumable sessions are enabled and there is an error during the session
+     * handshake.
+     * @throws IllegalStateException If protocol negotiation is enabled; the protocol cannot be negotiated once the
+     * reader and writer have been created.
      */
     public Connection<T> build(MessageReader reader, MessageWriter writer) {
+        if (negotiator != null) {
+            throw new IllegalStateException("Protocol negotiation requires a Socket or streams");
+        }
+        try {
+            ConnectionMetrics metrics = (metricsRegistry != null) ? metricsRegistry.createConnectionMetrics() : null;
+            ConnectionTracing tracing = (tracer != null) ? new ConnectionTracing(tracer) : null;
+            return open(reader, writer, null, null, null, metrics, tracing);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error during session handshake", e);
+        }
+    }
+
+    private Connection<T> open(InputStream inputStream, OutputStream outputStream) throws IOException {
+        Protocol protocol = null;
+        if ((negotiator != null) && acceptNegotiation) {
+            PushbackInputStream pushbackStream = new PushbackInputStream(inputStream, 2);
+            protocol = negotiator.accept(pushbackStream, outputStream);
+            inputStream = pushbackStream;
+        } else if (negotiator != null) {
+            protocol = negotiator.initiate(inputStream, outputStream);
+        }
+        MessageReaderFactory readers = (protocol != null) ? protocol::createReader : readerFactory;
+        MessageWriterFactory writers = (protocol != null) ? protocol::createWriter : writerFactory;
+        ConnectionMetrics metrics = null;
+        if (metricsRegistry != null) {
+            metrics = metricsRegistry.createConnectionMetrics();
+            inputStream = metrics.meter(inputStream);
+            outputStream = metrics.meter(outputStream);
+        }
+        ConnectionTracing tracing = null;
+        if (tracer != null) {
+            tracing = new ConnectionTracing(tracer);
+            inputStream = tracing.trace(inputStream);
+            outputStream = tracing.trace(outputStream);
+        }
+
+        if ((bytesPerSecond > 0) || (flowMessageWindow > 0)) {
+            CountingInputStream countingInput = new CountingInputStream(inputStream);
+            CountingOutputStream countingOutput = new CountingOutputStream(outputStream);
+            return open(
+                  readers.createReader(countingInput),
+                  writers.createWriter(countingOutput),
+                  countingInput::getCount,
+                  countingOutput::getCount,
+                  protocol,
+                  metrics,
+                  tracing
+            );
+        }
+        return open(readers.createReader(inputStream), writers.createWriter(outputStream), null, null, protocol,
+              metrics, tracing);
+    }
+
+    private Connection<T> open(
+          MessageReader reader,
+          MessageWriter writer,
+          LongSupplier bytesRead,
+          LongSupplier bytesWritten,
+          Protocol protocol,
+          ConnectionMetrics metrics,
+          ConnectionTracing tracing) throws IOException
+    {
+        if (metrics != null) {
+            reader = metrics.createReader(reader);
+            writer = metrics.createWriter(writer);
+        }
+        if (tracing != null) {
+            reader = tracing.createReader(reader);
+            writer = tracing.createWriter(writer);
+        }
+
         Collection<RecurringTask<T>> recurring = new LinkedList<>(this.recurringTasks);
         recurringTaskFactories.forEach(factory -> recurring.add(factory.createInstance()));
 
-        return new Connection(
-              executionContextFactory.createInstance(),
+        FlowControl flowControl = null;
+        if (flowMessageWindow > 0) {
+            flowControl = new FlowControl(flowMessageWindow, flowByteWindow);
+            reader = flowControl.createReader(reader, bytesRead);
+            writer = flowControl.createWriter(writer, bytesWritten);
+        }
+
+        T context;
+        Session<T> session = null;
+        if (sessionManager != null) {
+            session = sessionManager.open(reader, writer, executionContextFactory);
+            context = session.getContext();
+            reader = session.createReader(reader);
+            writer = session.createWriter(writer);
+        } else if (clientSession != null) {
+            clientSession.open(reader, writer);
+            context = executionContextFactory.createInstance();
+            reader = clientSession.createReader(reader);
+            writer = clientSession.createWriter(writer);
+        } else {
+            context = executionContextFactory.createInstance();
+        }
+
+        if (!outboundInterceptors.isEmpty()) {
+            writer = new InterceptingMessageWriter<>(writer, outboundInterceptors, context);
+        }
+
+        Watch watch = null;
+        if (watchdog != null) {
+            watch = watchdog.createWatch();
+            writer = watch.createWriter(writer);
+        }
+
+        Heartbeat heartbeat = null;
+        if (heartbeatMonitor != null) {
+            heartbeat = heartbeatMonitor.createHeartbeat();
+            reader = heartbeat.createReader(reader);
+        }
+
+        Connection<T> connection = new Connection(
+              context,
               reader,
               writer,
               errorCallback,
               contextualTasks,
               shutdownCallbacks,
-              recurring
+              recurring,
+              createRateLimiter(bytesRead),
+              executionScheduler,
+              responseOrdering,
+              new HashMap<>(batchHandlers),
+              inboundInterceptors,
+              conflator,
+              priorityPolicy,
+              flowControl,
+              protocol,
+              metrics,
+              tracer,
+              watch
+        );
+        if (session != null) {
+            sessionManager.attach(session, connection);
+        }
+        if (heartbeat != null) {
+            heartbeatMonitor.attach(heartbeat, connection);
+        }
+        if (watch != null) {
+            watchdog.attach(watch, connection);
+        }
+        return connection;
+    }
+
+    private InboundRateLimiter createRateLimiter(LongSupplier bytesRead) {
+        return new InboundRateLimiter(
+              (messagesPerSecond > 0) ? new TokenBucket(messagesPerSecond, messageBurst) : null,
+              (bytesPerSecond > 0) ? new TokenBucket(bytesPerSecond, byteBurst) : null,
+              bytesRead,
+              rateLimitAction
         );
     }
 
@@ -212,4 +421,355 @@ public class ConnectionBuilder<T extends ExecutionContext>
         Collections.addAll(recurringTaskFactories, factories);
         return this;
     }
+
+    /**
+     * Build connections which limit the rate at which they accept incoming messages.  Messages whose class is
+     * annotated with {@link com.jenjinstudios.io.annotations.RateLimitWeight} count as that many messages.
+     *
+     * @param perSecond The sustained number of messages accepted per second.
+     * @param burst The number of messages which may be accepted at once after a period of inactivity.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalArgumentException If either argument is not positive.
+     */
+    public ConnectionBuilder<T> withInboundMessageRateLimit(long perSecond, long burst) {
+        if ((perSecond <= 0) || (burst <= 0)) {
+            throw new IllegalArgumentException("Message rate limit and burst must be positive");
+        }
+        this.messagesPerSecond = perSecond;
+        this.messageBurst = burst;
+        return this;
+    }
+
+    /**
+     * Build connections which limit the rate at which they accept incoming bytes.  This limit is only enforced for
+     * connections built from a Socket or InputStream.
+     *
+     * @param perSecond The sustained number of bytes accepted per second.
+     * @param burst The number of bytes which may be accepted at once after a period of inactivity.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalArgumentException If either argument is not positive.
+     */
+    public ConnectionBuilder<T> withInboundByteRateLimit(long perSecond, long burst) {
+        if ((perSecond <= 0) || (burst <= 0)) {
+            throw new IllegalArgumentException("Byte rate limit and burst must be positive");
+        }
+        this.bytesPerSecond = perSecond;
+        this.byteBurst = burst;
+        return this;
+    }
+
+    /**
+     * Specify what built connections do with incoming messages that exceed their inbound rate limits.
+     *
+     * @param action The action; defaults to {@link RateLimitAction#DELAY}.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public ConnectionBuilder<T> withRateLimitAction(RateLimitAction action) {
+        this.rateLimitAction = action;
+        return this;
+    }
+
+    /**
+     * Build connections which execute incoming messages on the given shared scheduler instead of a thread of their
+     * own, so that execution time is divided fairly between connections.  The scheduler must be started separately.
+     *
+     * @param scheduler The scheduler.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If the scheduler has already been set.
+     */
+    public ConnectionBuilder<T> withExecutionScheduler(ExecutionScheduler scheduler) {
+        if (executionScheduler == null) {
+            executionScheduler = scheduler;
+        } else {
+            throw new IllegalStateException("ExecutionScheduler already set");
+        }
+        return this;
+    }
+
+    /**
+     * Build server-side connections which take part in resumable sessions managed by the given SessionManager.  Each
+     * built connection performs the session handshake with its peer, which must be built with {@link
+     * #withClientSession(ClientSession)}; a resumed connection reuses the ExecutionContext of its session instead of
+     * creating a new one.
+     *
+     * @param manager The SessionManager.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a SessionManager or ClientSession has already been set.
+     */
+    public ConnectionBuilder<T> withSessionManager(SessionManager<T> manager) {
+        if ((sessionManager != null) || (clientSession != null)) {
+            throw new IllegalStateException("Session already set");
+        }
+        sessionManager = manager;
+        shutdownCallbacks.add(manager::detach);
+        return this;
+    }
+
+    /**
+     * Build client-side connections which resume the given session each time they connect.
+     *
+     * @param session The ClientSession; the same instance should be used for every reconnect.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a SessionManager or ClientSession has already been set.
+     */
+    public ConnectionBuilder<T> withClientSession(ClientSession session) {
+        if ((sessionManager != null) || (clientSession != null)) {
+            throw new IllegalStateException("Session already set");
+        }
+        clientSession = session;
+        return this;
+    }
+
+    /**
+     * Keep built connections alive with the given HeartbeatMonitor, which pings them periodically, measures their
+     * round trip time, and stops any connection which receives nothing for longer than its idle timeout.
+     *
+     * @param monitor The HeartbeatMonitor; it should be shared by every connection, and must be started separately.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a HeartbeatMonitor has already been set.
+     */
+    public ConnectionBuilder<T> withHeartbeatMonitor(HeartbeatMonitor monitor) {
+        if (heartbeatMonitor != null) {
+            throw new IllegalStateException("Heartbeat monitor already set");
+        }
+        heartbeatMonitor = monitor;
+        shutdownCallbacks.add(monitor::detach);
+        return this;
+    }
+
+    /**
+     * Report executions and writes of built connections which run for longer than the threshold of the given Watchdog,
+     * and optionally stop the connections in which they occur.
+     *
+     * @param watchdog The Watchdog; it should be shared by every connection, and must be started separately.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a Watchdog has already been set.
+     */
+    public ConnectionBuilder<T> withWatchdog(Watchdog watchdog) {
+        if (this.watchdog != null) {
+            throw new IllegalStateException("Watchdog already set");
+        }
+        this.watchdog = watchdog;
+        shutdownCallbacks.add(watchdog::detach);
+        return this;
+    }
+
+    /**
+     * Set the order in which built connections send responses when some incoming messages are {@link AsyncMessage}s.
+     * By default, responses are sent in the order the messages they answer were received.
+     *
+     * @param ordering The response ordering.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public ConnectionBuilder<T> withResponseOrdering(ResponseOrdering ordering) {
+        responseOrdering = ordering;
+        return this;
+    }
+
+    /**
+     * Execute runs of consecutive incoming messages of exactly the given class with the given handler, instead of
+     * invoking {@code Message#execute} on each.
+     *
+     * @param messageClass The class of message handled.
+     * @param handler The handler; shared by every connection built by this builder.
+     * @param <M> The type of message handled.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a handler has already been registered for the given class.
+     */
+    public <M extends Message> ConnectionBuilder<T> withBatchHandler(
+          Class<M> messageClass,
+          BatchHandler<T, ? super M> handler)
+    {
+        if (batchHandlers.containsKey(messageClass)) {
+            throw new IllegalStateException("Batch handler already set for " + messageClass.getName());
+        }
+        batchHandlers.put(messageClass, handler);
+        return this;
+    }
+
+    /**
+     * Pass every incoming message of the given type (including subtypes) through the given interceptor, on the
+     * execution thread, before it is executed.  Interceptors run in the order in which they are added.
+     *
+     * @param messageClass The type of message intercepted.
+     * @param interceptor The interceptor; shared by every connection built by this builder.
+     * @param <M> The type of message intercepted.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public <M extends Message> ConnectionBuilder<T> withInboundInterceptor(
+          Class<M> messageClass,
+          MessageInterceptor<T, ? super M> interceptor)
+    {
+        inboundInterceptors.add(messageClass, interceptor);
+        return this;
+    }
+
+    /**
+     * Pass every outgoing message of the given type (including subtypes) through the given interceptor, on the writing
+     * thread, before it is written.  Interceptors run in the order in which they are added.
+     *
+     * @param messageClass The type of message intercepted.
+     * @param interceptor The interceptor; shared by every connection built by this builder.
+     * @param <M> The type of message intercepted.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public <M extends Message> ConnectionBuilder<T> withOutboundInterceptor(
+          Class<M> messageClass,
+          MessageInterceptor<T, ? super M> interceptor)
+    {
+        outboundInterceptors.add(messageClass, interceptor);
+        return this;
+    }
+
+    /**
+     * Conflate outgoing messages of exactly the given class: if a message is queued while an earlier message of the
+     * class with an equal key is still waiting to be sent, the newer message replaces the older one in place.  Classes
+     * annotated with {@code @Conflate} are conflated without being registered here.
+     *
+     * @param messageClass The class of message.
+     * @param keyFunction Extracts the conflation key from a message; may return null if the message should not be
+     * conflated.
+     * @param <M> The type of message.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public <M extends Message> ConnectionBuilder<T> withConflation(
+          Class<M> messageClass,
+          Function<? super M, ?> keyFunction)
+    {
+        conflator.add(messageClass, keyFunction);
+        return this;
+    }
+
+    /**
+     * Set the policy with which built connections choose between the priority lanes of their outgoing queues.  By
+     * default, strict priority is used, and a message which has waited longer than one second is written regardless of
+     * its priority.
+     *
+     * @param policy The priority policy.
+     *
+     * @return This ConnectionBuilder.
+     */
+    public ConnectionBuilder<T> withPriorityPolicy(PriorityPolicy policy) {
+        priorityPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Build connections which use credit-based flow control: each side grants its peer credit for a window of
+     * messages and bytes, and grants more as the messages it has received are drained for execution.  Outgoing
+     * messages for which the peer has not granted credit wait in the outgoing queue.  The peer must also use flow
+     * control, or it will never grant any credit; the byte window is only enforced for connections built from a Socket
+     * or InputStream and OutputStream.
+     *
+     * @param messageWindow The number of messages the peer may send ahead of those drained for execution.
+     * @param byteWindow The number of bytes the peer may send ahead of those drained for execution.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalArgumentException If either window is not positive.
+     */
+    public ConnectionBuilder<T> withFlowControl(int messageWindow, long byteWindow) {
+        if ((messageWindow <= 0) || (byteWindow <= 0)) {
+            throw new IllegalArgumentException("Message and byte windows must be positive");
+        }
+        flowMessageWindow = messageWindow;
+        flowByteWindow = byteWindow;
+        return this;
+    }
+
+    /**
+     * Record the traffic, queue depths and latencies of each built connection in the given MetricsRegistry.
+     *
+     * @param registry The MetricsRegistry.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a MetricsRegistry has already been set.
+     */
+    public ConnectionBuilder<T> withMetrics(MetricsRegistry registry) {
+        if (metricsRegistry != null) {
+            throw new IllegalStateException("MetricsRegistry already set");
+        }
+        metricsRegistry = registry;
+        return this;
+    }
+
+    /**
+     * Report the time at which each message read or written by each built connection passes through each stage, from
+     * being read to being executed and from being encoded to being written, to the given tracer.  Connections built
+     * without a tracer take no timestamps.
+     *
+     * @param tracer The tracer, such as a {@link com.jenjinstudios.io.tracing.SamplingTracer}.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a MessageTracer has already been set.
+     */
+    public ConnectionBuilder<T> withTracer(MessageTracer tracer) {
+        if (this.tracer != null) {
+            throw new IllegalStateException("MessageTracer already set");
+        }
+        this.tracer = tracer;
+        return this;
+    }
+
+    /**
+     * Negotiate the codec, compression and optional features of each built connection with the server to which it
+     * connects, using the given Negotiator; the MessageIOFactory of this builder is not used.  The server must be
+     * built with {@link #withServerNegotiation(Negotiator)}.
+     *
+     * @param negotiator The Negotiator.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a Negotiator has already been set.
+     */
+    public ConnectionBuilder<T> withClientNegotiation(Negotiator negotiator) {
+        if (this.negotiator != null) {
+            throw new IllegalStateException("Negotiator already set");
+        }
+        this.negotiator = negotiator;
+        return this;
+    }
+
+    /**
+     * Negotiate the codec, compression and optional features of each built connection with the client which
+     * connected, using the given Negotiator; the MessageIOFactory of this builder is not used.  Clients which do not
+     * negotiate are served with the legacy codec of the Negotiator.
+     *
+     * @param negotiator The Negotiator.
+     *
+     * @return This ConnectionBuilder.
+     *
+     * @throws IllegalStateException If a Negotiator has already been set.
+     */
+    public ConnectionBuilder<T> withServerNegotiation(Negotiator negotiator) {
+        if (this.negotiator != null) {
+            throw new IllegalStateException("Negotiator already set");
+        }
+        this.negotiator = negotiator;
+        acceptNegotiation = true;
+        return this;
+    }
 }
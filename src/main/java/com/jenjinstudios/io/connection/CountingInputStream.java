@@ -0,0 +1,53 @@
+package com.jenjinstudios.io.connection;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An InputStream which counts the bytes read through it.
+ *
+ * @author Caleb Brinkman
+ */
+class CountingInputStream extends FilterInputStream
+{
+    private final AtomicLong count = new AtomicLong(0);
+
+    /**
+     * Construct a new CountingInputStream reading from the given stream.
+     *
+     * @param in The stream from which bytes are read.
+     */
+    CountingInputStream(InputStream in) { super(in); }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read >= 0) {
+            count.incrementAndGet();
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count.addAndGet(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count.addAndGet(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() { return false; }
+
+    long getCount() { return count.get(); }
+}
@@ -0,0 +1,37 @@
+package com.jenjinstudios.io.connection;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An OutputStream which counts the bytes written through it.
+ *
+ * @author Caleb Brinkman
+ */
+class CountingOutputStream extends FilterOutputStream
+{
+    private final AtomicLong count = new AtomicLong(0);
+
+    /**
+     * Construct a new CountingOutputStream writing to the given stream.
+     *
+     * @param out The stream to which bytes are written.
+     */
+    CountingOutputStream(OutputStream out) { super(out); }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count.incrementAndGet();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count.addAndGet(len);
+    }
+
+    long getCount() { return count.get(); }
+}
@@ -0,0 +1,37 @@
+package com.jenjinstudios.io.connection;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.concurrency.InterceptorChain;
+
+import java.io.IOException;
+
+/**
+ * Passes each outgoing message through a chain of interceptors before writing it.
+ *
+ * @author Caleb Brinkman
+ */
+class InterceptingMessageWriter<T extends ExecutionContext> implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final InterceptorChain<T> interceptors;
+    private final T context;
+
+    InterceptingMessageWriter(MessageWriter writer, InterceptorChain<T> interceptors, T context) {
+        this.writer = writer;
+        this.interceptors = interceptors;
+        this.context = context;
+    }
+
+    @Override
+    public void write(Message message) throws IOException {
+        Message intercepted = interceptors.intercept(context, message);
+        if (intercepted != null) {
+            writer.write(intercepted);
+        }
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
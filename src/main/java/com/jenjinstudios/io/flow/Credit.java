@@ -0,0 +1,31 @@
+package com.jenjinstudios.io.flow;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Sent by the receiving side of a flow controlled connection to grant the sending side credit; the limits are
+ * cumulative, counting every message and byte sent since the connection was opened.
+ *
+ * @author Caleb Brinkman
+ */
+public class Credit implements Message
+{
+    private long messageLimit;
+    private long byteLimit;
+
+    /**
+     * Construct a new Credit.
+     *
+     * @param messageLimit The total number of messages the peer may have sent once it has used this credit.
+     * @param byteLimit The total number of bytes the peer may have sent once it has used this credit; negative if the
+     * number of bytes is not limited.
+     */
+    public Credit(long messageLimit, long byteLimit) {
+        this.messageLimit = messageLimit;
+        this.byteLimit = byteLimit;
+    }
+
+    public long getMessageLimit() { return messageLimit; }
+
+    public long getByteLimit() { return byteLimit; }
+}
@@ -0,0 +1,222 @@
+package com.jenjinstudios.io.flow;
+
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Credit-based flow control for a single connection.
+ * <p>
+ * Each side advertises a receive window, in messages and in bytes, by sending {@link Credit} to its peer; as incoming
+ * messages are drained from its queue for execution, it grants more.  A side which has used all of the credit granted
+ * by its peer holds outgoing messages in its own queue until more is granted, so a slow peer holds back a fast one
+ * instead of buffering an unbounded number of messages.  Control messages, such as heartbeats and acknowledgements,
+ * are neither counted nor held back, so that a peer withholding credit is not mistaken for a dead one.  Both sides of a
+ * connection must use flow control.
+ *
+ * @author Caleb Brinkman
+ */
+public class FlowControl
+{
+    /** The default number of messages a peer may send ahead of those drained for execution. */
+    public static final int DEFAULT_MESSAGE_WINDOW = 1024;
+    /** The default number of bytes a peer may send ahead of those drained for execution. */
+    public static final long DEFAULT_BYTE_WINDOW = 1024 * 1024;
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlowControl.class);
+    private final int messageWindow;
+    private final long byteWindow;
+    private final Object receiving = new Object();
+    private final Object sending = new Object();
+    private final long[] receivedTotals;
+    private volatile FlowControlWriter writer;
+    private boolean byteAccounting;
+    private long receivedMessages;
+    private long receivedBytes;
+    private long grantedMessages;
+    private long grantedBytes;
+    private long sentMessages;
+    private long sentBytes;
+    private long messageLimit;
+    private long byteLimit;
+    private boolean stalled;
+    private long stalledSince;
+    private long stallCount;
+    private long stallNanos;
+
+    /**
+     * Construct a new FlowControl with the default windows.
+     */
+    public FlowControl() { this(DEFAULT_MESSAGE_WINDOW, DEFAULT_BYTE_WINDOW); }
+
+    /**
+     * Construct a new FlowControl.
+     *
+     * @param messageWindow The number of messages the peer may send ahead of those drained for execution.
+     * @param byteWindow The number of bytes the peer may send ahead of those drained for execution; only enforced if
+     * the bytes read can be counted.
+     *
+     * @throws IllegalArgumentException If either window is not positive.
+     */
+    public FlowControl(int messageWindow, long byteWindow) {
+        if ((messageWindow < 1) || (byteWindow < 1)) {
+            throw new IllegalArgumentException("Message and byte windows must be positive");
+        }
+        this.messageWindow = messageWindow;
+        this.byteWindow = byteWindow;
+        this.receivedTotals = new long[messageWindow + 1];
+    }
+
+    /**
+     * Create a MessageReader which consumes credit granted by the peer and records every other message read from the
+     * given reader.
+     *
+     * @param reader The reader.
+     * @param bytesRead Supplies the total number of bytes read by the reader; null if they cannot be counted, in which
+     * case the peer is granted an unlimited number of bytes.
+     *
+     * @return The flow controlled reader.
+     */
+    public MessageReader createReader(MessageReader reader, LongSupplier bytesRead) {
+        synchronized (receiving) {
+            byteAccounting = bytesRead != null;
+        }
+        return new FlowControlReader(reader, this, bytesRead);
+    }
+
+    /**
+     * Create a MessageWriter which records every message written to the given writer, and through which credit is
+     * granted to the peer.
+     *
+     * @param writer The writer.
+     * @param bytesWritten Supplies the total number of bytes written by the writer; null if they cannot be counted, in
+     * which case the byte window of the peer is not enforced.
+     *
+     * @return The flow controlled writer.
+     */
+    public MessageWriter createWriter(MessageWriter writer, LongSupplier bytesWritten) {
+        FlowControlWriter flowControlWriter = new FlowControlWriter(writer, this, bytesWritten);
+        this.writer = flowControlWriter;
+        return flowControlWriter;
+    }
+
+    /**
+     * Determine whether the peer has granted credit for another message; while messages are waiting to be written
+     * without credit, the connection is counted as stalled.
+     *
+     * @param waiting Whether any outgoing messages are waiting to be written.
+     *
+     * @return Whether another message may be written.
+     */
+    public boolean hasCredit(boolean waiting) {
+        long now = System.nanoTime();
+        synchronized (sending) {
+            boolean credit = (sentMessages < messageLimit) && (sentBytes < byteLimit);
+            if (stalled && (credit || !waiting)) {
+                stalled = false;
+                stallNanos += now - stalledSince;
+            } else if (!stalled && !credit && waiting) {
+                stalled = true;
+                stalledSince = now;
+                stallCount++;
+            }
+            return credit;
+        }
+    }
+
+    /**
+     * Grant the peer more credit if enough of the messages it has sent have been drained for execution; credit is
+     * granted once at least half of either window has been freed, rather than for every message.
+     *
+     * @param queued The number of received messages still waiting to be executed.
+     *
+     * @throws IOException If there is an exception when writing the credit.
+     */
+    public void replenish(int queued) throws IOException {
+        Credit credit = null;
+        synchronized (receiving) {
+            long waiting = Math.min(Math.min(queued, receivedTotals.length - 1), receivedMessages);
+            long consumed = receivedMessages - waiting;
+            long newMessageLimit = consumed + messageWindow;
+            long newByteLimit = receivedTotals[(int) (consumed % receivedTotals.length)] + byteWindow;
+            boolean messagesFreed = ((newMessageLimit - grantedMessages) * 2) >= messageWindow;
+            boolean bytesFreed = byteAccounting && (((newByteLimit - grantedBytes) * 2) >= byteWindow);
+            if (messagesFreed || bytesFreed) {
+                grantedMessages = newMessageLimit;
+                grantedBytes = newByteLimit;
+                credit = new Credit(newMessageLimit, byteAccounting ? newByteLimit : -1);
+            }
+        }
+        FlowControlWriter current = writer;
+        if ((credit != null) && (current != null)) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Granting credit (Messages: {}, Bytes: {})", credit.getMessageLimit(),
+                      credit.getByteLimit());
+            }
+            current.writeCredit(credit);
+        }
+    }
+
+    public int getMessageWindow() { return messageWindow; }
+
+    public long getByteWindow() { return byteWindow; }
+
+    /**
+     * Get the number of times outgoing messages have had to wait for credit from the peer.
+     *
+     * @return The number of stalls.
+     */
+    public long getStallCount() {
+        synchronized (sending) {
+            return stallCount;
+        }
+    }
+
+    /**
+     * Get the total time outgoing messages have spent waiting for credit from the peer, including any current stall.
+     *
+     * @return The stall time, in nanoseconds.
+     */
+    public long getStallNanos() {
+        long now = System.nanoTime();
+        synchronized (sending) {
+            return stalled ? (stallNanos + (now - stalledSince)) : stallNanos;
+        }
+    }
+
+    /**
+     * Determine whether outgoing messages are currently waiting for credit from the peer.
+     *
+     * @return Whether the connection is stalled.
+     */
+    public boolean isStalled() {
+        synchronized (sending) {
+            return stalled;
+        }
+    }
+
+    void received(long bytes) {
+        synchronized (receiving) {
+            receivedBytes += bytes;
+            receivedMessages++;
+            receivedTotals[(int) (receivedMessages % receivedTotals.length)] = receivedBytes;
+        }
+    }
+
+    void granted(Credit credit) {
+        synchronized (sending) {
+            messageLimit = Math.max(messageLimit, credit.getMessageLimit());
+            byteLimit = (credit.getByteLimit() < 0) ? Long.MAX_VALUE : Math.max(byteLimit, credit.getByteLimit());
+        }
+    }
+
+    void sent(long bytes) {
+        synchronized (sending) {
+            sentMessages++;
+            sentBytes += bytes;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.jenjinstudios.io.flow;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads messages for a flow controlled connection, consuming credit granted by the peer and recording the size of
+ * every other message received, except control messages, which the peer does not count against its credit.
+ *
+ * @author Caleb Brinkman
+ */
+class FlowControlReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final FlowControl flowControl;
+    private final LongSupplier bytesRead;
+    private long lastBytesRead;
+
+    FlowControlReader(MessageReader reader, FlowControl flowControl, LongSupplier bytesRead) {
+        this.reader = reader;
+        this.flowControl = flowControl;
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        while (true) {
+            Message message = reader.read();
+            long bytes = 0;
+            if (bytesRead != null) {
+                long total = bytesRead.getAsLong();
+                bytes = total - lastBytesRead;
+                lastBytesRead = total;
+            }
+            if (!(message instanceof Credit)) {
+                if (!MessageQueue.isControl(message)) {
+                    flowControl.received(bytes);
+                }
+                return message;
+            }
+            flowControl.granted((Credit) message);
+        }
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,50 @@
+package com.jenjinstudios.io.flow;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes messages for a flow controlled connection, recording the size of every message written, except control
+ * messages, so that it can be counted against the credit granted by the peer.
+ *
+ * @author Caleb Brinkman
+ */
+class FlowControlWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final FlowControl flowControl;
+    private final LongSupplier bytesWritten;
+
+    FlowControlWriter(MessageWriter writer, FlowControl flowControl, LongSupplier bytesWritten) {
+        this.writer = writer;
+        this.flowControl = flowControl;
+        this.bytesWritten = bytesWritten;
+    }
+
+    @Override
+    public synchronized void write(Message message) throws IOException {
+        if (MessageQueue.isControl(message)) {
+            writer.write(message);
+            return;
+        }
+        long before = (bytesWritten != null) ? bytesWritten.getAsLong() : 0;
+        writer.write(message);
+        flowControl.sent((bytesWritten != null) ? (bytesWritten.getAsLong() - before) : 0);
+    }
+
+    /**
+     * Write the given credit, which is not itself counted against the credit granted by the peer.
+     *
+     * @param credit The credit.
+     *
+     * @throws IOException If there is an exception when writing the credit.
+     */
+    synchronized void writeCredit(Credit credit) throws IOException { writer.write(credit); }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
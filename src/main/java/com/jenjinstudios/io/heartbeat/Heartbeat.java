@@ -0,0 +1,116 @@
+package com.jenjinstudios.io.heartbeat;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.connection.Connection;
+
+/**
+ * Keepalive state of a single connection: when it last received anything, when it was last pinged, and its measured
+ * round trip time.
+ *
+ * @author Caleb Brinkman
+ */
+public class Heartbeat
+{
+    private static final int SMOOTHING_SHIFT = 3;
+    private volatile Connection connection;
+    private volatile long lastReceived;
+    private volatile long lastPinged;
+    private volatile long roundTripNanos = -1;
+    private volatile long smoothedRoundTripNanos = -1;
+
+    /**
+     * Construct a new Heartbeat.
+     *
+     * @param createdAt The time at which the connection was opened; the connection is idle from this time until it
+     * receives a message.
+     */
+    Heartbeat(long createdAt) {
+        lastReceived = createdAt;
+        lastPinged = createdAt;
+    }
+
+    /**
+     * Create a MessageReader which records activity on this heartbeat for every message read from the given reader,
+     * answering pings and consuming pongs.
+     *
+     * @param reader The reader.
+     *
+     * @return The heartbeat-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new HeartbeatReader(reader, this); }
+
+    public Connection getConnection() { return connection; }
+
+    /**
+     * Get the most recently measured round trip time of the connection.
+     *
+     * @return The round trip time, in nanoseconds; -1 if no pong has been received yet.
+     */
+    public long getRoundTripNanos() { return roundTripNanos; }
+
+    /**
+     * Get the smoothed round trip time of the connection, an exponentially weighted moving average of the measured
+     * round trip times which is less sensitive to a single slow pong.
+     *
+     * @return The smoothed round trip time, in nanoseconds; -1 if no pong has been received yet.
+     */
+    public long getSmoothedRoundTripNanos() { return smoothedRoundTripNanos; }
+
+    /**
+     * Get the time at which the connection last received a message.
+     *
+     * @return The time, as given by {@code System.nanoTime()}.
+     */
+    public long getLastReceived() { return lastReceived; }
+
+    void attach(Connection connection) { this.connection = connection; }
+
+    /**
+     * Record that the given message was received.
+     *
+     * @param message The message.
+     * @param now The time at which the message was received.
+     *
+     * @return Whether the message was a ping or pong, and so should not be executed.
+     */
+    boolean received(Message message, long now) {
+        lastReceived = now;
+        if (message instanceof Ping) {
+            Connection current = connection;
+            if (current != null) {
+                current.sendMessage(new Pong(((Ping) message).getSentAt()));
+            }
+            return true;
+        } else if (message instanceof Pong) {
+            long roundTrip = now - ((Pong) message).getSentAt();
+            if (roundTrip >= 0) {
+                roundTripNanos = roundTrip;
+                long smoothed = smoothedRoundTripNanos;
+                smoothedRoundTripNanos = (smoothed < 0)
+                      ? roundTrip
+                      : (smoothed + ((roundTrip - smoothed) >> SMOOTHING_SHIFT));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether the connection should be pinged, and if so record that it has been.
+     *
+     * @param now The current time.
+     * @param pingInterval The interval between pings, in nanoseconds.
+     *
+     * @return Whether the connection should be pinged.
+     */
+    boolean shouldPing(long now, long pingInterval) {
+        if ((now - lastPinged) >= pingInterval) {
+            lastPinged = now;
+            return true;
+        }
+        return false;
+    }
+
+    boolean isIdle(long now, long idleTimeout) { return (now - lastReceived) > idleTimeout; }
+}
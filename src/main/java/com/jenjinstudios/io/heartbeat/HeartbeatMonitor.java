@@ -0,0 +1,132 @@
+package com.jenjinstudios.io.heartbeat;
+
+import com.jenjinstudios.io.connection.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps many connections alive from a single timer thread: each connection is pinged at a fixed interval, and any
+ * connection which receives nothing (not even a pong) for longer than the idle timeout is stopped.  Stopping a
+ * connection closes its streams and invokes its shutdown callbacks, so a Server will remove it as usual.
+ * <p>
+ * Round trip times measured from pongs are available per connection through {@link #getHeartbeat(Connection)}.
+ *
+ * @author Caleb Brinkman
+ */
+public class HeartbeatMonitor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeartbeatMonitor.class);
+    private static final int TICKS_PER_INTERVAL = 4;
+    private final Map<String, Heartbeat> heartbeats = new ConcurrentHashMap<>(10);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong reapedCount = new AtomicLong(0);
+    private final long pingInterval;
+    private final long idleTimeout;
+
+    /**
+     * Construct a new HeartbeatMonitor.
+     *
+     * @param pingInterval The interval at which each connection is pinged.
+     * @param idleTimeout The amount of time a connection may go without receiving a message before it is stopped;
+     * should be comfortably longer than the ping interval.
+     * @param timeUnit The unit of {@code pingInterval} and {@code idleTimeout}.
+     *
+     * @throws IllegalArgumentException If {@code pingInterval} or {@code idleTimeout} is not positive.
+     */
+    public HeartbeatMonitor(long pingInterval, long idleTimeout, TimeUnit timeUnit) {
+        if ((pingInterval <= 0) || (idleTimeout <= 0)) {
+            throw new IllegalArgumentException("Ping interval and idle timeout must be positive");
+        }
+        this.pingInterval = timeUnit.toNanos(pingInterval);
+        this.idleTimeout = timeUnit.toNanos(idleTimeout);
+    }
+
+    /**
+     * Start pinging and reaping registered connections.
+     */
+    public void start() {
+        long tick = Math.max(Math.min(pingInterval, idleTimeout) / TICKS_PER_INTERVAL, 1);
+        timer.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop pinging and reaping connections.
+     */
+    public void stop() { timer.shutdownNow(); }
+
+    /**
+     * Create the heartbeat for a new connection.  The reader of the connection should be wrapped using {@link
+     * Heartbeat#createReader}, and the connection attached with {@link #attach} once it has been built.
+     *
+     * @return The new Heartbeat.
+     */
+    public Heartbeat createHeartbeat() { return new Heartbeat(System.nanoTime()); }
+
+    /**
+     * Begin monitoring the given connection.
+     *
+     * @param heartbeat The heartbeat created for the connection.
+     * @param connection The connection.
+     */
+    public void attach(Heartbeat heartbeat, Connection connection) {
+        heartbeat.attach(connection);
+        heartbeats.put(connection.getId(), heartbeat);
+    }
+
+    /**
+     * Stop monitoring the given connection.  This is invoked automatically when a Connection built by a
+     * ConnectionBuilder using this HeartbeatMonitor is shut down.
+     *
+     * @param connection The connection.
+     */
+    public void detach(Connection connection) { heartbeats.remove(connection.getId()); }
+
+    /**
+     * Get the heartbeat of the given connection.
+     *
+     * @param connection The connection.
+     *
+     * @return The heartbeat; null if the connection is not monitored.
+     */
+    public Heartbeat getHeartbeat(Connection connection) { return heartbeats.get(connection.getId()); }
+
+    public int getConnectionCount() { return heartbeats.size(); }
+
+    /**
+     * Get the number of connections which have been stopped for exceeding the idle timeout.
+     *
+     * @return The number of reaped connections.
+     */
+    public long getReapedCount() { return reapedCount.get(); }
+
+    void tick() {
+        long now = System.nanoTime();
+        heartbeats.values().forEach(heartbeat -> {
+            Connection connection = heartbeat.getConnection();
+            if (heartbeat.isIdle(now, idleTimeout)) {
+                if (heartbeats.remove(connection.getId(), heartbeat)) {
+                    LOGGER.debug("Stopping idle connection {}", connection.getId());
+                    reapedCount.incrementAndGet();
+                    stop(connection);
+                }
+            } else if (heartbeat.shouldPing(now, pingInterval)) {
+                connection.sendMessage(new Ping(now));
+            }
+        });
+    }
+
+    private static void stop(Connection connection) {
+        try {
+            connection.stop();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Exception when stopping idle connection", e);
+        }
+    }
+}
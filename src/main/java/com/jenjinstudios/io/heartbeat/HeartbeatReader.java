@@ -0,0 +1,34 @@
+package com.jenjinstudios.io.heartbeat;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Reads messages for a connection with a heartbeat, recording activity and consuming pings and pongs.
+ *
+ * @author Caleb Brinkman
+ */
+class HeartbeatReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final Heartbeat heartbeat;
+
+    HeartbeatReader(MessageReader reader, Heartbeat heartbeat) {
+        this.reader = reader;
+        this.heartbeat = heartbeat;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        Message message = reader.read();
+        while (heartbeat.received(message, System.nanoTime())) {
+            message = reader.read();
+        }
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,32 @@
+package com.jenjinstudios.io.heartbeat;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Control;
+import com.jenjinstudios.io.annotations.Priority;
+import com.jenjinstudios.io.concurrency.MessagePriority;
+
+/**
+ * Sent periodically by a HeartbeatMonitor to keep a connection alive and measure its round trip time.  A peer without
+ * a HeartbeatMonitor still answers with a Pong when the Ping is executed.
+ *
+ * @author Caleb Brinkman
+ */
+@Control
+@Priority(MessagePriority.HIGH)
+public class Ping implements Message
+{
+    private long sentAt;
+
+    /**
+     * Construct a new Ping.
+     *
+     * @param sentAt The time, in nanoseconds according to the sender, at which the ping was sent.
+     */
+    public Ping(long sentAt) { this.sentAt = sentAt; }
+
+    public long getSentAt() { return sentAt; }
+
+    @Override
+    public Message execute(ExecutionContext context) { return new Pong(sentAt); }
+}
@@ -0,0 +1,27 @@
+package com.jenjinstudios.io.heartbeat;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Control;
+import com.jenjinstudios.io.annotations.Priority;
+import com.jenjinstudios.io.concurrency.MessagePriority;
+
+/**
+ * Sent in response to a Ping, echoing the time at which the Ping was sent so the sender can measure round trip time.
+ *
+ * @author Caleb Brinkman
+ */
+@Control
+@Priority(MessagePriority.HIGH)
+public class Pong implements Message
+{
+    private long sentAt;
+
+    /**
+     * Construct a new Pong.
+     *
+     * @param sentAt The time, in nanoseconds according to the sender of the Ping, at which the Ping was sent.
+     */
+    public Pong(long sentAt) { this.sentAt = sentAt; }
+
+    public long getSentAt() { return sentAt; }
+}
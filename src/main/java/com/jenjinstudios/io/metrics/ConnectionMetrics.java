@@ -0,0 +1,149 @@
+package com.jenjinstudios.io.metrics;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Records the traffic and latencies of a single connection, on behalf of the MetricsRegistry which created it.
+ * <p>
+ * The streams of the connection are metered to count bytes, and its reader and writer are wrapped to count messages
+ * and time decoding and writing; the connection itself reports queue wait and execution times, and registers gauges
+ * of its queue depths.
+ *
+ * @author Caleb Brinkman
+ */
+public class ConnectionMetrics
+{
+    private final MetricsRegistry registry;
+    private final Traffic traffic = new Traffic();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private volatile MeteredInputStream input;
+    private volatile MeteredOutputStream output;
+    private volatile String connectionId;
+
+    ConnectionMetrics(MetricsRegistry registry) { this.registry = registry; }
+
+    /**
+     * Count the bytes read from the given stream; must be invoked before {@link #createReader(MessageReader)} for
+     * bytes to be counted.
+     *
+     * @param inputStream The stream from which messages are read.
+     *
+     * @return The metered stream.
+     */
+    public InputStream meter(InputStream inputStream) {
+        MeteredInputStream metered = new MeteredInputStream(inputStream);
+        input = metered;
+        return metered;
+    }
+
+    /**
+     * Count the bytes written to the given stream; must be invoked before {@link #createWriter(MessageWriter)} for
+     * bytes to be counted.
+     *
+     * @param outputStream The stream to which messages are written.
+     *
+     * @return The metered stream.
+     */
+    public OutputStream meter(OutputStream outputStream) {
+        MeteredOutputStream metered = new MeteredOutputStream(outputStream);
+        output = metered;
+        return metered;
+    }
+
+    /**
+     * Create a MessageReader which records every message read from the given reader.
+     *
+     * @param reader The reader.
+     *
+     * @return The metered reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new MetricsReader(reader, this, input); }
+
+    /**
+     * Create a MessageWriter which records every message written to the given writer.
+     *
+     * @param writer The writer.
+     *
+     * @return The metered writer.
+     */
+    public MessageWriter createWriter(MessageWriter writer) { return new MetricsWriter(writer, this, output); }
+
+    /**
+     * Register a gauge, which is sampled whenever a snapshot is taken.
+     *
+     * @param name The name of the gauge.
+     * @param gauge Supplies the current value of the gauge.
+     */
+    public void registerGauge(String name, LongSupplier gauge) { gauges.put(name, gauge); }
+
+    /**
+     * Record the time a received message waited in the incoming queue before it was executed.
+     *
+     * @param nanos The wait time, in nanoseconds.
+     */
+    public void recordQueueWait(long nanos) { registry.getQueueWaitHistogram().record(nanos); }
+
+    /**
+     * Record the time taken to execute a received message, or a batch of them.
+     *
+     * @param nanos The execution time, in nanoseconds.
+     */
+    public void recordExecution(long nanos) { registry.getExecutionHistogram().record(nanos); }
+
+    /**
+     * Include this connection in the snapshots of the MetricsRegistry; invoked once the connection has been built.
+     *
+     * @param id The unique identifier of the connection.
+     */
+    public void open(String id) {
+        connectionId = id;
+        registry.opened(id, this);
+    }
+
+    /**
+     * Remove this connection from the snapshots of the MetricsRegistry; its traffic remains in the totals.
+     */
+    public void close() {
+        if (connectionId != null) {
+            registry.closed(connectionId);
+        }
+    }
+
+    /**
+     * Get the messages and bytes received and sent by this connection so far.
+     *
+     * @return The traffic of this connection.
+     */
+    public TrafficSnapshot getTraffic() { return traffic.snapshot(); }
+
+    /**
+     * Sample every gauge of this connection.
+     *
+     * @return The current value of each gauge, by name.
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    void received(Message message, long bytes, long decodeNanos) {
+        traffic.received(bytes);
+        registry.received(message.getClass(), bytes, decodeNanos);
+    }
+
+    void sent(Message message, long bytes, long writeNanos) {
+        traffic.sent(bytes);
+        registry.sent(message.getClass(), bytes, writeNanos);
+    }
+}
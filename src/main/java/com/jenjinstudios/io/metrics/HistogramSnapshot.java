@@ -0,0 +1,67 @@
+package com.jenjinstudios.io.metrics;
+
+/**
+ * An immutable snapshot of a {@link LatencyHistogram}.
+ *
+ * @author Caleb Brinkman
+ */
+public class HistogramSnapshot
+{
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long max) {
+        this.counts = counts;
+        this.sum = sum;
+        this.max = max;
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.count = total;
+    }
+
+    public long getCount() { return count; }
+
+    public long getMaxNanos() { return max; }
+
+    /**
+     * Get the mean of the recorded latencies.
+     *
+     * @return The mean latency, in nanoseconds; zero if nothing has been recorded.
+     */
+    public long getMeanNanos() { return (count > 0) ? (sum / count) : 0; }
+
+    /**
+     * Get the latency below which the given percentage of recorded latencies fall, accurate to within an eighth of its
+     * value.
+     *
+     * @param percentile The percentage, from 0 to 100.
+     *
+     * @return The latency, in nanoseconds; zero if nothing has been recorded.
+     *
+     * @throws IllegalArgumentException If the percentage is not between 0 and 100.
+     */
+    public long getPercentileNanos(double percentile) {
+        if ((percentile < 0) || (percentile > 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long target = Math.max(1, (long) Math.ceil((percentile / 100) * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.upperBound(i), max);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{count=" + count + ", mean=" + getMeanNanos() + ", p50=" + getPercentileNanos(50)
+              + ", p99=" + getPercentileNanos(99) + ", max=" + max + '}';
+    }
+}
@@ -0,0 +1,82 @@
+package com.jenjinstudios.io.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies, in nanoseconds.
+ * <p>
+ * Values are counted in logarithmic buckets, eight to each power of two, so any percentile is accurate to within an
+ * eighth of its value while the histogram occupies a fixed amount of memory.  Counts are striped across threads, so
+ * that threads recording at the same time rarely contend for the same cache line.
+ *
+ * @author Caleb Brinkman
+ */
+public class LatencyHistogram
+{
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = ((Long.SIZE - SUB_BUCKET_BITS) + 1) * SUB_BUCKETS;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1;
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Construct a new, empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    /**
+     * Record a latency; negative values are recorded as zero.
+     *
+     * @param nanos The latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(bucket(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Take a snapshot of the latencies recorded so far.  Latencies recorded while the snapshot is being taken may or
+     * may not be included.
+     *
+     * @return The snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new HistogramSnapshot(counts, sum.sum(), max.get());
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (((exponent - SUB_BUCKET_BITS) + 1) * SUB_BUCKETS) + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket / SUB_BUCKETS) - 1;
+        long lower = (long) (SUB_BUCKETS + (bucket % SUB_BUCKETS)) << shift;
+        return (lower + (1L << shift)) - 1;
+    }
+}
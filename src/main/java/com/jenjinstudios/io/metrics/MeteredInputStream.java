@@ -0,0 +1,71 @@
+package com.jenjinstudios.io.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream which counts the bytes read through it, and records when the first bytes of each message arrive, so
+ * that the time spent waiting for a message can be told apart from the time spent decoding it.
+ *
+ * @author Caleb Brinkman
+ */
+class MeteredInputStream extends FilterInputStream
+{
+    private volatile long count;
+    private volatile long firstReadNanos;
+
+    MeteredInputStream(InputStream in) { super(in); }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            received(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            received(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        received(skipped);
+        return skipped;
+    }
+
+    /**
+     * Begin reading a message.
+     *
+     * @return The number of bytes read so far.
+     */
+    long startMessage() {
+        firstReadNanos = 0;
+        return count;
+    }
+
+    long getCount() { return count; }
+
+    /**
+     * Get the time at which bytes were first read since the current message was begun.
+     *
+     * @return The time, in nanoseconds; zero if no bytes have been read.
+     */
+    long getFirstReadNanos() { return firstReadNanos; }
+
+    // Only one thread reads from the stream, so the counts are never updated concurrently
+    private void received(long bytes) {
+        if (firstReadNanos == 0) {
+            firstReadNanos = System.nanoTime();
+        }
+        count += bytes;
+    }
+}
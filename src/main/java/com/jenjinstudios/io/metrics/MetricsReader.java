@@ -0,0 +1,43 @@
+package com.jenjinstudios.io.metrics;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Records the size, type and decode time of every message read from a MessageReader.  The decode time of a message
+ * is measured from when its first bytes arrive, or from when it is requested if they have already been buffered.
+ *
+ * @author Caleb Brinkman
+ */
+class MetricsReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final ConnectionMetrics metrics;
+    private final MeteredInputStream input;
+
+    MetricsReader(MessageReader reader, ConnectionMetrics metrics, MeteredInputStream input) {
+        this.reader = reader;
+        this.metrics = metrics;
+        this.input = input;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        long start = System.nanoTime();
+        long before = (input != null) ? input.startMessage() : 0;
+        Message message = reader.read();
+        long end = System.nanoTime();
+        long bytes = 0;
+        if (input != null) {
+            bytes = input.getCount() - before;
+            start = Math.max(start, input.getFirstReadNanos());
+        }
+        metrics.received(message, bytes, end - start);
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
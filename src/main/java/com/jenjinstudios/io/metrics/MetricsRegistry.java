@@ -0,0 +1,124 @@
+package com.jenjinstudios.io.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the traffic and latencies of every connection built with it, without any dependencies beyond the JDK.
+ * <p>
+ * Messages and bytes are counted in total, per connection and per message type; latencies are recorded, across every
+ * connection, in histograms of decode time, incoming queue wait, execution time and encode and write time.  Counters
+ * and histograms are striped, so recording never takes a lock.  A consistent view of everything is taken with {@link
+ * #snapshot()}, and the totals and 99th percentile latencies may also be exposed over JMX.
+ *
+ * @author Caleb Brinkman
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean
+{
+    private static final double P99 = 99;
+    private final Map<String, ConnectionMetrics> connections = new ConcurrentHashMap<>(10);
+    private final Map<Class, Traffic> messageTypes = new ConcurrentHashMap<>(10);
+    private final Traffic total = new Traffic();
+    private final LatencyHistogram decode = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LatencyHistogram write = new LatencyHistogram();
+
+    /**
+     * Create the metrics of a new connection.
+     *
+     * @return The connection metrics.
+     */
+    public ConnectionMetrics createConnectionMetrics() { return new ConnectionMetrics(this); }
+
+    /**
+     * Take a snapshot of every metric.
+     *
+     * @return The snapshot.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, TrafficSnapshot> connectionTraffic = new HashMap<>(connections.size() * 2);
+        Map<String, Map<String, Long>> gauges = new HashMap<>(connections.size() * 2);
+        connections.forEach((id, metrics) -> {
+            connectionTraffic.put(id, metrics.getTraffic());
+            gauges.put(id, metrics.getGauges());
+        });
+        Map<Class, TrafficSnapshot> typeTraffic = new HashMap<>(messageTypes.size() * 2);
+        messageTypes.forEach((type, traffic) -> typeTraffic.put(type, traffic.snapshot()));
+        return new MetricsSnapshot(total.snapshot(), connectionTraffic, gauges, typeTraffic, decode.snapshot(),
+              queueWait.snapshot(), execution.snapshot(), write.snapshot());
+    }
+
+    /**
+     * Expose this registry with the platform MBean server under the given name.
+     *
+     * @param name The name, such as {@code com.jenjinstudios.io:type=Metrics}.
+     *
+     * @throws JMException If the name is malformed or already registered.
+     */
+    public void registerMBean(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Remove this registry from the platform MBean server.
+     *
+     * @param name The name with which it was registered.
+     *
+     * @throws JMException If the name is malformed or not registered.
+     */
+    public void unregisterMBean(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+    }
+
+    @Override
+    public int getConnectionCount() { return connections.size(); }
+
+    @Override
+    public long getMessagesIn() { return total.snapshot().getMessagesIn(); }
+
+    @Override
+    public long getMessagesOut() { return total.snapshot().getMessagesOut(); }
+
+    @Override
+    public long getBytesIn() { return total.snapshot().getBytesIn(); }
+
+    @Override
+    public long getBytesOut() { return total.snapshot().getBytesOut(); }
+
+    @Override
+    public long getDecodeP99Nanos() { return decode.snapshot().getPercentileNanos(P99); }
+
+    @Override
+    public long getQueueWaitP99Nanos() { return queueWait.snapshot().getPercentileNanos(P99); }
+
+    @Override
+    public long getExecutionP99Nanos() { return execution.snapshot().getPercentileNanos(P99); }
+
+    @Override
+    public long getWriteP99Nanos() { return write.snapshot().getPercentileNanos(P99); }
+
+    LatencyHistogram getQueueWaitHistogram() { return queueWait; }
+
+    LatencyHistogram getExecutionHistogram() { return execution; }
+
+    void opened(String id, ConnectionMetrics metrics) { connections.put(id, metrics); }
+
+    void closed(String id) { connections.remove(id); }
+
+    void received(Class type, long bytes, long decodeNanos) {
+        total.received(bytes);
+        messageTypes.computeIfAbsent(type, t -> new Traffic()).received(bytes);
+        decode.record(decodeNanos);
+    }
+
+    void sent(Class type, long bytes, long writeNanos) {
+        total.sent(bytes);
+        messageTypes.computeIfAbsent(type, t -> new Traffic()).sent(bytes);
+        write.record(writeNanos);
+    }
+}
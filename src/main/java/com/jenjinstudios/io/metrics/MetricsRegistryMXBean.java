@@ -0,0 +1,27 @@
+package com.jenjinstudios.io.metrics;
+
+/**
+ * The management interface through which a MetricsRegistry is exposed over JMX.
+ *
+ * @author Caleb Brinkman
+ */
+public interface MetricsRegistryMXBean
+{
+    int getConnectionCount();
+
+    long getMessagesIn();
+
+    long getMessagesOut();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getDecodeP99Nanos();
+
+    long getQueueWaitP99Nanos();
+
+    long getExecutionP99Nanos();
+
+    long getWriteP99Nanos();
+}
@@ -0,0 +1,97 @@
+package com.jenjinstudios.io.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of every metric collected by a MetricsRegistry.
+ *
+ * @author Caleb Brinkman
+ */
+public class MetricsSnapshot
+{
+    private final TrafficSnapshot total;
+    private final Map<String, TrafficSnapshot> connections;
+    private final Map<String, Map<String, Long>> gauges;
+    private final Map<Class, TrafficSnapshot> messageTypes;
+    private final HistogramSnapshot decode;
+    private final HistogramSnapshot queueWait;
+    private final HistogramSnapshot execution;
+    private final HistogramSnapshot write;
+
+    MetricsSnapshot(
+          TrafficSnapshot total,
+          Map<String, TrafficSnapshot> connections,
+          Map<String, Map<String, Long>> gauges,
+          Map<Class, TrafficSnapshot> messageTypes,
+          HistogramSnapshot decode,
+          HistogramSnapshot queueWait,
+          HistogramSnapshot execution,
+          HistogramSnapshot write)
+    {
+        this.total = total;
+        this.connections = Collections.unmodifiableMap(connections);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.messageTypes = Collections.unmodifiableMap(messageTypes);
+        this.decode = decode;
+        this.queueWait = queueWait;
+        this.execution = execution;
+        this.write = write;
+    }
+
+    /**
+     * Get the traffic of every connection, including those which have since closed.
+     *
+     * @return The total traffic.
+     */
+    public TrafficSnapshot getTotal() { return total; }
+
+    /**
+     * Get the traffic of each open connection.
+     *
+     * @return The traffic of each connection, by connection id.
+     */
+    public Map<String, TrafficSnapshot> getConnections() { return connections; }
+
+    /**
+     * Get the gauges, such as queue depths, of each open connection.
+     *
+     * @return The value of each gauge by name, by connection id.
+     */
+    public Map<String, Map<String, Long>> getGauges() { return gauges; }
+
+    /**
+     * Get the traffic of each type of message.
+     *
+     * @return The traffic of each message type, by message class.
+     */
+    public Map<Class, TrafficSnapshot> getMessageTypes() { return messageTypes; }
+
+    /**
+     * Get the time taken to decode incoming messages, from when their first bytes arrived.
+     *
+     * @return The decode latencies.
+     */
+    public HistogramSnapshot getDecode() { return decode; }
+
+    /**
+     * Get the time incoming messages waited in their connection's queue before being executed.
+     *
+     * @return The queue wait latencies.
+     */
+    public HistogramSnapshot getQueueWait() { return queueWait; }
+
+    /**
+     * Get the time taken to execute incoming messages, or batches of them.
+     *
+     * @return The execution latencies.
+     */
+    public HistogramSnapshot getExecution() { return execution; }
+
+    /**
+     * Get the time taken to encode and write outgoing messages.
+     *
+     * @return The write latencies.
+     */
+    public HistogramSnapshot getWrite() { return write; }
+}
@@ -0,0 +1,37 @@
+package com.jenjinstudios.io.metrics;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.IOException;
+
+/**
+ * Records the size, type and encode and write time of every message written to a MessageWriter.
+ *
+ * @author Caleb Brinkman
+ */
+class MetricsWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final ConnectionMetrics metrics;
+    private final MeteredOutputStream output;
+
+    MetricsWriter(MessageWriter writer, ConnectionMetrics metrics, MeteredOutputStream output) {
+        this.writer = writer;
+        this.metrics = metrics;
+        this.output = output;
+    }
+
+    // Synchronized so that the bytes written are attributed to the right message
+    @Override
+    public synchronized void write(Message message) throws IOException {
+        long before = (output != null) ? output.getCount() : 0;
+        long start = System.nanoTime();
+        writer.write(message);
+        long elapsed = System.nanoTime() - start;
+        metrics.sent(message, (output != null) ? (output.getCount() - before) : 0, elapsed);
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
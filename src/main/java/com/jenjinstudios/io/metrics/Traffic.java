@@ -0,0 +1,30 @@
+package com.jenjinstudios.io.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts messages and bytes in each direction.
+ *
+ * @author Caleb Brinkman
+ */
+class Traffic
+{
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    void received(long bytes) {
+        messagesIn.increment();
+        bytesIn.add(bytes);
+    }
+
+    void sent(long bytes) {
+        messagesOut.increment();
+        bytesOut.add(bytes);
+    }
+
+    TrafficSnapshot snapshot() {
+        return new TrafficSnapshot(messagesIn.sum(), messagesOut.sum(), bytesIn.sum(), bytesOut.sum());
+    }
+}
@@ -0,0 +1,37 @@
+package com.jenjinstudios.io.metrics;
+
+/**
+ * An immutable count of the messages and bytes received and sent by a connection, of a message type, or in total.
+ * Bytes are counted as they cross the wire, so they are only known for connections built from a Socket or streams;
+ * for a type of message, they are the bytes read or written while that message was being read or written.
+ *
+ * @author Caleb Brinkman
+ */
+public class TrafficSnapshot
+{
+    private final long messagesIn;
+    private final long messagesOut;
+    private final long bytesIn;
+    private final long bytesOut;
+
+    TrafficSnapshot(long messagesIn, long messagesOut, long bytesIn, long bytesOut) {
+        this.messagesIn = messagesIn;
+        this.messagesOut = messagesOut;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+    }
+
+    public long getMessagesIn() { return messagesIn; }
+
+    public long getMessagesOut() { return messagesOut; }
+
+    public long getBytesIn() { return bytesIn; }
+
+    public long getBytesOut() { return bytesOut; }
+
+    @Override
+    public String toString() {
+        return "TrafficSnapshot{messagesIn=" + messagesIn + ", messagesOut=" + messagesOut + ", bytesIn=" + bytesIn
+              + ", bytesOut=" + bytesOut + '}';
+    }
+}
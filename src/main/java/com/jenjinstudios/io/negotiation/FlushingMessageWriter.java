@@ -0,0 +1,33 @@
+package com.jenjinstudios.io.negotiation;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Flushes the stream beneath a MessageWriter after every message, so that a compressing stream emits each message in
+ * full instead of holding it back until its buffer fills.
+ *
+ * @author Caleb Brinkman
+ */
+class FlushingMessageWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final OutputStream outputStream;
+
+    FlushingMessageWriter(MessageWriter writer, OutputStream outputStream) {
+        this.writer = writer;
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void write(Message message) throws IOException {
+        writer.write(message);
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
@@ -0,0 +1,298 @@
+package com.jenjinstudios.io.negotiation;
+
+import com.jenjinstudios.io.MessageIOFactory;
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Performs the connect-time handshake in which the two sides of a connection exchange the codecs, compression, framing
+ * versions and optional features they support, and settle on the best set supported by both.
+ * <p>
+ * The connecting side sends its preferences as soon as it connects, preceded by an empty frame, which is never sent
+ * by a peer which does not negotiate.  The accepting side chooses, in its own order of preference, the first codec and
+ * compression offered by both, along with every optional feature offered by both, and replies with its choice.  If the
+ * connecting side instead begins with a message frame, it does not negotiate, and the legacy codec is used; a legacy
+ * peer connecting to a negotiating server is therefore served as before.  A negotiating client cannot, however,
+ * connect to a legacy server, so servers must be upgraded first.
+ * <p>
+ * Since the handshake is read before the peer is authenticated, each side offers at most {@link #MAX_NAMES} codecs,
+ * and at most as many features, each named in at most {@link #MAX_NAME_LENGTH} bytes; a peer which offers more is
+ * rejected before anything it sent is buffered.
+ *
+ * @author Caleb Brinkman
+ */
+public class Negotiator
+{
+    /** The name of the JSON codec implemented by GsonMessageReader and GsonMessageWriter; always supported. */
+    public static final String GSON = "gson";
+    /** The name of deflate compression. */
+    public static final String DEFLATE = "deflate";
+    /** The name used when messages are not compressed; always supported. */
+    public static final String NONE = "none";
+    /** The latest framing version understood by this Negotiator; version 1 is the writeUTF frame. */
+    public static final int FRAMING_VERSION = 1;
+    /** The maximum number of codecs, compressions or features which may be offered. */
+    public static final int MAX_NAMES = 32;
+    /** The maximum length, in bytes of modified UTF-8, of the name of a codec, compression or feature. */
+    public static final int MAX_NAME_LENGTH = 64;
+    private static final Logger LOGGER = LoggerFactory.getLogger(Negotiator.class);
+    private static final int MAGIC = 0x4A494F4E;
+    private static final String LEGACY = "legacy";
+    private final Map<String, MessageIOFactory> codecs = new LinkedHashMap<>(10);
+    private final Collection<String> features = new LinkedHashSet<>(10);
+    private final MessageIOFactory legacyFactory;
+    private boolean compression;
+
+    /**
+     * Construct a new Negotiator which falls back to the Gson codec for peers which do not negotiate.
+     */
+    public Negotiator() { this(new GsonMessageIOFactory()); }
+
+    /**
+     * Construct a new Negotiator.
+     *
+     * @param legacyFactory Creates readers and writers for peers which do not negotiate; if it is a
+     * GsonMessageIOFactory, it is also used for the Gson codec, so that its decode limits apply to every peer.
+     */
+    public Negotiator(MessageIOFactory legacyFactory) {
+        this.legacyFactory = legacyFactory;
+        codecs.put(GSON, (legacyFactory instanceof GsonMessageIOFactory) ? legacyFactory : new GsonMessageIOFactory());
+    }
+
+    /**
+     * Support the given codec, in preference to the Gson codec and any codec registered before it.
+     *
+     * @param name The name of the codec, which must be the same on both sides.
+     * @param factory Creates readers and writers for the codec.
+     *
+     * @return This Negotiator.
+     *
+     * @throws IllegalStateException If a codec with the given name has already been registered, or {@link
+     * #MAX_NAMES} codecs have been registered.
+     * @throws IllegalArgumentException If the name is longer than {@link #MAX_NAME_LENGTH} bytes.
+     */
+    public Negotiator withCodec(String name, MessageIOFactory factory) {
+        if (codecs.containsKey(name)) {
+            throw new IllegalStateException("Codec already registered: " + name);
+        }
+        if (codecs.size() >= MAX_NAMES) {
+            throw new IllegalStateException("At most " + MAX_NAMES + " codecs may be registered");
+        }
+        checkName(name);
+        Map<String, MessageIOFactory> existing = new LinkedHashMap<>(codecs);
+        codecs.clear();
+        codecs.put(name, factory);
+        codecs.putAll(existing);
+        return this;
+    }
+
+    /**
+     * Support deflate compression, in preference to sending messages uncompressed.
+     *
+     * @return This Negotiator.
+     */
+    public Negotiator withCompression() {
+        compression = true;
+        return this;
+    }
+
+    /**
+     * Support the given optional features; a feature is enabled for a connection only if both sides support it.
+     *
+     * @param names The names of the features.
+     *
+     * @return This Negotiator.
+     *
+     * @throws IllegalStateException If more than {@link #MAX_NAMES} features would be supported.
+     * @throws IllegalArgumentException If any name is longer than {@link #MAX_NAME_LENGTH} bytes.
+     */
+    public Negotiator withFeatures(String... names) {
+        Collection<String> added = new LinkedHashSet<>(features);
+        for (String name : names) {
+            checkName(name);
+            added.add(name);
+        }
+        if (added.size() > MAX_NAMES) {
+            throw new IllegalStateException("At most " + MAX_NAMES + " features may be supported");
+        }
+        features.addAll(added);
+        return this;
+    }
+
+    /**
+     * Perform the connecting side of the handshake: send the supported codecs, compression, framing version and
+     * features, and read the choice of the peer.
+     *
+     * @param inputStream The stream from which the choice of the peer is read.
+     * @param outputStream The stream to which the supported options are written.
+     *
+     * @return The protocol chosen by the peer.
+     *
+     * @throws IOException If there is an exception during the handshake, or the peer chooses an unsupported option.
+     */
+    public Protocol initiate(InputStream inputStream, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeShort(0);
+        output.writeInt(MAGIC);
+        output.writeInt(FRAMING_VERSION);
+        writeStrings(output, codecs.keySet());
+        writeStrings(output, getCompressions());
+        writeStrings(output, features);
+        output.flush();
+
+        DataInputStream input = new DataInputStream(inputStream);
+        if ((input.readUnsignedShort() != 0) || (input.readInt() != MAGIC)) {
+            throw new IOException("Peer did not respond to negotiation");
+        }
+        int framingVersion = input.readInt();
+        String codec = readName(input);
+        String chosenCompression = readName(input);
+        Set<String> shared = new LinkedHashSet<>(readStrings(input));
+        if (!codecs.containsKey(codec) || !getCompressions().contains(chosenCompression)
+              || (framingVersion > FRAMING_VERSION))
+        {
+            throw new IOException("Peer chose an unsupported protocol: " + codec + '/' + chosenCompression);
+        }
+        LOGGER.debug("Negotiated codec {} with compression {}", codec, chosenCompression);
+        return new Protocol(codec, codecs.get(codec), chosenCompression, framingVersion, shared, false);
+    }
+
+    /**
+     * Perform the accepting side of the handshake: read the options supported by the peer, choose the best shared
+     * set, and reply with the choice.  If the peer begins by sending a message instead, it does not negotiate; the
+     * bytes read are pushed back onto the stream, to be read by the legacy codec.  If the stream is backed by a socket
+     * with a read timeout, a peer which sends nothing before the timeout expires is also treated as a legacy peer.
+     *
+     * @param inputStream The stream from which the supported options are read; must allow at least two bytes to be
+     * pushed back.
+     * @param outputStream The stream to which the choice is written.
+     *
+     * @return The chosen protocol.
+     *
+     * @throws IOException If there is an exception during the handshake, or the peer shares no codec.
+     */
+    public Protocol accept(PushbackInputStream inputStream, OutputStream outputStream) throws IOException {
+        if (!isNegotiating(inputStream)) {
+            LOGGER.debug("Peer does not negotiate; using legacy codec");
+            return new Protocol(LEGACY, legacyFactory, NONE, FRAMING_VERSION, Collections.emptySet(), true);
+        }
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Unrecognized negotiation handshake");
+        }
+        int framingVersion = Math.min(input.readInt(), FRAMING_VERSION);
+        String codec = firstShared(codecs.keySet(), readStrings(input));
+        String chosenCompression = firstShared(getCompressions(), readStrings(input));
+        Set<String> shared = new LinkedHashSet<>(readStrings(input));
+        shared.retainAll(features);
+        if ((codec == null) || (chosenCompression == null)) {
+            throw new IOException("Peer shares no supported codec and compression");
+        }
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeShort(0);
+        output.writeInt(MAGIC);
+        output.writeInt(framingVersion);
+        output.writeUTF(codec);
+        output.writeUTF(chosenCompression);
+        writeStrings(output, shared);
+        output.flush();
+        LOGGER.debug("Negotiated codec {} with compression {}", codec, chosenCompression);
+        return new Protocol(codec, codecs.get(codec), chosenCompression, framingVersion, shared, false);
+    }
+
+    private List<String> getCompressions() {
+        List<String> compressions = new LinkedList<>();
+        if (compression) {
+            compressions.add(DEFLATE);
+        }
+        compressions.add(NONE);
+        return compressions;
+    }
+
+    private static boolean isNegotiating(PushbackInputStream inputStream) throws IOException {
+        int first;
+        try {
+            first = inputStream.read();
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+        if (first != 0) {
+            if (first >= 0) {
+                inputStream.unread(first);
+            }
+            return false;
+        }
+        int second = inputStream.read();
+        if (second != 0) {
+            if (second >= 0) {
+                inputStream.unread(second);
+            }
+            inputStream.unread(first);
+            return false;
+        }
+        return true;
+    }
+
+    private static String firstShared(Collection<String> preferred, Collection<String> offered) {
+        return preferred.stream().filter(offered::contains).findFirst().orElse(null);
+    }
+
+    private static void writeStrings(DataOutputStream output, Collection<String> strings) throws IOException {
+        output.writeShort(strings.size());
+        for (String string : strings) {
+            output.writeUTF(string);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream input) throws IOException {
+        int count = input.readUnsignedShort();
+        if (count > MAX_NAMES) {
+            throw new IOException("Peer offered " + count + " names; at most " + MAX_NAMES + " are allowed");
+        }
+        List<String> strings = new LinkedList<>();
+        for (int i = 0; i < count; i++) {
+            strings.add(readName(input));
+        }
+        return strings;
+    }
+
+    // Reads a writeUTF string, checking its length before reading it rather than after
+    private static String readName(DataInputStream input) throws IOException {
+        int length = input.readUnsignedShort();
+        if (length > MAX_NAME_LENGTH) {
+            throw new IOException("Peer offered a name of " + length + " bytes; at most " + MAX_NAME_LENGTH
+                  + " are allowed");
+        }
+        byte[] frame = new byte[Short.BYTES + length];
+        frame[0] = (byte) (length >>> Byte.SIZE);
+        frame[1] = (byte) length;
+        input.readFully(frame, Short.BYTES, length);
+        return new DataInputStream(new ByteArrayInputStream(frame)).readUTF();
+    }
+
+    private static void checkName(String name) {
+        if (name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Names may be at most " + MAX_NAME_LENGTH + " bytes: " + name);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.jenjinstudios.io.negotiation;
+
+import com.jenjinstudios.io.MessageIOFactory;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The codec, compression, framing version and optional features settled on by the two sides of a connection.
+ *
+ * @author Caleb Brinkman
+ */
+public class Protocol
+{
+    private final String codec;
+    private final MessageIOFactory factory;
+    private final String compression;
+    private final int framingVersion;
+    private final Set<String> features;
+    private final boolean legacy;
+
+    /**
+     * Construct a new Protocol.
+     *
+     * @param codec The name of the codec.
+     * @param factory Creates readers and writers for the codec.
+     * @param compression The name of the compression applied beneath the codec.
+     * @param framingVersion The framing version.
+     * @param features The optional features supported by both sides.
+     * @param legacy Whether the peer does not negotiate, and the legacy codec is used.
+     */
+    Protocol(
+          String codec,
+          MessageIOFactory factory,
+          String compression,
+          int framingVersion,
+          Set<String> features,
+          boolean legacy)
+    {
+        this.codec = codec;
+        this.factory = factory;
+        this.compression = compression;
+        this.framingVersion = framingVersion;
+        this.features = Collections.unmodifiableSet(features);
+        this.legacy = legacy;
+    }
+
+    /**
+     * Create a MessageReader which reads messages in this protocol from the given stream.
+     *
+     * @param inputStream The stream.
+     *
+     * @return The MessageReader.
+     */
+    public MessageReader createReader(InputStream inputStream) {
+        return Negotiator.DEFLATE.equals(compression)
+              ? factory.createReader(new InflaterInputStream(inputStream))
+              : factory.createReader(inputStream);
+    }
+
+    /**
+     * Create a MessageWriter which writes messages in this protocol to the given stream.
+     *
+     * @param outputStream The stream.
+     *
+     * @return The MessageWriter.
+     */
+    public MessageWriter createWriter(OutputStream outputStream) {
+        if (Negotiator.DEFLATE.equals(compression)) {
+            DeflaterOutputStream deflater = new DeflaterOutputStream(outputStream, true);
+            return new FlushingMessageWriter(factory.createWriter(deflater), deflater);
+        }
+        return factory.createWriter(outputStream);
+    }
+
+    public String getCodec() { return codec; }
+
+    public String getCompression() { return compression; }
+
+    public int getFramingVersion() { return framingVersion; }
+
+    public Set<String> getFeatures() { return features; }
+
+    /**
+     * Determine whether both sides of the connection support the given optional feature.
+     *
+     * @param feature The name of the feature.
+     *
+     * @return Whether the feature is supported by both sides.
+     */
+    public boolean supports(String feature) { return features.contains(feature); }
+
+    /**
+     * Determine whether the peer did not negotiate, so that the legacy codec is used without compression.
+     *
+     * @return Whether the peer is a legacy peer.
+     */
+    public boolean isLegacy() { return legacy; }
+}
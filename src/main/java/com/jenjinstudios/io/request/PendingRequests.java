@@ -0,0 +1,132 @@
+package com.jenjinstudios.io.request;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the requests a single connection has sent and not yet received a response to.
+ * <p>
+ * Timeouts for the requests of every connection are enforced by a single shared timer thread; a request which is
+ * answered in time has its timeout cancelled and removed from the timer.
+ *
+ * @author Caleb Brinkman
+ */
+public class PendingRequests
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(PendingRequests.class);
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>(10);
+    private final AtomicLong nextId = new AtomicLong(0);
+    private final Consumer<Message> sender;
+
+    /**
+     * Construct a new PendingRequests.
+     *
+     * @param sender Queues outgoing messages for the connection.
+     */
+    public PendingRequests(Consumer<Message> sender) { this.sender = sender; }
+
+    /**
+     * Send the given message as a request, returning a future which is completed with the response.
+     *
+     * @param message The message.
+     * @param timeout The maximum amount of time to wait for a response.
+     * @param timeUnit The unit of {@code timeout}.
+     *
+     * @return A future which is completed with the response, which may be null if the message produced none, or
+     * completed exceptionally with a {@code RequestFailedException} if executing the message failed, or a {@code
+     * TimeoutException} if no response arrives in time.
+     */
+    public CompletableFuture<Message> request(Message message, long timeout, TimeUnit timeUnit) {
+        long id = nextId.incrementAndGet();
+        Pending request = new Pending();
+        pending.put(id, request);
+        request.timeout = TIMER.schedule(() -> expire(id), timeout, timeUnit);
+        sender.accept(new Request(id, message));
+        return request.future;
+    }
+
+    /**
+     * Create a MessageReader which completes pending requests with any responses read from the given reader, passing
+     * every other message through.
+     *
+     * @param reader The reader.
+     *
+     * @return The response-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new ResponseReader(reader, this); }
+
+    /**
+     * Fail every pending request with the given cause; used when the connection is shut down.
+     *
+     * @param cause The cause.
+     */
+    public void failAll(Throwable cause) {
+        pending.keySet().forEach(id -> {
+            Pending request = pending.remove(id);
+            if (request != null) {
+                request.cancelTimeout();
+                request.future.completeExceptionally(cause);
+            }
+        });
+    }
+
+    public int getPendingCount() { return pending.size(); }
+
+    void complete(Response response) {
+        Pending request = pending.remove(response.getId());
+        if (request != null) {
+            request.cancelTimeout();
+            if (response.getError() != null) {
+                request.future.completeExceptionally(new RequestFailedException("Request " + response.getId()
+                      + " failed: " + response.getError()));
+            } else {
+                request.future.complete(response.getMessage());
+            }
+        } else {
+            LOGGER.debug("Received response to unknown or expired request {}", response.getId());
+        }
+    }
+
+    private void expire(long id) {
+        Pending request = pending.remove(id);
+        if (request != null) {
+            request.future.completeExceptionally(new TimeoutException("No response to request " + id));
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "request-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static class Pending
+    {
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeout;
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
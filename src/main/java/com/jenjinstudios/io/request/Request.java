@@ -0,0 +1,74 @@
+package com.jenjinstudios.io.request;
+
+import com.jenjinstudios.io.AsyncMessage;
+import com.jenjinstudios.io.EnvelopeMessage;
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Wraps an outgoing Message with the correlation ID of a request; when executed, the wrapped message is executed and
+ * its response is returned wrapped in a {@link Response} carrying the same ID.  If the wrapped message is an {@link
+ * AsyncMessage}, the Response is sent once its execution completes.  A Request whose message was discarded by an
+ * interceptor is kept, and answered with an empty Response, so that the requester is not left waiting.  Likewise, if
+ * executing the wrapped message throws an exception or completes exceptionally, the Response carries the error.
+ *
+ * @author Caleb Brinkman
+ */
+public class Request implements AsyncMessage, EnvelopeMessage
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Request.class);
+    private long id;
+    private Message message;
+
+    /**
+     * Construct a new Request.
+     *
+     * @param id The correlation ID of the request.
+     * @param message The wrapped message.
+     */
+    public Request(long id, Message message) {
+        this.id = id;
+        this.message = message;
+    }
+
+    public long getId() { return id; }
+
+    @Override
+    public Message getMessage() { return message; }
+
+    @Override
+    public Message withMessage(Message message) {
+        return (message == this.message) ? this : new Request(id, message);
+    }
+
+    @Override
+    public CompletionStage<Message> executeAsync(ExecutionContext context) {
+        if (message == null) {
+            return CompletableFuture.completedFuture(new Response(id, null));
+        }
+        try {
+            if (message instanceof AsyncMessage) {
+                return ((AsyncMessage<ExecutionContext>) message).executeAsync(context).handle(this::respond);
+            }
+            return CompletableFuture.completedFuture(new Response(id, message.execute(context)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(respond(null, e));
+        }
+    }
+
+    private Response respond(Message response, Throwable throwable) {
+        if (throwable == null) {
+            return new Response(id, response);
+        }
+        Throwable cause = ((throwable instanceof CompletionException) && (throwable.getCause() != null))
+              ? throwable.getCause() : throwable;
+        LOGGER.warn("Exception when executing request {} (Type: {})", id, message.getClass().getName(), cause);
+        return Response.failed(id, cause.toString());
+    }
+}
@@ -0,0 +1,19 @@
+package com.jenjinstudios.io.request;
+
+import java.io.IOException;
+
+/**
+ * Completes the future of a request whose message threw an exception, or completed exceptionally, when the peer
+ * executed it.
+ *
+ * @author Caleb Brinkman
+ */
+public class RequestFailedException extends IOException
+{
+    /**
+     * Construct a new RequestFailedException with the given message.
+     *
+     * @param message The message.
+     */
+    public RequestFailedException(String message) { super(message); }
+}
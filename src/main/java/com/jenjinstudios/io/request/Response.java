@@ -0,0 +1,65 @@
+package com.jenjinstudios.io.request;
+
+import com.jenjinstudios.io.EnvelopeMessage;
+import com.jenjinstudios.io.Message;
+
+/**
+ * Wraps the response to a {@link Request} with the correlation ID of the request.  A Response whose message was
+ * discarded by an interceptor is kept, and completes the request with no response.  A Response may instead carry
+ * the error with which executing the request failed, which completes the request exceptionally.
+ *
+ * @author Caleb Brinkman
+ */
+public class Response implements EnvelopeMessage
+{
+    private long id;
+    private Message message;
+    private String error;
+
+    /**
+     * Construct a new Response.
+     *
+     * @param id The correlation ID of the request to which this is a response.
+     * @param message The wrapped response; null if the request produced no response.
+     */
+    public Response(long id, Message message) {
+        this.id = id;
+        this.message = message;
+    }
+
+    /**
+     * Construct a Response reporting that the request with the given correlation ID failed.
+     *
+     * @param id The correlation ID of the request.
+     * @param error A description of the failure.
+     *
+     * @return The Response.
+     */
+    static Response failed(long id, String error) {
+        Response response = new Response(id, null);
+        response.error = error;
+        return response;
+    }
+
+    public long getId() { return id; }
+
+    /**
+     * Get the error with which executing the request failed.
+     *
+     * @return A description of the failure; null if the request succeeded.
+     */
+    public String getError() { return error; }
+
+    @Override
+    public Message getMessage() { return message; }
+
+    @Override
+    public Message withMessage(Message message) {
+        if (message == this.message) {
+            return this;
+        }
+        Response response = new Response(id, message);
+        response.error = error;
+        return response;
+    }
+}
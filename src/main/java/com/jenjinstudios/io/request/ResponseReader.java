@@ -0,0 +1,35 @@
+package com.jenjinstudios.io.request;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Reads messages for a connection which sends requests, completing pending requests with any responses read.
+ *
+ * @author Caleb Brinkman
+ */
+class ResponseReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final PendingRequests pendingRequests;
+
+    ResponseReader(MessageReader reader, PendingRequests pendingRequests) {
+        this.reader = reader;
+        this.pendingRequests = pendingRequests;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        Message message = reader.read();
+        while (message instanceof Response) {
+            pendingRequests.complete((Response) message);
+            message = reader.read();
+        }
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,20 @@
+package com.jenjinstudios.io.serialization;
+
+/**
+ * The limits enforced on incoming data before and while it is decoded into messages.
+ *
+ * @author Caleb Brinkman
+ */
+public enum DecodeLimit
+{
+    /** The number of bytes in a single frame. */
+    FRAME_BYTES,
+    /** The nesting depth of JSON objects and arrays. */
+    DEPTH,
+    /** The number of elements in a JSON array. */
+    ARRAY_LENGTH,
+    /** The number of characters in a JSON string. */
+    STRING_LENGTH,
+    /** The time a connection may spend decoding messages each second. */
+    DECODE_TIME
+}
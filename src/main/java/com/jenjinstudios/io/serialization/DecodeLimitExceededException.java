@@ -0,0 +1,26 @@
+package com.jenjinstudios.io.serialization;
+
+import java.io.IOException;
+
+/**
+ * Thrown when incoming data exceeds one of the limits enforced while decoding it.
+ *
+ * @author Caleb Brinkman
+ */
+public class DecodeLimitExceededException extends IOException
+{
+    private final DecodeLimit limit;
+
+    /**
+     * Construct a new DecodeLimitExceededException with the given message.
+     *
+     * @param limit The limit which was exceeded.
+     * @param message The message.
+     */
+    public DecodeLimitExceededException(DecodeLimit limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    public DecodeLimit getLimit() { return limit; }
+}
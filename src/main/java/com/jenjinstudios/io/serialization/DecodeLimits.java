@@ -0,0 +1,207 @@
+package com.jenjinstudios.io.serialization;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits enforced by a GsonMessageReader on incoming data, so that a malicious or faulty peer cannot make it allocate
+ * a huge object graph, or spend an unbounded amount of time, decoding a message.
+ * <p>
+ * The size of each frame is checked before it is read, and the nesting depth, array lengths and string lengths of the
+ * JSON it contains are checked in a single pass over the text before any of it is decoded.  The time each connection
+ * spends decoding is limited to a budget per second.  By default, nothing is limited.  The same limits, and the counts
+ * of how often each has been exceeded, are shared by every reader created by a GsonMessageIOFactory.
+ *
+ * @author Caleb Brinkman
+ */
+public class DecodeLimits
+{
+    /** The largest frame which can be written with writeUTF. */
+    public static final int MAX_FRAME_BYTES = 65535;
+    private static final int INITIAL_DEPTH = 16;
+    private final Map<DecodeLimit, AtomicLong> violations = new EnumMap<>(DecodeLimit.class);
+    private int maxFrameBytes = MAX_FRAME_BYTES;
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxArrayLength = Integer.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private long decodeNanosPerSecond;
+
+    /**
+     * Construct a new DecodeLimits which limits nothing.
+     */
+    public DecodeLimits() {
+        for (DecodeLimit limit : DecodeLimit.values()) {
+            violations.put(limit, new AtomicLong(0));
+        }
+    }
+
+    /**
+     * Limit the number of bytes in each frame.
+     *
+     * @param bytes The maximum number of bytes.
+     *
+     * @return This DecodeLimits.
+     *
+     * @throws IllegalArgumentException If the limit is not positive.
+     */
+    public DecodeLimits withMaxFrameBytes(int bytes) {
+        maxFrameBytes = checkPositive(bytes);
+        return this;
+    }
+
+    /**
+     * Limit the nesting depth of JSON objects and arrays; the message itself is at depth one.
+     *
+     * @param depth The maximum depth.
+     *
+     * @return This DecodeLimits.
+     *
+     * @throws IllegalArgumentException If the limit is not positive.
+     */
+    public DecodeLimits withMaxDepth(int depth) {
+        maxDepth = checkPositive(depth);
+        return this;
+    }
+
+    /**
+     * Limit the number of elements in each JSON array.
+     *
+     * @param length The maximum number of elements.
+     *
+     * @return This DecodeLimits.
+     *
+     * @throws IllegalArgumentException If the limit is not positive.
+     */
+    public DecodeLimits withMaxArrayLength(int length) {
+        maxArrayLength = checkPositive(length);
+        return this;
+    }
+
+    /**
+     * Limit the number of characters in each JSON string, including the names of fields.
+     *
+     * @param length The maximum number of characters.
+     *
+     * @return This DecodeLimits.
+     *
+     * @throws IllegalArgumentException If the limit is not positive.
+     */
+    public DecodeLimits withMaxStringLength(int length) {
+        maxStringLength = checkPositive(length);
+        return this;
+    }
+
+    /**
+     * Limit the time each connection may spend decoding messages to the given amount per second; a connection which
+     * exceeds its budget fails as soon as the message which exceeded it has been decoded.
+     *
+     * @param time The amount of time.
+     * @param timeUnit The unit of {@code time}.
+     *
+     * @return This DecodeLimits.
+     *
+     * @throws IllegalArgumentException If the limit is not positive.
+     */
+    public DecodeLimits withDecodeTimeBudget(long time, TimeUnit timeUnit) {
+        if (time <= 0) {
+            throw new IllegalArgumentException("Decode time budget must be positive");
+        }
+        decodeNanosPerSecond = timeUnit.toNanos(time);
+        return this;
+    }
+
+    public int getMaxFrameBytes() { return maxFrameBytes; }
+
+    public int getMaxDepth() { return maxDepth; }
+
+    public int getMaxArrayLength() { return maxArrayLength; }
+
+    public int getMaxStringLength() { return maxStringLength; }
+
+    /**
+     * Get the time each connection may spend decoding messages per second.
+     *
+     * @return The budget, in nanoseconds; zero if decode time is not limited.
+     */
+    public long getDecodeNanosPerSecond() { return decodeNanosPerSecond; }
+
+    /**
+     * Get the number of times the given limit has been exceeded.
+     *
+     * @param limit The limit.
+     *
+     * @return The number of violations.
+     */
+    public long getViolationCount(DecodeLimit limit) { return violations.get(limit).get(); }
+
+    /**
+     * Check the nesting depth, array lengths and string lengths of the given JSON without decoding it.  Escape
+     * sequences in strings count as a single character; malformed JSON is left for the decoder to reject.
+     *
+     * @param json The JSON.
+     *
+     * @throws DecodeLimitExceededException If the JSON exceeds any of the limits.
+     */
+    void check(String json) throws DecodeLimitExceededException {
+        if ((maxDepth == Integer.MAX_VALUE) && (maxArrayLength == Integer.MAX_VALUE)
+              && (maxStringLength == Integer.MAX_VALUE))
+        {
+            return;
+        }
+        int depth = 0;
+        // Element counts of the enclosing arrays, or -1 for enclosing objects
+        int[] elements = new int[INITIAL_DEPTH];
+        int length = json.length();
+        for (int i = 0; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                i = checkString(json, i);
+            } else if ((c == '{') || (c == '[')) {
+                if (++depth > maxDepth) {
+                    throw exceeded(DecodeLimit.DEPTH, "JSON nesting exceeds depth of " + maxDepth);
+                }
+                if (depth == elements.length) {
+                    elements = Arrays.copyOf(elements, elements.length * 2);
+                }
+                elements[depth] = (c == '[') ? 0 : -1;
+            } else if (((c == '}') || (c == ']')) && (depth > 0)) {
+                depth--;
+            } else if ((c == ',') && (depth > 0) && (elements[depth] >= 0)
+                  && (++elements[depth] >= maxArrayLength))
+            {
+                throw exceeded(DecodeLimit.ARRAY_LENGTH, "JSON array exceeds length of " + maxArrayLength);
+            }
+        }
+    }
+
+    DecodeLimitExceededException exceeded(DecodeLimit limit, String message) {
+        violations.get(limit).incrementAndGet();
+        return new DecodeLimitExceededException(limit, message);
+    }
+
+    private int checkString(String json, int start) throws DecodeLimitExceededException {
+        int characters = 0;
+        int i = start + 1;
+        while ((i < json.length()) && (json.charAt(i) != '"')) {
+            if (json.charAt(i) == '\\') {
+                i += (((i + 1) < json.length()) && (json.charAt(i + 1) == 'u')) ? 6 : 2;
+            } else {
+                i++;
+            }
+            if (++characters > maxStringLength) {
+                throw exceeded(DecodeLimit.STRING_LENGTH, "JSON string exceeds length of " + maxStringLength);
+            }
+        }
+        return i;
+    }
+
+    private static int checkPositive(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return limit;
+    }
+}
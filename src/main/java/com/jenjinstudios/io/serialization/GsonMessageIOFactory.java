@@ -15,9 +15,25 @@ import java.io.OutputStream;
  */
 public class GsonMessageIOFactory implements MessageIOFactory
 {
+    private final DecodeLimits decodeLimits;
+
+    /**
+     * Construct a new GsonMessageIOFactory whose readers decode whatever they read.
+     */
+    public GsonMessageIOFactory() { this(new DecodeLimits()); }
+
+    /**
+     * Construct a new GsonMessageIOFactory whose readers enforce the given limits on the data they read.
+     *
+     * @param decodeLimits The limits; shared by every reader created by this factory.
+     */
+    public GsonMessageIOFactory(DecodeLimits decodeLimits) { this.decodeLimits = decodeLimits; }
+
+    public DecodeLimits getDecodeLimits() { return decodeLimits; }
+
     @Override
     public MessageReader createReader(InputStream inputStream) {
-        return new GsonMessageReader(inputStream);
+        return new GsonMessageReader(inputStream, decodeLimits);
     }
 
     @Override
@@ -6,7 +6,9 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.jenjinstudios.io.Message;
 import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.concurrency.TokenBucket;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -19,7 +21,11 @@ import java.io.InputStream;
 public class GsonMessageReader implements MessageReader
 {
     private final DataInputStream inputStream;
-    private final Object gsonMessageDeserializer = new GsonMessageDeserializer();
+    private final Gson gson = new GsonBuilder()
+          .registerTypeAdapter(Message.class, new GsonMessageDeserializer())
+          .create();
+    private final DecodeLimits limits;
+    private final TokenBucket decodeBudget;
 
     /**
      * Construct a new GsonMessageReader that will read Messages from the given InputStream.
@@ -27,15 +33,28 @@ public class GsonMessageReader implements MessageReader
      * @param inputStream The InputStream.
      */
     public GsonMessageReader(InputStream inputStream) {
+        this(inputStream, new DecodeLimits());
+    }
+
+    /**
+     * Construct a new GsonMessageReader that will read Messages from the given InputStream, enforcing the given
+     * limits on the data read.
+     *
+     * @param inputStream The InputStream.
+     * @param limits The limits.
+     */
+    public GsonMessageReader(InputStream inputStream, DecodeLimits limits) {
         this.inputStream = new DataInputStream(inputStream);
+        this.limits = limits;
+        long budget = limits.getDecodeNanosPerSecond();
+        this.decodeBudget = (budget > 0) ? new TokenBucket(budget, budget) : null;
     }
 
     @Override
     public Message read() throws IOException {
-        final String s = inputStream.readUTF();
-        Gson gson = new GsonBuilder()
-              .registerTypeAdapter(Message.class, gsonMessageDeserializer)
-              .create();
+        final String s = readFrame();
+        long start = System.nanoTime();
+        limits.check(s);
         Message message;
         try {
             message = gson.fromJson(s, Message.class);
@@ -44,9 +63,29 @@ public class GsonMessageReader implements MessageReader
         } catch (JsonParseException ex) {
             throw new IOException("Unable to properly parse JSON data into Message object", ex);
         }
+        if ((decodeBudget != null) && !decodeBudget.tryAcquire(System.nanoTime() - start)) {
+            throw limits.exceeded(DecodeLimit.DECODE_TIME, "Decode time budget exhausted");
+        }
         return message;
     }
 
+    private String readFrame() throws IOException {
+        int maxFrameBytes = limits.getMaxFrameBytes();
+        if (maxFrameBytes >= DecodeLimits.MAX_FRAME_BYTES) {
+            return inputStream.readUTF();
+        }
+        int length = inputStream.readUnsignedShort();
+        if (length > maxFrameBytes) {
+            throw limits.exceeded(DecodeLimit.FRAME_BYTES, "Frame of " + length + " bytes exceeds limit of "
+                  + maxFrameBytes);
+        }
+        byte[] frame = new byte[length + 2];
+        frame[0] = (byte) (length >>> 8);
+        frame[1] = (byte) length;
+        inputStream.readFully(frame, 2, length);
+        return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+
     @Override
     public void close() throws IOException {
         inputStream.close();
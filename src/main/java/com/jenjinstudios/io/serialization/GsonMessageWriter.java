@@ -18,6 +18,10 @@ import java.io.OutputStream;
 public class GsonMessageWriter implements MessageWriter
 {
     private final OutputStream outputStream;
+    private final DataOutput dataOutputStream;
+    private final Gson gson = new GsonBuilder()
+          .registerTypeAdapter(Message.class, new GsonMessageSerializer())
+          .create();
 
     /**
      * Construct a new GsonMessageWriter that will write Messages to the given stream.
@@ -26,14 +30,11 @@ public class GsonMessageWriter implements MessageWriter
      */
     public GsonMessageWriter(OutputStream outputStream) {
         this.outputStream = outputStream;
+        this.dataOutputStream = new DataOutputStream(outputStream);
     }
 
     @Override
     public void write(Message message) throws IOException {
-        DataOutput dataOutputStream = new DataOutputStream(outputStream);
-        Gson gson = new GsonBuilder()
-              .registerTypeAdapter(Message.class, new GsonMessageSerializer())
-              .create();
         final String json = gson.toJson(message, Message.class);
         dataOutputStream.writeUTF(json);
     }
@@ -0,0 +1,68 @@
+package com.jenjinstudios.io.server;
+
+import com.jenjinstudios.io.concurrency.TokenBucket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a newly accepted socket should be admitted by a Server, enforcing an optional accept rate limit and
+ * an optional cap on the number of simultaneous connections.
+ *
+ * @author Caleb Brinkman
+ */
+class AdmissionController
+{
+    private final int maxConnections;
+    private final TokenBucket acceptRate;
+    private final AtomicInteger admitted = new AtomicInteger(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    /**
+     * Construct a new AdmissionController.
+     *
+     * @param maxConnections The maximum number of simultaneously admitted connections; zero for no limit.
+     * @param acceptsPerSecond The maximum number of connections admitted per second; zero for no limit.
+     */
+    AdmissionController(int maxConnections, int acceptsPerSecond) {
+        this.maxConnections = maxConnections;
+        this.acceptRate = (acceptsPerSecond > 0) ? new TokenBucket(acceptsPerSecond, acceptsPerSecond) : null;
+    }
+
+    /**
+     * Attempt to admit a new connection.  If this method returns {@code true}, {@link #release()} must be called when
+     * the connection is closed or fails to be set up.
+     *
+     * @return Whether the connection should be admitted.
+     */
+    boolean tryAdmit() {
+        // The connection cap is checked first, so that connections rejected while full do not use up the accept rate
+        boolean admit = true;
+        if (maxConnections > 0) {
+            int current;
+            do {
+                current = admitted.get();
+                admit = current < maxConnections;
+            } while (admit && !admitted.compareAndSet(current, current + 1));
+        } else {
+            admitted.incrementAndGet();
+        }
+        if (admit && (acceptRate != null) && !acceptRate.tryAcquire(1)) {
+            admitted.decrementAndGet();
+            admit = false;
+        }
+        if (!admit) {
+            rejected.incrementAndGet();
+        }
+        return admit;
+    }
+
+    /**
+     * Release a connection previously admitted by {@link #tryAdmit()}.
+     */
+    void release() { admitted.decrementAndGet(); }
+
+    int getAdmittedCount() { return admitted.get(); }
+
+    long getRejectedCount() { return rejected.get(); }
+}
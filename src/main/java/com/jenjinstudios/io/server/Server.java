@@ -4,6 +4,8 @@ import com.jenjinstudios.io.ExecutionContext;
 import com.jenjinstudios.io.Message;
 import com.jenjinstudios.io.connection.Connection;
 import com.jenjinstudios.io.connection.ConnectionBuilder;
+import com.jenjinstudios.io.metrics.MetricsRegistry;
+import com.jenjinstudios.io.metrics.MetricsSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,9 +16,9 @@ import java.net.SocketException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -31,7 +33,12 @@ public class Server<T extends ExecutionContext>
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Server.class);
     private static final int EXECUTOR_THREADS = 4;
-    private final ScheduledExecutorService executor;
+    private static final long ACCEPT_ERROR_BACKOFF = 10;
+    private final ExecutorService acceptors;
+    private final ExecutorService executor;
+    private final int acceptorThreads;
+    private final AdmissionController admissionController;
+    private final MetricsRegistry metricsRegistry;
     private final ServerSocket serverSocket;
     private final ConnectionBuilder<T> connectionBuilder;
     private final Collection<BiConsumer<Server, T>> contextualTasks;
@@ -50,7 +57,41 @@ public class Server<T extends ExecutionContext>
           Iterable<Consumer<Server>> startupCallbacks,
           Iterable<Consumer<Server>> shutdownCallbacks)
     {
+        this(serverSocket, connectionBuilder, contextualTasks, addedCallbacks, removedCallbacks, startupCallbacks,
+              shutdownCallbacks, 1, new AdmissionController(0, 0));
+    }
+
+    Server(
+          ServerSocket serverSocket,
+          ConnectionBuilder connectionBuilder,
+          Iterable<BiConsumer<Server, T>> contextualTasks,
+          Iterable<Consumer<Connection>> addedCallbacks,
+          Iterable<Consumer<Connection>> removedCallbacks,
+          Iterable<Consumer<Server>> startupCallbacks,
+          Iterable<Consumer<Server>> shutdownCallbacks,
+          int acceptorThreads,
+          AdmissionController admissionController)
+    {
+        this(serverSocket, connectionBuilder, contextualTasks, addedCallbacks, removedCallbacks, startupCallbacks,
+              shutdownCallbacks, acceptorThreads, admissionController, null);
+    }
+
+    Server(
+          ServerSocket serverSocket,
+          ConnectionBuilder connectionBuilder,
+          Iterable<BiConsumer<Server, T>> contextualTasks,
+          Iterable<Consumer<Connection>> addedCallbacks,
+          Iterable<Consumer<Connection>> removedCallbacks,
+          Iterable<Consumer<Server>> startupCallbacks,
+          Iterable<Consumer<Server>> shutdownCallbacks,
+          int acceptorThreads,
+          AdmissionController admissionController,
+          MetricsRegistry metricsRegistry)
+    {
+        this.metricsRegistry = metricsRegistry;
         this.serverSocket = serverSocket;
+        this.acceptorThreads = acceptorThreads;
+        this.admissionController = admissionController;
         this.connectionBuilder = connectionBuilder;
         this.contextualTasks = new LinkedList<>();
         this.connectionAddedCallbacks = new LinkedList<>();
@@ -58,7 +99,8 @@ public class Server<T extends ExecutionContext>
         this.startupCallbacks = new LinkedList<>();
         this.shutdownCallbacks = new LinkedList<>();
 
-        executor = Executors.newScheduledThreadPool(EXECUTOR_THREADS);
+        acceptors = Executors.newFixedThreadPool(acceptorThreads);
+        executor = Executors.newFixedThreadPool(EXECUTOR_THREADS);
         connections = Collections.synchronizedCollection(new LinkedList<>());
 
         contextualTasks.forEach(this.contextualTasks::add);
@@ -68,7 +110,9 @@ public class Server<T extends ExecutionContext>
         shutdownCallbacks.forEach(this.shutdownCallbacks::add);
 
         Consumer<Connection<T>> callback = connection -> {
-            connections.remove(connection);
+            if (connections.remove(connection)) {
+                admissionController.release();
+            }
             connectionRemovedCallbacks.forEach(consumer -> consumer.accept(connection));
         };
         this.connectionBuilder.withShutdownCallbacks(callback);
@@ -89,6 +133,8 @@ public class Server<T extends ExecutionContext>
         } catch (IOException e) {
             LOGGER.warn("Error when closing ServerSocket", e);
         }
+        acceptors.shutdownNow();
+        executor.shutdownNow();
 
         shutdownCallbacks.forEach(consumer -> consumer.accept(this));
     }
@@ -98,30 +144,85 @@ public class Server<T extends ExecutionContext>
      */
     public void start() {
         connectionBuilder.withContextualTasks((Consumer<T>) this::invokeContextualTasks);
-        executor.scheduleWithFixedDelay(this::listenForConnection, 0, 10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < acceptorThreads; i++) {
+            acceptors.execute(this::acceptConnections);
+        }
 
         startupCallbacks.forEach(consumer -> consumer.accept(this));
     }
 
-    private void listenForConnection() {
-        try {
-            if (serverSocket.isClosed()) {
-                LOGGER.debug("Server Socket Closed");
-            } else {
+    /**
+     * Accept inbound sockets until the ServerSocket is closed, handing each admitted socket off to a worker thread so
+     * that building and starting the Connection never holds up the accept loop.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed() && !Thread.currentThread().isInterrupted()) {
+            try {
                 Socket socket = serverSocket.accept();
                 if (socket != null) {
-                    Connection connection = connectionBuilder.build(socket);
-                    connections.add(connection);
-                    connectionAddedCallbacks.forEach(consumer -> consumer.accept(connection));
-                    connection.start();
+                    admit(socket);
                 } else {
                     LOGGER.warn("ServerSocket returned null connection");
                 }
+            } catch (SocketException e) {
+                LOGGER.info("SocketError encountered: " + e.getLocalizedMessage());
+                backOff();
+            } catch (IOException e) {
+                LOGGER.error("Error when attempting to accept incoming connection", e);
+                backOff();
             }
-        } catch (SocketException e) {
-            LOGGER.info("SocketError encountered: " + e.getLocalizedMessage());
+        }
+        LOGGER.debug("Server Socket Closed");
+    }
+
+    private void admit(Socket socket) {
+        if (admissionController.tryAdmit()) {
+            try {
+                executor.execute(() -> addConnection(socket));
+            } catch (RejectedExecutionException e) {
+                admissionController.release();
+                reject(socket);
+            }
+        } else {
+            reject(socket);
+        }
+    }
+
+    private void addConnection(Socket socket) {
+        Connection connection = null;
+        try {
+            connection = connectionBuilder.build(socket);
+            connections.add(connection);
+            Connection added = connection;
+            connectionAddedCallbacks.forEach(consumer -> consumer.accept(added));
+            connection.start();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error when building connection from accepted socket", e);
+            // A connection which has been added is released by its shutdown callback, if that has not already run
+            if ((connection == null) || connections.remove(connection)) {
+                admissionController.release();
+            }
+            if (connection != null) {
+                connection.stop();
+            }
+            reject(socket);
+        }
+    }
+
+    private static void reject(Socket socket) {
+        LOGGER.debug("Rejecting inbound connection from {}", socket.getRemoteSocketAddress());
+        try {
+            socket.close();
         } catch (IOException e) {
-            LOGGER.error("Error when attempting to accept incoming connection", e);
+            LOGGER.warn("Error when closing rejected socket", e);
+        }
+    }
+
+    private static void backOff() {
+        try {
+            Thread.sleep(ACCEPT_ERROR_BACKOFF);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -157,4 +258,19 @@ public class Server<T extends ExecutionContext>
     }
 
     public int getConnectionCount() { return connections.size(); }
+
+    /**
+     * Get the number of inbound sockets which have been closed without being accepted, because the accept rate limit
+     * or the maximum number of connections was exceeded.
+     *
+     * @return The number of rejected inbound sockets.
+     */
+    public long getRejectedConnectionCount() { return admissionController.getRejectedCount(); }
+
+    /**
+     * Take a snapshot of the traffic, queue depths and latencies of the connections of this Server.
+     *
+     * @return The snapshot; null if the Server was not built with a MetricsRegistry.
+     */
+    public MetricsSnapshot getMetrics() { return (metricsRegistry != null) ? metricsRegistry.snapshot() : null; }
 }
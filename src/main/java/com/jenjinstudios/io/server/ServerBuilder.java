@@ -1,8 +1,11 @@
 package com.jenjinstudios.io.server;
 
 import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageInterceptor;
 import com.jenjinstudios.io.connection.Connection;
 import com.jenjinstudios.io.connection.ConnectionBuilder;
+import com.jenjinstudios.io.metrics.MetricsRegistry;
 
 import java.net.ServerSocket;
 import java.util.Arrays;
@@ -23,8 +26,14 @@ public class ServerBuilder<T extends ExecutionContext>
     private final Collection<Consumer<Connection<T>>> removedCallbacks = new LinkedList<>();
     private final Collection<Consumer<Server<T>>> startupCallbacks = new LinkedList<>();
     private final Collection<Consumer<Server<T>>> shutdownCallbacks = new LinkedList<>();
+    private final Collection<Consumer<ConnectionBuilder<T>>> interceptors = new LinkedList<>();
     private ServerSocket serverSocket;
     private ConnectionBuilder<T> connectionBuilder;
+    private MetricsRegistry metricsRegistry;
+    private boolean metricsApplied;
+    private int acceptorThreads = 1;
+    private int maxConnections;
+    private int acceptsPerSecond;
 
     /**
      * Build a Server using the properties supplied to this builder.
@@ -40,6 +49,13 @@ public class ServerBuilder<T extends ExecutionContext>
         if (connectionBuilder == null) {
             throw new IllegalStateException("ReusableConnectionBuilder must be set to build server");
         }
+        // Registrations are applied once, so that building again does not add them to the ConnectionBuilder twice
+        interceptors.forEach(registration -> registration.accept(connectionBuilder));
+        interceptors.clear();
+        if ((metricsRegistry != null) && !metricsApplied) {
+            connectionBuilder.withMetrics(metricsRegistry);
+            metricsApplied = true;
+        }
 
         return new Server(
               serverSocket,
@@ -48,7 +64,10 @@ public class ServerBuilder<T extends ExecutionContext>
               addedCallbacks,
               removedCallbacks,
               startupCallbacks,
-              shutdownCallbacks
+              shutdownCallbacks,
+              acceptorThreads,
+              new AdmissionController(maxConnections, acceptsPerSecond),
+              metricsRegistry
         );
     }
 
@@ -209,4 +228,115 @@ public class ServerBuilder<T extends ExecutionContext>
     public final ServerBuilder<T> withShutdownCallbacks(Consumer<Server<T>>... callbacks) {
         return withShutdownCallbacks(Arrays.asList(callbacks));
     }
+
+    /**
+     * Build a Server which will accept inbound sockets on the given number of threads.  Each thread blocks on the
+     * same ServerSocket; building and starting each Connection is done separately, on a worker thread, so that the
+     * accept loop is never held up by connection setup.
+     *
+     * @param threads The number of acceptor threads; defaults to one.
+     *
+     * @return This ServerBuilder.
+     *
+     * @throws IllegalArgumentException If the number of threads is less than one.
+     */
+    public ServerBuilder<T> withAcceptorThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Server must have at least one acceptor thread");
+        }
+        this.acceptorThreads = threads;
+        return this;
+    }
+
+    /**
+     * Build a Server which will immediately close any inbound socket accepted while it already has the given number
+     * of connections.
+     *
+     * @param max The maximum number of simultaneous connections; zero (the default) for no limit.
+     *
+     * @return This ServerBuilder.
+     *
+     * @throws IllegalArgumentException If the maximum is negative.
+     */
+    public ServerBuilder<T> withMaxConnections(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Maximum connections must not be negative");
+        }
+        this.maxConnections = max;
+        return this;
+    }
+
+    /**
+     * Build a Server which will immediately close any inbound socket accepted in excess of the given rate.
+     *
+     * @param connectionsPerSecond The maximum number of connections admitted per second; zero (the default) for no
+     * limit.
+     *
+     * @return This ServerBuilder.
+     *
+     * @throws IllegalArgumentException If the rate is negative.
+     */
+    public ServerBuilder<T> withAcceptRateLimit(int connectionsPerSecond) {
+        if (connectionsPerSecond < 0) {
+            throw new IllegalArgumentException("Accept rate limit must not be negative");
+        }
+        this.acceptsPerSecond = connectionsPerSecond;
+        return this;
+    }
+
+    /**
+     * Build a Server which records the traffic, queue depths and latencies of its connections in the given
+     * MetricsRegistry; the registry is set on the ConnectionBuilder when the Server is built.
+     *
+     * @param registry The MetricsRegistry.
+     *
+     * @return This ServerBuilder.
+     *
+     * @throws IllegalStateException If a MetricsRegistry has already been set.
+     */
+    public ServerBuilder<T> withMetrics(MetricsRegistry registry) {
+        if (metricsRegistry != null) {
+            throw new IllegalStateException("MetricsRegistry already set");
+        }
+        metricsRegistry = registry;
+        return this;
+    }
+
+    /**
+     * Build a Server whose connections pass every incoming message of the given type through the given interceptor
+     * before it is executed.  The interceptor is added to the ConnectionBuilder when the Server is built, after any
+     * interceptors already added to it.
+     *
+     * @param messageClass The type of message intercepted.
+     * @param interceptor The interceptor.
+     * @param <M> The type of message intercepted.
+     *
+     * @return This ServerBuilder.
+     */
+    public <M extends Message> ServerBuilder<T> withInboundInterceptor(
+          Class<M> messageClass,
+          MessageInterceptor<T, ? super M> interceptor)
+    {
+        interceptors.add(builder -> builder.withInboundInterceptor(messageClass, interceptor));
+        return this;
+    }
+
+    /**
+     * Build a Server whose connections pass every outgoing message of the given type through the given interceptor
+     * before it is written.  The interceptor is added to the ConnectionBuilder when the Server is built, after any
+     * interceptors already added to it.
+     *
+     * @param messageClass The type of message intercepted.
+     * @param interceptor The interceptor.
+     * @param <M> The type of message intercepted.
+     *
+     * @return This ServerBuilder.
+     */
+    public <M extends Message> ServerBuilder<T> withOutboundInterceptor(
+          Class<M> messageClass,
+          MessageInterceptor<T, ? super M> interceptor)
+    {
+        interceptors.add(builder -> builder.withOutboundInterceptor(messageClass, interceptor));
+        return this;
+    }
 }
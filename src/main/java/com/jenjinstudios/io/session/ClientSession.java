@@ -0,0 +1,123 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Client-side state of a resumable session.  A single ClientSession should be used for every Connection a client
+ * makes to the same server, so that each reconnect resumes the session established by the first.
+ *
+ * @author Caleb Brinkman
+ */
+public class ClientSession
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientSession.class);
+    private static final int ACK_INTERVAL = 32;
+    private String token;
+    private long lastReceived;
+    private long lastAcknowledged;
+    private boolean resumed;
+    private ClientSessionWriter currentWriter;
+
+    /**
+     * Perform the client side of the session handshake over the given reader and writer, requesting the resumption
+     * of the current session if there is one.
+     *
+     * @param reader The reader of the new Connection.
+     * @param writer The writer of the new Connection.
+     *
+     * @throws IOException If there is an exception during the handshake, or the server does not grant a session.
+     */
+    public synchronized void open(MessageReader reader, MessageWriter writer) throws IOException {
+        writer.write(new SessionRequest(token, lastReceived));
+        Message message = reader.read();
+        if (!(message instanceof SessionGrant)) {
+            throw new IOException("Expected session grant; received " + message);
+        }
+        SessionGrant grant = (SessionGrant) message;
+        resumed = grant.isResumed();
+        if (!resumed) {
+            LOGGER.debug("Starting new session");
+            lastReceived = 0;
+        }
+        lastAcknowledged = lastReceived;
+        token = grant.getToken();
+    }
+
+    /**
+     * Determine whether the most recent handshake resumed an existing session; if not, any state previously received
+     * from the server should be considered lost.
+     *
+     * @return Whether the session was resumed.
+     */
+    public synchronized boolean isResumed() { return resumed; }
+
+    public synchronized String getToken() { return token; }
+
+    public synchronized long getLastReceived() { return lastReceived; }
+
+    /**
+     * Create a MessageReader which unwraps sequenced messages from the given reader, discarding any which have already
+     * been received.
+     *
+     * @param reader The reader.
+     *
+     * @return The session-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new ClientSessionReader(reader, this); }
+
+    /**
+     * Create a MessageWriter which acknowledges received messages through the given writer.
+     *
+     * @param writer The writer.
+     *
+     * @return The session-aware writer.
+     */
+    public synchronized MessageWriter createWriter(MessageWriter writer) {
+        currentWriter = new ClientSessionWriter(writer, this);
+        return currentWriter;
+    }
+
+    /**
+     * Record receipt of the given message.
+     *
+     * @param message The message which has been received.
+     *
+     * @return Whether the message is new, and should be passed on for execution.
+     *
+     * @throws IOException If there is an exception when writing an acknowledgement.
+     */
+    boolean received(SequencedMessage message) throws IOException {
+        ClientSessionWriter writer;
+        synchronized (this) {
+            if (message.getSequence() <= lastReceived) {
+                return false;
+            }
+            lastReceived = message.getSequence();
+            writer = ((lastReceived - lastAcknowledged) >= ACK_INTERVAL) ? currentWriter : null;
+        }
+        // Acknowledge outside of the lock; the writer holds its own lock while asking for pending acknowledgements
+        if (writer != null) {
+            writer.acknowledge();
+        }
+        return true;
+    }
+
+    /**
+     * Get the acknowledgement which should be sent before the next outgoing message, if any.
+     *
+     * @return The acknowledgement; null if every received message has been acknowledged.
+     */
+    synchronized SessionAck pendingAcknowledgement() {
+        if (lastReceived > lastAcknowledged) {
+            lastAcknowledged = lastReceived;
+            return new SessionAck(lastReceived);
+        }
+        return null;
+    }
+}
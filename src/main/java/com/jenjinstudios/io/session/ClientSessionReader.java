@@ -0,0 +1,39 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Reads messages for the client side of a session, unwrapping sequenced messages and discarding duplicates.
+ *
+ * @author Caleb Brinkman
+ */
+class ClientSessionReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final ClientSession session;
+
+    ClientSessionReader(MessageReader reader, ClientSession session) {
+        this.reader = reader;
+        this.session = session;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        while (true) {
+            Message message = reader.read();
+            if (!(message instanceof SequencedMessage)) {
+                return message;
+            }
+            SequencedMessage sequenced = (SequencedMessage) message;
+            if (session.received(sequenced)) {
+                return sequenced.getMessage();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,39 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes messages for the client side of a session, acknowledging received messages before each outgoing message and
+ * whenever the reading thread has received enough unacknowledged messages.
+ *
+ * @author Caleb Brinkman
+ */
+class ClientSessionWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final ClientSession session;
+
+    ClientSessionWriter(MessageWriter writer, ClientSession session) {
+        this.writer = writer;
+        this.session = session;
+    }
+
+    @Override
+    public synchronized void write(Message message) throws IOException {
+        acknowledge();
+        writer.write(message);
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+
+    synchronized void acknowledge() throws IOException {
+        SessionAck ack = session.pendingAcknowledgement();
+        if (ack != null) {
+            writer.write(ack);
+        }
+    }
+}
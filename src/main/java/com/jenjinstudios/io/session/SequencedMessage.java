@@ -0,0 +1,29 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Wraps an outgoing Message with the sequence number assigned to it by a resumable session.
+ *
+ * @author Caleb Brinkman
+ */
+public class SequencedMessage implements Message
+{
+    private long sequence;
+    private Message message;
+
+    /**
+     * Construct a new SequencedMessage.
+     *
+     * @param sequence The sequence number.
+     * @param message The wrapped message.
+     */
+    public SequencedMessage(long sequence, Message message) {
+        this.sequence = sequence;
+        this.message = message;
+    }
+
+    public long getSequence() { return sequence; }
+
+    public Message getMessage() { return message; }
+}
@@ -0,0 +1,35 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Reads messages for the server side of a session, consuming any acknowledgements sent by the client.
+ *
+ * @author Caleb Brinkman
+ */
+class ServerSessionReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final Session session;
+
+    ServerSessionReader(MessageReader reader, Session session) {
+        this.reader = reader;
+        this.session = session;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        Message message = reader.read();
+        while (message instanceof SessionAck) {
+            session.acknowledge(((SessionAck) message).getSequence());
+            message = reader.read();
+        }
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,41 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+import com.jenjinstudios.io.stream.StreamChunk;
+import com.jenjinstudios.io.stream.StreamOpen;
+
+import java.io.IOException;
+
+/**
+ * Writes messages for the server side of a session, sequencing each application message and keeping it for replay
+ * until acknowledged.  Control messages, such as heartbeats and acknowledgements, and the messages of streamed
+ * transfers, which belong to a single connection and cannot be resumed, are written without a sequence number, so
+ * that they neither take up the replay buffer nor are replayed.
+ *
+ * @author Caleb Brinkman
+ */
+class ServerSessionWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final Session session;
+
+    ServerSessionWriter(MessageWriter writer, Session session) {
+        this.writer = writer;
+        this.session = session;
+    }
+
+    @Override
+    public void write(Message message) throws IOException {
+        writer.write(isSequenced(message) ? session.sequence(message) : message);
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+
+    private static boolean isSequenced(Message message) {
+        return !MessageQueue.isControl(message) && !(message instanceof StreamOpen)
+              && !(message instanceof StreamChunk);
+    }
+}
@@ -0,0 +1,154 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.connection.Connection;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.LinkedList;
+
+/**
+ * Server-side state of a resumable session; the ExecutionContext of the session outlives the Connection to which it
+ * is attached, along with a bounded buffer of the outgoing messages which the client has not yet acknowledged.
+ *
+ * @author Caleb Brinkman
+ */
+public class Session<T extends ExecutionContext>
+{
+    private final String token;
+    private final T context;
+    private final int replayCapacity;
+    private final Deque<SequencedMessage> replayBuffer = new LinkedList<>();
+    private long lastSent;
+    private long lastAcknowledged;
+    private boolean resumed;
+    private Connection<T> connection;
+    private long detachedAt;
+
+    /**
+     * Construct a new Session.
+     *
+     * @param token The token used by the client to resume the session.
+     * @param context The context in which messages for this session are executed.
+     * @param replayCapacity The maximum number of unacknowledged messages kept for replay.
+     * @param createdAt The time at which the session was created; until a Connection is attached, the session
+     * expires as though it were detached at this time.
+     */
+    Session(String token, T context, int replayCapacity, long createdAt) {
+        this.token = token;
+        this.context = context;
+        this.replayCapacity = replayCapacity;
+        this.detachedAt = createdAt;
+    }
+
+    public String getToken() { return token; }
+
+    public T getContext() { return context; }
+
+    /**
+     * Determine whether the Connection currently attached to this session resumed it, rather than starting it.
+     *
+     * @return Whether the session was resumed.
+     */
+    public synchronized boolean isResumed() { return resumed; }
+
+    /**
+     * Get the Connection currently attached to this session.
+     *
+     * @return The attached Connection; null if the session is detached.
+     */
+    public synchronized Connection<T> getConnection() { return connection; }
+
+    /**
+     * Create a MessageReader which reads client acknowledgements for this session from the given reader, passing
+     * every other message through.
+     *
+     * @param reader The reader.
+     *
+     * @return The session-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new ServerSessionReader(reader, this); }
+
+    /**
+     * Create a MessageWriter which sequences each application message written to the given writer and keeps it for
+     * replay until it is acknowledged; control messages and the messages of streamed transfers are not sequenced.
+     *
+     * @param writer The writer.
+     *
+     * @return The session-aware writer.
+     */
+    public MessageWriter createWriter(MessageWriter writer) { return new ServerSessionWriter(writer, this); }
+
+    synchronized SequencedMessage sequence(Message message) {
+        SequencedMessage sequenced = new SequencedMessage(++lastSent, message);
+        replayBuffer.add(sequenced);
+        if (replayBuffer.size() > replayCapacity) {
+            replayBuffer.poll();
+        }
+        return sequenced;
+    }
+
+    synchronized void acknowledge(long sequence) {
+        if (sequence > lastAcknowledged) {
+            lastAcknowledged = Math.min(sequence, lastSent);
+            while (!replayBuffer.isEmpty() && (replayBuffer.peek().getSequence() <= lastAcknowledged)) {
+                replayBuffer.poll();
+            }
+        }
+    }
+
+    /**
+     * Resume this session for a client which has received every message up to and including the given sequence
+     * number; the messages it missed must then be retransmitted with {@link #replay(MessageWriter)}, once the client
+     * has been granted the session.
+     *
+     * @param lastReceived The sequence number of the last message received by the client.
+     *
+     * @return Whether the session could be resumed; false if messages the client missed are no longer buffered.
+     */
+    synchronized boolean resume(long lastReceived) {
+        acknowledge(lastReceived);
+        boolean complete = (lastAcknowledged == lastSent)
+              || (!replayBuffer.isEmpty() && (replayBuffer.peek().getSequence() == (lastAcknowledged + 1)));
+        if (complete) {
+            resumed = true;
+        }
+        return complete;
+    }
+
+    /**
+     * Write every message which has not been acknowledged by the client to the given writer.
+     *
+     * @param writer The writer to which missed messages are written.
+     *
+     * @throws IOException If there is an exception when writing the missed messages.
+     */
+    synchronized void replay(MessageWriter writer) throws IOException {
+        for (SequencedMessage message : replayBuffer) {
+            writer.write(message);
+        }
+    }
+
+    synchronized Connection<T> attach(Connection<T> newConnection, long now) {
+        Connection<T> previous = connection;
+        connection = newConnection;
+        detachedAt = now;
+        return previous;
+    }
+
+    synchronized boolean detach(Connection<T> oldConnection, long now) {
+        if (connection == oldConnection) {
+            connection = null;
+            detachedAt = now;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean isExpired(long now, long gracePeriod) {
+        return (connection == null) && ((now - detachedAt) > gracePeriod);
+    }
+}
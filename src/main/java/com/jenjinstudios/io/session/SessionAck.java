@@ -0,0 +1,25 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Control;
+
+/**
+ * Sent by a client to acknowledge receipt of all sequenced messages up to and including the given sequence number, so
+ * that the server may discard them from its replay buffer.
+ *
+ * @author Caleb Brinkman
+ */
+@Control
+public class SessionAck implements Message
+{
+    private long sequence;
+
+    /**
+     * Construct a new SessionAck.
+     *
+     * @param sequence The sequence number of the last message received.
+     */
+    public SessionAck(long sequence) { this.sequence = sequence; }
+
+    public long getSequence() { return sequence; }
+}
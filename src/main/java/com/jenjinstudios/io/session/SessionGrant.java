@@ -0,0 +1,29 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Sent by a server in response to a SessionRequest.
+ *
+ * @author Caleb Brinkman
+ */
+public class SessionGrant implements Message
+{
+    private String token;
+    private boolean resumed;
+
+    /**
+     * Construct a new SessionGrant.
+     *
+     * @param token The token which can be used to resume the session.
+     * @param resumed Whether the requested session was resumed; if false, a new session was started.
+     */
+    public SessionGrant(String token, boolean resumed) {
+        this.token = token;
+        this.resumed = resumed;
+    }
+
+    public String getToken() { return token; }
+
+    public boolean isResumed() { return resumed; }
+}
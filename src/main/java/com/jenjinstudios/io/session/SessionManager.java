@@ -0,0 +1,193 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.ExecutionContextFactory;
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.connection.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Issues and keeps track of resumable sessions on the server side.
+ * <p>
+ * When a client connects, it sends a {@link SessionRequest}; if the request carries the token of a session which has
+ * not expired, the new Connection is attached to that session, reusing its ExecutionContext, and any messages the
+ * client missed are retransmitted.  Otherwise, a new session is created with a new ExecutionContext.  Sessions expire
+ * once they have been detached from any Connection for longer than the grace period.
+ *
+ * @author Caleb Brinkman
+ */
+public class SessionManager<T extends ExecutionContext>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionManager.class);
+    private static final int TOKEN_BYTES = 24;
+    private static final long REAP_INTERVAL = 1000;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session<T>> sessions = new ConcurrentHashMap<>(10);
+    private final Map<String, Session<T>> sessionsByConnection = new ConcurrentHashMap<>(10);
+    private final Collection<Consumer<T>> expirationCallbacks = new LinkedList<>();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor();
+    private final int replayCapacity;
+    private final long gracePeriod;
+
+    /**
+     * Construct a new SessionManager.
+     *
+     * @param replayCapacity The maximum number of unacknowledged outgoing messages kept per session; if a client misses
+     * more than this many messages, its session cannot be resumed.
+     * @param gracePeriod The amount of time a session is kept after its Connection is closed.
+     * @param timeUnit The unit of {@code gracePeriod}.
+     */
+    public SessionManager(int replayCapacity, long gracePeriod, TimeUnit timeUnit) {
+        this.replayCapacity = replayCapacity;
+        this.gracePeriod = timeUnit.toNanos(gracePeriod);
+    }
+
+    /**
+     * Start expiring sessions which have been detached for longer than the grace period.
+     */
+    public void start() {
+        reaper.scheduleWithFixedDelay(this::expireSessions, REAP_INTERVAL, REAP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop expiring sessions.
+     */
+    public void stop() { reaper.shutdownNow(); }
+
+    /**
+     * Register callbacks which are invoked with the ExecutionContext of each session when it expires; useful for
+     * persisting or unauthenticating the user of the session.
+     *
+     * @param callbacks The callbacks.
+     *
+     * @return This SessionManager.
+     */
+    @SafeVarargs
+    public final SessionManager<T> withExpirationCallbacks(Consumer<T>... callbacks) {
+        synchronized (expirationCallbacks) {
+            Collections.addAll(expirationCallbacks, callbacks);
+        }
+        return this;
+    }
+
+    /**
+     * Perform the server side of the session handshake over the given reader and writer: read a SessionRequest, then
+     * either resume the requested session or create a new one, and write a SessionGrant; when a session is resumed,
+     * the messages the client missed are retransmitted after the grant.
+     *
+     * @param reader The reader of the new Connection.
+     * @param writer The writer of the new Connection.
+     * @param contextFactory Used to create the ExecutionContext of a new session.
+     *
+     * @return The resumed or newly created session.
+     *
+     * @throws IOException If there is an exception during the handshake, or the client does not request a session.
+     */
+    public Session<T> open(MessageReader reader, MessageWriter writer, ExecutionContextFactory<T> contextFactory)
+          throws IOException
+    {
+        Message message = reader.read();
+        if (!(message instanceof SessionRequest)) {
+            throw new IOException("Expected session request; received " + message);
+        }
+        SessionRequest request = (SessionRequest) message;
+        Session<T> session = (request.getToken() != null) ? sessions.get(request.getToken()) : null;
+        if (session != null) {
+            Connection<T> previous = session.attach(null, System.nanoTime());
+            if (previous != null) {
+                LOGGER.debug("Closing stale connection {} of resumed session", previous.getId());
+                previous.stop();
+            }
+            if (session.resume(request.getLastReceived())) {
+                LOGGER.debug("Resumed session; last message received by client: {}", request.getLastReceived());
+            } else {
+                LOGGER.debug("Unable to resume session; client missed messages no longer buffered");
+                expire(session);
+                session = null;
+            }
+        }
+        if (session == null) {
+            session = new Session<>(createToken(), contextFactory.createInstance(), replayCapacity, System.nanoTime());
+            sessions.put(session.getToken(), session);
+        }
+        writer.write(new SessionGrant(session.getToken(), session.isResumed()));
+        if (session.isResumed()) {
+            session.replay(writer);
+        }
+        return session;
+    }
+
+    /**
+     * Attach the given Connection, built from the reader and writer used to open the session, to the session.
+     *
+     * @param session The session.
+     * @param connection The Connection.
+     */
+    public void attach(Session<T> session, Connection<T> connection) {
+        session.attach(connection, System.nanoTime());
+        sessionsByConnection.put(connection.getId(), session);
+    }
+
+    /**
+     * Detach the given Connection from its session, starting the grace period of the session.  This is invoked
+     * automatically when a Connection built by a ConnectionBuilder using this SessionManager is shut down.
+     *
+     * @param connection The Connection.
+     */
+    public void detach(Connection<T> connection) {
+        Session<T> session = sessionsByConnection.remove(connection.getId());
+        if ((session != null) && session.detach(connection, System.nanoTime())) {
+            LOGGER.debug("Detached connection {} from session", connection.getId());
+        }
+    }
+
+    /**
+     * Get the session to which the given Connection is attached.
+     *
+     * @param connection The Connection.
+     *
+     * @return The session; null if the Connection is not attached to a session.
+     */
+    public Session<T> getSession(Connection<T> connection) { return sessionsByConnection.get(connection.getId()); }
+
+    public int getSessionCount() { return sessions.size(); }
+
+    private void expireSessions() {
+        long now = System.nanoTime();
+        sessions.values().stream().filter(session -> session.isExpired(now, gracePeriod)).forEach(this::expire);
+    }
+
+    private void expire(Session<T> session) {
+        if (sessions.remove(session.getToken(), session)) {
+            LOGGER.debug("Session expired");
+            synchronized (expirationCallbacks) {
+                expirationCallbacks.forEach(callback -> callback.accept(session.getContext()));
+            }
+        }
+    }
+
+    private String createToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.jenjinstudios.io.session;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Sent by a client immediately after connecting, to request either a new session or the resumption of an existing one.
+ *
+ * @author Caleb Brinkman
+ */
+public class SessionRequest implements Message
+{
+    private String token;
+    private long lastReceived;
+
+    /**
+     * Construct a new SessionRequest.
+     *
+     * @param token The token of the session to resume; null to request a new session.
+     * @param lastReceived The sequence number of the last message received in the session to resume.
+     */
+    public SessionRequest(String token, long lastReceived) {
+        this.token = token;
+        this.lastReceived = lastReceived;
+    }
+
+    public String getToken() { return token; }
+
+    public long getLastReceived() { return lastReceived; }
+}
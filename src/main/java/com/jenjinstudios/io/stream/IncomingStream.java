@@ -0,0 +1,106 @@
+package com.jenjinstudios.io.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * Exposes the chunks of an incoming streamed transfer as an InputStream, acknowledging each chunk once the reader
+ * begins consuming it so that the sender may send another.  Because the sender never has more unacknowledged chunks
+ * than its window, at most a window's worth of data (plus the chunk being read) is ever buffered; a sender which
+ * exceeds the window is rejected rather than buffered.
+ *
+ * @author Caleb Brinkman
+ */
+class IncomingStream extends InputStream
+{
+    private static final byte[] END = new byte[0];
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private final int window;
+    private final IntConsumer acknowledger;
+    private volatile boolean closed;
+    private volatile boolean failed;
+    private byte[] current;
+    private int position;
+
+    IncomingStream(int window, IntConsumer acknowledger) {
+        this.window = window;
+        this.acknowledger = acknowledger;
+    }
+
+    void received(byte[] data, boolean last) throws IOException {
+        if (closed) {
+            acknowledger.accept(1);
+        } else if (chunks.size() >= window) {
+            fail();
+            throw new IOException("Sender exceeded stream window of " + window + " chunks");
+        } else {
+            chunks.add(last ? END : data);
+        }
+    }
+
+    void fail() {
+        failed = true;
+        chunks.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return (read < 0) ? -1 : (single[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() { return (current != null) ? (current.length - position) : 0; }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            int discarded = 0;
+            for (byte[] chunk = chunks.poll(); chunk != null; chunk = chunks.poll()) {
+                discarded++;
+            }
+            if (discarded > 0) {
+                acknowledger.accept(discarded);
+            }
+        }
+    }
+
+    private boolean nextChunk() throws IOException {
+        while ((current == null) || (position == current.length)) {
+            if (current == END) {
+                return false;
+            }
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for stream data", e);
+            }
+            position = 0;
+            if ((current == END) && failed) {
+                throw new IOException("Connection closed before stream completed");
+            }
+            acknowledger.accept(1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.concurrency.MessagePriority;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the chunks of an outgoing streamed transfer as the receiver grants credit for them.
+ * <p>
+ * Chunks are read and queued by a task which runs only while the transfer has credit; when the credit runs out the
+ * task returns, and it is resubmitted by the acknowledgement which grants more, so a transfer waiting on a slow
+ * receiver does not hold a thread.
+ *
+ * @author Caleb Brinkman
+ */
+class OutgoingStream
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutgoingStream.class);
+    private final long id;
+    private final Message header;
+    private final InputStream source;
+    private final MessageQueue messageQueue;
+    private final Executor executor;
+    private final Runnable finished;
+    private final byte[] buffer;
+    private final int window;
+    private final AtomicInteger credit;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private boolean opened;
+    private volatile boolean lastSent;
+
+    OutgoingStream(
+          long id,
+          Message header,
+          InputStream source,
+          MessageQueue messageQueue,
+          Executor executor,
+          Runnable finished,
+          int chunkSize,
+          int window)
+    {
+        this.id = id;
+        this.header = header;
+        this.source = source;
+        this.messageQueue = messageQueue;
+        this.executor = executor;
+        this.finished = finished;
+        this.buffer = new byte[chunkSize];
+        this.window = window;
+        this.credit = new AtomicInteger(window);
+    }
+
+    CompletableFuture<Void> getFuture() { return future; }
+
+    /**
+     * Submit the task which sends chunks, unless it is already submitted or there is nothing for it to do.
+     */
+    void schedule() {
+        if (!future.isDone() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::send);
+        }
+    }
+
+    /**
+     * Grant credit for the given number of chunks which the receiver has consumed.
+     *
+     * @param chunks The number of chunks.
+     *
+     * @throws IOException If the receiver acknowledges more chunks than have been sent.
+     */
+    void acknowledged(int chunks) throws IOException {
+        int current;
+        do {
+            current = credit.get();
+            if ((chunks < 1) || (chunks > (window - current))) {
+                throw new IOException("Acknowledgement of " + chunks + " chunks of stream " + id + " exceeds the "
+                      + (window - current) + " in flight");
+            }
+        } while (!credit.compareAndSet(current, current + chunks));
+        schedule();
+    }
+
+    /**
+     * Fail the transfer, if it has not already completed.
+     *
+     * @param cause The cause of the failure.
+     */
+    void fail(Throwable cause) {
+        finished.run();
+        if (future.completeExceptionally(cause)) {
+            LOGGER.debug("Stream {} failed", id, cause);
+            closeSource();
+        }
+    }
+
+    private void send() {
+        try {
+            if (!opened) {
+                opened = true;
+                messageQueue.queueOutgoing(new StreamOpen(id, header), MessagePriority.LOW);
+            }
+            while (!lastSent && (credit.get() > 0)) {
+                int length = readChunk();
+                lastSent = length < 0;
+                credit.decrementAndGet();
+                messageQueue.queueOutgoing(new StreamChunk(id, buffer, Math.max(length, 0), lastSent),
+                      MessagePriority.LOW);
+            }
+            if (lastSent && (credit.get() == window)) {
+                finished.run();
+                future.complete(null);
+                closeSource();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            scheduled.set(false);
+        }
+        // Credit granted while this task was finishing would otherwise go unused
+        if ((!lastSent && (credit.get() > 0)) || (lastSent && (credit.get() == window))) {
+            schedule();
+        }
+    }
+
+    private int readChunk() throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = source.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return (total == 0) ? -1 : total;
+    }
+
+    private void closeSource() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            LOGGER.debug("Error when closing source of stream {}", id, e);
+        }
+    }
+}
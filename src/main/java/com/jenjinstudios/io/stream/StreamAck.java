@@ -0,0 +1,31 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.annotations.Control;
+
+/**
+ * Sent by the receiver of a streamed transfer as it consumes chunks, granting the sender credit to send more.
+ *
+ * @author Caleb Brinkman
+ */
+@Control
+public class StreamAck implements Message
+{
+    private long streamId;
+    private int chunks;
+
+    /**
+     * Construct a new StreamAck.
+     *
+     * @param streamId The ID of the stream.
+     * @param chunks The number of chunks consumed since the last acknowledgement.
+     */
+    public StreamAck(long streamId, int chunks) {
+        this.streamId = streamId;
+        this.chunks = chunks;
+    }
+
+    public long getStreamId() { return streamId; }
+
+    public int getChunks() { return chunks; }
+}
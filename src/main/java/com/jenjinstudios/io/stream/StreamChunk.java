@@ -0,0 +1,46 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.Message;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Carries one chunk of the data of a streamed transfer; the final chunk of a transfer carries no data.
+ *
+ * @author Caleb Brinkman
+ */
+public class StreamChunk implements Message
+{
+    private long streamId;
+    private String data;
+    private boolean last;
+
+    /**
+     * Construct a new StreamChunk.
+     *
+     * @param streamId The ID of the stream.
+     * @param data The data; ignored if this is the last chunk.
+     * @param length The number of bytes of {@code data} to send.
+     * @param last Whether this is the last chunk of the stream.
+     */
+    public StreamChunk(long streamId, byte[] data, int length, boolean last) {
+        this.streamId = streamId;
+        this.last = last;
+        if (!last) {
+            byte[] bytes = (length == data.length) ? data : Arrays.copyOf(data, length);
+            this.data = Base64.getEncoder().encodeToString(bytes);
+        }
+    }
+
+    public long getStreamId() { return streamId; }
+
+    public boolean isLast() { return last; }
+
+    /**
+     * Get the data carried by this chunk.
+     *
+     * @return The data; empty if this is the last chunk.
+     */
+    public byte[] getData() { return (data != null) ? Base64.getDecoder().decode(data) : new byte[0]; }
+}
@@ -0,0 +1,183 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.concurrency.InboundRateLimiter;
+import com.jenjinstudios.io.concurrency.MessagePriority;
+import com.jenjinstudios.io.concurrency.MessageQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends and receives the streamed transfers of a single connection.
+ * <p>
+ * An outgoing transfer is read from its source one chunk at a time, on a small pool of threads shared by every
+ * transfer in progress, and each chunk is queued in the {@code LOW} priority lane so that other messages are written
+ * ahead of it.  The sender never has more than a window of chunks which the receiver has not acknowledged consuming, so
+ * neither side holds more than a window of the data in memory, and a slow receiver holds back the sender rather than
+ * filling its queue; a transfer waiting for credit does not occupy a thread.
+ * <p>
+ * Chunks and acknowledgements are read below the connection's read task, so they are charged to its inbound rate
+ * limit here, and a peer which sends malformed chunks, invalid or duplicate stream IDs, more chunks than the window or
+ * acknowledgements for chunks which were never sent is reported as an {@code IOException}.  Chunks and
+ * acknowledgements for unknown streams are ignored, since they may belong to a stream which has already failed.  A
+ * stream whose {@code StreamOpen} is dropped by the rate limit is closed, so that its chunks are acknowledged and
+ * discarded rather than left waiting for a reader.
+ *
+ * @author Caleb Brinkman
+ */
+public class StreamManager
+{
+    /** The default number of bytes carried by each chunk; small enough to fit in a single writeUTF frame. */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+    /** The default number of unacknowledged chunks a sender may have in flight per transfer. */
+    public static final int DEFAULT_WINDOW = 8;
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamManager.class);
+    private static final ExecutorService SENDERS = Executors.newFixedThreadPool(
+          Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+              Thread thread = new Thread(runnable, "stream-sender");
+              thread.setDaemon(true);
+              return thread;
+          });
+    private final Map<Long, IncomingStream> incoming = new ConcurrentHashMap<>(10);
+    private final Map<Long, OutgoingStream> outgoing = new ConcurrentHashMap<>(10);
+    private final AtomicLong nextId = new AtomicLong(0);
+    private final MessageQueue messageQueue;
+    private final int chunkSize;
+    private final int window;
+
+    /**
+     * Construct a new StreamManager with the default chunk size and window.
+     *
+     * @param messageQueue The queue of the connection.
+     */
+    public StreamManager(MessageQueue messageQueue) { this(messageQueue, DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW); }
+
+    /**
+     * Construct a new StreamManager.
+     *
+     * @param messageQueue The queue of the connection.
+     * @param chunkSize The maximum number of bytes carried by each chunk.
+     * @param window The maximum number of unacknowledged chunks in flight per outgoing transfer.
+     *
+     * @throws IllegalArgumentException If the chunk size or window is not positive.
+     */
+    public StreamManager(MessageQueue messageQueue, int chunkSize, int window) {
+        if ((chunkSize < 1) || (window < 1)) {
+            throw new IllegalArgumentException("Chunk size and window must be positive");
+        }
+        this.messageQueue = messageQueue;
+        this.chunkSize = chunkSize;
+        this.window = window;
+    }
+
+    /**
+     * Stream the data from the given source to the peer, preceded by the given header.  The source is read on a
+     * shared sender thread, and closed once the transfer is complete.
+     *
+     * @param header The message describing the data; executed by the peer when the transfer begins.  If it is a
+     * {@link StreamMessage}, it is executed with access to the data.
+     * @param source The data.
+     *
+     * @return A future which is completed once the peer has received all of the data, or completed exceptionally if
+     * the source cannot be read or the connection is closed.
+     */
+    public CompletableFuture<Void> send(Message header, InputStream source) {
+        long id = nextId.incrementAndGet();
+        OutgoingStream stream = new OutgoingStream(id, header, source, messageQueue, SENDERS,
+              () -> outgoing.remove(id), chunkSize, window);
+        outgoing.put(id, stream);
+        stream.schedule();
+        return stream.getFuture();
+    }
+
+    /**
+     * Create a MessageReader which routes streamed chunks and acknowledgements read from the given reader, passing
+     * every other message through.
+     *
+     * @param reader The reader.
+     *
+     * @return The stream-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return createReader(reader, new InboundRateLimiter()); }
+
+    /**
+     * Create a MessageReader which routes streamed chunks and acknowledgements read from the given reader, passing
+     * every other message through, and charges the chunks and acknowledgements to the given rate limiter.
+     *
+     * @param reader The reader.
+     * @param rateLimiter The inbound rate limiter of the connection.
+     *
+     * @return The stream-aware reader.
+     */
+    public MessageReader createReader(MessageReader reader, InboundRateLimiter rateLimiter) {
+        return new StreamReader(reader, this, rateLimiter);
+    }
+
+    /**
+     * Fail every transfer in progress; used when the connection is shut down.
+     */
+    public void close() {
+        incoming.values().forEach(IncomingStream::fail);
+        incoming.clear();
+        IOException closed = new IOException("Connection closed before stream completed");
+        outgoing.values().forEach(stream -> stream.fail(closed));
+    }
+
+    public int getIncomingCount() { return incoming.size(); }
+
+    public int getOutgoingCount() { return outgoing.size(); }
+
+    void opened(StreamOpen open) throws IOException {
+        long id = open.getStreamId();
+        if (id < 1) {
+            throw new IOException("Invalid stream ID " + id);
+        }
+        IncomingStream stream = new IncomingStream(window, chunks -> messageQueue.queueOutgoing(
+              new StreamAck(id, chunks), MessagePriority.HIGH));
+        if (incoming.putIfAbsent(id, stream) != null) {
+            throw new IOException("Stream " + id + " is already open");
+        }
+        open.setData(stream);
+    }
+
+    void received(StreamChunk chunk) throws IOException {
+        byte[] data;
+        try {
+            data = chunk.getData();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed data in chunk of stream " + chunk.getStreamId(), e);
+        }
+        IncomingStream stream = chunk.isLast() ? incoming.remove(chunk.getStreamId())
+              : incoming.get(chunk.getStreamId());
+        if (stream != null) {
+            stream.received(data, chunk.isLast());
+        } else {
+            LOGGER.debug("Received chunk for unknown stream {}", chunk.getStreamId());
+        }
+    }
+
+    void rejected(StreamChunk chunk) {
+        IncomingStream stream = incoming.remove(chunk.getStreamId());
+        if (stream != null) {
+            LOGGER.debug("Failing stream {}; chunk dropped by inbound rate limit", chunk.getStreamId());
+            stream.fail();
+        }
+    }
+
+    void acknowledged(StreamAck ack) throws IOException {
+        OutgoingStream stream = outgoing.get(ack.getStreamId());
+        if (stream != null) {
+            stream.acknowledged(ack.getChunks());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+
+import java.io.InputStream;
+
+/**
+ * A Message sent at the start of a streamed transfer, describing the data which follows; it is executed with access to
+ * the data as it arrives, which is never held in memory in its entirety.
+ *
+ * @author Caleb Brinkman
+ */
+public interface StreamMessage<C extends ExecutionContext> extends Message<C>
+{
+    /**
+     * Execute any actions required by the message.  This method is invoked on the execution thread as soon as the
+     * transfer begins, before all of the data has arrived; reading the data to its end here blocks execution of other
+     * messages for the duration of the transfer, so long transfers should usually be read on another thread.  Use
+     * {@code Channels.newChannel} to read the data as a channel.
+     *
+     * @param context The context in which this message should execute.
+     * @param data The streamed data; reaching its end means the transfer is complete.
+     *
+     * @return The response to the message; return null for no response.
+     */
+    Message execute(C context, InputStream data);
+}
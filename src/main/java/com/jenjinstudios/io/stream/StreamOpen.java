@@ -0,0 +1,73 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.EnvelopeMessage;
+import com.jenjinstudios.io.ExecutionContext;
+import com.jenjinstudios.io.Message;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Begins a streamed transfer, carrying the message which describes it.
+ *
+ * @author Caleb Brinkman
+ */
+public class StreamOpen implements EnvelopeMessage
+{
+    private long streamId;
+    private Message header;
+    private transient InputStream data;
+
+    /**
+     * Construct a new StreamOpen.
+     *
+     * @param streamId The ID of the stream.
+     * @param header The message describing the streamed data.
+     */
+    public StreamOpen(long streamId, Message header) {
+        this.streamId = streamId;
+        this.header = header;
+    }
+
+    public long getStreamId() { return streamId; }
+
+    public Message getHeader() { return header; }
+
+    @Override
+    public Message getMessage() { return header; }
+
+    @Override
+    public Message withMessage(Message message) {
+        if (message == null) {
+            closeData();
+            return null;
+        }
+        if (message == header) {
+            return this;
+        }
+        StreamOpen open = new StreamOpen(streamId, message);
+        open.data = data;
+        return open;
+    }
+
+    void setData(InputStream data) { this.data = data; }
+
+    @Override
+    public Message execute(ExecutionContext context) {
+        if (header instanceof StreamMessage) {
+            return ((StreamMessage<ExecutionContext>) header).execute(context, data);
+        }
+        closeData();
+        return header.execute(context);
+    }
+
+    private void closeData() {
+        if (data != null) {
+            try {
+                data.close();
+            } catch (IOException ignored) {
+                // Closing an incoming stream does not throw
+            }
+        }
+    }
+}
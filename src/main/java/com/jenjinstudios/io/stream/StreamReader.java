@@ -0,0 +1,53 @@
+package com.jenjinstudios.io.stream;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.concurrency.InboundRateLimiter;
+
+import java.io.IOException;
+
+/**
+ * Reads messages for a connection which may send and receive streamed transfers, routing chunks and acknowledgements
+ * to their streams.  Chunks and acknowledgements are charged to the inbound rate limit as they are read; a chunk which
+ * the limit drops fails its stream, since the rest of the stream is useless without it, while an acknowledgement is
+ * always applied, since it only returns credit the peer already holds.  A {@code StreamOpen} is registered as it is
+ * read, and charged by the read task like any other message; if the limit drops it, the read task discards its header,
+ * which closes the stream.
+ *
+ * @author Caleb Brinkman
+ */
+class StreamReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final StreamManager streamManager;
+    private final InboundRateLimiter rateLimiter;
+
+    StreamReader(MessageReader reader, StreamManager streamManager, InboundRateLimiter rateLimiter) {
+        this.reader = reader;
+        this.streamManager = streamManager;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        Message message = reader.read();
+        while ((message instanceof StreamChunk) || (message instanceof StreamAck)) {
+            boolean permitted = rateLimiter.permit(message);
+            if ((message instanceof StreamChunk) && permitted) {
+                streamManager.received((StreamChunk) message);
+            } else if (message instanceof StreamChunk) {
+                streamManager.rejected((StreamChunk) message);
+            } else {
+                streamManager.acknowledged((StreamAck) message);
+            }
+            message = reader.read();
+        }
+        if (message instanceof StreamOpen) {
+            streamManager.opened((StreamOpen) message);
+        }
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
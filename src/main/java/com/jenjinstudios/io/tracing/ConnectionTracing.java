@@ -0,0 +1,75 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.MessageReader;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Traces the messages read and written by a single connection with a MessageTracer.
+ * <p>
+ * The streams of the connection are traced to tell when messages arrive and when encoding ends, and its reader and
+ * writer are wrapped to report each stage; the connection itself reports when messages are queued and executed.
+ *
+ * @author Caleb Brinkman
+ */
+public class ConnectionTracing
+{
+    private final MessageTracer tracer;
+    private TracedInputStream input;
+    private TracedOutputStream output;
+
+    /**
+     * Construct a new ConnectionTracing which reports to the given tracer.
+     *
+     * @param tracer The tracer.
+     */
+    public ConnectionTracing(MessageTracer tracer) { this.tracer = tracer; }
+
+    /**
+     * Trace the arrival of messages on the given stream; must be invoked before {@link #createReader(MessageReader)}
+     * for the {@code FRAME_READ} stage to be reported.
+     *
+     * @param inputStream The stream from which messages are read.
+     *
+     * @return The traced stream.
+     */
+    public InputStream trace(InputStream inputStream) {
+        input = new TracedInputStream(inputStream);
+        return input;
+    }
+
+    /**
+     * Trace the writing of messages to the given stream; must be invoked before {@link #createWriter(MessageWriter)}
+     * for the {@code ENCODED} stage to be reported.
+     *
+     * @param outputStream The stream to which messages are written.
+     *
+     * @return The traced stream.
+     */
+    public OutputStream trace(OutputStream outputStream) {
+        output = new TracedOutputStream(outputStream);
+        return output;
+    }
+
+    /**
+     * Create a MessageReader which traces every message read from the given reader.
+     *
+     * @param reader The reader.
+     *
+     * @return The traced reader.
+     */
+    public MessageReader createReader(MessageReader reader) { return new TracingReader(reader, tracer, input); }
+
+    /**
+     * Create a MessageWriter which traces every message written to the given writer.
+     *
+     * @param writer The writer.
+     *
+     * @return The traced writer.
+     */
+    public MessageWriter createWriter(MessageWriter writer) { return new TracingWriter(writer, tracer, output); }
+
+    public MessageTracer getTracer() { return tracer; }
+}
@@ -0,0 +1,74 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * The times at which a single message passed through each stage of a Connection, as recorded by a SamplingTracer.
+ *
+ * @author Caleb Brinkman
+ */
+public class MessageTimeline
+{
+    private static final TraceStage[] STAGES = TraceStage.values();
+    private final Message message;
+    private final long[] nanos = new long[STAGES.length];
+    private final boolean[] reached = new boolean[STAGES.length];
+
+    MessageTimeline(Message message) { this.message = message; }
+
+    /**
+     * Get the type of the traced message.
+     *
+     * @return The class of the message.
+     */
+    public Class<? extends Message> getMessageType() { return message.getClass(); }
+
+    /**
+     * Determine whether the message passed through the given stage.
+     *
+     * @param stage The stage.
+     *
+     * @return Whether the message passed through the stage.
+     */
+    public boolean hasStage(TraceStage stage) { return reached[stage.ordinal()]; }
+
+    /**
+     * Get the time at which the message passed through the given stage.
+     *
+     * @param stage The stage.
+     *
+     * @return The time, as given by {@link System#nanoTime()}.
+     *
+     * @throws IllegalArgumentException If the message did not pass through the stage.
+     */
+    public long getNanos(TraceStage stage) {
+        if (!hasStage(stage)) {
+            throw new IllegalArgumentException("Message did not pass through stage " + stage);
+        }
+        return nanos[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(message.getClass().getName());
+        long first = 0;
+        boolean started = false;
+        for (TraceStage stage : STAGES) {
+            if (reached[stage.ordinal()]) {
+                if (!started) {
+                    first = nanos[stage.ordinal()];
+                    started = true;
+                }
+                builder.append(' ').append(stage).append("=+").append(nanos[stage.ordinal()] - first).append("ns");
+            }
+        }
+        return builder.toString();
+    }
+
+    Message getMessage() { return message; }
+
+    void record(TraceStage stage, long time) {
+        nanos[stage.ordinal()] = time;
+        reached[stage.ordinal()] = true;
+    }
+}
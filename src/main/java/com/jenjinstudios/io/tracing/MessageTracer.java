@@ -0,0 +1,26 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Receives a timestamp each time a Message passes through a stage of a Connection, so that the latency of each message
+ * can be broken down by stage.
+ * <p>
+ * Tracers are invoked on the threads which read, execute and write messages, and should return quickly; a Connection
+ * built without a tracer does not take any timestamps.  A message replaced by an interceptor is traced from then on
+ * as the message which replaced it.
+ *
+ * @author Caleb Brinkman
+ */
+@FunctionalInterface
+public interface MessageTracer
+{
+    /**
+     * Invoked when a message passes through a stage.
+     *
+     * @param message The message.
+     * @param stage The stage.
+     * @param nanos The time at which the message passed through the stage, as given by {@link System#nanoTime()}.
+     */
+    void trace(Message message, TraceStage stage, long nanos);
+}
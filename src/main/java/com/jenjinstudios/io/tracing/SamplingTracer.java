@@ -0,0 +1,103 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A MessageTracer which records the complete timeline of a sample of messages in a ring buffer, from which the most
+ * recent timelines can be retrieved or dumped when latency spikes.
+ * <p>
+ * Messages are sampled by identity hash, so deciding whether a message is sampled costs neither a lock nor an
+ * allocation.  The timelines of sampled messages are held in a fixed table while they pass through a connection, and
+ * moved to the ring buffer once the message has been executed or written; a timeline which is displaced from the table
+ * before then, such as that of a message dropped by a rate limiter, is discarded.
+ *
+ * @author Caleb Brinkman
+ */
+public class SamplingTracer implements MessageTracer
+{
+    private final int sampleInterval;
+    private final AtomicReferenceArray<MessageTimeline> inFlight;
+    private final AtomicReferenceArray<MessageTimeline> ring;
+    private final AtomicLong recorded = new AtomicLong(0);
+
+    /**
+     * Construct a new SamplingTracer.
+     *
+     * @param sampleInterval One in this many messages is sampled; 1 to sample every message.
+     * @param capacity The number of completed timelines which are retained.
+     *
+     * @throws IllegalArgumentException If the interval or capacity is not positive.
+     */
+    public SamplingTracer(int sampleInterval, int capacity) {
+        if ((sampleInterval <= 0) || (capacity <= 0)) {
+            throw new IllegalArgumentException("Sample interval and capacity must be positive");
+        }
+        this.sampleInterval = sampleInterval;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.inFlight = new AtomicReferenceArray<>(Integer.highestOneBit(capacity) << 1);
+    }
+
+    @Override
+    public void trace(Message message, TraceStage stage, long nanos) {
+        int hash = System.identityHashCode(message) & Integer.MAX_VALUE;
+        if ((hash % sampleInterval) != 0) {
+            return;
+        }
+        int slot = (hash / sampleInterval) & (inFlight.length() - 1);
+        MessageTimeline timeline = inFlight.get(slot);
+        if ((timeline == null) || (timeline.getMessage() != message)) {
+            timeline = new MessageTimeline(message);
+            inFlight.set(slot, timeline);
+        }
+        timeline.record(stage, nanos);
+        if (((stage == TraceStage.EXECUTION_END) || (stage == TraceStage.WRITTEN))
+              && inFlight.compareAndSet(slot, timeline, null))
+        {
+            ring.set((int) (recorded.getAndIncrement() % ring.length()), timeline);
+        }
+    }
+
+    /**
+     * Get the retained timelines, oldest first.
+     *
+     * @return The timelines.
+     */
+    public List<MessageTimeline> getTimelines() {
+        long end = recorded.get();
+        long start = Math.max(0, end - ring.length());
+        List<MessageTimeline> timelines = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            MessageTimeline timeline = ring.get((int) (i % ring.length()));
+            if (timeline != null) {
+                timelines.add(timeline);
+            }
+        }
+        return timelines;
+    }
+
+    /**
+     * Write the retained timelines, oldest first and one per line, to the given destination.
+     *
+     * @param out The destination.
+     *
+     * @throws IOException If there is an error writing to the destination.
+     */
+    public void dump(Appendable out) throws IOException {
+        for (MessageTimeline timeline : getTimelines()) {
+            out.append(timeline.toString()).append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Get the number of timelines which have been completed, including those no longer retained.
+     *
+     * @return The number of completed timelines.
+     */
+    public long getRecordedCount() { return recorded.get(); }
+}
@@ -0,0 +1,24 @@
+package com.jenjinstudios.io.tracing;
+
+/**
+ * The stages through which a Message passes on its way into or out of a Connection, in the order in which they occur.
+ *
+ * @author Caleb Brinkman
+ */
+public enum TraceStage
+{
+    /** The last bytes of an incoming message have been read from the stream. */
+    FRAME_READ,
+    /** An incoming message has been decoded. */
+    DECODED,
+    /** An incoming message has been added to the incoming queue. */
+    ENQUEUED,
+    /** An incoming message has been taken from the queue, and is about to be executed. */
+    EXECUTION_START,
+    /** An incoming message has been executed; for asynchronous messages, its future has completed. */
+    EXECUTION_END,
+    /** An outgoing message has been encoded, and its first bytes written to the stream. */
+    ENCODED,
+    /** An outgoing message has been completely written to the stream. */
+    WRITTEN
+}
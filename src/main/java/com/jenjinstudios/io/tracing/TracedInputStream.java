@@ -0,0 +1,38 @@
+package com.jenjinstudios.io.tracing;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream which records when bytes were last read through it, so that the time at which a message arrived can
+ * be told apart from the time at which it was decoded.
+ *
+ * @author Caleb Brinkman
+ */
+class TracedInputStream extends FilterInputStream
+{
+    private volatile long lastReadNanos;
+
+    TracedInputStream(InputStream in) { super(in); }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            lastReadNanos = System.nanoTime();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            lastReadNanos = System.nanoTime();
+        }
+        return read;
+    }
+
+    long getLastReadNanos() { return lastReadNanos; }
+}
@@ -0,0 +1,41 @@
+package com.jenjinstudios.io.tracing;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream which records when bytes were first written through it since each message was begun, so that the
+ * time taken to encode a message can be told apart from the time taken to write it.
+ *
+ * @author Caleb Brinkman
+ */
+class TracedOutputStream extends FilterOutputStream
+{
+    private long firstWriteNanos;
+
+    TracedOutputStream(OutputStream out) { super(out); }
+
+    @Override
+    public void write(int b) throws IOException {
+        written();
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        written();
+        out.write(b, off, len);
+    }
+
+    // Only invoked while the TracingWriter holds its lock, so the time is never updated concurrently
+    void startMessage() { firstWriteNanos = 0; }
+
+    long getFirstWriteNanos() { return firstWriteNanos; }
+
+    private void written() {
+        if (firstWriteNanos == 0) {
+            firstWriteNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageReader;
+
+import java.io.IOException;
+
+/**
+ * Traces the arrival and decoding of every message read from a MessageReader.  If the stream beneath the reader is not
+ * traced, only the {@code DECODED} stage is reported.
+ *
+ * @author Caleb Brinkman
+ */
+class TracingReader implements MessageReader
+{
+    private final MessageReader reader;
+    private final MessageTracer tracer;
+    private final TracedInputStream input;
+
+    TracingReader(MessageReader reader, MessageTracer tracer, TracedInputStream input) {
+        this.reader = reader;
+        this.tracer = tracer;
+        this.input = input;
+    }
+
+    @Override
+    public Message read() throws IOException {
+        long start = System.nanoTime();
+        Message message = reader.read();
+        long decoded = System.nanoTime();
+        if (input != null) {
+            tracer.trace(message, TraceStage.FRAME_READ, Math.max(start, input.getLastReadNanos()));
+        }
+        tracer.trace(message, TraceStage.DECODED, decoded);
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
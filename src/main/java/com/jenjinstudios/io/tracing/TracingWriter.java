@@ -0,0 +1,42 @@
+package com.jenjinstudios.io.tracing;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.IOException;
+
+/**
+ * Traces the encoding and writing of every message written to a MessageWriter.  If the stream beneath the writer is
+ * not traced, only the {@code WRITTEN} stage is reported.
+ *
+ * @author Caleb Brinkman
+ */
+class TracingWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final MessageTracer tracer;
+    private final TracedOutputStream output;
+
+    TracingWriter(MessageWriter writer, MessageTracer tracer, TracedOutputStream output) {
+        this.writer = writer;
+        this.tracer = tracer;
+        this.output = output;
+    }
+
+    // Synchronized so that the bytes written are attributed to the right message
+    @Override
+    public synchronized void write(Message message) throws IOException {
+        if (output != null) {
+            output.startMessage();
+        }
+        writer.write(message);
+        long written = System.nanoTime();
+        if ((output != null) && (output.getFirstWriteNanos() != 0)) {
+            tracer.trace(message, TraceStage.ENCODED, output.getFirstWriteNanos());
+        }
+        tracer.trace(message, TraceStage.WRITTEN, written);
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
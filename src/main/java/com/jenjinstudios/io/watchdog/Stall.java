@@ -0,0 +1,66 @@
+package com.jenjinstudios.io.watchdog;
+
+import com.jenjinstudios.io.Message;
+
+/**
+ * Describes an execution or write which exceeded the threshold of a Watchdog.
+ *
+ * @author Caleb Brinkman
+ */
+public class Stall
+{
+    private final String connectionId;
+    private final WatchedActivity activity;
+    private final Class<? extends Message> messageType;
+    private final long elapsedNanos;
+    private final String threadName;
+    private final StackTraceElement[] stackTrace;
+
+    Stall(
+          String connectionId,
+          WatchedActivity activity,
+          Class<? extends Message> messageType,
+          long elapsedNanos,
+          String threadName,
+          StackTraceElement[] stackTrace)
+    {
+        this.connectionId = connectionId;
+        this.activity = activity;
+        this.messageType = messageType;
+        this.elapsedNanos = elapsedNanos;
+        this.threadName = threadName;
+        this.stackTrace = stackTrace;
+    }
+
+    public String getConnectionId() { return connectionId; }
+
+    public WatchedActivity getActivity() { return activity; }
+
+    public Class<? extends Message> getMessageType() { return messageType; }
+
+    /**
+     * Get how long the execution or write had been running when the stall was detected.
+     *
+     * @return The elapsed time, in nanoseconds.
+     */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public String getThreadName() { return threadName; }
+
+    /**
+     * Get the stack trace of the stalled thread, taken when the stall was detected.
+     *
+     * @return The stack trace; empty if the thread had already moved on.
+     */
+    public StackTraceElement[] getStackTrace() { return stackTrace.clone(); }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(activity + " of " + messageType.getName() + " on connection "
+              + connectionId + " has run for " + (elapsedNanos / 1000000) + "ms on thread " + threadName);
+        for (StackTraceElement element : stackTrace) {
+            builder.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.jenjinstudios.io.watchdog;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+import com.jenjinstudios.io.connection.Connection;
+
+/**
+ * The in-flight execution and write of a single connection, as timed by a Watchdog.
+ *
+ * @author Caleb Brinkman
+ */
+public class Watch
+{
+    private volatile Connection connection;
+    private volatile InFlight execution;
+    private volatile InFlight write;
+
+    Watch() { }
+
+    /**
+     * Create a MessageWriter which times every message written to the given writer.
+     *
+     * @param writer The writer.
+     *
+     * @return The watched writer.
+     */
+    public MessageWriter createWriter(MessageWriter writer) { return new WatchWriter(writer, this); }
+
+    /**
+     * Begin timing the execution of the given message, on the current thread.
+     *
+     * @param message The message; the first message of a batch if a batch is executed.
+     */
+    public void executing(Message message) { execution = new InFlight(message); }
+
+    /**
+     * Stop timing the execution begun by {@link #executing(Message)}.
+     */
+    public void executed() { execution = null; }
+
+    public Connection getConnection() { return connection; }
+
+    void attach(Connection connection) { this.connection = connection; }
+
+    void writing(Message message) { write = new InFlight(message); }
+
+    void written() { write = null; }
+
+    /**
+     * Report the execution or write in flight for longer than the threshold, if any has not already been reported.
+     *
+     * @param now The current time, in nanoseconds.
+     * @param threshold The threshold, in nanoseconds.
+     *
+     * @return The stall; null if there is none to report.
+     */
+    Stall check(long now, long threshold) {
+        Stall stall = check(execution, WatchedActivity.EXECUTION, now, threshold);
+        return (stall != null) ? stall : check(write, WatchedActivity.WRITE, now, threshold);
+    }
+
+    private Stall check(InFlight inFlight, WatchedActivity activity, long now, long threshold) {
+        if ((inFlight == null) || inFlight.reported || ((now - inFlight.start) <= threshold)) {
+            return null;
+        }
+        inFlight.reported = true;
+        StackTraceElement[] stackTrace = inFlight.thread.getStackTrace();
+        // The stack trace is only meaningful if the thread is still busy with the same message
+        if ((inFlight != execution) && (inFlight != write)) {
+            stackTrace = new StackTraceElement[0];
+        }
+        return new Stall(connection.getId(), activity, inFlight.message.getClass(), now - inFlight.start,
+              inFlight.thread.getName(), stackTrace);
+    }
+
+    private static class InFlight
+    {
+        private final Message message;
+        private final Thread thread = Thread.currentThread();
+        private final long start = System.nanoTime();
+        // Only accessed from the watchdog thread
+        private boolean reported;
+
+        InFlight(Message message) { this.message = message; }
+    }
+}
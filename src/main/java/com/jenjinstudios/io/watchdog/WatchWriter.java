@@ -0,0 +1,35 @@
+package com.jenjinstudios.io.watchdog;
+
+import com.jenjinstudios.io.Message;
+import com.jenjinstudios.io.MessageWriter;
+
+import java.io.IOException;
+
+/**
+ * Times every message written to a MessageWriter on behalf of a Watch.
+ *
+ * @author Caleb Brinkman
+ */
+class WatchWriter implements MessageWriter
+{
+    private final MessageWriter writer;
+    private final Watch watch;
+
+    WatchWriter(MessageWriter writer, Watch watch) {
+        this.writer = writer;
+        this.watch = watch;
+    }
+
+    @Override
+    public void write(Message message) throws IOException {
+        watch.writing(message);
+        try {
+            writer.write(message);
+        } finally {
+            watch.written();
+        }
+    }
+
+    @Override
+    public void close() throws IOException { writer.close(); }
+}
@@ -0,0 +1,157 @@
+package com.jenjinstudios.io.watchdog;
+
+import com.jenjinstudios.io.connection.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Watches the executions and writes of many connections from a single timer thread, and reports any which run for
+ * longer than a threshold, along with the type of the message, the ID of the connection and the stack trace of the
+ * stalled thread.
+ * <p>
+ * A connection executes its messages one at a time, so a single message which hangs delays every message behind it;
+ * each stall is reported once, while it is still in progress.  Optionally, the offending connection is quarantined:
+ * it is stopped, which interrupts its threads, closes its streams and invokes its shutdown callbacks, so a Server will
+ * remove it as usual.
+ *
+ * @author Caleb Brinkman
+ */
+public class Watchdog
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Watchdog.class);
+    private static final int TICKS_PER_THRESHOLD = 4;
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>(10);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong stallCount = new AtomicLong(0);
+    private final AtomicLong quarantinedCount = new AtomicLong(0);
+    private final long threshold;
+    private final Consumer<Stall> callback;
+    private final boolean quarantine;
+
+    /**
+     * Construct a new Watchdog which reports stalls to the given callback.
+     *
+     * @param threshold The amount of time an execution or write may run before it is reported.
+     * @param timeUnit The unit of {@code threshold}.
+     * @param callback Invoked, on the timer thread, with each stall.
+     */
+    public Watchdog(long threshold, TimeUnit timeUnit, Consumer<Stall> callback) {
+        this(threshold, timeUnit, callback, false);
+    }
+
+    /**
+     * Construct a new Watchdog which reports stalls to the given callback, and optionally quarantines the connections
+     * in which they occur.
+     *
+     * @param threshold The amount of time an execution or write may run before it is reported.
+     * @param timeUnit The unit of {@code threshold}.
+     * @param callback Invoked, on the timer thread, with each stall.
+     * @param quarantine Whether connections in which a stall occurs should be stopped.
+     *
+     * @throws IllegalArgumentException If {@code threshold} is not positive.
+     */
+    public Watchdog(long threshold, TimeUnit timeUnit, Consumer<Stall> callback, boolean quarantine) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = timeUnit.toNanos(threshold);
+        this.callback = callback;
+        this.quarantine = quarantine;
+    }
+
+    /**
+     * Start watching registered connections.
+     */
+    public void start() {
+        long tick = Math.max(threshold / TICKS_PER_THRESHOLD, 1);
+        timer.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop watching connections.
+     */
+    public void stop() { timer.shutdownNow(); }
+
+    /**
+     * Create the watch for a new connection.  The writer of the connection should be wrapped using {@link
+     * Watch#createWriter}, and the connection attached with {@link #attach} once it has been built.
+     *
+     * @return The new Watch.
+     */
+    public Watch createWatch() { return new Watch(); }
+
+    /**
+     * Begin watching the given connection.
+     *
+     * @param watch The watch created for the connection.
+     * @param connection The connection.
+     */
+    public void attach(Watch watch, Connection connection) {
+        watch.attach(connection);
+        watches.put(connection.getId(), watch);
+    }
+
+    /**
+     * Stop watching the given connection.  This is invoked automatically when a Connection built by a
+     * ConnectionBuilder using this Watchdog is shut down.
+     *
+     * @param connection The connection.
+     */
+    public void detach(Connection connection) { watches.remove(connection.getId()); }
+
+    public int getConnectionCount() { return watches.size(); }
+
+    /**
+     * Get the number of stalls which have been reported.
+     *
+     * @return The number of stalls.
+     */
+    public long getStallCount() { return stallCount.get(); }
+
+    /**
+     * Get the number of connections which have been stopped because a stall occurred in them.
+     *
+     * @return The number of quarantined connections.
+     */
+    public long getQuarantinedCount() { return quarantinedCount.get(); }
+
+    void tick() {
+        long now = System.nanoTime();
+        watches.values().forEach(watch -> {
+            Stall stall = watch.check(now, threshold);
+            if (stall != null) {
+                stallCount.incrementAndGet();
+                report(stall);
+                if (quarantine && watches.remove(stall.getConnectionId(), watch)) {
+                    LOGGER.warn("Quarantining connection {}", stall.getConnectionId());
+                    quarantinedCount.incrementAndGet();
+                    stop(watch.getConnection());
+                }
+            }
+        });
+    }
+
+    private void report(Stall stall) {
+        try {
+            callback.accept(stall);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Exception when reporting stall", e);
+        }
+    }
+
+    private static void stop(Connection connection) {
+        try {
+            connection.stop();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Exception when stopping quarantined connection", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.jenjinstudios.io.watchdog;
+
+/**
+ * The activities of a Connection which are timed by a Watchdog.
+ *
+ * @author Caleb Brinkman
+ */
+public enum WatchedActivity
+{
+    /** Executing an incoming message, or a batch of them. */
+    EXECUTION,
+    /** Encoding and writing an outgoing message. */
+    WRITE
+}
@@ -0,0 +1,134 @@
+package com.jenjinstudios.io
+
+import com.jenjinstudios.io.concurrency.ExecutionTask
+import com.jenjinstudios.io.concurrency.MessageQueue
+import com.jenjinstudios.io.serialization.GsonMessageReader
+import com.jenjinstudios.io.serialization.GsonMessageWriter
+import com.jenjinstudios.io.serialization.TestMessage
+import groovy.transform.CompileStatic
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.lang.management.ManagementFactory
+
+/**
+ * Guards the bytes allocated per message by each stage of the hot path, so that an allocation regression fails the
+ * build rather than showing up as garbage collection pauses.
+ * <p>
+ * Each stage is measured with the allocation counter of the current thread, after a warm-up pass, and the cost of
+ * reading the counter itself is subtracted.  The measuring loops are statically compiled so that they add no
+ * allocations of their own.
+ *
+ * @author Caleb Brinkman
+ */
+@Requires({ AllocationBudgetSpec.allocationMeasurable() })
+class AllocationBudgetSpec extends Specification
+{
+    private static final int ITERATIONS = 2000
+
+    @Unroll
+    def "Each stage of the hot path should stay within its allocation budget for #description messages"() {
+        given: "A frame of the message, and a reader, queue, execution task and writer"
+            def frame = new ByteArrayOutputStream()
+            new GsonMessageWriter(frame).write(message)
+            def input = new ByteArrayInputStream(frame.toByteArray())
+            def reader = new GsonMessageReader(input)
+            def queue = new MessageQueue()
+            def task = new ExecutionTask(queue, Mock(ExecutionContext), [])
+            def output = new ByteArrayOutputStream(frame.size())
+            def writer = new GsonMessageWriter(output)
+
+        when: "Each stage is measured once to warm up and once more to record"
+            def read = measure { readBytes(reader, input) }
+            def queued = measure { queueBytes(queue, message) }
+            def executed = measure { executeBytes(queue, task, message) }
+            def written = measure { writeBytes(writer, output, message) }
+
+        then: "No stage allocates more than its budget per message"
+            read <= readBudget
+            queued <= queueBudget
+            executed <= executeBudget
+            written <= writeBudget
+
+        where:
+            description | message                           | readBudget | queueBudget | executeBudget | writeBudget
+            "small"     | new TestMessage(name: "Foo")      | 9216       | 128         | 1024          | 3072
+            "large"     | new TestMessage(name: "x" * 4096) | 65536      | 128         | 1024          | 49152
+    }
+
+    static boolean allocationMeasurable() {
+        def threads = ManagementFactory.threadMXBean
+        threads instanceof com.sun.management.ThreadMXBean && threads.threadAllocatedMemorySupported &&
+              threads.threadAllocatedMemoryEnabled
+    }
+
+    private static long measure(Closure<Long> stage) {
+        stage.call()
+        stage.call()
+    }
+
+    @CompileStatic
+    private static long readBytes(MessageReader reader, ByteArrayInputStream input) {
+        long total = 0
+        for (int i = 0; i < ITERATIONS; i++) {
+            input.reset()
+            long before = allocatedBytes()
+            reader.read()
+            total += allocatedBytes() - before
+        }
+        perMessage(total)
+    }
+
+    @CompileStatic
+    private static long queueBytes(MessageQueue queue, Message message) {
+        long total = 0
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = allocatedBytes()
+            queue.messageReceived(message)
+            total += allocatedBytes() - before
+            queue.getIncomingAndClear()
+        }
+        perMessage(total)
+    }
+
+    @CompileStatic
+    private static long executeBytes(MessageQueue queue, ExecutionTask task, Message message) {
+        long total = 0
+        for (int i = 0; i < ITERATIONS; i++) {
+            queue.messageReceived(message)
+            long before = allocatedBytes()
+            task.run()
+            total += allocatedBytes() - before
+        }
+        perMessage(total)
+    }
+
+    @CompileStatic
+    private static long writeBytes(MessageWriter writer, ByteArrayOutputStream output, Message message) {
+        long total = 0
+        for (int i = 0; i < ITERATIONS; i++) {
+            output.reset()
+            long before = allocatedBytes()
+            writer.write(message)
+            total += allocatedBytes() - before
+        }
+        perMessage(total)
+    }
+
+    @CompileStatic
+    private static long perMessage(long total) {
+        long overhead = 0
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = allocatedBytes()
+            overhead += allocatedBytes() - before
+        }
+        Math.max(0L, (total - overhead).intdiv(ITERATIONS).longValue())
+    }
+
+    @CompileStatic
+    private static long allocatedBytes() {
+        def threads = (com.sun.management.ThreadMXBean) ManagementFactory.threadMXBean
+        threads.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+}
@@ -0,0 +1,86 @@
+package com.jenjinstudios.io.authentication
+
+import com.jenjinstudios.io.ExecutionContext
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+
+/**
+ * Specification and test for the AsyncAuthenticatorAdapter class.
+ *
+ * @author Caleb Brinkman
+ */
+class AsyncAuthenticatorAdapterSpec extends Specification {
+    def "AsyncAuthenticatorAdapter should coalesce lookups made while the pool is busy into one bulk lookup"() {
+        given:
+            def release = new CountDownLatch(1)
+            def authenticator = Mock(Authenticator)
+            authenticator.authenticate(*_) >> { release.await(); true }
+            def adapter = new AsyncAuthenticatorAdapter(authenticator, 1, 10, 10)
+            def context = Mock(ExecutionContext)
+
+        when:
+            def login = adapter.authenticate(context, "a", "password")
+            def exists = ["a", "b", "c"].collect { adapter.userExists(it) }
+            release.countDown()
+            def results = exists*.get()
+
+        then:
+            1 * authenticator.usersExist(["a", "b", "c"]) >> [true, false, true]
+            results == [true, false, true]
+            login.get()
+
+        cleanup:
+            adapter.close()
+    }
+
+    def "AsyncAuthenticatorAdapter should reject calls when its queue is full"() {
+        given:
+            def release = new CountDownLatch(1)
+            def authenticator = Mock(Authenticator)
+            authenticator.isAuthenticated(_) >> { release.await(); true }
+            def adapter = new AsyncAuthenticatorAdapter(authenticator, 1, 1, 10)
+
+        when:
+            def running = adapter.isAuthenticated("a")
+            def queued = adapter.isAuthenticated("b")
+            def rejected = adapter.passwordValid("c", "password")
+            release.countDown()
+            rejected.get()
+
+        then:
+            def e = thrown(ExecutionException)
+            e.cause instanceof AuthenticationException
+            running.get()
+            queued.get()
+
+        cleanup:
+            adapter.close()
+    }
+
+    def "AsyncAuthenticatorAdapter should reject lookups when too many are waiting to be coalesced"() {
+        given:
+            def release = new CountDownLatch(1)
+            def authenticator = Mock(Authenticator)
+            authenticator.usersExist(_) >> { args -> release.await(); args[0].collect { true } }
+            def adapter = new AsyncAuthenticatorAdapter(authenticator, 1, 2, 10)
+
+        when:
+            def running = adapter.userExists("a")
+            Thread.sleep(100)
+            def waiting = ["b", "c"].collect { adapter.userExists(it) }
+            def rejected = adapter.userExists("d")
+            release.countDown()
+            rejected.get()
+
+        then:
+            def e = thrown(ExecutionException)
+            e.cause instanceof AuthenticationException
+            running.get()
+            waiting*.get() == [true, true]
+
+        cleanup:
+            adapter.close()
+    }
+}
@@ -0,0 +1,116 @@
+package com.jenjinstudios.io.authentication
+
+import com.jenjinstudios.io.ExecutionContext
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+/**
+ * Specification and test for the CachingAuthenticator class.
+ *
+ * @author Caleb Brinkman
+ */
+class CachingAuthenticatorSpec extends Specification {
+    def "CachingAuthenticator should answer repeated lookups from the cache until they expire"() {
+        given:
+            def now = 0L
+            def authenticator = Mock(Authenticator)
+            def caching = new CachingAuthenticator(authenticator, 10, 10, 1, TimeUnit.NANOSECONDS,
+                  { now } as LongSupplier)
+
+        when:
+            def results = (1..3).collect { [caching.userExists("a"), caching.passwordValid("a", "wrong")] }
+
+        then:
+            1 * authenticator.userExists("a") >> true
+            1 * authenticator.credentialsValid("a", [(Authenticator.PASSWORD): "wrong"]) >> false
+            results.every { it == [true, false] }
+            caching.hitCount == 4
+            caching.missCount == 2
+
+        when:
+            now = 5L
+            caching.userExists("a")
+            caching.passwordValid("a", "wrong")
+
+        then:
+            0 * authenticator.userExists(_)
+            1 * authenticator.credentialsValid(*_) >> false
+    }
+
+    def "CachingAuthenticator should pass every bulk lookup missed by the cache on in a single bulk lookup"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def caching = new CachingAuthenticator(authenticator)
+            def good = [(Authenticator.PASSWORD): "good"]
+            def bad = [(Authenticator.PASSWORD): "bad"]
+
+        when:
+            caching.userExists("a")
+            caching.credentialsValid("a", good)
+            def exist = caching.usersExist(["a", "b", "c"])
+            def valid = caching.credentialsValid(["a", "b", "c"], [good, bad, good])
+
+        then:
+            1 * authenticator.userExists("a") >> true
+            1 * authenticator.credentialsValid("a", good) >> true
+            1 * authenticator.usersExist(["b", "c"]) >> [true, false]
+            1 * authenticator.credentialsValid(["b", "c"], [bad, good]) >> [false, true]
+            exist == [true, true, false]
+            valid == [true, false, true]
+            caching.hitCount == 2
+            caching.missCount == 6
+
+        when:
+            exist = caching.usersExist(["c", "b", "a"])
+            valid = caching.credentialsValid(["c", "b", "a"], [good, bad, good])
+
+        then:
+            0 * authenticator._
+            exist == [false, true, true]
+            valid == [true, false, true]
+            caching.hitCount == 8
+    }
+
+    def "CachingAuthenticator should invalidate the results for a user when the user is authenticated"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def caching = new CachingAuthenticator(authenticator)
+            def context = Mock(ExecutionContext)
+
+        when:
+            caching.isAuthenticated("a")
+            caching.isAuthenticated("b")
+
+        then:
+            1 * authenticator.isAuthenticated("a") >> false
+            1 * authenticator.isAuthenticated("b") >> false
+
+        when:
+            caching.authenticate(context, "a", "password")
+            def a = caching.isAuthenticated("a")
+            def b = caching.isAuthenticated("b")
+
+        then:
+            1 * authenticator.authenticate(context, "a", _) >> true
+            1 * authenticator.isAuthenticated("a") >> true
+            0 * authenticator.isAuthenticated("b")
+            a
+            !b
+    }
+
+    def "CachingAuthenticator should evict the least recently used user when full"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def caching = new CachingAuthenticator(authenticator, 1, 1, 1, TimeUnit.MINUTES)
+
+        when:
+            ["a", "b", "a"].each { caching.userExists(it) }
+
+        then:
+            2 * authenticator.userExists("a") >> true
+            1 * authenticator.userExists("b") >> true
+            caching.evictionCount == 2
+    }
+}
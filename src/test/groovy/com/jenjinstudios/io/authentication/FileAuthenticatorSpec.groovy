@@ -0,0 +1,164 @@
+package com.jenjinstudios.io.authentication
+
+import com.jenjinstudios.io.ExecutionContext
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+
+/**
+ * Specification and test for the FileAuthenticator class.
+ *
+ * @author Caleb Brinkman
+ */
+class FileAuthenticatorSpec extends Specification {
+    def file = Files.createTempFile("users", ".log")
+
+    def cleanup() {
+        Files.deleteIfExists(file)
+    }
+
+    def "FileAuthenticator should authenticate users with valid passwords and populate their data"() {
+        given:
+            def mapper = Mock(UserDataMapper)
+            def authenticator = new FileAuthenticator(file, mapper, 1, 1)
+            def context = Mock(ExecutionContext)
+            authenticator.createUser("a", "password", [level: "1"])
+
+        when:
+            def wrong = authenticator.authenticate(context, "a", "wrong")
+            def unknown = authenticator.async().authenticate(context, "b", "password").get()
+            def right = authenticator.async().authenticate(context, "a", "password").get()
+
+        then:
+            1 * mapper.populate(context, "a", [level: "1"])
+            !wrong
+            !unknown
+            right
+            authenticator.isAuthenticated("a")
+
+        cleanup:
+            authenticator.close()
+    }
+
+    def "FileAuthenticator should populate the context on the calling thread when authenticating synchronously"() {
+        given:
+            def threads = []
+            def mapper = [populate: { context, id, data -> threads << Thread.currentThread() }] as UserDataMapper
+            def authenticator = new FileAuthenticator(file, mapper, 1, 1)
+            authenticator.createUser("a", "password", [:])
+
+        when:
+            def authenticated = authenticator.authenticate(Mock(ExecutionContext), "a", "password")
+
+        then:
+            authenticated
+            threads == [Thread.currentThread()]
+
+        cleanup:
+            authenticator.close()
+    }
+
+    def "FileAuthenticator should not upgrade a password hash which was changed after it was verified"() {
+        given:
+            def authenticator = new FileAuthenticator(file, Mock(UserDataMapper), 1, 1)
+            authenticator.createUser("a", "old", [:])
+            def verified = authenticator.users["a"].hash
+
+        when:
+            authenticator.setPassword("a", "new")
+            authenticator.rehash("a", "old", verified).get()
+
+        then:
+            authenticator.credentialsValid("a", [(Authenticator.PASSWORD): "new"])
+            !authenticator.credentialsValid("a", [(Authenticator.PASSWORD): "old"])
+
+        cleanup:
+            authenticator.close()
+    }
+
+    def "FileAuthenticator should discard a partly written record so that later records survive a reload"() {
+        given:
+            def authenticator = new FileAuthenticator(file, Mock(UserDataMapper), 1, 1)
+            def channel = authenticator.channel
+            authenticator.createUser("a", "password", [:])
+            authenticator.channel = [
+                  write   : { ByteBuffer buffer ->
+                      buffer.limit(buffer.position() + 3)
+                      channel.write(buffer)
+                      throw new IOException("Disk full")
+                  },
+                  position: { Object[] args -> args ? channel.position(args[0] as long) : channel.position() },
+                  truncate: { long size -> channel.truncate(size) }
+            ] as FileChannel
+
+        when:
+            authenticator.createUser("b", "password", [:])
+
+        then:
+            thrown(AuthenticationException)
+
+        when:
+            authenticator.channel = channel
+            authenticator.createUser("c", "password", [:])
+            authenticator.close()
+            def reloaded = new FileAuthenticator(file, Mock(UserDataMapper), 1, 1)
+
+        then:
+            reloaded.userExists("a")
+            !reloaded.userExists("b")
+            reloaded.userExists("c")
+
+        cleanup:
+            reloaded?.close()
+    }
+
+    def "FileAuthenticator should reload users and their latest data from the file"() {
+        given:
+            def mapper = Mock(UserDataMapper)
+            mapper.extract(_) >> [level: "2"]
+            def authenticator = new FileAuthenticator(file, mapper, 1, 1)
+            authenticator.createUser("a", "password", [level: "1"])
+            authenticator.createUser("b", "password", [:])
+            authenticator.update(Mock(ExecutionContext), "a")
+            authenticator.deleteUser("b")
+            authenticator.close()
+
+        when:
+            def reloaded = new FileAuthenticator(file, mapper, 1, 1)
+            reloaded.populate(Mock(ExecutionContext), "a")
+
+        then:
+            1 * mapper.populate(_, "a", [level: "2"])
+            reloaded.passwordValid("a", "password")
+            !reloaded.userExists("b")
+            reloaded.deadRecordCount == 3
+
+        cleanup:
+            reloaded.close()
+    }
+
+    def "FileAuthenticator should discard superseded records when compacted, and a torn record when loaded"() {
+        given:
+            def authenticator = new FileAuthenticator(file, Mock(UserDataMapper), 1, 1)
+            authenticator.createUser("a", "password", [:])
+            3.times { authenticator.setPassword("a", "password$it") }
+            def size = Files.size(file)
+
+        when:
+            authenticator.compact()
+            authenticator.close()
+            Files.write(file, [0, 0, 0, 40, 1, 2] as byte[], StandardOpenOption.APPEND)
+            def reloaded = new FileAuthenticator(file, Mock(UserDataMapper), 1, 1)
+
+        then:
+            Files.size(file) == size.intdiv(4)
+            reloaded.passwordValid("a", "password2")
+            reloaded.deadRecordCount == 0
+
+        cleanup:
+            reloaded?.close()
+    }
+}
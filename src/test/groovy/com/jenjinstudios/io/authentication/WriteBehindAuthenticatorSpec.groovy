@@ -0,0 +1,81 @@
+package com.jenjinstudios.io.authentication
+
+import com.jenjinstudios.io.ExecutionContext
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Specification and test for the WriteBehindAuthenticator class.
+ *
+ * @author Caleb Brinkman
+ */
+class WriteBehindAuthenticatorSpec extends Specification {
+    def "WriteBehindAuthenticator should coalesce updates and write them in batches"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def writeBehind = new WriteBehindAuthenticator(authenticator, 10, 1, TimeUnit.HOURS)
+            def a = Mock(ExecutionContext)
+            def b = Mock(ExecutionContext)
+
+        when:
+            [[a, "a"], [b, "b"], [a, "a"]].each { writeBehind.update(it[0], it[1]) }
+
+        then:
+            0 * authenticator.update(*_)
+            0 * authenticator.updateAll(_)
+            writeBehind.backlog == 2
+
+        when:
+            writeBehind.close()
+
+        then:
+            1 * authenticator.updateAll([a: a, b: b])
+            1 * authenticator.close()
+            writeBehind.backlog == 0
+            writeBehind.flushCount == 1
+    }
+
+    def "WriteBehindAuthenticator should flush a waiting write before populating the user"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def writeBehind = new WriteBehindAuthenticator(authenticator, 10, 1, TimeUnit.HOURS)
+            def context = Mock(ExecutionContext)
+            writeBehind.update(context, "a")
+
+        when:
+            writeBehind.populate(context, "a")
+
+        then:
+            1 * authenticator.update(context, "a")
+
+        then:
+            1 * authenticator.populate(context, "a")
+
+        cleanup:
+            writeBehind.close()
+    }
+
+    def "WriteBehindAuthenticator should keep the writes of a failed batch for the next flush"() {
+        given:
+            def authenticator = Mock(Authenticator)
+            def writeBehind = new WriteBehindAuthenticator(authenticator, 10, 1, TimeUnit.HOURS)
+            def context = Mock(ExecutionContext)
+            authenticator.updateAll(_) >> { throw new AuthenticationException("Unavailable") } >> 1
+            writeBehind.update(context, "a")
+
+        when:
+            writeBehind.flush()
+
+        then:
+            thrown(AuthenticationException)
+            writeBehind.backlog == 1
+            writeBehind.failedFlushCount == 1
+
+        when:
+            writeBehind.close()
+
+        then:
+            writeBehind.backlog == 0
+    }
+}
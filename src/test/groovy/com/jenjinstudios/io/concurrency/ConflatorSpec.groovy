@@ -0,0 +1,57 @@
+package com.jenjinstudios.io.concurrency
+
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.annotations.Conflate
+import spock.lang.Specification
+
+/**
+ * Specification and test for the Conflator class
+ *
+ * @author Caleb Brinkman
+ */
+class ConflatorSpec extends Specification {
+
+    def "Conflator should derive keys from the field named by the Conflate annotation"() {
+        given:
+            def conflator = new Conflator()
+
+        expect:
+            conflator.getKey(new KeyedMessage(entity: 1)) == conflator.getKey(new KeyedMessage(entity: 1))
+            conflator.getKey(new KeyedMessage(entity: 1)) != conflator.getKey(new KeyedMessage(entity: 2))
+    }
+
+    def "Conflator should give every message of a class annotated without a key the same key"() {
+        given:
+            def conflator = new Conflator()
+
+        expect:
+            conflator.getKey(new UnkeyedMessage()) != null
+            conflator.getKey(new UnkeyedMessage()) == conflator.getKey(new UnkeyedMessage())
+    }
+
+    def "Conflator should not conflate messages which are neither annotated nor registered"() {
+        given:
+            def conflator = new Conflator()
+
+        expect:
+            conflator.getKey(Mock(Message)) == null
+    }
+
+    def "Conflator should prefer registered key functions over annotations"() {
+        given:
+            def conflator = new Conflator()
+            conflator.add(KeyedMessage, { it.entity % 2 })
+
+        expect:
+            conflator.getKey(new KeyedMessage(entity: 1)) == conflator.getKey(new KeyedMessage(entity: 3))
+    }
+
+    @Conflate(key = "entity")
+    static class KeyedMessage implements Message
+    {
+        int entity
+    }
+
+    @Conflate
+    static class UnkeyedMessage implements Message {}
+}
@@ -0,0 +1,93 @@
+package com.jenjinstudios.io.concurrency
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.Message
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+/**
+ * Specification and test for the ExecutionScheduler class
+ *
+ * @author Caleb Brinkman
+ */
+class ExecutionSchedulerSpec extends Specification {
+
+    def "ExecutionScheduler should not let one backlogged task delay another"() {
+        given: "A task with a large backlog and a task with a single message"
+            def order = Collections.synchronizedList([])
+            def busyQueue = new MessageQueue()
+            1000.times { busyQueue.messageReceived(new RecordingMessage(order, "busy")) }
+            def quietQueue = new MessageQueue()
+            quietQueue.messageReceived(new RecordingMessage(order, "quiet"))
+            def context = Mock(ExecutionContext)
+
+        and: "A single-threaded scheduler executing one message per turn"
+            def scheduler = new ExecutionScheduler(1, 1, 1, TimeUnit.SECONDS)
+            scheduler.register(new ExecutionTask(busyQueue, context, []), 1, Mock(Consumer))
+            scheduler.register(new ExecutionTask(quietQueue, context, []), 1, Mock(Consumer))
+
+        when:
+            scheduler.start()
+            Thread.sleep(200)
+
+        then: "The quiet task should have run long before the busy task finished"
+            order.indexOf("quiet") < 10
+
+        cleanup:
+            scheduler.stop()
+    }
+
+    def "ExecutionScheduler should cancel tasks which throw and report the exception"() {
+        given:
+            def queue = new MessageQueue()
+            def exception = new RuntimeException()
+            def message = Mock(Message)
+            message.execute(_) >> { throw exception }
+            queue.messageReceived(message)
+            def errorHandler = Mock(Consumer)
+            def latch = new CountDownLatch(1)
+            def scheduler = new ExecutionScheduler(1, 1, 1, TimeUnit.SECONDS)
+            scheduler.register(new ExecutionTask(queue, Mock(ExecutionContext), []), 1,
+                  { errorHandler.accept(it); latch.countDown() } as Consumer)
+
+        when:
+            scheduler.start()
+            latch.await(1, TimeUnit.SECONDS)
+
+        then:
+            1 * errorHandler.accept(exception)
+
+        cleanup:
+            scheduler.stop()
+    }
+
+    def "ScheduledExecution should reject weights less than one"() {
+        given:
+            def scheduler = new ExecutionScheduler(1, 1, 1, TimeUnit.SECONDS)
+            def execution = scheduler.register(Mock(ExecutionTask), 1, Mock(Consumer))
+
+        when:
+            execution.weight = 0
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    static class RecordingMessage implements Message {
+        List order
+        String name
+
+        RecordingMessage(List order, String name) {
+            this.order = order
+            this.name = name
+        }
+
+        Message execute(ExecutionContext context) {
+            order << name
+            return null
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.jenjinstudios.io.concurrency
 
+import com.jenjinstudios.io.AsyncMessage
+import com.jenjinstudios.io.BatchHandler
 import com.jenjinstudios.io.ExecutionContext
 import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageInterceptor
 import spock.lang.Specification
 
+import java.util.concurrent.CompletableFuture
 import java.util.function.Consumer
 
 /**
@@ -31,4 +35,155 @@ class ExecutionTaskSpec extends Specification {
             1 * message.execute(context);
             1 * consumer.accept(context);
     }
+
+    def "ExecutionTask should execute at most the given number of messages and leave the rest queued"() {
+        def messageQueue = new MessageQueue()
+        def first = Mock(Message)
+        def second = Mock(Message)
+        def third = Mock(Message)
+        def context = Mock(ExecutionContext)
+        [first, second, third].each { messageQueue.messageReceived(it) }
+
+        def task = new ExecutionTask(messageQueue, context, [])
+
+        when:
+            def executed = task.run(2, Long.MAX_VALUE)
+
+        then:
+            executed == 2
+            1 * first.execute(context)
+            1 * second.execute(context)
+            0 * third.execute(context)
+            task.hasPendingMessages()
+            task.executedCount == 2
+    }
+
+    def "ExecutionTask should hold responses back until earlier asynchronous responses complete"() {
+        def messageQueue = new MessageQueue()
+        def context = Mock(ExecutionContext)
+        def future = new CompletableFuture()
+        def asyncResponse = Mock(Message)
+        def syncResponse = Mock(Message)
+        def asyncMessage = Mock(AsyncMessage)
+        def syncMessage = Mock(Message)
+        asyncMessage.executeAsync(context) >> future
+        syncMessage.execute(context) >> syncResponse
+        [asyncMessage, syncMessage].each { messageQueue.messageReceived(it) }
+
+        def task = new ExecutionTask(messageQueue, context, [], ResponseOrdering.IN_ORDER)
+
+        when:
+            task.run()
+
+        then:
+            messageQueue.outgoingAndClear.isEmpty()
+            task.pendingResponseCount == 2
+
+        when:
+            future.complete(asyncResponse)
+
+        then:
+            messageQueue.outgoingAndClear == [asyncResponse, syncResponse]
+            task.pendingResponseCount == 0
+    }
+
+    def "ExecutionTask should send responses as soon as they are ready when using completion order"() {
+        def messageQueue = new MessageQueue()
+        def context = Mock(ExecutionContext)
+        def future = new CompletableFuture()
+        def asyncResponse = Mock(Message)
+        def syncResponse = Mock(Message)
+        def asyncMessage = Mock(AsyncMessage)
+        def syncMessage = Mock(Message)
+        asyncMessage.executeAsync(context) >> future
+        syncMessage.execute(context) >> syncResponse
+        [asyncMessage, syncMessage].each { messageQueue.messageReceived(it) }
+
+        def task = new ExecutionTask(messageQueue, context, [], ResponseOrdering.COMPLETION_ORDER)
+
+        when:
+            task.run()
+
+        then:
+            messageQueue.outgoingAndClear == [syncResponse]
+
+        when:
+            future.complete(asyncResponse)
+
+        then:
+            messageQueue.outgoingAndClear == [asyncResponse]
+    }
+
+    def "ExecutionTask should report exceptions thrown by asynchronous execution"() {
+        def messageQueue = new MessageQueue()
+        def context = Mock(ExecutionContext)
+        def future = new CompletableFuture()
+        def asyncMessage = Mock(AsyncMessage)
+        def exception = new RuntimeException()
+        asyncMessage.executeAsync(context) >> future
+        messageQueue.messageReceived(asyncMessage)
+
+        def task = new ExecutionTask(messageQueue, context, [])
+
+        when:
+            task.run()
+            future.completeExceptionally(exception)
+
+        then:
+            messageQueue.errorsAndClear == [exception]
+            task.pendingResponseCount == 0
+    }
+
+    def "ExecutionTask should pass runs of consecutive messages with a batch handler to the handler"() {
+        def messageQueue = new MessageQueue()
+        def context = Mock(ExecutionContext)
+        def handler = Mock(BatchHandler)
+        def contextualTaskCount = 0
+        def consumer = { contextualTaskCount++ } as Consumer
+        def first = new TestMessage()
+        def second = new TestMessage()
+        def other = Mock(Message)
+        def third = new TestMessage()
+        def response = Mock(Message)
+        [first, second, other, third].each { messageQueue.messageReceived(it) }
+
+        def task = new ExecutionTask(messageQueue, context, [consumer], ResponseOrdering.IN_ORDER,
+              [(TestMessage): handler], new InterceptorChain())
+
+        when:
+            def executed = task.run(10, Long.MAX_VALUE)
+
+        then:
+            1 * handler.execute(context, [first, second]) >> [response]
+
+        then:
+            1 * other.execute(context)
+
+        then:
+            1 * handler.execute(context, [third])
+            executed == 4
+            contextualTaskCount == 3
+            messageQueue.outgoingAndClear == [response]
+    }
+
+    def "ExecutionTask should not execute messages discarded by an interceptor"() {
+        def messageQueue = new MessageQueue()
+        def context = Mock(ExecutionContext)
+        def discarded = Mock(Message)
+        def kept = Mock(Message)
+        def interceptors = new InterceptorChain()
+        interceptors.add(Message, { ctx, message -> message.is(discarded) ? null : message } as MessageInterceptor)
+        [discarded, kept].each { messageQueue.messageReceived(it) }
+
+        def task = new ExecutionTask(messageQueue, context, [], ResponseOrdering.IN_ORDER, [:], interceptors)
+
+        when:
+            task.run()
+
+        then:
+            0 * discarded.execute(_)
+            1 * kept.execute(context)
+    }
+
+    static class TestMessage implements Message {}
 }
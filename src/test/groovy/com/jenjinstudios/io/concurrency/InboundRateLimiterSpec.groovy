@@ -0,0 +1,144 @@
+package com.jenjinstudios.io.concurrency
+
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.annotations.RateLimitWeight
+import spock.lang.Specification
+
+import java.util.function.LongSupplier
+
+/**
+ * Specification and test for the InboundRateLimiter class
+ *
+ * @author Caleb Brinkman
+ */
+class InboundRateLimiterSpec extends Specification {
+
+    def "InboundRateLimiter without limits should permit every message"() {
+        given:
+            def limiter = new InboundRateLimiter()
+            def message = Mock(Message)
+
+        expect:
+            (1..100).every { limiter.permit(message) }
+            limiter.exceededCount == 0
+    }
+
+    def "InboundRateLimiter should drop messages over the limit when configured to drop"() {
+        given:
+            def limiter = new InboundRateLimiter(new TokenBucket(1, 2), null, null, RateLimitAction.DROP)
+            def message = Mock(Message)
+
+        expect:
+            limiter.permit(message)
+            limiter.permit(message)
+            !limiter.permit(message)
+            limiter.droppedCount == 1
+            limiter.exceededCount == 1
+    }
+
+    def "InboundRateLimiter should throw exception over the limit when configured to disconnect"() {
+        given:
+            def limiter = new InboundRateLimiter(new TokenBucket(1, 1), null, null, RateLimitAction.DISCONNECT)
+            def message = Mock(Message)
+            limiter.permit(message)
+
+        when:
+            limiter.permit(message)
+
+        then:
+            thrown(RateLimitExceededException)
+    }
+
+    def "InboundRateLimiter should delay messages over the limit when configured to delay"() {
+        given:
+            def limiter = new InboundRateLimiter(new TokenBucket(100, 1), null, null, RateLimitAction.DELAY)
+            def message = Mock(Message)
+            limiter.permit(message)
+
+        when:
+            def permitted = limiter.permit(message)
+
+        then:
+            permitted
+            limiter.exceededCount == 1
+            limiter.delayNanos > 0
+    }
+
+    def "InboundRateLimiter should weigh messages by annotation"() {
+        given:
+            def limiter = new InboundRateLimiter(new TokenBucket(1, 10), null, null, RateLimitAction.DROP)
+
+        expect:
+            limiter.permit(new HeavyMessage())
+            !limiter.permit(new HeavyMessage())
+    }
+
+    def "InboundRateLimiter should limit bytes read between messages"() {
+        given:
+            def bytes = 0L
+            def limiter = new InboundRateLimiter(null, new TokenBucket(1, 100), { bytes as long } as LongSupplier,
+                  RateLimitAction.DROP)
+            def message = Mock(Message)
+
+        when:
+            bytes = 60L
+
+        then:
+            limiter.permit(message)
+
+        when:
+            bytes = 120L
+
+        then:
+            !limiter.permit(message)
+    }
+
+    def "InboundRateLimiter should not charge the message limit for messages rejected by the byte limit"() {
+        given:
+            def bytes = 0L
+            def limiter = new InboundRateLimiter(new TokenBucket(1, 2), new TokenBucket(1, 100),
+                  { bytes as long } as LongSupplier, RateLimitAction.DROP)
+            def message = Mock(Message)
+
+        when:
+            bytes = 100L
+
+        then:
+            limiter.permit(message)
+
+        when: "A message exceeds the byte limit"
+            bytes = 150L
+
+        then:
+            !limiter.permit(message)
+
+        when: "A message which reads no further bytes arrives"
+            bytes = 150L
+
+        then: "The message limit still has room for it"
+            limiter.permit(message)
+    }
+
+    def "InboundRateLimiter should permit messages which read no bytes while the byte limit is in debt"() {
+        given:
+            def bytes = 0L
+            def limiter = new InboundRateLimiter(null, new TokenBucket(1, 100), { bytes as long } as LongSupplier,
+                  RateLimitAction.DROP)
+            def message = Mock(Message)
+
+        when: "A message larger than the byte limit puts it in debt"
+            bytes = 300L
+
+        then:
+            limiter.permit(message)
+
+        when:
+            bytes = 300L
+
+        then:
+            limiter.permit(message)
+    }
+
+    @RateLimitWeight(6)
+    static class HeavyMessage implements Message {}
+}
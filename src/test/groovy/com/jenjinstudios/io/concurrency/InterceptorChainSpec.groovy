@@ -0,0 +1,127 @@
+package com.jenjinstudios.io.concurrency
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageInterceptor
+import com.jenjinstudios.io.request.Request
+import spock.lang.Specification
+
+/**
+ * Specification and test for the InterceptorChain class
+ *
+ * @author Caleb Brinkman
+ */
+class InterceptorChainSpec extends Specification {
+
+    def "InterceptorChain should apply interceptors registered for a message's class and supertypes in order"() {
+        given:
+            def chain = new InterceptorChain()
+            def context = Mock(ExecutionContext)
+            def message = new ChildMessage()
+            def first = Mock(MessageInterceptor)
+            def second = Mock(MessageInterceptor)
+            def unrelated = Mock(MessageInterceptor)
+            chain.add(Message, first)
+            chain.add(UnrelatedMessage, unrelated)
+            chain.add(ChildMessage, second)
+
+        when:
+            def result = chain.intercept(context, message)
+
+        then:
+            1 * first.intercept(context, message) >> message
+
+        then:
+            1 * second.intercept(context, message) >> message
+            0 * unrelated.intercept(_, _)
+            result == message
+    }
+
+    def "InterceptorChain should stop and return null when an interceptor discards the message"() {
+        given:
+            def chain = new InterceptorChain()
+            def first = Mock(MessageInterceptor)
+            def second = Mock(MessageInterceptor)
+            chain.add(ChildMessage, first)
+            chain.add(ChildMessage, second)
+
+        when:
+            def result = chain.intercept(Mock(ExecutionContext), new ChildMessage())
+
+        then:
+            1 * first.intercept(_, _) >> null
+            0 * second.intercept(_, _)
+            result == null
+    }
+
+    def "InterceptorChain should resolve each message class only once"() {
+        given:
+            def chain = new InterceptorChain()
+            chain.add(ChildMessage, { context, message -> message } as MessageInterceptor)
+
+        when:
+            chain.intercept(Mock(ExecutionContext), new ChildMessage())
+            chain.intercept(Mock(ExecutionContext), new ChildMessage())
+            chain.intercept(Mock(ExecutionContext), new UnrelatedMessage())
+
+        then:
+            chain.resolved.size() == 2
+            chain.resolved[UnrelatedMessage].interceptors.length == 0
+    }
+
+    def "InterceptorChain with no interceptors should return every message unchanged"() {
+        given:
+            def chain = new InterceptorChain()
+            def message = Mock(Message)
+
+        expect:
+            chain.empty
+            chain.intercept(Mock(ExecutionContext), message) == message
+    }
+
+    def "InterceptorChain should intercept the message carried by an envelope and rewrap the result"() {
+        given:
+            def chain = new InterceptorChain()
+            def replacement = new ChildMessage()
+            chain.add(ChildMessage, { context, message -> message.is(replacement) ? null : replacement }
+                  as MessageInterceptor)
+
+        when:
+            def rewrapped = chain.intercept(Mock(ExecutionContext), new Request(7, new ChildMessage()))
+            def discarded = chain.intercept(Mock(ExecutionContext), new Request(8, replacement))
+
+        then:
+            rewrapped instanceof Request
+            rewrapped.id == 7
+            rewrapped.message.is(replacement)
+            discarded instanceof Request
+            discarded.id == 8
+            discarded.message == null
+    }
+
+    def "InterceptorChain should resolve the chain again when an interceptor replaces a message with another class"() {
+        given:
+            def chain = new InterceptorChain()
+            def replacement = new UnrelatedMessage()
+            def earlier = Mock(MessageInterceptor)
+            def typed = Mock(MessageInterceptor)
+            def later = Mock(MessageInterceptor)
+            chain.add(UnrelatedMessage, earlier)
+            chain.add(ChildMessage, { context, message -> replacement } as MessageInterceptor)
+            chain.add(ChildMessage, typed)
+            chain.add(UnrelatedMessage, later)
+
+        when:
+            def result = chain.intercept(Mock(ExecutionContext), new ChildMessage())
+
+        then:
+            0 * earlier.intercept(_, _)
+            0 * typed.intercept(_, _)
+            1 * later.intercept(_, replacement) >> replacement
+            result.is(replacement)
+    }
+
+    static class ChildMessage implements Message {}
+
+    static class UnrelatedMessage implements Message {}
+}
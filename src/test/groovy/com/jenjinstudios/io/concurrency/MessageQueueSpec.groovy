@@ -1,8 +1,13 @@
 package com.jenjinstudios.io.concurrency
 
 import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.annotations.Priority
+import com.jenjinstudios.io.heartbeat.Ping
+import com.jenjinstudios.io.heartbeat.Pong
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 class MessageQueueSpec extends Specification{
 
     def "After calling getIncomingAndClear, incoming list should be empty"() {
@@ -40,4 +45,131 @@ class MessageQueueSpec extends Specification{
             queue.getErrorsAndClear().size() == 1
             queue.getErrorsAndClear().size() == 0
     }
+
+    def "Requeued incoming messages should be retrieved before newer messages"() {
+        def first = Mock(Message)
+        def second = Mock(Message)
+        def third = Mock(Message)
+        def queue = new MessageQueue()
+
+        when:
+            queue.messageReceived(first)
+            queue.messageReceived(second)
+            def retrieved = queue.getIncoming(2)
+            queue.messageReceived(third)
+            queue.requeueIncoming(retrieved)
+
+        then:
+            queue.getIncomingAndClear() == [first, second, third]
+            !queue.hasIncoming()
+    }
+
+    def "Conflated outgoing messages should replace older queued messages with the same key in place"() {
+        def conflator = new Conflator()
+        conflator.add(PositionMessage, { it.entity })
+        def queue = new MessageQueue([], conflator)
+        def first = new PositionMessage(entity: 1, x: 0)
+        def other = Mock(Message)
+        def second = new PositionMessage(entity: 2, x: 0)
+        def latest = new PositionMessage(entity: 1, x: 5)
+
+        when:
+            [first, other, second, latest].each { queue.queueOutgoing(it) }
+
+        then:
+            queue.getOutgoingAndClear() == [latest, other, second]
+            queue.conflatedCount == 1
+
+        when:
+            queue.queueOutgoing(first)
+
+        then:
+            queue.getOutgoingAndClear() == [first]
+    }
+
+    def "Outgoing messages should be drained highest priority first when using strict priority"() {
+        def queue = new MessageQueue([], null, new PriorityPolicy(0, TimeUnit.SECONDS))
+        def low = Mock(Message)
+        def normal = Mock(Message)
+        def high = new UrgentMessage()
+
+        when:
+            queue.queueOutgoing(low, MessagePriority.LOW)
+            queue.queueOutgoing(normal)
+            queue.queueOutgoing(high)
+
+        then:
+            queue.pollOutgoing() == high
+            queue.pollOutgoing() == normal
+            queue.pollOutgoing() == low
+            queue.pollOutgoing() == null
+    }
+
+    def "Outgoing messages should be drained in proportion to lane weights when using weighted priority"() {
+        def queue = new MessageQueue([], null, new PriorityPolicy(2, 1, 1, 0, TimeUnit.SECONDS))
+        def high = Mock(Message)
+        def low = Mock(Message)
+
+        when:
+            4.times { queue.queueOutgoing(high, MessagePriority.HIGH) }
+            2.times { queue.queueOutgoing(low, MessagePriority.LOW) }
+
+        then:
+            (1..6).collect { queue.pollOutgoing() } == [high, high, low, high, high, low]
+    }
+
+    def "Outgoing messages which have waited past the starvation threshold should be drained first"() {
+        def queue = new MessageQueue([], null, new PriorityPolicy(1, TimeUnit.MILLISECONDS))
+        def high = Mock(Message)
+        def low = Mock(Message)
+
+        when:
+            queue.queueOutgoing(low, MessagePriority.LOW)
+            Thread.sleep(5)
+            queue.queueOutgoing(high, MessagePriority.HIGH)
+
+        then:
+            queue.pollOutgoing() == low
+            queue.pollOutgoing() == high
+            queue.starvedCount == 1
+    }
+
+    def "Outgoing messages past the starvation threshold should alternate with higher priority messages"() {
+        def queue = new MessageQueue([], null, new PriorityPolicy(1, TimeUnit.MILLISECONDS))
+        def high = Mock(Message)
+        def normal = Mock(Message)
+
+        when:
+            5.times { queue.queueOutgoing(normal, MessagePriority.NORMAL) }
+            Thread.sleep(5)
+            2.times { queue.queueOutgoing(high, MessagePriority.HIGH) }
+
+        then:
+            (1..7).collect { queue.pollOutgoing() } == [normal, high, normal, high, normal, normal, normal]
+            queue.starvedCount == 4
+    }
+
+    def "Heartbeats should be written ahead of a backlog of high priority messages"() {
+        def queue = new MessageQueue()
+        def urgent = new UrgentMessage()
+        def ping = new Ping(1)
+        def pong = new Pong(2)
+
+        when:
+            3.times { queue.queueOutgoing(urgent) }
+            queue.queueOutgoing(ping)
+            queue.queueOutgoing(pong)
+
+        then:
+            (1..5).collect { queue.pollOutgoing() } == [ping, pong, urgent, urgent, urgent]
+    }
+
+    @Priority(MessagePriority.HIGH)
+    static class UrgentMessage implements Message {}
+
+    static class PositionMessage implements Message
+    {
+        int entity
+        int x
+    }
 }
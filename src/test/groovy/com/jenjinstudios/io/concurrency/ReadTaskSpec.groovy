@@ -36,4 +36,22 @@ class ReadTaskSpec extends Specification {
             1 * queue.errorEncountered(exception)
 
     }
+
+    def "ReadTask should not pass messages rejected by the rate limiter to MessageQueue"() {
+        given:
+            def message = Mock(Message)
+            def queue = Mock(MessageQueue)
+            def reader = Mock(MessageReader)
+            def limiter = Mock(InboundRateLimiter)
+            def task = new ReadTask(queue, reader, limiter)
+
+        when:
+            reader.read() >> message
+            limiter.permit(message) >> false
+        and:
+            task.run()
+
+        then:
+            0 * queue.messageReceived(message)
+    }
 }
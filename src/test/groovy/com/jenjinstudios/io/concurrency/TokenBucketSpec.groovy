@@ -0,0 +1,61 @@
+package com.jenjinstudios.io.concurrency
+
+import spock.lang.Specification
+
+/**
+ * Specification and test for the TokenBucket class
+ *
+ * @author Caleb Brinkman
+ */
+class TokenBucketSpec extends Specification {
+
+    def "TokenBucket should permit bursts up to its capacity and no further"() {
+        given:
+            def bucket = new TokenBucket(1, 3)
+
+        expect:
+            bucket.tryAcquire(1)
+            bucket.tryAcquire(2)
+            !bucket.tryAcquire(1)
+            bucket.nanosUntilAvailable(1) > 0
+    }
+
+    def "TokenBucket should refill over time"() {
+        given:
+            def bucket = new TokenBucket(1000, 1)
+            bucket.tryAcquire(1)
+
+        when:
+            Thread.sleep(10)
+
+        then:
+            bucket.tryAcquire(1)
+    }
+
+    def "TokenBucket should permit requests larger than its capacity once full"() {
+        given:
+            def bucket = new TokenBucket(1, 2)
+
+        expect:
+            bucket.tryAcquire(5)
+            !bucket.tryAcquire(1)
+    }
+
+    def "TokenBucket should always permit zero tokens, even while in debt"() {
+        given:
+            def bucket = new TokenBucket(1, 2)
+            bucket.tryAcquire(5)
+
+        expect:
+            bucket.tryAcquire(0)
+            bucket.nanosUntilAvailable(0) == 0
+    }
+
+    def "TokenBucket should reject non-positive rates"() {
+        when:
+            new TokenBucket(0, 1)
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -14,7 +14,7 @@ public class WriteTaskSpec extends Specification {
             def task = new WriteTask(queue, writer)
 
         when:
-            queue.outgoingAndClear >> [message, message2]
+            queue.pollOutgoing() >>> [message, message2, null]
 
         and:
             task.run()
@@ -31,7 +31,7 @@ public class WriteTaskSpec extends Specification {
             def task = new WriteTask(queue, writer)
 
         when:
-            queue.outgoingAndClear >> []
+            queue.pollOutgoing() >> null
 
         and:
             task.run()
@@ -45,7 +45,7 @@ public class WriteTaskSpec extends Specification {
         given:
             def queue = Mock(MessageQueue)
             def message = Mock(Message);
-            queue.outgoingAndClear >> [message]
+            queue.pollOutgoing() >>> [message, null]
             def writer = Mock(MessageWriter)
             def exception = Mock(IOException)
             def task = new WriteTask(queue, writer);
@@ -59,4 +59,26 @@ public class WriteTaskSpec extends Specification {
             1 * queue.errorEncountered(exception)
 
     }
-}
\ No newline at end of file
+
+    def "WriteTask should write a high priority message queued behind a backlog next"() {
+        given:
+            def queue = new MessageQueue()
+            def bulk = Mock(Message)
+            def urgent = Mock(Message)
+            def writer = Mock(MessageWriter)
+            def task = new WriteTask(queue, writer)
+            3.times { queue.queueOutgoing(bulk, MessagePriority.LOW) }
+
+        when:
+            task.run()
+
+        then:
+            1 * writer.write(bulk) >> { queue.queueOutgoing(urgent, MessagePriority.HIGH) }
+
+        then:
+            1 * writer.write(urgent)
+
+        then:
+            2 * writer.write(bulk)
+    }
+}
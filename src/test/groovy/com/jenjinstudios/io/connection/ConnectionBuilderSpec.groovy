@@ -3,6 +3,9 @@ package com.jenjinstudios.io.connection
 import com.jenjinstudios.io.*
 import spock.lang.Specification
 
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
 import java.util.function.BiConsumer
 
 public class ConnectionBuilderSpec extends Specification {
@@ -127,4 +130,84 @@ public class ConnectionBuilderSpec extends Specification {
         then: "An IllegalStateException should be thrown"
             thrown(IllegalStateException)
     }
-}
\ No newline at end of file
+
+    def "ConnectionBuilder interceptors should see the message carried by a request"() {
+        given: "A client which records outgoing GuardedMessages"
+            def toServer = new LinkedBlockingQueue<Message>()
+            def toClient = new LinkedBlockingQueue<Message>()
+            def sent = []
+            def client = new ConnectionBuilder()
+                    .withExecutionContextFactory({ Mock(ExecutionContext) } as ExecutionContextFactory)
+                    .withOutboundInterceptor(GuardedMessage, { context, message -> sent << message; message }
+                            as MessageInterceptor)
+                    .build(queueReader(toClient), queueWriter(toServer))
+
+        and: "A server which replaces incoming GuardedMessages with checked ones"
+            def server = new ConnectionBuilder()
+                    .withExecutionContextFactory({ Mock(ExecutionContext) } as ExecutionContextFactory)
+                    .withInboundInterceptor(GuardedMessage, { context, message -> new GuardedMessage(checked: true) }
+                            as MessageInterceptor)
+                    .build(queueReader(toServer), queueWriter(toClient))
+            def message = new GuardedMessage()
+
+        when: "The client sends a GuardedMessage as a request"
+            client.start()
+            server.start()
+            def response = client.request(message, 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS)
+
+        then: "Both interceptors see the GuardedMessage, and the server executes the checked replacement"
+            sent == [message]
+            response instanceof GuardedMessage
+            response.checked
+
+        cleanup:
+            client?.stop()
+            server?.stop()
+    }
+
+    def "ConnectionBuilder should answer a request with no response when an interceptor discards the response"() {
+        given: "A client, and a server which discards outgoing GuardedMessages"
+            def toServer = new LinkedBlockingQueue<Message>()
+            def toClient = new LinkedBlockingQueue<Message>()
+            def client = new ConnectionBuilder()
+                    .withExecutionContextFactory({ Mock(ExecutionContext) } as ExecutionContextFactory)
+                    .build(queueReader(toClient), queueWriter(toServer))
+            def server = new ConnectionBuilder()
+                    .withExecutionContextFactory({ Mock(ExecutionContext) } as ExecutionContextFactory)
+                    .withOutboundInterceptor(GuardedMessage, { context, message -> null } as MessageInterceptor)
+                    .build(queueReader(toServer), queueWriter(toClient))
+
+        when: "The client sends a GuardedMessage as a request"
+            client.start()
+            server.start()
+            def response = client.request(new GuardedMessage(), 5, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS)
+
+        then: "The request is completed with no response instead of timing out"
+            response == null
+
+        cleanup:
+            client?.stop()
+            server?.stop()
+    }
+
+    private static MessageReader queueReader(BlockingQueue<Message> queue) {
+        [read: {
+            try {
+                queue.take()
+            } catch (InterruptedException e) {
+                throw new IOException(e)
+            }
+        }, close: {}] as MessageReader
+    }
+
+    private static MessageWriter queueWriter(BlockingQueue<Message> queue) {
+        [write: { queue.put(it) }, close: {}] as MessageWriter
+    }
+
+    static class GuardedMessage implements Message
+    {
+        boolean checked
+
+        Message execute(ExecutionContext context) { this }
+    }
+}
@@ -0,0 +1,149 @@
+package com.jenjinstudios.io.flow
+
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.MessageWriter
+import com.jenjinstudios.io.concurrency.MessageQueue
+import com.jenjinstudios.io.concurrency.WriteTask
+import com.jenjinstudios.io.heartbeat.Ping
+import com.jenjinstudios.io.stream.StreamAck
+import spock.lang.Specification
+
+import java.util.function.LongSupplier
+
+/**
+ * Specification and test for the FlowControl class.
+ *
+ * @author Caleb Brinkman
+ */
+class FlowControlSpec extends Specification {
+    def "FlowControl should not permit sending until the peer grants credit"() {
+        given:
+            def flowControl = new FlowControl(2, 1000)
+            def writer = flowControl.createWriter(Mock(MessageWriter), null)
+            def message = Mock(Message)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [new Credit(2, -1), message]
+
+        expect:
+            !flowControl.hasCredit(true)
+            flowControl.stalled
+
+        when:
+            def read = flowControl.createReader(reader, null).read()
+
+        then:
+            read == message
+            flowControl.hasCredit(true)
+            !flowControl.stalled
+            flowControl.stallCount == 1
+
+        when:
+            2.times { writer.write(message) }
+
+        then:
+            !flowControl.hasCredit(false)
+            !flowControl.stalled
+    }
+
+    def "FlowControl should grant its window, and grant more once half of it has been drained"() {
+        given:
+            def raw = Mock(MessageWriter)
+            def message = Mock(Message)
+            def bytes = 0L
+            def flowControl = new FlowControl(4, 100)
+            flowControl.createWriter(raw, null)
+            def reader = flowControl.createReader({ message } as MessageReader, { bytes } as LongSupplier)
+
+        when:
+            flowControl.replenish(0)
+
+        then:
+            1 * raw.write({ it.messageLimit == 4 && it.byteLimit == 100 })
+
+        when:
+            3.times {
+                bytes += 10
+                reader.read()
+            }
+            flowControl.replenish(3)
+
+        then:
+            0 * raw.write(_)
+
+        when:
+            flowControl.replenish(1)
+
+        then:
+            1 * raw.write({ it.messageLimit == 6 && it.byteLimit == 120 })
+    }
+
+    def "WriteTask should leave messages queued while the peer has granted no credit"() {
+        given:
+            def queue = new MessageQueue()
+            def raw = Mock(MessageWriter)
+            def first = Mock(Message)
+            def second = Mock(Message)
+            def flowControl = new FlowControl(1, 100)
+            def task = new WriteTask(queue, flowControl.createWriter(raw, null), flowControl)
+            [first, second].each { queue.queueOutgoing(it) }
+
+        when:
+            task.run()
+
+        then:
+            0 * raw.write(_)
+            flowControl.stalled
+            queue.hasOutgoing()
+
+        when:
+            flowControl.granted(new Credit(1, -1))
+            task.run()
+
+        then:
+            1 * raw.write(first)
+            0 * raw.write(second)
+            flowControl.stallCount == 2
+    }
+
+    def "WriteTask should write control messages without credit, and neither side should count them"() {
+        given:
+            def queue = new MessageQueue()
+            def raw = Mock(MessageWriter)
+            def data = Mock(Message)
+            def ping = new Ping(1)
+            def ack = new StreamAck(1, 1)
+            def flowControl = new FlowControl(1, 100)
+            def task = new WriteTask(queue, flowControl.createWriter(raw, null), flowControl)
+            queue.queueOutgoing(data)
+            queue.queueOutgoing(ping)
+            queue.queueOutgoing(ack)
+
+        when:
+            task.run()
+
+        then:
+            1 * raw.write(ping)
+
+        then:
+            1 * raw.write(ack)
+            0 * raw.write(data)
+            queue.hasOutgoing()
+
+        when:
+            flowControl.granted(new Credit(1, -1))
+            task.run()
+
+        then:
+            1 * raw.write(data)
+
+        when:
+            def reader = flowControl.createReader([read: { ping }] as MessageReader, null)
+            def read = (1..3).collect { reader.read() }
+            flowControl.replenish(0)
+
+        then:
+            read == [ping, ping, ping]
+            1 * raw.write({ it instanceof Credit && it.messageLimit == 1 })
+    }
+}
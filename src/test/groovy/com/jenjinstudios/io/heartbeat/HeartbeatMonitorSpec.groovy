@@ -0,0 +1,79 @@
+package com.jenjinstudios.io.heartbeat
+
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.connection.Connection
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Specification and test for the HeartbeatMonitor class
+ *
+ * @author Caleb Brinkman
+ */
+class HeartbeatMonitorSpec extends Specification {
+
+    def "HeartbeatMonitor should ping connections once the ping interval has elapsed"() {
+        given:
+            def monitor = new HeartbeatMonitor(1, 1, TimeUnit.MINUTES)
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            def heartbeat = new Heartbeat(System.nanoTime() - TimeUnit.SECONDS.toNanos(59))
+            monitor.attach(heartbeat, connection)
+
+        when:
+            heartbeat.lastPinged = System.nanoTime() - TimeUnit.MINUTES.toNanos(2)
+            monitor.tick()
+
+        then:
+            1 * connection.sendMessage({ it instanceof Ping })
+            0 * connection.stop()
+    }
+
+    def "HeartbeatMonitor should stop connections which have been idle longer than the idle timeout"() {
+        given:
+            def monitor = new HeartbeatMonitor(1, 1, TimeUnit.MINUTES)
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            monitor.attach(new Heartbeat(System.nanoTime() - TimeUnit.MINUTES.toNanos(2)), connection)
+
+        when:
+            monitor.tick()
+
+        then:
+            1 * connection.stop()
+            monitor.reapedCount == 1
+            monitor.connectionCount == 0
+    }
+
+    def "Heartbeat reader should answer pings and measure round trip time from pongs"() {
+        given:
+            def monitor = new HeartbeatMonitor(1, 1, TimeUnit.MINUTES)
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            def heartbeat = monitor.createHeartbeat()
+            monitor.attach(heartbeat, connection)
+            def message = Mock(Message)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [new Ping(123), new Pong(System.nanoTime() - 1000), message]
+
+        when:
+            def read = heartbeat.createReader(reader).read()
+
+        then:
+            read == message
+            1 * connection.sendMessage({ it instanceof Pong && it.sentAt == 123 })
+            heartbeat.roundTripNanos >= 1000
+            heartbeat.smoothedRoundTripNanos == heartbeat.roundTripNanos
+    }
+
+    def "Ping should be answered with a pong when executed by a peer without a monitor"() {
+        when:
+            def response = new Ping(42).execute(null)
+
+        then:
+            response instanceof Pong
+            response.sentAt == 42
+    }
+}
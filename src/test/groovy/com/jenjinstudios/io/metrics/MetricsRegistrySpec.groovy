@@ -0,0 +1,67 @@
+package com.jenjinstudios.io.metrics
+
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory
+import com.jenjinstudios.io.serialization.TestMessage
+import spock.lang.Specification
+
+/**
+ * Specification and test for the MetricsRegistry class.
+ *
+ * @author Caleb Brinkman
+ */
+class MetricsRegistrySpec extends Specification {
+    def "LatencyHistogram should report percentiles within the precision of its buckets"() {
+        given:
+            def histogram = new LatencyHistogram()
+
+        when:
+            (1..1000).each { histogram.record(it * 1000L) }
+            def snapshot = histogram.snapshot()
+
+        then:
+            snapshot.count == 1000
+            snapshot.maxNanos == 1000000L
+            Math.abs(snapshot.getPercentileNanos(50) - 500000L) <= 500000L / LatencyHistogram.SUB_BUCKETS
+            Math.abs(snapshot.getPercentileNanos(99) - 990000L) <= 990000L / LatencyHistogram.SUB_BUCKETS
+            (0..LatencyHistogram.bucket(Long.MAX_VALUE)).every {
+                LatencyHistogram.bucket(LatencyHistogram.upperBound(it)) == it
+            }
+    }
+
+    def "ConnectionMetrics should count messages and bytes per connection and per message type"() {
+        given:
+            def registry = new MetricsRegistry()
+            def metrics = registry.createConnectionMetrics()
+            def factory = new GsonMessageIOFactory()
+            def bytes = new ByteArrayOutputStream()
+            def writer = metrics.createWriter(factory.createWriter(metrics.meter(bytes)))
+            metrics.registerGauge("queue.incoming", { 3L })
+            metrics.open("connection")
+
+        when:
+            writer.write(new TestMessage(name: "first"))
+            writer.write(new TestMessage(name: "second"))
+            def input = metrics.meter(new ByteArrayInputStream(bytes.toByteArray()))
+            def reader = metrics.createReader(factory.createReader(input))
+            2.times { reader.read() }
+            def snapshot = registry.snapshot()
+
+        then:
+            snapshot.total.messagesOut == 2
+            snapshot.total.messagesIn == 2
+            snapshot.total.bytesOut == bytes.size()
+            snapshot.total.bytesIn == bytes.size()
+            snapshot.connections["connection"].messagesIn == 2
+            snapshot.messageTypes[TestMessage].messagesOut == 2
+            snapshot.gauges["connection"] == ["queue.incoming": 3L]
+            snapshot.decode.count == 2
+            snapshot.write.count == 2
+
+        when:
+            metrics.close()
+
+        then:
+            registry.snapshot().connections.isEmpty()
+            registry.messagesIn == 2
+    }
+}
@@ -0,0 +1,102 @@
+package com.jenjinstudios.io.negotiation
+
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory
+import com.jenjinstudios.io.serialization.GsonMessageWriter
+import com.jenjinstudios.io.serialization.TestMessage
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Specification and test for the Negotiator class.
+ *
+ * @author Caleb Brinkman
+ */
+class NegotiatorSpec extends Specification {
+    def "Negotiating peers should settle on the preferred shared codec, compression and features"() {
+        given:
+            def serverSocket = new ServerSocket(0)
+            def clientSocket = new Socket("127.0.0.1", serverSocket.localPort)
+            def acceptedSocket = serverSocket.accept()
+            def server = new Negotiator().withCodec("fast", new GsonMessageIOFactory()).withCompression()
+                  .withFeatures("flow-control", "sessions")
+            def client = new Negotiator().withCodec("fast", new GsonMessageIOFactory()).withCompression()
+                  .withFeatures("sessions", "tracing")
+            def serverStream = new PushbackInputStream(acceptedSocket.inputStream, 2)
+            def message = new TestMessage(name: "compressed")
+
+        when:
+            def accepted = CompletableFuture.supplyAsync({ server.accept(serverStream, acceptedSocket.outputStream) })
+            def initiated = client.initiate(clientSocket.inputStream, clientSocket.outputStream)
+            initiated.createWriter(clientSocket.outputStream).write(message)
+            def received = accepted.get().createReader(serverStream).read()
+
+        then:
+            [initiated, accepted.get()].every {
+                !it.legacy && (it.codec == "fast") && (it.compression == Negotiator.DEFLATE) &&
+                      (it.features == ["sessions"] as Set) && (it.framingVersion == Negotiator.FRAMING_VERSION)
+            }
+            received.name == "compressed"
+
+        cleanup:
+            [clientSocket, acceptedSocket, serverSocket]*.close()
+    }
+
+    def "Negotiator should fall back to the legacy codec for a peer which sends a message first"() {
+        given:
+            def bytes = new ByteArrayOutputStream()
+            new GsonMessageWriter(bytes).write(new TestMessage(name: "legacy"))
+            def inputStream = new PushbackInputStream(new ByteArrayInputStream(bytes.toByteArray()), 2)
+            def outputStream = new ByteArrayOutputStream()
+
+        when:
+            def protocol = new Negotiator().withCompression().accept(inputStream, outputStream)
+
+        then:
+            protocol.legacy
+            protocol.compression == Negotiator.NONE
+            outputStream.size() == 0
+            protocol.createReader(inputStream).read().name == "legacy"
+    }
+
+    def "Negotiator should reject a peer which offers too many or too long names"() {
+        given:
+            def bytes = new ByteArrayOutputStream()
+            def output = new DataOutputStream(bytes)
+            output.writeShort(0)
+            output.writeInt(0x4A494F4E)
+            output.writeInt(Negotiator.FRAMING_VERSION)
+            output.writeShort(count)
+            count.times {
+                output.writeShort(length)
+                output.write(new byte[length])
+            }
+            def inputStream = new PushbackInputStream(new ByteArrayInputStream(bytes.toByteArray()), 2)
+
+        when:
+            new Negotiator().accept(inputStream, new ByteArrayOutputStream())
+
+        then:
+            def e = thrown(IOException)
+            e.message.contains("at most")
+
+        where:
+            count                    | length
+            Negotiator.MAX_NAMES + 1 | 0
+            1                        | Negotiator.MAX_NAME_LENGTH + 1
+    }
+
+    def "Negotiator should refuse to offer names it would reject"() {
+        when:
+            new Negotiator().withFeatures("x" * (Negotiator.MAX_NAME_LENGTH + 1))
+
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            new Negotiator().withFeatures((0..Negotiator.MAX_NAMES).collect { "f$it".toString() } as String[])
+
+        then:
+            thrown(IllegalStateException)
+    }
+}
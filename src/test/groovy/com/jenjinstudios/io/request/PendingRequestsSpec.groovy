@@ -0,0 +1,149 @@
+package com.jenjinstudios.io.request
+
+import com.jenjinstudios.io.AsyncMessage
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.heartbeat.Pong
+import com.jenjinstudios.io.serialization.GsonMessageReader
+import com.jenjinstudios.io.serialization.GsonMessageWriter
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.function.Consumer
+
+/**
+ * Specification and test for the PendingRequests class
+ *
+ * @author Caleb Brinkman
+ */
+class PendingRequestsSpec extends Specification {
+
+    def "PendingRequests should complete a request with the response carrying its correlation ID"() {
+        given:
+            def sent = []
+            def pendingRequests = new PendingRequests({ sent << it } as Consumer)
+            def first = pendingRequests.request(Mock(Message), 1, TimeUnit.MINUTES)
+            def second = pendingRequests.request(Mock(Message), 1, TimeUnit.MINUTES)
+            def response = Mock(Message)
+            def reader = Mock(MessageReader)
+            def message = Mock(Message)
+            reader.read() >>> [new Response(sent[1].id, response), message]
+
+        when:
+            def read = pendingRequests.createReader(reader).read()
+
+        then:
+            read == message
+            second.isDone()
+            second.get() == response
+            !first.isDone()
+            pendingRequests.pendingCount == 1
+    }
+
+    def "PendingRequests should fail requests which are not answered in time"() {
+        given:
+            def pendingRequests = new PendingRequests({} as Consumer)
+
+        when:
+            pendingRequests.request(Mock(Message), 10, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS)
+
+        then:
+            def e = thrown(ExecutionException)
+            e.cause instanceof TimeoutException
+            pendingRequests.pendingCount == 0
+    }
+
+    def "PendingRequests should fail all pending requests with the given cause"() {
+        given:
+            def pendingRequests = new PendingRequests({} as Consumer)
+            def future = pendingRequests.request(Mock(Message), 1, TimeUnit.MINUTES)
+            def cause = new IOException()
+
+        when:
+            pendingRequests.failAll(cause)
+            future.get()
+
+        then:
+            def e = thrown(ExecutionException)
+            e.cause == cause
+    }
+
+    def "Request should wrap the response of the executed message with its correlation ID"() {
+        given:
+            def context = Mock(ExecutionContext)
+            def message = Mock(Message)
+            def response = Mock(Message)
+            message.execute(context) >> response
+
+        when:
+            def wrapped = new Request(7, message).execute(context)
+
+        then:
+            wrapped instanceof Response
+            wrapped.id == 7
+            wrapped.message == response
+    }
+
+    def "Request should answer with an error when its message throws or its execution completes exceptionally"() {
+        given:
+            def context = Mock(ExecutionContext)
+            def throwing = Mock(Message)
+            throwing.execute(context) >> { throw new IllegalStateException("Broken") }
+            def failing = [executeAsync: { failed(new IllegalArgumentException("Invalid")) }] as AsyncMessage
+
+        when:
+            def thrown = new Request(1, throwing).executeAsync(context).toCompletableFuture().get()
+            def completed = new Request(2, failing).executeAsync(context).toCompletableFuture().get()
+
+        then:
+            thrown.id == 1
+            thrown.message == null
+            thrown.error.contains("Broken")
+            completed.id == 2
+            completed.error.contains("Invalid")
+    }
+
+    def "PendingRequests should fail a request whose response carries an error"() {
+        given:
+            def sent = []
+            def pendingRequests = new PendingRequests({ sent << it } as Consumer)
+            def future = pendingRequests.request(Mock(Message), 1, TimeUnit.MINUTES)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [Response.failed(sent[0].id, "Broken"), Mock(Message)]
+
+        when:
+            pendingRequests.createReader(reader).read()
+            future.get()
+
+        then:
+            def e = thrown(ExecutionException)
+            e.cause instanceof RequestFailedException
+            e.cause.message.contains("Broken")
+            pendingRequests.pendingCount == 0
+    }
+
+    private static CompletableFuture<Message> failed(Throwable cause) {
+        def future = new CompletableFuture<Message>()
+        future.completeExceptionally(cause)
+        future
+    }
+
+    def "Request should survive serialization with its correlation ID and wrapped message"() {
+        given:
+            def bytes = new ByteArrayOutputStream()
+            new GsonMessageWriter(bytes).write(new Request(3, new Pong(5)))
+
+        when:
+            def read = new GsonMessageReader(new ByteArrayInputStream(bytes.toByteArray())).read()
+
+        then:
+            read instanceof Request
+            read.id == 3
+            read.message instanceof Pong
+            read.message.sentAt == 5
+    }
+}
@@ -5,6 +5,7 @@ import com.google.gson.JsonSyntaxException
 import spock.lang.Specification
 
 import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
 
 public class GsonReaderSpec extends Specification {
     def "GsonMessageReader should be able to correctly deserialize valid JSON into Adapted Message"() {
@@ -83,4 +84,48 @@ public class GsonReaderSpec extends Specification {
         cleanup:
             reader.close()
     }
-}
\ No newline at end of file
+
+    def "GsonMessageReader should reject and count data which exceeds its decode limits"() {
+        given:
+            def json = '{"class":"' + TEST_MESSAGE + '","fields":' + fields + '}'
+            def reader = new GsonMessageReader(new ByteArrayInputStream(frame(json)), limits)
+
+        when:
+            reader.read()
+
+        then:
+            def exception = thrown(DecodeLimitExceededException)
+            exception.limit == limit
+            limits.getViolationCount(limit) == 1
+
+        where:
+            fields                            | limits                                     || limit
+            '{"name":"foo"}'                  | new DecodeLimits().withMaxFrameBytes(16)   || DecodeLimit.FRAME_BYTES
+            '{"name":"foo"}'                  | new DecodeLimits().withMaxDepth(1)         || DecodeLimit.DEPTH
+            '{"name":"foo","x":[1,2,3]}'      | new DecodeLimits().withMaxArrayLength(2)   || DecodeLimit.ARRAY_LENGTH
+            '{"name":"' + ('o' * 60) + '"}'   | new DecodeLimits().withMaxStringLength(50) || DecodeLimit.STRING_LENGTH
+    }
+
+    def "GsonMessageReader should decode data within its decode limits"() {
+        given:
+            def json = '{"class":"' + TEST_MESSAGE + '","fields":{"name":"fo\\u006f"}}'
+            def limits = new DecodeLimits().withMaxFrameBytes(128).withMaxDepth(2).withMaxArrayLength(1)
+                  .withMaxStringLength(50).withDecodeTimeBudget(1, TimeUnit.SECONDS)
+            def reader = new GsonMessageReader(new ByteArrayInputStream(frame(json)), limits)
+
+        when:
+            def message = reader.read()
+
+        then:
+            ((AdaptedMessage) message).name == "foo"
+            DecodeLimit.values().every { limits.getViolationCount(it) == 0 }
+    }
+
+    private static final String TEST_MESSAGE = "com.jenjinstudios.io.serialization.TestMessage"
+
+    private static byte[] frame(String json) {
+        def bytes = new ByteArrayOutputStream()
+        new DataOutputStream(bytes).writeUTF(json)
+        bytes.toByteArray()
+    }
+}
@@ -0,0 +1,63 @@
+package com.jenjinstudios.io.server
+
+import spock.lang.Specification
+
+/**
+ * Specification and test for the AdmissionController class
+ *
+ * @author Caleb Brinkman
+ */
+class AdmissionControllerSpec extends Specification {
+
+    def "AdmissionController should admit everything when no limits are set"() {
+        given:
+            def controller = new AdmissionController(0, 0)
+
+        expect:
+            (1..100).every { controller.tryAdmit() }
+            controller.rejectedCount == 0
+    }
+
+    def "AdmissionController should reject connections over the maximum until one is released"() {
+        given:
+            def controller = new AdmissionController(2, 0)
+
+        expect:
+            controller.tryAdmit()
+            controller.tryAdmit()
+            !controller.tryAdmit()
+            controller.rejectedCount == 1
+
+        when:
+            controller.release()
+
+        then:
+            controller.tryAdmit()
+    }
+
+    def "AdmissionController should reject connections accepted faster than the rate limit"() {
+        given:
+            def controller = new AdmissionController(0, 5)
+
+        when:
+            def admitted = (1..10).count { controller.tryAdmit() }
+
+        then:
+            admitted == 5
+            controller.rejectedCount == 5
+    }
+
+    def "AdmissionController should not use up the accept rate on connections rejected while full"() {
+        given:
+            def controller = new AdmissionController(1, 2)
+            controller.tryAdmit()
+
+        when:
+            def whileFull = (1..5).count { controller.tryAdmit() }
+            controller.release()
+
+        then:
+            whileFull == 0
+            controller.tryAdmit()
+    }
+}
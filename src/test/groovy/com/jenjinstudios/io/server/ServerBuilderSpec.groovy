@@ -1,6 +1,9 @@
 package com.jenjinstudios.io.server
 
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageInterceptor
 import com.jenjinstudios.io.connection.ConnectionBuilder
+import com.jenjinstudios.io.metrics.MetricsRegistry
 import spock.lang.Specification
 
 public class ServerBuilderSpec extends Specification {
@@ -142,4 +145,40 @@ public class ServerBuilderSpec extends Specification {
         then: "Callbacks should have been iterated"
             1 * callbacks.forEach(_)
     }
-}
\ No newline at end of file
+
+    def "ServerBuilder should add interceptors to the ConnectionBuilder only once when built again"() {
+        given: "A ServerBuilder with an inbound and an outbound interceptor"
+            def connectionBuilder = Mock(ConnectionBuilder)
+            def builder = new ServerBuilder()
+                    .withServerSocket(Mock(ServerSocket))
+                    .withMultiConnectionBuilder(connectionBuilder)
+                    .withInboundInterceptor(Message, Mock(MessageInterceptor))
+                    .withOutboundInterceptor(Message, Mock(MessageInterceptor))
+
+        when: "The Server is built twice"
+            builder.build()
+            builder.build()
+
+        then: "Each interceptor is added once"
+            1 * connectionBuilder.withInboundInterceptor(Message, _)
+            1 * connectionBuilder.withOutboundInterceptor(Message, _)
+    }
+
+    def "ServerBuilder should set its MetricsRegistry on the ConnectionBuilder only once when built again"() {
+        given: "A ServerBuilder with a MetricsRegistry"
+            def connectionBuilder = new ConnectionBuilder()
+            def registry = new MetricsRegistry()
+            def builder = new ServerBuilder()
+                    .withServerSocket(Mock(ServerSocket))
+                    .withMultiConnectionBuilder(connectionBuilder)
+                    .withMetrics(registry)
+
+        when: "The Server is built twice"
+            builder.build()
+            builder.build()
+
+        then: "The ConnectionBuilder records metrics in the registry"
+            notThrown(IllegalStateException)
+            connectionBuilder.metricsRegistry.is(registry)
+    }
+}
@@ -171,5 +171,57 @@ public class ServerSpec extends Specification {
             1 * connection2.sendMessage(message)
     }
 
+    def "When Server is at its connection limit, inbound sockets should be closed without building a Connection"() {
+        given: "A ServerSocket which returns two sockets"
+            def serverSocket = Mock(ServerSocket)
+            def socket = Mock(Socket)
+            def rejected = Mock(Socket)
+            serverSocket.accept() >>> [socket, rejected, { while (true); }]
+            def connection = Mock(Connection)
+            def connectionBuilder = Mock(ConnectionBuilder)
+
+        and: "A Server which permits only a single connection"
+            def server = new Server(serverSocket, connectionBuilder, [], [], [], [], [], 1, new AdmissionController(1, 0))
+
+        when: "The Server is started"
+            server.start()
+            Thread.sleep(100)
+
+        then: "Only the first socket should become a Connection"
+            1 * connectionBuilder.build(socket) >> connection
+            0 * connectionBuilder.build(rejected)
+            1 * rejected.close()
+            server.connectionCount == 1
+            server.rejectedConnectionCount == 1
+
+        cleanup: "Shutdown the server"
+            server.stop()
+    }
+
+    def "When building a Connection fails with an unchecked exception, Server should release its admission"() {
+        given: "A ServerSocket which returns a single socket"
+            def serverSocket = Mock(ServerSocket)
+            def socket = Mock(Socket)
+            serverSocket.accept() >>> [socket] >> { throw new SocketException("No more sockets") }
+            def connectionBuilder = Mock(ConnectionBuilder)
+            def admissionController = new AdmissionController(1, 0)
+
+        and: "A Server which permits only a single connection"
+            def server = new Server(serverSocket, connectionBuilder, [], [], [], [], [], 1, admissionController)
+
+        when: "The Server is started"
+            server.start()
+            Thread.sleep(100)
+
+        then: "The socket should be closed and its admission released"
+            1 * connectionBuilder.build(socket) >> { throw new IllegalStateException("Handshake failed") }
+            1 * socket.close()
+            server.connectionCount == 0
+            admissionController.admittedCount == 0
+
+        cleanup: "Shutdown the server"
+            server.stop()
+    }
+
     def m_block = { while (true); }
 }
@@ -0,0 +1,73 @@
+package com.jenjinstudios.io.session
+
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.MessageWriter
+import spock.lang.Specification
+
+/**
+ * Specification and test for the ClientSession class
+ *
+ * @author Caleb Brinkman
+ */
+class ClientSessionSpec extends Specification {
+
+    def "ClientSession should request resumption of the granted session when reconnecting"() {
+        given:
+            def session = new ClientSession()
+            def reader = Mock(MessageReader)
+            def writer = Mock(MessageWriter)
+            reader.read() >>> [new SessionGrant("token", false), new SequencedMessage(1, Mock(Message))]
+            session.open(reader, writer)
+            session.createReader(reader).read()
+
+        and:
+            def newReader = Mock(MessageReader)
+            def newWriter = Mock(MessageWriter)
+            newReader.read() >> new SessionGrant("token", true)
+
+        when:
+            session.open(newReader, newWriter)
+
+        then:
+            1 * newWriter.write({ it instanceof SessionRequest && it.token == "token" && it.lastReceived == 1 })
+            session.resumed
+    }
+
+    def "ClientSession reader should discard messages which have already been received"() {
+        given:
+            def session = new ClientSession()
+            def reader = Mock(MessageReader)
+            def first = Mock(Message)
+            def second = Mock(Message)
+            reader.read() >>> [new SessionGrant("token", false), new SequencedMessage(1, first),
+                               new SequencedMessage(1, first), new SequencedMessage(2, second)]
+            session.open(reader, Mock(MessageWriter))
+            def sessionReader = session.createReader(reader)
+
+        expect:
+            sessionReader.read().is(first)
+            sessionReader.read().is(second)
+    }
+
+    def "ClientSession writer should acknowledge received messages before writing"() {
+        given:
+            def session = new ClientSession()
+            def reader = Mock(MessageReader)
+            def writer = Mock(MessageWriter)
+            def message = Mock(Message)
+            reader.read() >>> [new SessionGrant("token", false), new SequencedMessage(1, Mock(Message))]
+            session.open(reader, Mock(MessageWriter))
+            def sessionWriter = session.createWriter(writer)
+            session.createReader(reader).read()
+
+        when:
+            sessionWriter.write(message)
+
+        then:
+            1 * writer.write({ it instanceof SessionAck && it.sequence == 1 })
+
+        then:
+            1 * writer.write(message)
+    }
+}
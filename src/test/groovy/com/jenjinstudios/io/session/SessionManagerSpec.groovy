@@ -0,0 +1,205 @@
+package com.jenjinstudios.io.session
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.ExecutionContextFactory
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.MessageWriter
+import com.jenjinstudios.io.connection.Connection
+import com.jenjinstudios.io.heartbeat.Ping
+import com.jenjinstudios.io.heartbeat.Pong
+import com.jenjinstudios.io.stream.StreamAck
+import com.jenjinstudios.io.stream.StreamChunk
+import com.jenjinstudios.io.stream.StreamOpen
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+/**
+ * Specification and test for the SessionManager class
+ *
+ * @author Caleb Brinkman
+ */
+class SessionManagerSpec extends Specification {
+
+    def "SessionManager should create a new session when no token is requested"() {
+        given:
+            def manager = new SessionManager(10, 1, TimeUnit.MINUTES)
+            def reader = Mock(MessageReader)
+            def writer = Mock(MessageWriter)
+            def context = Mock(ExecutionContext)
+            def grant = null
+            reader.read() >> new SessionRequest(null, 0)
+            writer.write(_) >> { args -> grant = args[0] }
+
+        when:
+            def session = manager.open(reader, writer, { context } as ExecutionContextFactory)
+
+        then:
+            session.context == context
+            !session.resumed
+            grant instanceof SessionGrant
+            !grant.resumed
+            grant.token == session.token
+    }
+
+    def "SessionManager should fail the handshake if the client does not request a session"() {
+        given:
+            def manager = new SessionManager(10, 1, TimeUnit.MINUTES)
+            def reader = Mock(MessageReader)
+            reader.read() >> Mock(Message)
+
+        when:
+            manager.open(reader, Mock(MessageWriter), Mock(ExecutionContextFactory))
+
+        then:
+            thrown(IOException)
+    }
+
+    def "SessionManager should resume a session and retransmit only unacknowledged messages"() {
+        given: "A session which has sent three messages, two of which were acknowledged"
+            def manager = new SessionManager(10, 1, TimeUnit.MINUTES)
+            def firstReader = Mock(MessageReader)
+            firstReader.read() >>> [new SessionRequest(null, 0), new SessionAck(2), Mock(Message)]
+            def session = manager.open(firstReader, Mock(MessageWriter), { Mock(ExecutionContext) } as ExecutionContextFactory)
+            def sessionWriter = session.createWriter(Mock(MessageWriter))
+            def third = Mock(Message)
+            sessionWriter.write(Mock(Message))
+            sessionWriter.write(Mock(Message))
+            sessionWriter.write(third)
+            session.createReader(firstReader).read()
+
+        and: "A reconnecting client which received two messages"
+            def reader = Mock(MessageReader)
+            def writer = Mock(MessageWriter)
+            reader.read() >> new SessionRequest(session.token, 2)
+
+        when:
+            def resumed = manager.open(reader, writer, Mock(ExecutionContextFactory))
+
+        then: "The same session should be granted"
+            resumed.is(session)
+            resumed.resumed
+            1 * writer.write({ it instanceof SessionGrant && it.resumed })
+
+        then: "The third message should be retransmitted after the grant"
+            1 * writer.write({ it instanceof SequencedMessage && it.sequence == 3 && it.message.is(third) })
+    }
+
+    def "ClientSession should resume a SessionManager session and receive the messages it missed"() {
+        given: "A client which received two of three messages sent in its session"
+            def manager = new SessionManager(10, 1, TimeUnit.MINUTES)
+            def client = new ClientSession()
+            def first = channel()
+            def session = handshake(manager, client, first)
+            def serverWriter = session.createWriter(first.serverWriter)
+            def missed = Mock(Message)
+            serverWriter.write(Mock(Message))
+            serverWriter.write(Mock(Message))
+            serverWriter.write(missed)
+            def clientReader = client.createReader(first.clientReader)
+            clientReader.read()
+            clientReader.read()
+
+        when: "The client reconnects"
+            def second = channel()
+            def resumed = handshake(manager, client, second)
+
+        then: "The session is resumed and the missed message is received"
+            resumed.is(session)
+            client.resumed
+            client.createReader(second.clientReader).read().is(missed)
+    }
+
+    private static Session handshake(SessionManager manager, ClientSession client, Map channel) {
+        def server = CompletableFuture.supplyAsync {
+            manager.open(channel.serverReader, channel.serverWriter, { [:] as ExecutionContext } as ExecutionContextFactory)
+        }
+        client.open(channel.clientReader, channel.clientWriter)
+        server.get(5, TimeUnit.SECONDS)
+    }
+
+    private static Map channel() {
+        def toServer = new LinkedBlockingQueue<Message>()
+        def toClient = new LinkedBlockingQueue<Message>()
+        [
+              clientReader: [read: { toClient.poll(5, TimeUnit.SECONDS) }] as MessageReader,
+              clientWriter: [write: { toServer.put(it) }] as MessageWriter,
+              serverReader: [read: { toServer.poll(5, TimeUnit.SECONDS) }] as MessageReader,
+              serverWriter: [write: { toClient.put(it) }] as MessageWriter
+        ]
+    }
+
+    def "SessionManager should start a new session when missed messages are no longer buffered"() {
+        given:
+            def manager = new SessionManager(2, 1, TimeUnit.MINUTES)
+            def firstReader = Mock(MessageReader)
+            firstReader.read() >> new SessionRequest(null, 0)
+            def session = manager.open(firstReader, Mock(MessageWriter), { Mock(ExecutionContext) } as ExecutionContextFactory)
+            def sessionWriter = session.createWriter(Mock(MessageWriter))
+            3.times { sessionWriter.write(Mock(Message)) }
+            def expired = Mock(Consumer)
+            manager.withExpirationCallbacks(expired)
+
+        and:
+            def reader = Mock(MessageReader)
+            reader.read() >> new SessionRequest(session.token, 0)
+
+        when:
+            def newSession = manager.open(reader, Mock(MessageWriter), { Mock(ExecutionContext) } as ExecutionContextFactory)
+
+        then:
+            !newSession.is(session)
+            !newSession.resumed
+            1 * expired.accept(session.context)
+    }
+
+    def "Session writer should sequence only application messages"() {
+        given:
+            def manager = new SessionManager(2, 1, TimeUnit.MINUTES)
+            def reader = Mock(MessageReader)
+            reader.read() >> new SessionRequest(null, 0)
+            def session = manager.open(reader, Mock(MessageWriter), { Mock(ExecutionContext) } as ExecutionContextFactory)
+            def written = []
+            def sessionWriter = session.createWriter([write: { written << it }, close: {}] as MessageWriter)
+            def message = Mock(Message)
+            def unsequenced = [new Ping(1), new Pong(1), new StreamAck(1, 1), new StreamOpen(1, Mock(Message)),
+                               new StreamChunk(1, new byte[4], 4, false)]
+
+        when:
+            unsequenced.each { sessionWriter.write(it) }
+            sessionWriter.write(message)
+
+        then:
+            written[0..4] == unsequenced
+            written[5] instanceof SequencedMessage
+            written[5].sequence == 1
+            written[5].message == message
+            session.replayBuffer*.message == [message]
+    }
+
+    def "SessionManager should expire sessions detached for longer than the grace period"() {
+        given:
+            def manager = new SessionManager(10, 10, TimeUnit.MILLISECONDS)
+            def reader = Mock(MessageReader)
+            reader.read() >> new SessionRequest(null, 0)
+            def session = manager.open(reader, Mock(MessageWriter), { Mock(ExecutionContext) } as ExecutionContextFactory)
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            manager.attach(session, connection)
+
+        expect:
+            manager.getSession(connection).is(session)
+
+        when:
+            manager.detach(connection)
+            Thread.sleep(20)
+            manager.expireSessions()
+
+        then:
+            manager.sessionCount == 0
+    }
+}
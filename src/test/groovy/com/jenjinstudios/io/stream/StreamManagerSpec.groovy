@@ -0,0 +1,217 @@
+package com.jenjinstudios.io.stream
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageReader
+import com.jenjinstudios.io.concurrency.InboundRateLimiter
+import com.jenjinstudios.io.concurrency.MessageQueue
+import com.jenjinstudios.io.concurrency.RateLimitAction
+import com.jenjinstudios.io.concurrency.ReadTask
+import com.jenjinstudios.io.concurrency.TokenBucket
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+/**
+ * Specification and test for the StreamManager class
+ *
+ * @author Caleb Brinkman
+ */
+class StreamManagerSpec extends Specification {
+
+    def "StreamManager should not send more than a window of unacknowledged chunks"() {
+        given:
+            def queue = new MessageQueue()
+            def manager = new StreamManager(queue, 4, 2)
+
+        when:
+            manager.send(Mock(Message), new ByteArrayInputStream(new byte[20]))
+            Thread.sleep(200)
+
+        then:
+            queue.outgoingAndClear.collect { it.class } == [StreamOpen, StreamChunk, StreamChunk]
+    }
+
+    def "StreamManager should deliver streamed data to the receiver as it is consumed"() {
+        given:
+            def senderQueue = new MessageQueue()
+            def receiverQueue = new MessageQueue()
+            def sender = new StreamManager(senderQueue, 4, 2)
+            def receiver = new StreamManager(receiverQueue, 4, 2)
+            def data = (0..<30).collect { it as byte } as byte[]
+            def opened = new CopyOnWriteArrayList()
+
+        when:
+            def future = sender.send(Mock(Message), new ByteArrayInputStream(data))
+            def pump = Thread.start {
+                while (!future.isDone()) {
+                    def message = senderQueue.pollOutgoing()
+                    if (message instanceof StreamOpen) {
+                        receiver.opened(message)
+                        opened << message
+                    } else if (message instanceof StreamChunk) {
+                        receiver.received(message)
+                    }
+                    def ack = receiverQueue.pollOutgoing()
+                    if (ack instanceof StreamAck) {
+                        sender.acknowledged(ack)
+                    }
+                    Thread.sleep(1)
+                }
+            }
+            while (opened.isEmpty()) { Thread.sleep(1) }
+            def received = opened[0].data.bytes
+            future.get(5, TimeUnit.SECONDS)
+            pump.join()
+
+        then:
+            received == data
+            sender.outgoingCount == 0
+            receiver.incomingCount == 0
+    }
+
+    def "StreamOpen should execute a StreamMessage header with access to the data"() {
+        given:
+            def context = Mock(ExecutionContext)
+            def header = Mock(StreamMessage)
+            def data = new ByteArrayInputStream(new byte[0])
+            def open = new StreamOpen(1, header)
+            open.setData(data)
+
+        when:
+            open.execute(context)
+
+        then:
+            1 * header.execute(context, data)
+    }
+
+    def "Closing the StreamManager should fail incoming streams which have not completed"() {
+        given:
+            def manager = new StreamManager(new MessageQueue())
+            def open = new StreamOpen(1, Mock(Message))
+            manager.opened(open)
+
+        when:
+            manager.close()
+            open.data.read()
+
+        then:
+            thrown(IOException)
+    }
+
+    def "StreamManager should keep sending every transfer while others wait for credit"() {
+        given:
+            def queue = new MessageQueue()
+            def manager = new StreamManager(queue, 4, 1)
+
+        when:
+            50.times { manager.send(Mock(Message), new ByteArrayInputStream(new byte[20])) }
+            Thread.sleep(500)
+
+        then:
+            queue.outgoingAndClear.count { it instanceof StreamChunk } == 50
+            manager.outgoingCount == 50
+
+        cleanup:
+            manager.close()
+    }
+
+    def "StreamReader should report an acknowledgement of chunks which were never sent as an IOException"() {
+        given:
+            def manager = new StreamManager(new MessageQueue(), 4, 2)
+            manager.send(Mock(Message), new ByteArrayInputStream(new byte[20]))
+            def reader = Mock(MessageReader)
+            reader.read() >> new StreamAck(1, chunks)
+
+        when:
+            manager.createReader(reader).read()
+
+        then:
+            thrown(IOException)
+
+        cleanup:
+            manager.close()
+
+        where:
+            chunks << [-1, 0, 3, Integer.MAX_VALUE]
+    }
+
+    def "StreamReader should report malformed chunks and reused stream IDs as IOExceptions"() {
+        given:
+            def manager = new StreamManager(new MessageQueue(), 4, 2)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [new StreamOpen(1, Mock(Message)), message]
+            def streamReader = manager.createReader(reader)
+            streamReader.read()
+
+        when:
+            streamReader.read()
+
+        then:
+            thrown(IOException)
+
+        where:
+            message << [new StreamChunk(1, new byte[4], 4, false).with { it.data = "not base64!"; it },
+                        new StreamOpen(1, Mock(Message)),
+                        new StreamOpen(0, Mock(Message))]
+    }
+
+    def "StreamManager should reject a sender which exceeds the window"() {
+        given:
+            def manager = new StreamManager(new MessageQueue(), 4, 2)
+            manager.opened(new StreamOpen(1, Mock(Message)))
+            2.times { manager.received(new StreamChunk(1, new byte[4], 4, false)) }
+
+        when:
+            manager.received(new StreamChunk(1, new byte[4], 4, false))
+
+        then:
+            thrown(IOException)
+    }
+
+    def "StreamReader should charge chunks to the rate limit and fail a stream whose chunk is dropped"() {
+        given:
+            def limiter = new InboundRateLimiter(new TokenBucket(1, 1), null, null, RateLimitAction.DROP)
+            def manager = new StreamManager(new MessageQueue(), 4, 2)
+            def message = Mock(Message)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [new StreamOpen(1, Mock(Message)), new StreamChunk(1, [1, 2] as byte[], 2, false),
+                               new StreamChunk(1, [3, 4] as byte[], 2, false), message]
+            def streamReader = manager.createReader(reader, limiter)
+            def open = streamReader.read()
+
+        when:
+            def next = streamReader.read()
+            def first = [open.data.read(), open.data.read()]
+            open.data.read()
+
+        then:
+            next.is(message)
+            first == [1, 2]
+            limiter.exceededCount == 1
+            manager.incomingCount == 0
+            thrown(IOException)
+    }
+
+    def "ReadTask should close a stream whose StreamOpen is dropped, so that its chunks are acknowledged"() {
+        given:
+            def queue = new MessageQueue()
+            def manager = new StreamManager(queue, 4, 2)
+            def limiter = [permit: { !(it instanceof StreamOpen) }] as InboundRateLimiter
+            def message = Mock(Message)
+            def reader = Mock(MessageReader)
+            reader.read() >>> [new StreamOpen(1, Mock(Message)), new StreamChunk(1, [1, 2] as byte[], 2, false),
+                               new StreamChunk(1, new byte[0], 0, true), message]
+            def task = new ReadTask(queue, manager.createReader(reader, limiter), limiter)
+
+        when:
+            task.run()
+            task.run()
+
+        then:
+            queue.incomingAndClear == [message]
+            queue.outgoingAndClear.collect { [it.class, it.chunks] } == [[StreamAck, 1], [StreamAck, 1]]
+            manager.incoming.isEmpty()
+    }
+}
@@ -0,0 +1,67 @@
+package com.jenjinstudios.io.tracing
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.concurrency.ExecutionTask
+import com.jenjinstudios.io.concurrency.MessageQueue
+import com.jenjinstudios.io.concurrency.PriorityPolicy
+import com.jenjinstudios.io.serialization.AdaptedMessage
+import com.jenjinstudios.io.serialization.GsonMessageIOFactory
+import com.jenjinstudios.io.serialization.TestMessage
+import spock.lang.Specification
+
+/**
+ * Specification and test for the SamplingTracer class.
+ *
+ * @author Caleb Brinkman
+ */
+class SamplingTracerSpec extends Specification {
+    def "SamplingTracer should record every incoming stage of a message, in order"() {
+        given:
+            def tracer = new SamplingTracer(1, 4)
+            def tracing = new ConnectionTracing(tracer)
+            def factory = new GsonMessageIOFactory()
+            def bytes = new ByteArrayOutputStream()
+            factory.createWriter(bytes).write(new TestMessage(name: "traced"))
+            def reader = tracing.createReader(factory.createReader(tracing.trace(new ByteArrayInputStream(bytes
+                  .toByteArray()))))
+            def queue = new MessageQueue([], null, PriorityPolicy.DEFAULT, null, tracer)
+            def task = new ExecutionTask(queue, Mock(ExecutionContext), [])
+
+        when:
+            queue.messageReceived(reader.read())
+            task.run()
+            def timelines = tracer.timelines
+            def stages = TraceStage.FRAME_READ..TraceStage.EXECUTION_END
+
+        then:
+            timelines.size() == 1
+            timelines[0].messageType == AdaptedMessage
+            stages.every { timelines[0].hasStage(it) }
+            !timelines[0].hasStage(TraceStage.WRITTEN)
+            (0..<stages.size() - 1).every {
+                timelines[0].getNanos(stages[it]) <= timelines[0].getNanos(stages[it + 1])
+            }
+    }
+
+    def "SamplingTracer should retain only the most recent timelines"() {
+        given:
+            def tracer = new SamplingTracer(1, 2)
+            def tracing = new ConnectionTracing(tracer)
+            def writer = new GsonMessageIOFactory().createWriter(tracing.trace(new ByteArrayOutputStream()))
+            writer = tracing.createWriter(writer)
+            def dump = new StringBuilder()
+
+        when:
+            ["first", "second", "third"].each { writer.write(new TestMessage(name: it)) }
+            tracer.dump(dump)
+
+        then:
+            tracer.recordedCount == 3
+            tracer.timelines.size() == 2
+            tracer.timelines.every {
+                it.getNanos(TraceStage.ENCODED) <= it.getNanos(TraceStage.WRITTEN) && !it.hasStage(TraceStage.DECODED)
+            }
+            dump.readLines().size() == 2
+            dump.readLines().every { it.contains("ENCODED=+0ns WRITTEN=+") }
+    }
+}
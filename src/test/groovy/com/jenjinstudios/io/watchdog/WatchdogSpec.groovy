@@ -0,0 +1,99 @@
+package com.jenjinstudios.io.watchdog
+
+import com.jenjinstudios.io.ExecutionContext
+import com.jenjinstudios.io.Message
+import com.jenjinstudios.io.MessageWriter
+import com.jenjinstudios.io.concurrency.ExecutionTask
+import com.jenjinstudios.io.concurrency.InterceptorChain
+import com.jenjinstudios.io.concurrency.MessageQueue
+import com.jenjinstudios.io.concurrency.ResponseOrdering
+import com.jenjinstudios.io.connection.Connection
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Specification and test for the Watchdog class.
+ *
+ * @author Caleb Brinkman
+ */
+class WatchdogSpec extends Specification {
+    def "Watchdog should report a long execution once, and quarantine its connection"() {
+        given:
+            def stalls = []
+            def watchdog = new Watchdog(10, TimeUnit.MILLISECONDS, { stalls << it }, true)
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            def watch = watchdog.createWatch()
+            watchdog.attach(watch, connection)
+            def started = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            // Not a Mock, which would hold the lock of the mock controller while it blocks
+            def message = [execute: { context ->
+                started.countDown()
+                release.await()
+                null
+            }] as Message
+            def queue = new MessageQueue()
+            def task = new ExecutionTask(queue, Mock(ExecutionContext), [], ResponseOrdering.IN_ORDER, [:],
+                  new InterceptorChain(), null, watch)
+            queue.messageReceived(message)
+            def thread = Thread.start { task.run() }
+
+        when:
+            started.await()
+            Thread.sleep(50)
+            watchdog.tick()
+            watchdog.tick()
+
+        then:
+            stalls.size() == 1
+            stalls[0].connectionId == "connection"
+            stalls[0].activity == WatchedActivity.EXECUTION
+            stalls[0].messageType == message.getClass()
+            stalls[0].elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(10)
+            stalls[0].stackTrace.any { it.methodName == "await" }
+            1 * connection.stop()
+            watchdog.quarantinedCount == 1
+            watchdog.connectionCount == 0
+
+        cleanup:
+            release.countDown()
+            thread.join()
+    }
+
+    def "Watchdog should report long writes, but not writes which have finished"() {
+        given:
+            def stalls = []
+            def watchdog = new Watchdog(10, TimeUnit.MILLISECONDS, { stalls << it })
+            def connection = Mock(Connection)
+            connection.id >> "connection"
+            def watch = watchdog.createWatch()
+            watchdog.attach(watch, connection)
+            def release = new CountDownLatch(1)
+            def writer = watch.createWriter({ release.await() } as MessageWriter)
+            def thread = Thread.start { writer.write(Mock(Message)) }
+
+        when:
+            Thread.sleep(50)
+            release.countDown()
+            thread.join()
+            watchdog.tick()
+
+        then:
+            stalls.isEmpty()
+
+        when:
+            watch.writing(Mock(Message))
+            Thread.sleep(50)
+            watchdog.tick()
+
+        then:
+            stalls.size() == 1
+            stalls[0].activity == WatchedActivity.WRITE
+            0 * connection.stop()
+            watchdog.stallCount == 1
+            watchdog.connectionCount == 1
+    }
+}